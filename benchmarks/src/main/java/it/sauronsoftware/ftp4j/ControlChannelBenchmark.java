@@ -0,0 +1,199 @@
+/*
+ * ftp4j - A pure Java FTP client library
+ * 
+ * Copyright (C) 2008-2010 Carlo Pelliccia (www.sauronsoftware.it)
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License version
+ * 2.1, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License 2.1 for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License version 2.1 along with this program.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+package it.sauronsoftware.ftp4j;
+
+import it.sauronsoftware.ftp4j.benchmarks.ListCorpus;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures the control connection reply decoding
+ * ({@link FTPCommunicationChannel#readFTPReply()}) and the line reading of
+ * the textual data connections ({@link NVTASCIIReader#readLine()}). It lives
+ * in the ftp4j package since NVTASCIIReader is not public.
+ * 
+ * The communication channel is built over an in-memory socket whose input
+ * repeats a recorded server conversation forever.
+ * 
+ * @author Carlo Pelliccia
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ControlChannelBenchmark {
+
+	/**
+	 * A multi-line FEAT reply, as returned by a feature-rich server.
+	 */
+	private static final String FEAT_REPLY = "211-Features:\r\n"
+			+ " AUTH TLS\r\n" + " CCC\r\n" + " CLNT\r\n" + " EPRT\r\n"
+			+ " EPSV\r\n" + " HOST\r\n" + " LANG en-US.UTF-8*;fr-FR.UTF-8\r\n"
+			+ " MDTM\r\n" + " MFCT\r\n" + " MFF modify;UNIX.group;UNIX.mode;\r\n"
+			+ " MFMT\r\n" + " MLST modify*;perm*;size*;type*;unique*;"
+			+ "UNIX.group*;UNIX.mode*;UNIX.owner*;\r\n" + " MODE Z\r\n"
+			+ " PBSZ\r\n" + " PROT\r\n" + " REST STREAM\r\n" + " SITE COPY\r\n"
+			+ " SITE MKDIR\r\n" + " SITE RMDIR\r\n" + " SITE SYMLINK\r\n"
+			+ " SITE UTIME\r\n" + " SIZE\r\n" + " TVFS\r\n" + " UTF8\r\n"
+			+ "211 End\r\n";
+
+	/**
+	 * A burst of single-line replies, as seen during a transfer.
+	 */
+	private static final String SIMPLE_REPLIES = "200 Type set to I\r\n"
+			+ "227 Entering Passive Mode (192,168,1,10,195,80).\r\n"
+			+ "350 Restarting at 0. Send STORE or RETRIEVE\r\n"
+			+ "150 Opening BINARY mode data connection for file.bin (1048576 bytes)\r\n"
+			+ "226 Transfer complete\r\n" + "213 1048576\r\n"
+			+ "213 20110107120000\r\n" + "250 CWD command successful\r\n";
+
+	/**
+	 * The number of replies in SIMPLE_REPLIES.
+	 */
+	private static final int SIMPLE_REPLIES_COUNT = 8;
+
+	/**
+	 * An input stream repeating the same bytes forever.
+	 */
+	private static class CyclicInputStream extends InputStream {
+
+		private byte[] data;
+
+		private int position = 0;
+
+		public CyclicInputStream(byte[] data) {
+			this.data = data;
+		}
+
+		public int read() throws IOException {
+			int b = data[position] & 0xff;
+			position = (position + 1) % data.length;
+			return b;
+		}
+
+		public int read(byte[] b, int off, int len) throws IOException {
+			int n = Math.min(len, data.length - position);
+			System.arraycopy(data, position, b, off, n);
+			position = (position + n) % data.length;
+			return n;
+		}
+
+	}
+
+	/**
+	 * A socket reading from a CyclicInputStream and discarding its output.
+	 */
+	private static class MemorySocket extends Socket {
+
+		private InputStream in;
+
+		private OutputStream out = new OutputStream() {
+			public void write(int b) throws IOException {
+			}
+
+			public void write(byte[] b, int off, int len) throws IOException {
+			}
+		};
+
+		public MemorySocket(String conversation) throws IOException {
+			in = new CyclicInputStream(conversation.getBytes("US-ASCII"));
+		}
+
+		public InputStream getInputStream() {
+			return in;
+		}
+
+		public OutputStream getOutputStream() {
+			return out;
+		}
+
+	}
+
+	@Param( { "10000", "100000" })
+	public int listLines;
+
+	private FTPCommunicationChannel featChannel;
+
+	private FTPCommunicationChannel simpleChannel;
+
+	private byte[] listing;
+
+	@Setup
+	public void setup() throws IOException {
+		featChannel = new FTPCommunicationChannel(new MemorySocket(FEAT_REPLY),
+				"UTF-8");
+		simpleChannel = new FTPCommunicationChannel(new MemorySocket(
+				SIMPLE_REPLIES), "UTF-8");
+		String[] lines = ListCorpus.build("unix", listLines);
+		StringBuffer buffer = new StringBuffer();
+		for (int i = 0; i < lines.length; i++) {
+			buffer.append(lines[i]).append("\r\n");
+		}
+		listing = buffer.toString().getBytes("UTF-8");
+	}
+
+	@Benchmark
+	public FTPReply readFeatReply() throws IOException,
+			FTPIllegalReplyException {
+		return featChannel.readFTPReply();
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(SIMPLE_REPLIES_COUNT)
+	public void readSimpleReplies(Blackhole blackhole) throws IOException,
+			FTPIllegalReplyException {
+		for (int i = 0; i < SIMPLE_REPLIES_COUNT; i++) {
+			blackhole.consume(simpleChannel.readFTPReply());
+		}
+	}
+
+	@Benchmark
+	@OutputTimeUnit(TimeUnit.MILLISECONDS)
+	public int readListingLines() throws IOException {
+		NVTASCIIReader reader = new NVTASCIIReader(new ByteArrayInputStream(
+				listing), "UTF-8");
+		int count = 0;
+		while (reader.readLine() != null) {
+			count++;
+		}
+		return count;
+	}
+
+}
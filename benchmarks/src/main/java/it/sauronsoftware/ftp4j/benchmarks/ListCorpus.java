@@ -0,0 +1,209 @@
+/*
+ * ftp4j - A pure Java FTP client library
+ * 
+ * Copyright (C) 2008-2010 Carlo Pelliccia (www.sauronsoftware.it)
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License version
+ * 2.1, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License 2.1 for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License version 2.1 along with this program.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+package it.sauronsoftware.ftp4j.benchmarks;
+
+import java.util.Random;
+
+/**
+ * Generates the directory listing corpora used by the benchmarks, in the
+ * formats recognized by the built-in list parsers. The listings mix files,
+ * directories and (where the format has them) links, recent and old dates,
+ * and names and sizes of varying length, as real servers return them. A
+ * fixed seed makes every run parse the same lines.
+ * 
+ * @author Carlo Pelliccia
+ */
+public class ListCorpus {
+
+	private static final String[] MONTHS = { "Jan", "Feb", "Mar", "Apr",
+			"May", "Jun", "Jul", "Aug", "Sep", "Oct", "Nov", "Dec" };
+
+	private static final String[] EXTENSIONS = { ".txt", ".zip", ".jpg",
+			".tar.gz", ".html", ".log", "" };
+
+	private static final String[] OWNERS = { "ftp", "root", "www-data",
+			"carlo", "backup" };
+
+	/**
+	 * Builds a listing.
+	 * 
+	 * @param format
+	 *            One of "unix", "dos", "netware", "eplf" or "mlsd".
+	 * @param lines
+	 *            The number of lines.
+	 * @return The listing lines.
+	 */
+	public static String[] build(String format, int lines) {
+		Random random = new Random(lines);
+		String[] ret = new String[lines];
+		for (int i = 0; i < lines; i++) {
+			boolean dir = random.nextInt(10) == 0;
+			String name = name(random, i, dir);
+			long size = dir ? 4096 : sizeOf(random);
+			if ("unix".equals(format)) {
+				ret[i] = unix(random, name, size, dir);
+			} else if ("dos".equals(format)) {
+				ret[i] = dos(random, name, size, dir);
+			} else if ("netware".equals(format)) {
+				ret[i] = netware(random, name, size, dir);
+			} else if ("eplf".equals(format)) {
+				ret[i] = eplf(random, name, size, dir);
+			} else if ("mlsd".equals(format)) {
+				ret[i] = mlsd(random, name, size, dir);
+			} else {
+				throw new IllegalArgumentException("Unknown format " + format);
+			}
+		}
+		return ret;
+	}
+
+	private static String name(Random random, int i, boolean dir) {
+		StringBuffer buffer = new StringBuffer();
+		buffer.append(dir ? "dir-" : "file-");
+		buffer.append(i);
+		int words = random.nextInt(4);
+		for (int j = 0; j < words; j++) {
+			buffer.append(random.nextBoolean() ? ' ' : '_');
+			buffer.append(Long.toString(random.nextLong() >>> 40, 36));
+		}
+		if (!dir) {
+			buffer.append(EXTENSIONS[random.nextInt(EXTENSIONS.length)]);
+		}
+		return buffer.toString();
+	}
+
+	private static long sizeOf(Random random) {
+		// Mostly small files, some big ones.
+		int magnitude = random.nextInt(10);
+		long max = magnitude < 7 ? 100000L : (magnitude < 9 ? 100000000L
+				: 10000000000L);
+		return (long) (random.nextDouble() * max);
+	}
+
+	private static String pad(long value, int width) {
+		String s = Long.toString(value);
+		StringBuffer buffer = new StringBuffer();
+		for (int i = s.length(); i < width; i++) {
+			buffer.append(' ');
+		}
+		buffer.append(s);
+		return buffer.toString();
+	}
+
+	private static String two(int value) {
+		return value < 10 ? "0" + value : Integer.toString(value);
+	}
+
+	private static String unix(Random random, String name, long size,
+			boolean dir) {
+		boolean link = !dir && random.nextInt(50) == 0;
+		String owner = OWNERS[random.nextInt(OWNERS.length)];
+		StringBuffer buffer = new StringBuffer();
+		buffer.append(dir ? "drwxr-xr-x" : (link ? "lrwxrwxrwx" : "-rw-r--r--"));
+		buffer.append(pad(1 + random.nextInt(3), 4));
+		buffer.append(' ').append(owner);
+		buffer.append("     ").append(owner);
+		buffer.append(pad(size, 12));
+		buffer.append(' ').append(MONTHS[random.nextInt(12)]);
+		buffer.append(pad(1 + random.nextInt(28), 3));
+		if (random.nextBoolean()) {
+			buffer.append(' ').append(two(random.nextInt(24))).append(':')
+					.append(two(random.nextInt(60)));
+		} else {
+			buffer.append("  ").append(1995 + random.nextInt(20));
+		}
+		buffer.append(' ').append(name);
+		if (link) {
+			buffer.append(" -> ../").append(name);
+		}
+		return buffer.toString();
+	}
+
+	private static String dos(Random random, String name, long size,
+			boolean dir) {
+		StringBuffer buffer = new StringBuffer();
+		buffer.append(two(1 + random.nextInt(12))).append('-');
+		buffer.append(two(1 + random.nextInt(28))).append('-');
+		buffer.append(two(random.nextInt(30))).append("  ");
+		buffer.append(two(1 + random.nextInt(12))).append(':');
+		buffer.append(two(random.nextInt(60)));
+		buffer.append(random.nextBoolean() ? "AM" : "PM");
+		if (dir) {
+			buffer.append("       <DIR>          ");
+		} else {
+			buffer.append(pad(size, 20)).append(' ');
+		}
+		buffer.append(name);
+		return buffer.toString();
+	}
+
+	private static String netware(Random random, String name, long size,
+			boolean dir) {
+		StringBuffer buffer = new StringBuffer();
+		buffer.append(dir ? 'd' : '-');
+		buffer.append(" [RWCEAFMS] ");
+		buffer.append(OWNERS[random.nextInt(OWNERS.length)]);
+		buffer.append(pad(size, 12));
+		buffer.append(' ').append(MONTHS[random.nextInt(12)]);
+		buffer.append(pad(1 + random.nextInt(28), 3));
+		if (random.nextBoolean()) {
+			buffer.append(' ').append(two(random.nextInt(24))).append(':')
+					.append(two(random.nextInt(60)));
+		} else {
+			buffer.append("  ").append(1995 + random.nextInt(20));
+		}
+		buffer.append(' ').append(name);
+		return buffer.toString();
+	}
+
+	private static String eplf(Random random, String name, long size,
+			boolean dir) {
+		StringBuffer buffer = new StringBuffer();
+		buffer.append("+i").append(random.nextInt(10000000)).append('.')
+				.append(random.nextInt(100000));
+		buffer.append(",m").append(800000000 + random.nextInt(500000000));
+		if (dir) {
+			buffer.append(",/,");
+		} else {
+			buffer.append(",r,s").append(size).append(',');
+		}
+		buffer.append('\t').append(name);
+		return buffer.toString();
+	}
+
+	private static String mlsd(Random random, String name, long size,
+			boolean dir) {
+		StringBuffer buffer = new StringBuffer();
+		buffer.append("type=").append(dir ? "dir" : "file");
+		buffer.append(";size=").append(size);
+		buffer.append(";modify=").append(1995 + random.nextInt(20));
+		buffer.append(two(1 + random.nextInt(12)));
+		buffer.append(two(1 + random.nextInt(28)));
+		buffer.append(two(random.nextInt(24)));
+		buffer.append(two(random.nextInt(60)));
+		buffer.append(two(random.nextInt(60)));
+		if (random.nextBoolean()) {
+			buffer.append('.').append(random.nextInt(1000));
+		}
+		buffer.append(";perm=").append(dir ? "flcdmpe" : "adfrw");
+		buffer.append("; ").append(name);
+		return buffer.toString();
+	}
+
+}
@@ -0,0 +1,104 @@
+/*
+ * ftp4j - A pure Java FTP client library
+ * 
+ * Copyright (C) 2008-2010 Carlo Pelliccia (www.sauronsoftware.it)
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License version
+ * 2.1, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License 2.1 for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License version 2.1 along with this program.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+package it.sauronsoftware.ftp4j.benchmarks;
+
+import it.sauronsoftware.ftp4j.FTPFile;
+import it.sauronsoftware.ftp4j.FTPLineListParser;
+import it.sauronsoftware.ftp4j.FTPListParseException;
+import it.sauronsoftware.ftp4j.listparsers.DOSListParser;
+import it.sauronsoftware.ftp4j.listparsers.EPLFListParser;
+import it.sauronsoftware.ftp4j.listparsers.MLSDListParser;
+import it.sauronsoftware.ftp4j.listparsers.NetWareListParser;
+import it.sauronsoftware.ftp4j.listparsers.UnixListParser;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures the built-in list parsers on generated listings of 10k, 100k and
+ * 1M lines. The parse benchmark goes through the whole-listing
+ * parse(String[]) method, the parseLine one through the line-at-a-time
+ * method used by streaming listings.
+ * 
+ * @author Carlo Pelliccia
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = { "-Xmx4g" })
+public class ListParserBenchmark {
+
+	@Param( { "unix", "dos", "netware", "eplf", "mlsd" })
+	public String format;
+
+	@Param( { "10000", "100000", "1000000" })
+	public int lines;
+
+	private String[] listing;
+
+	private FTPLineListParser parser;
+
+	@Setup
+	public void setup() throws FTPListParseException {
+		listing = ListCorpus.build(format, lines);
+		if ("unix".equals(format)) {
+			parser = new UnixListParser();
+		} else if ("dos".equals(format)) {
+			parser = new DOSListParser();
+		} else if ("netware".equals(format)) {
+			parser = new NetWareListParser();
+		} else if ("eplf".equals(format)) {
+			parser = new EPLFListParser();
+		} else {
+			parser = new MLSDListParser();
+		}
+		// Fails fast if the corpus doesn't match the parser.
+		FTPFile[] files = parser.parse(listing);
+		if (files.length == 0) {
+			throw new IllegalStateException("Empty " + format + " listing");
+		}
+	}
+
+	@Benchmark
+	public FTPFile[] parse() throws FTPListParseException {
+		return parser.parse(listing);
+	}
+
+	@Benchmark
+	public void parseLine(Blackhole blackhole) throws FTPListParseException {
+		for (int i = 0; i < listing.length; i++) {
+			blackhole.consume(parser.parseLine(listing[i]));
+		}
+	}
+
+}
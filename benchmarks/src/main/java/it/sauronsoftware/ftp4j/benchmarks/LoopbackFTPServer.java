@@ -0,0 +1,233 @@
+/*
+ * ftp4j - A pure Java FTP client library
+ * 
+ * Copyright (C) 2008-2010 Carlo Pelliccia (www.sauronsoftware.it)
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License version
+ * 2.1, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License 2.1 for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License version 2.1 along with this program.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+package it.sauronsoftware.ftp4j.benchmarks;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+
+/**
+ * A minimal FTP server on the loopback interface, used by the transfer
+ * benchmarks. It accepts any login, serves a RETR of any name with a
+ * generated content of a fixed length and discards whatever is sent with
+ * STOR or APPE. Only the passive mode is supported. The data connections are
+ * real loopback sockets, so the benchmarks measure the client transfer loops
+ * without any disk or network in the way.
+ * 
+ * @author Carlo Pelliccia
+ */
+public class LoopbackFTPServer implements Runnable {
+
+	/**
+	 * The listening socket.
+	 */
+	private ServerSocket serverSocket;
+
+	/**
+	 * The length of the served content.
+	 */
+	private long contentLength;
+
+	/**
+	 * The chunk repeated to build the served content.
+	 */
+	private byte[] chunk = new byte[65536];
+
+	/**
+	 * Starts the server on a free port.
+	 * 
+	 * @param contentLength
+	 *            The length of the content served by RETR.
+	 * @throws IOException
+	 *             If the server socket cannot be opened.
+	 */
+	public LoopbackFTPServer(long contentLength) throws IOException {
+		this.contentLength = contentLength;
+		for (int i = 0; i < chunk.length; i++) {
+			chunk[i] = (byte) (i * 31);
+		}
+		serverSocket = new ServerSocket(0, 50, InetAddress.getByName(null));
+		Thread thread = new Thread(this, "loopback-ftp-server");
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	/**
+	 * Returns the port listened by the server.
+	 * 
+	 * @return The port listened by the server.
+	 */
+	public int getPort() {
+		return serverSocket.getLocalPort();
+	}
+
+	/**
+	 * Stops the server.
+	 */
+	public void close() {
+		try {
+			serverSocket.close();
+		} catch (Throwable t) {
+			;
+		}
+	}
+
+	public void run() {
+		while (true) {
+			final Socket socket;
+			try {
+				socket = serverSocket.accept();
+			} catch (IOException e) {
+				// Closed.
+				return;
+			}
+			Thread thread = new Thread(new Runnable() {
+				public void run() {
+					try {
+						session(socket);
+					} catch (IOException e) {
+						;
+					} finally {
+						try {
+							socket.close();
+						} catch (Throwable t) {
+							;
+						}
+					}
+				}
+			}, "loopback-ftp-session");
+			thread.setDaemon(true);
+			thread.start();
+		}
+	}
+
+	private void session(Socket socket) throws IOException {
+		BufferedReader reader = new BufferedReader(new InputStreamReader(
+				socket.getInputStream(), "US-ASCII"));
+		Writer writer = new OutputStreamWriter(socket.getOutputStream(),
+				"US-ASCII");
+		ServerSocket passive = null;
+		long restartAt = 0;
+		reply(writer, "220 Loopback server ready");
+		while (true) {
+			String line = reader.readLine();
+			if (line == null) {
+				break;
+			}
+			int space = line.indexOf(' ');
+			String command = (space == -1 ? line : line.substring(0, space))
+					.toUpperCase();
+			String argument = space == -1 ? "" : line.substring(space + 1);
+			if ("USER".equals(command)) {
+				reply(writer, "331 Password required");
+			} else if ("PASS".equals(command)) {
+				reply(writer, "230 Logged in");
+			} else if ("FEAT".equals(command)) {
+				reply(writer, "211-Features:\r\n REST STREAM\r\n SIZE\r\n211 End");
+			} else if ("TYPE".equals(command)) {
+				reply(writer, "200 Type set");
+			} else if ("PWD".equals(command)) {
+				reply(writer, "257 \"/\"");
+			} else if ("NOOP".equals(command)) {
+				reply(writer, "200 NOOP ok");
+			} else if ("SIZE".equals(command)) {
+				reply(writer, "213 " + contentLength);
+			} else if ("REST".equals(command)) {
+				restartAt = Long.parseLong(argument.trim());
+				reply(writer, "350 Restarting at " + restartAt);
+			} else if ("PASV".equals(command)) {
+				if (passive != null) {
+					passive.close();
+				}
+				passive = new ServerSocket(0, 1, socket.getLocalAddress());
+				byte[] address = socket.getLocalAddress().getAddress();
+				int port = passive.getLocalPort();
+				reply(writer, "227 Entering Passive Mode (" + (address[0] & 0xff)
+						+ "," + (address[1] & 0xff) + "," + (address[2] & 0xff)
+						+ "," + (address[3] & 0xff) + "," + (port >> 8) + ","
+						+ (port & 0xff) + ")");
+			} else if ("RETR".equals(command)) {
+				if (passive == null) {
+					reply(writer, "425 Use PASV first");
+					continue;
+				}
+				reply(writer, "150 Opening data connection");
+				Socket data = passive.accept();
+				passive.close();
+				passive = null;
+				try {
+					OutputStream out = data.getOutputStream();
+					long remaining = contentLength - restartAt;
+					while (remaining > 0) {
+						int len = (int) Math.min(chunk.length, remaining);
+						out.write(chunk, 0, len);
+						remaining -= len;
+					}
+					out.flush();
+				} finally {
+					data.close();
+				}
+				restartAt = 0;
+				reply(writer, "226 Transfer complete");
+			} else if ("STOR".equals(command) || "APPE".equals(command)) {
+				if (passive == null) {
+					reply(writer, "425 Use PASV first");
+					continue;
+				}
+				reply(writer, "150 Opening data connection");
+				Socket data = passive.accept();
+				passive.close();
+				passive = null;
+				try {
+					InputStream in = data.getInputStream();
+					byte[] buffer = new byte[65536];
+					while (in.read(buffer) != -1) {
+						;
+					}
+				} finally {
+					data.close();
+				}
+				restartAt = 0;
+				reply(writer, "226 Transfer complete");
+			} else if ("QUIT".equals(command)) {
+				reply(writer, "221 Goodbye");
+				break;
+			} else {
+				reply(writer, "502 Command not implemented");
+			}
+		}
+		if (passive != null) {
+			passive.close();
+		}
+	}
+
+	private void reply(Writer writer, String reply) throws IOException {
+		writer.write(reply);
+		writer.write("\r\n");
+		writer.flush();
+	}
+
+}
@@ -0,0 +1,167 @@
+/*
+ * ftp4j - A pure Java FTP client library
+ * 
+ * Copyright (C) 2008-2010 Carlo Pelliccia (www.sauronsoftware.it)
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License version
+ * 2.1, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License 2.1 for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License version 2.1 along with this program.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+package it.sauronsoftware.ftp4j.benchmarks;
+
+import it.sauronsoftware.ftp4j.FTPClient;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the binary download and upload loops of {@link FTPClient} against
+ * a {@link LoopbackFTPServer}. The file benchmarks go through the
+ * FileChannel paths, the stream benchmarks through the heap buffer loops,
+ * reading from and writing to memory.
+ * 
+ * @author Carlo Pelliccia
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TransferBenchmark {
+
+	/**
+	 * An input stream producing a fixed number of bytes from memory.
+	 */
+	private static class MemoryInputStream extends InputStream {
+
+		private byte[] chunk = new byte[65536];
+
+		private long remaining;
+
+		public MemoryInputStream(long length) {
+			remaining = length;
+		}
+
+		public int read() throws IOException {
+			if (remaining <= 0) {
+				return -1;
+			}
+			remaining--;
+			return 0;
+		}
+
+		public int read(byte[] b, int off, int len) throws IOException {
+			if (remaining <= 0) {
+				return -1;
+			}
+			int n = (int) Math.min(Math.min(len, chunk.length), remaining);
+			System.arraycopy(chunk, 0, b, off, n);
+			remaining -= n;
+			return n;
+		}
+
+	}
+
+	/**
+	 * An output stream discarding everything.
+	 */
+	private static class NullOutputStream extends OutputStream {
+
+		public void write(int b) throws IOException {
+		}
+
+		public void write(byte[] b, int off, int len) throws IOException {
+		}
+
+	}
+
+	@Param( { "1048576", "67108864" })
+	public long size;
+
+	private LoopbackFTPServer server;
+
+	private FTPClient client;
+
+	private File source;
+
+	private File target;
+
+	@Setup
+	public void setup() throws Exception {
+		server = new LoopbackFTPServer(size);
+		client = new FTPClient();
+		client.setType(FTPClient.TYPE_BINARY);
+		client.connect("127.0.0.1", server.getPort());
+		client.login("bench", "bench");
+		source = File.createTempFile("ftp4j-bench", ".src");
+		source.deleteOnExit();
+		RandomAccessFile raf = new RandomAccessFile(source, "rw");
+		try {
+			raf.setLength(size);
+		} finally {
+			raf.close();
+		}
+		target = File.createTempFile("ftp4j-bench", ".dst");
+		target.deleteOnExit();
+	}
+
+	@TearDown
+	public void tearDown() {
+		try {
+			client.disconnect(true);
+		} catch (Throwable t) {
+			;
+		}
+		server.close();
+		source.delete();
+		target.delete();
+	}
+
+	@Benchmark
+	public void downloadToFile() throws Exception {
+		client.download("remote.bin", target);
+	}
+
+	@Benchmark
+	public void downloadToStream() throws Exception {
+		client.download("remote.bin", new NullOutputStream(), 0, null);
+	}
+
+	@Benchmark
+	public void uploadFromFile() throws Exception {
+		client.upload(source);
+	}
+
+	@Benchmark
+	public void uploadFromStream() throws Exception {
+		client.upload("remote.bin", new MemoryInputStream(size), 0, 0, null);
+	}
+
+}
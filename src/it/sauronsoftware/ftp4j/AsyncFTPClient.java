@@ -0,0 +1,412 @@
+/*
+ * ftp4j - A pure Java FTP client library
+ * 
+ * Copyright (C) 2008-2010 Carlo Pelliccia (www.sauronsoftware.it)
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License version
+ * 2.1, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License 2.1 for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License version 2.1 along with this program.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+package it.sauronsoftware.ftp4j;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Date;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * This class wraps a {@link FTPClient} and exposes its most common operations
+ * as methods returning a {@link CompletableFuture}, instead of blocking the
+ * caller until the operation is completed.
+ * 
+ * The operations are executed by an {@link Executor} supplied by the caller:
+ * a pool of virtual threads, a bounded thread pool or anything else. The
+ * operations requested on the same AsyncFTPClient are executed one at a time,
+ * in the order they have been requested, since they share a single FTP
+ * session. A worker thread of the executor is busy only while an operation
+ * of the session is actually running.
+ * 
+ * <pre>
+ * AsyncFTPClient client = new AsyncFTPClient(executor);
+ * client.connect(&quot;ftp.host.com&quot;);
+ * client.login(&quot;carlo&quot;, &quot;mypassword&quot;);
+ * client.list().thenAccept(files -&gt; ...);
+ * </pre>
+ * 
+ * When an operation fails its future is completed exceptionally with the
+ * exception thrown by the corresponding FTPClient method. A failure doesn't
+ * stop the queue: the operations requested after the failed one are executed
+ * anyway. A future cancelled before its operation starts causes the
+ * operation to be skipped. If the executor rejects an operation (i.e. a
+ * bounded pool which is full) its future is completed exceptionally with the
+ * rejection, and the queue goes on with the next operation.
+ * 
+ * @author Carlo Pelliccia
+ * @since 1.7
+ */
+public class AsyncFTPClient {
+
+	/**
+	 * An operation to be executed on the wrapped client.
+	 */
+	private interface Operation<T> {
+
+		T execute(FTPClient client) throws Exception;
+
+	}
+
+	/**
+	 * The wrapped client.
+	 */
+	private final FTPClient client;
+
+	/**
+	 * The executor running the operations.
+	 */
+	private final Executor executor;
+
+	/**
+	 * Lock object used for synchronization.
+	 */
+	private final Object lock = new Object();
+
+	/**
+	 * The completion of the last requested operation. Every new operation is
+	 * chained after it, so the operations of the session run in order. It is
+	 * always completed normally, even if the operation fails or is rejected
+	 * by the executor.
+	 */
+	private CompletableFuture<Void> tail = CompletableFuture.completedFuture(null);
+
+	/**
+	 * Builds the async client, wrapping a new {@link FTPClient}.
+	 * 
+	 * @param executor
+	 *            The executor running the operations.
+	 */
+	public AsyncFTPClient(Executor executor) {
+		this(new FTPClient(), executor);
+	}
+
+	/**
+	 * Builds the async client, wrapping the given {@link FTPClient}. The
+	 * client can be configured before the wrapping, but it should not be used
+	 * directly while operations are pending.
+	 * 
+	 * @param client
+	 *            The wrapped client.
+	 * @param executor
+	 *            The executor running the operations.
+	 */
+	public AsyncFTPClient(FTPClient client, Executor executor) {
+		if (client == null) {
+			throw new IllegalArgumentException("Client is null");
+		}
+		if (executor == null) {
+			throw new IllegalArgumentException("Executor is null");
+		}
+		this.client = client;
+		this.executor = executor;
+	}
+
+	/**
+	 * Returns the wrapped client.
+	 * 
+	 * @return The wrapped client.
+	 */
+	public FTPClient getClient() {
+		return client;
+	}
+
+	/**
+	 * Returns the executor running the operations.
+	 * 
+	 * @return The executor running the operations.
+	 */
+	public Executor getExecutor() {
+		return executor;
+	}
+
+	/**
+	 * Queues an operation after the ones already requested.
+	 * 
+	 * @param operation
+	 *            The operation.
+	 * @return The future completed with the operation result.
+	 */
+	private <T> CompletableFuture<T> enqueue(Operation<T> operation) {
+		CompletableFuture<T> future = new CompletableFuture<T>();
+		CompletableFuture<Void> done = new CompletableFuture<Void>();
+		synchronized (lock) {
+			CompletableFuture<Void> previous = tail;
+			tail = done;
+			previous.whenComplete((v, e) -> {
+				try {
+					executor.execute(() -> {
+						try {
+							if (!future.isDone()) {
+								future.complete(operation.execute(client));
+							}
+						} catch (Throwable t) {
+							future.completeExceptionally(t);
+						} finally {
+							done.complete(null);
+						}
+					});
+				} catch (Throwable t) {
+					// Rejected by the executor: the queue goes on anyway.
+					future.completeExceptionally(t);
+					done.complete(null);
+				}
+			});
+		}
+		return future;
+	}
+
+	/**
+	 * Asynchronous version of {@link FTPClient#connect(String)}.
+	 * 
+	 * @param host
+	 *            The hostname of the remote server.
+	 * @return The future completed with the server welcome message.
+	 */
+	public CompletableFuture<String[]> connect(String host) {
+		return enqueue(c -> c.connect(host));
+	}
+
+	/**
+	 * Asynchronous version of {@link FTPClient#connect(String, int)}.
+	 * 
+	 * @param host
+	 *            The host name or address of the remote server.
+	 * @param port
+	 *            The port listened by the remote server.
+	 * @return The future completed with the server welcome message.
+	 */
+	public CompletableFuture<String[]> connect(String host, int port) {
+		return enqueue(c -> c.connect(host, port));
+	}
+
+	/**
+	 * Asynchronous version of {@link FTPClient#disconnect(boolean)}.
+	 * 
+	 * @param sendQuitCommand
+	 *            If true the QUIT command is sent to the server.
+	 * @return The future completed when the client is disconnected.
+	 */
+	public CompletableFuture<Void> disconnect(boolean sendQuitCommand) {
+		return enqueue(c -> {
+			c.disconnect(sendQuitCommand);
+			return null;
+		});
+	}
+
+	/**
+	 * Asynchronous version of {@link FTPClient#login(String, String)}.
+	 * 
+	 * @param username
+	 *            The username.
+	 * @param password
+	 *            The password.
+	 * @return The future completed when the client is authenticated.
+	 */
+	public CompletableFuture<Void> login(String username, String password) {
+		return login(username, password, null);
+	}
+
+	/**
+	 * Asynchronous version of
+	 * {@link FTPClient#login(String, String, String)}.
+	 * 
+	 * @param username
+	 *            The username.
+	 * @param password
+	 *            The password.
+	 * @param account
+	 *            The account, if needed. Set it to null if you are sure the
+	 *            server does not require an account.
+	 * @return The future completed when the client is authenticated.
+	 */
+	public CompletableFuture<Void> login(String username, String password,
+			String account) {
+		return enqueue(c -> {
+			c.login(username, password, account);
+			return null;
+		});
+	}
+
+	/**
+	 * Asynchronous version of {@link FTPClient#list()}.
+	 * 
+	 * @return The future completed with the list of the files in the current
+	 *         working directory.
+	 */
+	public CompletableFuture<FTPFile[]> list() {
+		return enqueue(c -> c.list());
+	}
+
+	/**
+	 * Asynchronous version of {@link FTPClient#list(String)}.
+	 * 
+	 * @param fileSpec
+	 *            A file filter string. Depending on the server
+	 *            implementation, wildcard characters could be accepted.
+	 * @return The future completed with the list of the matching files.
+	 */
+	public CompletableFuture<FTPFile[]> list(String fileSpec) {
+		return enqueue(c -> c.list(fileSpec));
+	}
+
+	/**
+	 * Asynchronous version of {@link FTPClient#list(String, FTPFileVisitor)}.
+	 * The visitor is called by the executor thread running the operation.
+	 * 
+	 * @param fileSpec
+	 *            A file filter string. Depending on the server
+	 *            implementation, wildcard characters could be accepted.
+	 * @param visitor
+	 *            The visitor receiving the files.
+	 * @return The future completed when the listing is over.
+	 */
+	public CompletableFuture<Void> list(String fileSpec, FTPFileVisitor visitor) {
+		return enqueue(c -> {
+			c.list(fileSpec, visitor);
+			return null;
+		});
+	}
+
+	/**
+	 * Asynchronous version of {@link FTPClient#fileSize(String)}.
+	 * 
+	 * @param path
+	 *            The path to the file.
+	 * @return The future completed with the file size in bytes.
+	 */
+	public CompletableFuture<Long> fileSize(String path) {
+		return enqueue(c -> c.fileSize(path));
+	}
+
+	/**
+	 * Asynchronous version of {@link FTPClient#modifiedDate(String)}.
+	 * 
+	 * @param path
+	 *            The path to the file.
+	 * @return The future completed with the file last modification date.
+	 */
+	public CompletableFuture<Date> modifiedDate(String path) {
+		return enqueue(c -> c.modifiedDate(path));
+	}
+
+	/**
+	 * Asynchronous version of {@link FTPClient#download(String, File)}.
+	 * 
+	 * @param remoteFileName
+	 *            The name of the file to download.
+	 * @param localFile
+	 *            The local file.
+	 * @return The future completed when the file is downloaded.
+	 */
+	public CompletableFuture<Void> download(String remoteFileName, File localFile) {
+		return download(remoteFileName, localFile, 0, null);
+	}
+
+	/**
+	 * Asynchronous version of
+	 * {@link FTPClient#download(String, File, long, FTPDataTransferListener)}.
+	 * The listener is called by the executor thread running the operation.
+	 * 
+	 * @param remoteFileName
+	 *            The name of the file to download.
+	 * @param localFile
+	 *            The local file.
+	 * @param restartAt
+	 *            The restart point (number of bytes already downloaded).
+	 * @param listener
+	 *            The listener for the operation. Could be null.
+	 * @return The future completed when the file is downloaded.
+	 */
+	public CompletableFuture<Void> download(String remoteFileName,
+			File localFile, long restartAt, FTPDataTransferListener listener) {
+		return enqueue(c -> {
+			c.download(remoteFileName, localFile, restartAt, listener);
+			return null;
+		});
+	}
+
+	/**
+	 * Asynchronous version of {@link FTPClient#upload(File)}.
+	 * 
+	 * @param file
+	 *            The file to upload.
+	 * @return The future completed when the file is uploaded.
+	 */
+	public CompletableFuture<Void> upload(File file) {
+		return upload(file, 0, null);
+	}
+
+	/**
+	 * Asynchronous version of
+	 * {@link FTPClient#upload(File, long, FTPDataTransferListener)}. The
+	 * listener is called by the executor thread running the operation.
+	 * 
+	 * @param file
+	 *            The file to upload.
+	 * @param restartAt
+	 *            The restart point (number of bytes already uploaded).
+	 * @param listener
+	 *            The listener for the operation. Could be null.
+	 * @return The future completed when the file is uploaded.
+	 */
+	public CompletableFuture<Void> upload(File file, long restartAt,
+			FTPDataTransferListener listener) {
+		return enqueue(c -> {
+			c.upload(file, restartAt, listener);
+			return null;
+		});
+	}
+
+	/**
+	 * Aborts the data transfer currently running, if any. Unlike the other
+	 * methods of this class, this one is not queued: it acts immediately on
+	 * the running operation, whose future is then completed exceptionally.
+	 * 
+	 * @param sendAbortCommand
+	 *            If true the client will negotiate the abort procedure with
+	 *            the server, through the standard ABOR command. Otherwise the
+	 *            open data transfer connection will be closed without any
+	 *            advice has sent to the server.
+	 * @throws IOException
+	 *             If the ABOR command cannot be sent due to any I/O error.
+	 *             This could happen only if force is false.
+	 * @throws FTPIllegalReplyException
+	 *             If the server reply to the ABOR command is illegal. This
+	 *             could happen only if force is false.
+	 * @see FTPClient#abortCurrentDataTransfer(boolean)
+	 */
+	public void abortCurrentDataTransfer(boolean sendAbortCommand)
+			throws IOException, FTPIllegalReplyException {
+		client.abortCurrentDataTransfer(sendAbortCommand);
+	}
+
+	public String toString() {
+		StringBuffer buffer = new StringBuffer();
+		buffer.append(getClass().getName());
+		buffer.append(" [client=");
+		buffer.append(client);
+		buffer.append(", executor=");
+		buffer.append(executor);
+		buffer.append("]");
+		return buffer.toString();
+	}
+
+}
@@ -0,0 +1,239 @@
+/*
+ * ftp4j - A pure Java FTP client library
+ * 
+ * Copyright (C) 2008-2010 Carlo Pelliccia (www.sauronsoftware.it)
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License version
+ * 2.1, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License 2.1 for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License version 2.1 along with this program.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+package it.sauronsoftware.ftp4j;
+
+/**
+ * A token bucket limiting the bandwidth used by data transfers.
+ * 
+ * The bucket is filled at the given rate, up to a quarter of second of
+ * traffic, and every transfer takes from it the bytes it moves. A transfer
+ * finding the bucket empty is paused until the bytes it has moved are paid
+ * back. While the traffic stays under the limit transfers are never paused,
+ * and the cost of the accounting is negligible.
+ * 
+ * Limiters can be applied at three levels, and a transfer is paused as long
+ * as any of them requires:
+ * 
+ * <ul>
+ * <li>every transfer of every client is charged to the global limiter
+ * returned by {@link FTPBandwidthLimiter#getGlobal()}, which has no limit
+ * until its rate is set;</li>
+ * <li>the transfers of a client are charged to the limiter set with
+ * {@link FTPClient#setBandwidthLimiter(FTPBandwidthLimiter)}, which can be
+ * shared by a group of clients;</li>
+ * <li>every single transfer of a client is limited by the rate set with
+ * {@link FTPClient#setTransferRateLimit(long)}.</li>
+ * </ul>
+ * 
+ * The rate of a limiter can be changed at any time, and it takes effect on
+ * the running transfers too. Listeners are told about the pauses through
+ * {@link FTPDataTransferListener#throttled(long)}.
+ * 
+ * This class is thread-safe.
+ * 
+ * @author Carlo Pelliccia
+ * @since 1.7
+ */
+public class FTPBandwidthLimiter {
+
+	/**
+	 * The time of traffic the bucket can hold, in nanoseconds.
+	 */
+	private static final long BURST_TIME = 250000000L;
+
+	/**
+	 * The global limiter.
+	 */
+	private static final FTPBandwidthLimiter global = new FTPBandwidthLimiter(
+			0);
+
+	/**
+	 * Returns the global limiter, charged with every transfer of every client.
+	 * It has no limit until its rate is set.
+	 * 
+	 * @return The global limiter.
+	 */
+	public static FTPBandwidthLimiter getGlobal() {
+		return global;
+	}
+
+	/**
+	 * The rate, in bytes per second, or 0 for no limit.
+	 */
+	private long rate;
+
+	/**
+	 * The bytes in the bucket. A negative value is a debt, to be paid back by
+	 * pausing.
+	 */
+	private double tokens;
+
+	/**
+	 * The last time the bucket has been filled, as returned by
+	 * {@link System#nanoTime()}.
+	 */
+	private long lastFill;
+
+	/**
+	 * The number of bytes charged to the limiter.
+	 */
+	private long transferredBytes = 0;
+
+	/**
+	 * The total time of the pauses required by the limiter, in nanoseconds.
+	 */
+	private long throttledTime = 0;
+
+	/**
+	 * Builds the limiter.
+	 * 
+	 * @param rate
+	 *            The rate, in bytes per second, or 0 for no limit.
+	 * @throws IllegalArgumentException
+	 *             If the rate is negative.
+	 */
+	public FTPBandwidthLimiter(long rate) throws IllegalArgumentException {
+		if (rate < 0) {
+			throw new IllegalArgumentException("Invalid rate");
+		}
+		this.rate = rate;
+		this.tokens = capacity(rate);
+		this.lastFill = System.nanoTime();
+	}
+
+	/**
+	 * Returns the rate of the limiter.
+	 * 
+	 * @return The rate, in bytes per second, or 0 if there is no limit.
+	 */
+	public synchronized long getRate() {
+		return rate;
+	}
+
+	/**
+	 * Changes the rate of the limiter. The new rate applies to the running
+	 * transfers too.
+	 * 
+	 * @param rate
+	 *            The rate, in bytes per second, or 0 for no limit.
+	 * @throws IllegalArgumentException
+	 *             If the rate is negative.
+	 */
+	public synchronized void setRate(long rate)
+			throws IllegalArgumentException {
+		if (rate < 0) {
+			throw new IllegalArgumentException("Invalid rate");
+		}
+		long now = System.nanoTime();
+		if (this.rate > 0) {
+			fill(now);
+		} else {
+			tokens = capacity(rate);
+		}
+		this.rate = rate;
+		this.lastFill = now;
+		tokens = Math.min(tokens, capacity(rate));
+		if (rate == 0) {
+			// Debts are forgiven.
+			tokens = 0;
+		}
+	}
+
+	/**
+	 * Returns the number of bytes charged to the limiter.
+	 * 
+	 * @return The number of bytes charged to the limiter.
+	 */
+	public synchronized long getTransferredBytes() {
+		return transferredBytes;
+	}
+
+	/**
+	 * Returns the total time of the pauses required by the limiter.
+	 * 
+	 * @return The total time of the pauses, in milliseconds.
+	 */
+	public synchronized long getThrottledTime() {
+		return throttledTime / 1000000L;
+	}
+
+	/**
+	 * Charges some transferred bytes to the limiter.
+	 * 
+	 * @param length
+	 *            The number of bytes.
+	 * @return The time the transfer has to be paused, in nanoseconds, or 0 if
+	 *         it can go on.
+	 */
+	synchronized long charge(long length) {
+		transferredBytes += length;
+		if (rate <= 0) {
+			return 0;
+		}
+		fill(System.nanoTime());
+		tokens -= length;
+		if (tokens >= 0) {
+			return 0;
+		}
+		long delay = (long) (-tokens * 1000000000.0 / rate);
+		throttledTime += delay;
+		return delay;
+	}
+
+	/**
+	 * Fills the bucket with the bytes due since the last fill. Call it only
+	 * under the eye of the lock, with a rate greater than 0.
+	 * 
+	 * @param now
+	 *            The current time, as returned by {@link System#nanoTime()}.
+	 */
+	private void fill(long now) {
+		long elapsed = now - lastFill;
+		if (elapsed > 0) {
+			tokens = Math.min(capacity(rate), tokens + elapsed * (double) rate
+					/ 1000000000.0);
+			lastFill = now;
+		}
+	}
+
+	/**
+	 * Returns the capacity of the bucket for a rate.
+	 * 
+	 * @param rate
+	 *            The rate.
+	 * @return The capacity of the bucket, in bytes.
+	 */
+	private static double capacity(long rate) {
+		return rate * (double) BURST_TIME / 1000000000.0;
+	}
+
+	public synchronized String toString() {
+		StringBuffer buffer = new StringBuffer();
+		buffer.append(getClass().getName());
+		buffer.append(" [rate=");
+		buffer.append(rate);
+		buffer.append(", transferredBytes=");
+		buffer.append(transferredBytes);
+		buffer.append(", throttledTime=");
+		buffer.append(throttledTime / 1000000L);
+		buffer.append("]");
+		return buffer.toString();
+	}
+
+}
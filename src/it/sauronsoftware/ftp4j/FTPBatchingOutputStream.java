@@ -0,0 +1,126 @@
+/*
+ * ftp4j - A pure Java FTP client library
+ * 
+ * Copyright (C) 2008-2010 Carlo Pelliccia (www.sauronsoftware.it)
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License version
+ * 2.1, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License 2.1 for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License version 2.1 along with this program.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+package it.sauronsoftware.ftp4j;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * <p>
+ * A data transfer output stream that coalesces the writes in a batch buffer,
+ * sending them to the underlying stream only when the buffer is full or when
+ * the stream is flushed. Writes larger than the buffer go straight through.
+ * </p>
+ * 
+ * <p>
+ * Unlike {@link java.io.BufferedOutputStream}, the stream is not synchronized
+ * and it discards the pending batch when it is closed, so that an abort can
+ * close it from another thread while a write is blocked. The batch has to be
+ * flushed explicitly at the end of a successful transfer.
+ * </p>
+ * 
+ * @author Carlo Pelliccia
+ * @since 1.7
+ */
+class FTPBatchingOutputStream extends OutputStream {
+
+	/**
+	 * The underlying stream.
+	 */
+	private OutputStream outputStream;
+
+	/**
+	 * The batch buffer.
+	 */
+	private byte[] buffer;
+
+	/**
+	 * How many bytes are currently in the batch buffer.
+	 */
+	private int count = 0;
+
+	/**
+	 * Builds the stream.
+	 * 
+	 * @param outputStream
+	 *            The underlying stream.
+	 * @param buffer
+	 *            The batch buffer. Its length is the batch size. It's used
+	 *            until the stream is closed, and then it can be reused.
+	 */
+	public FTPBatchingOutputStream(OutputStream outputStream, byte[] buffer) {
+		if (buffer.length == 0) {
+			throw new IllegalArgumentException("Invalid batch size");
+		}
+		this.outputStream = outputStream;
+		this.buffer = buffer;
+	}
+
+	/**
+	 * Returns the batch buffer, so it can be given back to its pool once the
+	 * stream is closed.
+	 * 
+	 * @return The batch buffer.
+	 */
+	public byte[] getBuffer() {
+		return buffer;
+	}
+
+	/**
+	 * Writes the batch in the underlying stream.
+	 */
+	private void drain() throws IOException {
+		if (count > 0) {
+			int l = count;
+			count = 0;
+			outputStream.write(buffer, 0, l);
+		}
+	}
+
+	public void write(int b) throws IOException {
+		if (count == buffer.length) {
+			drain();
+		}
+		buffer[count++] = (byte) b;
+	}
+
+	public void write(byte[] b, int off, int len) throws IOException {
+		if (len >= buffer.length) {
+			drain();
+			outputStream.write(b, off, len);
+		} else {
+			if (len > buffer.length - count) {
+				drain();
+			}
+			System.arraycopy(b, off, buffer, count, len);
+			count += len;
+		}
+	}
+
+	public void flush() throws IOException {
+		drain();
+		outputStream.flush();
+	}
+
+	public void close() throws IOException {
+		count = 0;
+		outputStream.close();
+	}
+
+}
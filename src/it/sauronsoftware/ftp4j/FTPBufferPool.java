@@ -0,0 +1,368 @@
+/*
+ * ftp4j - A pure Java FTP client library
+ * 
+ * Copyright (C) 2008-2010 Carlo Pelliccia (www.sauronsoftware.it)
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License version
+ * 2.1, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License 2.1 for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License version 2.1 along with this program.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+package it.sauronsoftware.ftp4j;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A pool of the buffers used by the data transfer loops of the clients.
+ * 
+ * Every upload and download needs a buffer of the size given by
+ * {@link FTPClient#getBufferSize()}. Allocating a new one for every transfer
+ * costs little for a large file, but a lot of garbage for many small ones.
+ * A pool gives the buffers back to the next transfers instead.
+ * 
+ * The pool keeps at most a given number of idle buffers for every size and
+ * kind (bytes, chars or direct byte buffers); the buffers in excess are left
+ * to the garbage collector. Direct buffers are used by the SSLEngine based
+ * transport, whose connections keep them for all their life. A thread-local
+ * pool also keeps the last returned buffer of every thread aside, so a thread
+ * running many transfers gets it back without any contention.
+ * 
+ * All the clients share the pool returned by
+ * {@link FTPBufferPool#getDefault()}, unless another one is set with
+ * {@link FTPClient#setBufferPool(FTPBufferPool)}.
+ * 
+ * This class is thread-safe.
+ * 
+ * @author Carlo Pelliccia
+ * @since 1.7
+ */
+public class FTPBufferPool {
+
+	/**
+	 * The default pool.
+	 */
+	private static final FTPBufferPool defaultPool = new FTPBufferPool(16,
+			false);
+
+	/**
+	 * Returns the default pool, shared by all the clients. It keeps up to 16
+	 * idle buffers of every size and kind.
+	 * 
+	 * @return The default pool.
+	 */
+	public static FTPBufferPool getDefault() {
+		return defaultPool;
+	}
+
+	/**
+	 * The max number of idle buffers of every size and kind.
+	 */
+	private int maxIdleBuffers;
+
+	/**
+	 * Is this pool thread-local?
+	 */
+	private boolean threadLocal;
+
+	/**
+	 * The idle byte buffers, by size.
+	 */
+	private Map<Integer, Deque<byte[]>> idleBytes =
+			new HashMap<Integer, Deque<byte[]>>();
+
+	/**
+	 * The idle char buffers, by size.
+	 */
+	private Map<Integer, Deque<char[]>> idleChars =
+			new HashMap<Integer, Deque<char[]>>();
+
+	/**
+	 * The idle direct buffers, by capacity.
+	 */
+	private Map<Integer, Deque<ByteBuffer>> idleDirect =
+			new HashMap<Integer, Deque<ByteBuffer>>();
+
+	/**
+	 * The last buffers returned by every thread, as {byte[], char[]} pairs.
+	 * Used only if the pool is thread-local.
+	 */
+	private ThreadLocal<Object[]> lastReturned = new ThreadLocal<Object[]>();
+
+	/**
+	 * The number of buffers allocated by the pool.
+	 */
+	private long allocatedCount = 0;
+
+	/**
+	 * The number of buffers reused.
+	 */
+	private long reusedCount = 0;
+
+	/**
+	 * Builds the pool.
+	 * 
+	 * @param maxIdleBuffers
+	 *            The max number of idle buffers of every size and kind.
+	 * @param threadLocal
+	 *            true to keep aside the last buffers returned by every
+	 *            thread.
+	 * @throws IllegalArgumentException
+	 *             If the max number of idle buffers is negative.
+	 */
+	public FTPBufferPool(int maxIdleBuffers, boolean threadLocal)
+			throws IllegalArgumentException {
+		if (maxIdleBuffers < 0) {
+			throw new IllegalArgumentException("Invalid max idle buffers");
+		}
+		this.maxIdleBuffers = maxIdleBuffers;
+		this.threadLocal = threadLocal;
+	}
+
+	/**
+	 * Returns the max number of idle buffers of every size and kind.
+	 * 
+	 * @return The max number of idle buffers of every size and kind.
+	 */
+	public int getMaxIdleBuffers() {
+		return maxIdleBuffers;
+	}
+
+	/**
+	 * Checks whether the pool is thread-local.
+	 * 
+	 * @return true if the pool keeps aside the last buffers returned by every
+	 *         thread.
+	 */
+	public boolean isThreadLocal() {
+		return threadLocal;
+	}
+
+	/**
+	 * Returns the number of buffers allocated by the pool, since they were
+	 * not available for reuse.
+	 * 
+	 * @return The number of buffers allocated.
+	 */
+	public synchronized long getAllocatedCount() {
+		return allocatedCount;
+	}
+
+	/**
+	 * Returns the number of buffers reused.
+	 * 
+	 * @return The number of buffers reused.
+	 */
+	public synchronized long getReusedCount() {
+		return reusedCount;
+	}
+
+	/**
+	 * Borrows a byte buffer. It must be given back with
+	 * {@link FTPBufferPool#returnBytes(byte[])} when no longer used.
+	 * 
+	 * @param size
+	 *            The size of the buffer.
+	 * @return The buffer. Its contents are undefined.
+	 */
+	public byte[] borrowBytes(int size) {
+		if (threadLocal) {
+			Object[] last = lastReturned.get();
+			if (last != null && last[0] != null
+					&& ((byte[]) last[0]).length == size) {
+				byte[] ret = (byte[]) last[0];
+				last[0] = null;
+				synchronized (this) {
+					reusedCount++;
+				}
+				return ret;
+			}
+		}
+		synchronized (this) {
+			Deque<byte[]> idle = idleBytes.get(Integer.valueOf(size));
+			if (idle != null && idle.size() > 0) {
+				reusedCount++;
+				return idle.removeLast();
+			}
+			allocatedCount++;
+		}
+		return new byte[size];
+	}
+
+	/**
+	 * Gives back a byte buffer borrowed with
+	 * {@link FTPBufferPool#borrowBytes(int)}.
+	 * 
+	 * @param buffer
+	 *            The buffer.
+	 */
+	public void returnBytes(byte[] buffer) {
+		if (threadLocal) {
+			Object[] last = lastReturned();
+			if (last[0] == null) {
+				last[0] = buffer;
+				return;
+			}
+		}
+		synchronized (this) {
+			Deque<byte[]> idle = idleBytes.computeIfAbsent(
+					Integer.valueOf(buffer.length),
+					k -> new ArrayDeque<byte[]>());
+			if (idle.size() < maxIdleBuffers) {
+				idle.addLast(buffer);
+			}
+		}
+	}
+
+	/**
+	 * Borrows a char buffer. It must be given back with
+	 * {@link FTPBufferPool#returnChars(char[])} when no longer used.
+	 * 
+	 * @param size
+	 *            The size of the buffer.
+	 * @return The buffer. Its contents are undefined.
+	 */
+	public char[] borrowChars(int size) {
+		if (threadLocal) {
+			Object[] last = lastReturned.get();
+			if (last != null && last[1] != null
+					&& ((char[]) last[1]).length == size) {
+				char[] ret = (char[]) last[1];
+				last[1] = null;
+				synchronized (this) {
+					reusedCount++;
+				}
+				return ret;
+			}
+		}
+		synchronized (this) {
+			Deque<char[]> idle = idleChars.get(Integer.valueOf(size));
+			if (idle != null && idle.size() > 0) {
+				reusedCount++;
+				return idle.removeLast();
+			}
+			allocatedCount++;
+		}
+		return new char[size];
+	}
+
+	/**
+	 * Gives back a char buffer borrowed with
+	 * {@link FTPBufferPool#borrowChars(int)}.
+	 * 
+	 * @param buffer
+	 *            The buffer.
+	 */
+	public void returnChars(char[] buffer) {
+		if (threadLocal) {
+			Object[] last = lastReturned();
+			if (last[1] == null) {
+				last[1] = buffer;
+				return;
+			}
+		}
+		synchronized (this) {
+			Deque<char[]> idle = idleChars.computeIfAbsent(
+					Integer.valueOf(buffer.length),
+					k -> new ArrayDeque<char[]>());
+			if (idle.size() < maxIdleBuffers) {
+				idle.addLast(buffer);
+			}
+		}
+	}
+
+	/**
+	 * Borrows a direct byte buffer. It must be given back with
+	 * {@link FTPBufferPool#returnDirect(ByteBuffer)} when no longer used.
+	 * Direct buffers are not kept aside by thread-local pools.
+	 * 
+	 * @param size
+	 *            The capacity of the buffer.
+	 * @return The buffer, cleared. Its contents are undefined.
+	 */
+	public ByteBuffer borrowDirect(int size) {
+		synchronized (this) {
+			Deque<ByteBuffer> idle = idleDirect.get(Integer.valueOf(size));
+			if (idle != null && idle.size() > 0) {
+				reusedCount++;
+				ByteBuffer ret = idle.removeLast();
+				ret.clear();
+				return ret;
+			}
+			allocatedCount++;
+		}
+		return ByteBuffer.allocateDirect(size);
+	}
+
+	/**
+	 * Gives back a direct byte buffer borrowed with
+	 * {@link FTPBufferPool#borrowDirect(int)}.
+	 * 
+	 * @param buffer
+	 *            The buffer.
+	 */
+	public void returnDirect(ByteBuffer buffer) {
+		synchronized (this) {
+			Deque<ByteBuffer> idle = idleDirect.computeIfAbsent(
+					Integer.valueOf(buffer.capacity()),
+					k -> new ArrayDeque<ByteBuffer>());
+			if (idle.size() < maxIdleBuffers) {
+				idle.addLast(buffer);
+			}
+		}
+	}
+
+	/**
+	 * Drops all the idle buffers.
+	 */
+	public synchronized void clear() {
+		idleBytes.clear();
+		idleChars.clear();
+		idleDirect.clear();
+		if (threadLocal) {
+			// Only the buffers of the calling thread can be reached.
+			lastReturned.remove();
+		}
+	}
+
+	/**
+	 * Returns the slots of the calling thread for its last returned buffers.
+	 * 
+	 * @return The {byte[], char[]} slots of the calling thread.
+	 */
+	private Object[] lastReturned() {
+		Object[] ret = lastReturned.get();
+		if (ret == null) {
+			ret = new Object[2];
+			lastReturned.set(ret);
+		}
+		return ret;
+	}
+
+	public synchronized String toString() {
+		StringBuffer buffer = new StringBuffer();
+		buffer.append(getClass().getName());
+		buffer.append(" [maxIdleBuffers=");
+		buffer.append(maxIdleBuffers);
+		buffer.append(", threadLocal=");
+		buffer.append(threadLocal);
+		buffer.append(", allocatedCount=");
+		buffer.append(allocatedCount);
+		buffer.append(", reusedCount=");
+		buffer.append(reusedCount);
+		buffer.append("]");
+		return buffer.toString();
+	}
+
+}
@@ -1,3884 +1,6672 @@
-/*
- * ftp4j - A pure Java FTP client library
- * 
- * Copyright (C) 2008-2010 Carlo Pelliccia (www.sauronsoftware.it)
- * 
- * This program is free software: you can redistribute it and/or modify
- * it under the terms of the GNU Lesser General Public License version
- * 2.1, as published by the Free Software Foundation.
- *
- * This program is distributed in the hope that it will be useful,
- * but WITHOUT ANY WARRANTY; without even the implied warranty of
- * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
- * GNU Lesser General Public License 2.1 for more details.
- *
- * You should have received a copy of the GNU Lesser General Public
- * License version 2.1 along with this program.
- * If not, see <http://www.gnu.org/licenses/>.
- */
-package it.sauronsoftware.ftp4j;
-
-import it.sauronsoftware.ftp4j.connectors.DirectConnector;
-import it.sauronsoftware.ftp4j.extrecognizers.DefaultTextualExtensionRecognizer;
-import it.sauronsoftware.ftp4j.extrecognizers.ParametricTextualExtensionRecognizer;
-import it.sauronsoftware.ftp4j.listparsers.DOSListParser;
-import it.sauronsoftware.ftp4j.listparsers.EPLFListParser;
-import it.sauronsoftware.ftp4j.listparsers.MLSDListParser;
-import it.sauronsoftware.ftp4j.listparsers.NetWareListParser;
-import it.sauronsoftware.ftp4j.listparsers.UnixListParser;
-
-import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileNotFoundException;
-import java.io.FileOutputStream;
-import java.io.IOException;
-import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.io.OutputStream;
-import java.io.OutputStreamWriter;
-import java.io.Reader;
-import java.io.Writer;
-import java.net.InetAddress;
-import java.net.Socket;
-import java.text.DateFormat;
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
-import java.util.ArrayList;
-import java.util.Date;
-import java.util.Iterator;
-import java.util.StringTokenizer;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-import java.util.zip.DeflaterOutputStream;
-import java.util.zip.InflaterInputStream;
-
-import javax.net.ssl.SSLSocketFactory;
-
-/**
- * This class implements a FTP client.
- * 
- * You can use an instance of this class to connect to a remote FTP site and do
- * FTP operations like directory listing, file upload and download, resume a
- * broken upload/download and so on.
- * 
- * The common flow is: create the object, connect to a remote FTP site with the
- * connect() method, authenticate with login(), do anything you need with the
- * contents of the remote site, quit the site with disconnect().
- * 
- * A FTPClient object can handle a connection per time. Once you have used and
- * disconnected a FTPClient object you can use it again to connect another FTP
- * server.
- * 
- * @author Carlo Pelliccia
- * @version 1.5
- */
-public class FTPClient {
-
-	/**
-	 * The constant for the FTP security level.
-	 * 
-	 * @since 1.4
-	 */
-	public static final int SECURITY_FTP = 0;
-
-	/**
-	 * The constant for the FTPS (FTP over implicit TLS/SSL) security level.
-	 * 
-	 * @since 1.4
-	 */
-	public static final int SECURITY_FTPS = 1;
-
-	/**
-	 * The constant for the FTPES (FTP over explicit TLS/SSL) security level.
-	 * 
-	 * @since 1.4
-	 */
-	public static final int SECURITY_FTPES = 2;
-
-	/**
-	 * The constant for the AUTO file transfer type. It lets the client pick
-	 * between textual and binary types, depending on the extension of the file
-	 * exchanged through a textual extension recognizer.
-	 */
-	public static final int TYPE_AUTO = 0;
-
-	/**
-	 * The constant for the TEXTUAL file transfer type. It means that the data
-	 * sent or received is treated as textual information. This implies charset
-	 * conversion during the transfer.
-	 */
-	public static final int TYPE_TEXTUAL = 1;
-
-	/**
-	 * The constant for the BINARY file transfer type. It means that the data
-	 * sent or received is treated as a binary stream. The data is taken "as
-	 * is", without any charset conversion.
-	 */
-	public static final int TYPE_BINARY = 2;
-
-	/**
-	 * The constant for the MLSD policy that causes the client to use the MLSD
-	 * command instead of LIST, but only if the MLSD command is explicitly
-	 * supported by the server (the support is tested with the FEAT command).
-	 * 
-	 * @since 1.5
-	 */
-	public static final int MLSD_IF_SUPPORTED = 0;
-
-	/**
-	 * The constant for the MLSD policy that causes the client to use always the
-	 * MLSD command instead of LIST, also if the MLSD command is not explicitly
-	 * supported by the server (the support is tested with the FEAT command).
-	 * 
-	 * @since 1.5
-	 */
-	public static final int MLSD_ALWAYS = 1;
-
-	/**
-	 * The constant for the MLSD policy that causes the client to use always the
-	 * LIST command, also if the MLSD command is explicitly supported by the
-	 * server (the support is tested with the FEAT command).
-	 * 
-	 * @since 1.5
-	 */
-	public static final int MLSD_NEVER = 2;
-
-	/**
-	 * The size of the buffer used when sending or receiving data.
-	 * 
-	 * @since 1.6
-	 */
-	private static final int SEND_AND_RECEIVE_BUFFER_SIZE = 64 * 1024;
-
-	/**
-	 * The DateFormat object used to parse the reply to a MDTM command.
-	 */
-	private static final DateFormat MDTM_DATE_FORMAT = new SimpleDateFormat(
-			"yyyyMMddHHmmss");
-
-	/**
-	 * The RegExp Pattern object used to parse the reply to a PASV command.
-	 */
-	private static final Pattern PASV_PATTERN = Pattern
-			.compile("\\d{1,3},\\d{1,3},\\d{1,3},\\d{1,3},\\d{1,3},\\d{1,3}");
-
-	/**
-	 * The RegExp Pattern object used to parse the reply to a PWD command.
-	 */
-	private static final Pattern PWD_PATTERN = Pattern.compile("\"/.*\"");
-
-	/**
-	 * The connector used to connect the remote host.
-	 */
-	private FTPConnector connector = new DirectConnector();
-
-	/**
-	 * The SSL socket factory used to negotiate SSL connections.
-	 */
-	private SSLSocketFactory sslSocketFactory = (SSLSocketFactory) SSLSocketFactory
-			.getDefault();
-
-	/**
-	 * The FTPCommunicationListener objects registered on the client.
-	 */
-	private ArrayList communicationListeners = new ArrayList();
-
-	/**
-	 * The FTPListParser objects registered on the client.
-	 */
-	private ArrayList listParsers = new ArrayList();
-
-	/**
-	 * The textual extension recognizer used by the client.
-	 */
-	private FTPTextualExtensionRecognizer textualExtensionRecognizer = DefaultTextualExtensionRecognizer.getInstance();
-
-	/**
-	 * The FTPListParser used successfully during previous connection-scope list
-	 * operations.
-	 */
-	private FTPListParser parser = null;
-
-	/**
-	 * If the client is connected, it reports the remote host name or address.
-	 */
-	private String host = null;
-
-	/**
-	 * If the client is connected, it reports the remote port number.
-	 */
-	private int port = 0;
-
-	/**
-	 * The security level. The value should be one of SECURITY_FTP,
-	 * SECURITY_FTPS and SECURITY_FTPES constants. Default value is
-	 * SECURITY_FTP.
-	 */
-	private int security = SECURITY_FTP;
-
-	/**
-	 * If the client is authenticated, it reports the authentication username.
-	 */
-	private String username;
-
-	/**
-	 * If the client is authenticated, it reports the authentication password.
-	 */
-	private String password;
-
-	/**
-	 * The flag reporting the connection status.
-	 */
-	private boolean connected = false;
-
-	/**
-	 * The flag reporting the authentication status.
-	 */
-	private boolean authenticated = false;
-
-	/**
-	 * The flag for the passive FTP data transfer mode. Default value is true,
-	 * cause it's usually the preferred FTP operating mode.
-	 */
-	private boolean passive = true;
-
-	/**
-	 * The type of the data transfer contents (auto, textual, binary). The value
-	 * should be one of {@link FTPClient#TYPE_AUTO},
-	 * {@link FTPClient#TYPE_TEXTUAL} and {@link FTPClient#TYPE_BINARY}
-	 * constants. Default value is TYPE_AUTO.
-	 */
-	private int type = TYPE_AUTO;
-
-	/**
-	 * The MLSD command policy. The value should be one of
-	 * {@link FTPClient#MLSD_IF_SUPPORTED}, {@link FTPClient#MLSD_ALWAYS} and
-	 * {@link FTPClient#MLSD_NEVER} constants. Default value is
-	 * MLSD_IF_SUPPORTED.
-	 */
-	private int mlsdPolicy = MLSD_IF_SUPPORTED;
-
-	/**
-	 * If this value is greater than 0, the auto-noop feature is enabled. If
-	 * positive, the field is used as a timeout value (expressed in
-	 * milliseconds). If autoNoopDelay milliseconds has passed without any
-	 * communication between the client and the server, a NOOP command is
-	 * automaticaly sent to the server by the client.
-	 */
-	private long autoNoopTimeout = 0;
-
-	/**
-	 * The auto noop timer thread.
-	 */
-	private AutoNoopTimer autoNoopTimer;
-
-	/**
-	 * The system time (in millis) of the moment when the next auto noop command
-	 * should be issued.
-	 */
-	private long nextAutoNoopTime;
-
-	/**
-	 * A flag used to mark whether the connected server supports the resume of
-	 * broken transfers.
-	 */
-	private boolean restSupported = false;
-
-	/**
-	 * The name of the charset used to establish textual communications. If not
-	 * null the client will use always the given charset. If null the client
-	 * tries to auto-detect the server charset. If this attempt fails the client
-	 * will use the machine current charset.
-	 */
-	private String charset = null;
-
-	/**
-	 * This flag enables and disables the use of compression (ZLIB) during data
-	 * transfers. Compression is enabled when both this flag is true and the
-	 * server supports compressed transfers.
-	 */
-	private boolean compressionEnabled = false;
-
-	/**
-	 * A flag used to mark whether the connected server supports UTF-8 pathnames
-	 * encoding.
-	 */
-	private boolean utf8Supported = false;
-
-	/**
-	 * A flag used to mark whether the connected server supports the MLSD
-	 * command (RFC 3659).
-	 */
-	private boolean mlsdSupported = false;
-
-	/**
-	 * A flag used to mark whether the connected server supports the MODE Z
-	 * command.
-	 */
-	private boolean modezSupported = false;
-
-	/**
-	 * A flag used to mark whether MODE Z is enabled.
-	 */
-	private boolean modezEnabled = false;
-
-	/**
-	 * This flag indicates whether the data channel is encrypted.
-	 */
-	private boolean dataChannelEncrypted = false;
-
-	/**
-	 * This flag reports if there's any ongoing abortable data transfer
-	 * operation. Its value should be accessed only under the eye of the
-	 * abortLock synchronization object.
-	 */
-	private boolean ongoingDataTransfer = false;
-
-	/**
-	 * The InputStream used for data transfer operations.
-	 */
-	private InputStream dataTransferInputStream = null;
-
-	/**
-	 * The OutputStream used for data transfer operations.
-	 */
-	private OutputStream dataTransferOutputStream = null;
-
-	/**
-	 * This flag turns to true when any data transfer stream is closed due to an
-	 * abort suggestion.
-	 */
-	private boolean aborted = false;
-
-	/**
-	 * Lock object used for synchronization.
-	 */
-	private Object lock = new Object();
-
-	/**
-	 * Lock object used for synchronization in abort operations.
-	 */
-	private Object abortLock = new Object();
-
-	/**
-	 * The communication channel established with the server.
-	 */
-	private FTPCommunicationChannel communication = null;
-
-	/**
-	 * Builds and initializes the client.
-	 */
-	public FTPClient() {
-		// The built-in parsers.
-		addListParser(new UnixListParser());
-		addListParser(new DOSListParser());
-		addListParser(new EPLFListParser());
-		addListParser(new NetWareListParser());
-		addListParser(new MLSDListParser());
-	}
-
-	/**
-	 * This method returns the connector used to connect the remote host.
-	 * 
-	 * @return The connector used to connect the remote host.
-	 */
-	public FTPConnector getConnector() {
-		synchronized (lock) {
-			return connector;
-		}
-	}
-
-	/**
-	 * This method sets the connector used to connect the remote host.
-	 * 
-	 * Default one is a
-	 * it.sauronsoftware.ftp4j.connectors.direct.DirectConnector instance.
-	 * 
-	 * @param connector
-	 *            The connector used to connect the remote host.
-	 * @see DirectConnector
-	 */
-	public void setConnector(FTPConnector connector) {
-		synchronized (lock) {
-			this.connector = connector;
-		}
-	}
-
-	/**
-	 * Sets the SSL socket factory used to negotiate SSL connections.
-	 * 
-	 * @param sslSocketFactory
-	 *            The SSL socket factory used to negotiate SSL connections.
-	 * 
-	 * @since 1.4
-	 */
-	public void setSSLSocketFactory(SSLSocketFactory sslSocketFactory) {
-		synchronized (lock) {
-			this.sslSocketFactory = sslSocketFactory;
-		}
-	}
-
-	/**
-	 * Returns the SSL socket factory used to negotiate SSL connections.
-	 * 
-	 * @return The SSL socket factory used to negotiate SSL connections.
-	 * 
-	 * @since 1.4
-	 */
-	public SSLSocketFactory getSSLSocketFactory() {
-		synchronized (lock) {
-			return sslSocketFactory;
-		}
-	}
-
-	/**
-	 * Sets the security level for the connection. This method should be called
-	 * before starting a connection with a server. The security level must be
-	 * expressed using one of the SECURITY_FTP, SECURITY_FTPS and SECURITY_FTPES
-	 * costants.
-	 * 
-	 * SECURITY_FTP, which is the default value, applies the basic FTP security
-	 * level.
-	 * 
-	 * SECURITY_FTPS applies the FTPS security level, which is FTP over implicit
-	 * TLS/SSL.
-	 * 
-	 * SECURITY_FTPES applies the FTPES security level, which is FTP over
-	 * explicit TLS/SSL.
-	 * 
-	 * @param security
-	 *            The security level.
-	 * @throws IllegalStateException
-	 *             If the client is already connected to a server.
-	 * @throws IllegalArgumentException
-	 *             If the supplied security level is not valid.
-	 * @since 1.4
-	 */
-	public void setSecurity(int security) throws IllegalStateException,
-			IllegalArgumentException {
-		if (security != SECURITY_FTP && security != SECURITY_FTPS && security != SECURITY_FTPES) {
-			throw new IllegalArgumentException("Invalid security");
-		}
-		synchronized (lock) {
-			if (connected) {
-				throw new IllegalStateException(
-						"The security level of the connection can't be "
-								+ "changed while the client is connected");
-			}
-			this.security = security;
-		}
-	}
-
-	/**
-	 * Returns the security level used by the client in the connection.
-	 * 
-	 * @return The security level, which could be one of the SECURITY_FTP,
-	 *         SECURITY_FTPS and SECURITY_FTPES costants.
-	 * 
-	 * @since 1.4
-	 */
-	public int getSecurity() {
-		return security;
-	}
-
-	/**
-	 * Applies SSL encryption to an already open socket.
-	 * 
-	 * @param socket
-	 *            The already established socket.
-	 * @param host
-	 *            The logical destination host.
-	 * @param port
-	 *            The logical destination port.
-	 * @return The SSL socket.
-	 * @throws IOException
-	 *             If the SSL negotiation fails.
-	 */
-	private Socket ssl(Socket socket, String host, int port) throws IOException {
-		return sslSocketFactory.createSocket(socket, host, port, true);
-	}
-
-	/**
-	 * This method enables/disables the use of the passive mode.
-	 * 
-	 * @param passive
-	 *            If true the passive mode is enabled.
-	 */
-	public void setPassive(boolean passive) {
-		synchronized (lock) {
-			this.passive = passive;
-		}
-	}
-
-	/**
-	 * This methods sets how to treat the contents during a file transfer.
-	 * 
-	 * The type supplied should be one of TYPE_AUTO, TYPE_TEXTUAL or TYPE_BINARY
-	 * constants. Default value is TYPE_AUTO.
-	 * 
-	 * {@link FTPClient#TYPE_TEXTUAL} means that the data sent or received is
-	 * treated as textual information. This implies charset conversion during
-	 * the transfer.
-	 * 
-	 * {@link FTPClient#TYPE_BINARY} means that the data sent or received is
-	 * treated as a binary stream. The data is taken "as is", without any
-	 * charset conversion.
-	 * 
-	 * {@link FTPClient#TYPE_AUTO} lets the client pick between textual and
-	 * binary types, depending on the extension of the file exchanged, using a
-	 * FTPTextualExtensionRecognizer instance, which could be set through the
-	 * setTextualExtensionRecognizer method. The default recognizer is an
-	 * instance of {@link DefaultTextualExtensionRecognizer}.
-	 * 
-	 * @param type
-	 *            The type.
-	 * @throws IllegalArgumentException
-	 *             If the supplied type is not valid.
-	 * @see FTPClient#setTextualExtensionRecognizer(FTPTextualExtensionRecognizer)
-	 * @see DefaultTextualExtensionRecognizer
-	 */
-	public void setType(int type) throws IllegalArgumentException {
-		if (type != TYPE_AUTO && type != TYPE_BINARY && type != TYPE_TEXTUAL) {
-			throw new IllegalArgumentException("Invalid type");
-		}
-		synchronized (lock) {
-			this.type = type;
-		}
-	}
-
-	/**
-	 * This method returns the value suggesting how the client encode and decode
-	 * the contents during a data transfer.
-	 * 
-	 * @return The type as a numeric value. The value could be compared to the
-	 *         constants {@link FTPClient#TYPE_AUTO},
-	 *         {@link FTPClient#TYPE_BINARY} and {@link FTPClient#TYPE_TEXTUAL}.
-	 */
-	public int getType() {
-		synchronized (lock) {
-			return type;
-		}
-	}
-
-	/**
-	 * This method lets the user control how the client chooses whether to use
-	 * or not the MLSD command (RFC 3659) instead of the base LIST command.
-	 * 
-	 * The type supplied should be one of MLSD_IF_SUPPORTED, MLSD_ALWAYS or
-	 * MLSD_NEVER constants. Default value is MLSD_IF_SUPPORTED.
-	 * 
-	 * {@link FTPClient#MLSD_IF_SUPPORTED} means that the client should use the
-	 * MLSD command only if it is explicitly supported by the server.
-	 * 
-	 * {@link FTPClient#MLSD_ALWAYS} means that the client should use always the
-	 * MLSD command, also if the MLSD command is not explicitly supported by the
-	 * server
-	 * 
-	 * {@link FTPClient#MLSD_NEVER} means that the client should use always only
-	 * the LIST command, also if the MLSD command is explicitly supported by the
-	 * server.
-	 * 
-	 * The support for the MLSD command is tested by the client after the
-	 * connection to the remote server, with the FEAT command.
-	 * 
-	 * @param mlsdPolicy
-	 *            The MLSD policy.
-	 * @throws IllegalArgumentException
-	 *             If the supplied MLSD policy value is not valid.
-	 * @since 1.5
-	 */
-	public void setMLSDPolicy(int mlsdPolicy) throws IllegalArgumentException {
-		if (type != MLSD_IF_SUPPORTED && type != MLSD_ALWAYS && type != MLSD_NEVER) {
-			throw new IllegalArgumentException("Invalid MLSD policy");
-		}
-		synchronized (lock) {
-			this.mlsdPolicy = mlsdPolicy;
-		}
-	}
-
-	/**
-	 * This method returns the value suggesting how the client chooses whether
-	 * to use or not the MLSD command (RFC 3659) instead of the base LIST
-	 * command.
-	 * 
-	 * @return The MLSD policy as a numeric value. The value could be compared
-	 *         to the constants {@link FTPClient#MLSD_IF_SUPPORTED},
-	 *         {@link FTPClient#MLSD_ALWAYS} and {@link FTPClient#MLSD_NEVER}.
-	 * @since 1.5
-	 */
-	public int getMLSDPolicy() {
-		synchronized (lock) {
-			return mlsdPolicy;
-		}
-	}
-
-	/**
-	 * Returns the name of the charset used to establish textual communications.
-	 * If not null the client will use always the given charset. If null the
-	 * client tries to auto-detect the server charset. If this attempt fails the
-	 * client will use the machine current charset.
-	 * 
-	 * @return The name of the charset used to establish textual communications.
-	 * @since 1.1
-	 */
-	public String getCharset() {
-		synchronized (lock) {
-			return charset;
-		}
-	}
-
-	/**
-	 * Sets the name of the charset used to establish textual communications. If
-	 * not null the client will use always the given charset. If null the client
-	 * tries to auto-detect the server charset. If this attempt fails the client
-	 * will use the machine current charset.
-	 * 
-	 * @param charset
-	 *            The name of the charset used to establish textual
-	 *            communications.
-	 * @since 1.1
-	 */
-	public void setCharset(String charset) {
-		synchronized (lock) {
-			this.charset = charset;
-			if (connected) {
-				try {
-					communication.changeCharset(pickCharset());
-				} catch (IOException e) {
-					e.printStackTrace();
-				}
-			}
-		}
-	}
-
-	/**
-	 * Checks whether the connected server explicitly supports resuming of
-	 * broken data transfers.
-	 * 
-	 * @return true if the server supports resuming, false otherwise.
-	 * @since 1.5.1
-	 */
-	public boolean isResumeSupported() {
-		synchronized (lock) {
-			return restSupported;
-		}
-	}
-
-	/**
-	 * Checks whether the connected remote FTP server supports compressed data
-	 * transfers (uploads, downloads, list operations etc.). If so, the
-	 * compression of any subsequent data transfer (upload, download, list etc.)
-	 * can be compressed, saving bandwidth. To enable compression call
-	 * {@link FTPClient#setCompressionEnabled(boolean)} .
-	 * 
-	 * The returned value is not significant if the client is not connected and
-	 * authenticated.
-	 * 
-	 * @return <em>true</em> if compression of data transfers is supported on
-	 *         the server-side, <em>false</em> otherwise.
-	 * @see FTPClient#isCompressionEnabled()
-	 * @since 1.5
-	 */
-	public boolean isCompressionSupported() {
-		return modezSupported;
-	}
-
-	/**
-	 * Enables or disables the use of compression during any subsequent data
-	 * transfer. Compression is enabled when both the supplied value and the
-	 * {@link FTPClient#isCompressionSupported()}) returned value are
-	 * <em>true</em>.
-	 * 
-	 * The default value is <em>false</em>.
-	 * 
-	 * @param compressionEnabled
-	 *            <em>true</em> to enable the use of compression during any
-	 *            subsequent file transfer, <em>false</em> to disable the
-	 *            feature.
-	 * @see FTPClient#isCompressionSupported()
-	 * @since 1.5
-	 */
-	public void setCompressionEnabled(boolean compressionEnabled) {
-		this.compressionEnabled = compressionEnabled;
-	}
-
-	/**
-	 * Checks whether the use of compression is enabled on the client-side.
-	 * 
-	 * Please note that compressed transfers are actually enabled only if both
-	 * this method and {@link FTPClient#isCompressionSupported()} return
-	 * <em>true</em>.
-	 * 
-	 * @return <em>true</em> if compression is enabled, <em>false</em>
-	 *         otherwise.
-	 * @see FTPClient#isCompressionSupported()
-	 * @since 1.5
-	 */
-	public boolean isCompressionEnabled() {
-		return compressionEnabled;
-	}
-
-	/**
-	 * This method returns the textual extension recognizer used by the client.
-	 * 
-	 * Default one is {@link DefaultTextualExtensionRecognizer}.
-	 * 
-	 * @return The textual extension recognizer used by the client.
-	 * @see DefaultTextualExtensionRecognizer
-	 */
-	public FTPTextualExtensionRecognizer getTextualExtensionRecognizer() {
-		synchronized (lock) {
-			return textualExtensionRecognizer;
-		}
-	}
-
-	/**
-	 * This method sets the textual extension recognizer used by the client.
-	 * 
-	 * The default one is {@link DefaultTextualExtensionRecognizer}.
-	 * 
-	 * You can plug your own by implementing the
-	 * {@link FTPTextualExtensionRecognizer} interface. For your convenience the
-	 * ftp4j gives you another FTPTextualExtensionRecognizer implementation,
-	 * which is {@link ParametricTextualExtensionRecognizer}.
-	 * 
-	 * @param textualExtensionRecognizer
-	 *            The textual extension recognizer used by the client.
-	 * @see DefaultTextualExtensionRecognizer
-	 * @see ParametricTextualExtensionRecognizer
-	 */
-	public void setTextualExtensionRecognizer(FTPTextualExtensionRecognizer textualExtensionRecognizer) {
-		synchronized (lock) {
-			this.textualExtensionRecognizer = textualExtensionRecognizer;
-		}
-	}
-
-	/**
-	 * This method tests if this client is authenticated.
-	 * 
-	 * @return true if this client is authenticated, false otherwise.
-	 */
-	public boolean isAuthenticated() {
-		synchronized (lock) {
-			return authenticated;
-		}
-	}
-
-	/**
-	 * This method tests if this client is connected to a remote FTP server.
-	 * 
-	 * @return true if this client is connected to a remote FTP server, false
-	 *         otherwise.
-	 */
-	public boolean isConnected() {
-		synchronized (lock) {
-			return connected;
-		}
-	}
-
-	/**
-	 * This method tests if this client works in passive FTP mode.
-	 * 
-	 * @return true if this client is configured to work in passive FTP mode.
-	 */
-	public boolean isPassive() {
-		synchronized (lock) {
-			return passive;
-		}
-	}
-
-	/**
-	 * If the client is connected, it reports the remote host name or address.
-	 * 
-	 * @return The remote host name or address.
-	 */
-	public String getHost() {
-		synchronized (lock) {
-			return host;
-		}
-	}
-
-	/**
-	 * If the client is connected, it reports the remote port number.
-	 * 
-	 * @return The remote port number.
-	 */
-	public int getPort() {
-		synchronized (lock) {
-			return port;
-		}
-	}
-
-	/**
-	 * If the client is authenticated, it reports the authentication password.
-	 * 
-	 * @return The authentication password.
-	 */
-	public String getPassword() {
-		synchronized (lock) {
-			return password;
-		}
-	}
-
-	/**
-	 * If the client is authenticated, it reports the authentication username.
-	 * 
-	 * @return The authentication username.
-	 */
-	public String getUsername() {
-		synchronized (lock) {
-			return username;
-		}
-	}
-
-	/**
-	 * Enable and disable the auto-noop feature.
-	 * 
-	 * If the supplied value is greater than 0, the auto-noop feature is
-	 * enabled, otherwise it is disabled. If positive, the field is used as a
-	 * timeout value (expressed in milliseconds). If autoNoopDelay milliseconds
-	 * has passed without any communication between the client and the server, a
-	 * NOOP command is automaticaly sent to the server by the client.
-	 * 
-	 * The default value for the auto noop delay is 0 (disabled).
-	 * 
-	 * @param autoNoopTimeout
-	 *            The duration of the auto-noop timeout, in milliseconds. If 0
-	 *            or less, the auto-noop feature is disabled.
-	 * 
-	 * @since 1.5
-	 */
-	public void setAutoNoopTimeout(long autoNoopTimeout) {
-		synchronized (lock) {
-			if (connected && authenticated) {
-				stopAutoNoopTimer();
-			}
-			long oldValue = this.autoNoopTimeout;
-			long newValue = autoNoopTimeout;
-			this.autoNoopTimeout = autoNoopTimeout;
-			if (oldValue != 0 && newValue != 0 && nextAutoNoopTime > 0) {
-				nextAutoNoopTime = nextAutoNoopTime - (oldValue - newValue);
-			}
-			if (connected && authenticated) {
-				startAutoNoopTimer();
-			}
-		}
-	}
-
-	/**
-	 * Returns the duration of the auto-noop timeout, in milliseconds. If 0 or
-	 * less, the auto-noop feature is disabled.
-	 * 
-	 * @return The duration of the auto-noop timeout, in milliseconds. If 0 or
-	 *         less, the auto-noop feature is disabled.
-	 * 
-	 * @since 1.5
-	 */
-	public long getAutoNoopTimeout() {
-		synchronized (lock) {
-			return autoNoopTimeout;
-		}
-	}
-
-	/**
-	 * This method adds a FTPCommunicationListener to the object.
-	 * 
-	 * @param listener
-	 *            The listener.
-	 */
-	public void addCommunicationListener(FTPCommunicationListener listener) {
-		synchronized (lock) {
-			communicationListeners.add(listener);
-			if (communication != null) {
-				communication.addCommunicationListener(listener);
-			}
-		}
-	}
-
-	/**
-	 * This method removes a FTPCommunicationListener previously added to the
-	 * object.
-	 * 
-	 * @param listener
-	 *            The listener to be removed.
-	 */
-	public void removeCommunicationListener(FTPCommunicationListener listener) {
-		synchronized (lock) {
-			communicationListeners.remove(listener);
-			if (communication != null) {
-				communication.removeCommunicationListener(listener);
-			}
-		}
-	}
-
-	/**
-	 * This method returns a list with all the {@link FTPCommunicationListener}
-	 * used by the client.
-	 * 
-	 * @return A list with all the FTPCommunicationListener used by the client.
-	 */
-	public FTPCommunicationListener[] getCommunicationListeners() {
-		synchronized (lock) {
-			int size = communicationListeners.size();
-			FTPCommunicationListener[] ret = new FTPCommunicationListener[size];
-			for (int i = 0; i < size; i++) {
-				ret[i] = (FTPCommunicationListener) communicationListeners.get(i);
-			}
-			return ret;
-		}
-	}
-
-	/**
-	 * This method adds a {@link FTPListParser} to the object.
-	 * 
-	 * @param listParser
-	 *            The list parser.
-	 */
-	public void addListParser(FTPListParser listParser) {
-		synchronized (lock) {
-			listParsers.add(listParser);
-		}
-	}
-
-	/**
-	 * This method removes a {@link FTPListParser} previously added to the
-	 * object.
-	 * 
-	 * @param listParser
-	 *            The list parser to be removed.
-	 */
-	public void removeListParser(FTPListParser listParser) {
-		synchronized (lock) {
-			listParsers.remove(listParser);
-		}
-	}
-
-	/**
-	 * This method returns a list with all the {@link FTPListParser} used by the
-	 * client.
-	 * 
-	 * @return A list with all the FTPListParsers used by the client.
-	 */
-	public FTPListParser[] getListParsers() {
-		synchronized (lock) {
-			int size = listParsers.size();
-			FTPListParser[] ret = new FTPListParser[size];
-			for (int i = 0; i < size; i++) {
-				ret[i] = (FTPListParser) listParsers.get(i);
-			}
-			return ret;
-		}
-	}
-
-	/**
-	 * This method connects the client to the remote FTP host, using the default
-	 * port value 21 (990 if security level is set to FTPS, see
-	 * {@link FTPClient#setSecurity(int)}).
-	 * 
-	 * @param host
-	 *            The hostname of the remote server.
-	 * @return The server welcome message, one line per array element.
-	 * @throws IllegalStateException
-	 *             If the client is already connected to a remote host.
-	 * @throws IOException
-	 *             If an I/O occurs.
-	 * @throws FTPIllegalReplyException
-	 *             If the server replies in an illegal way.
-	 * @throws FTPException
-	 *             If the server refuses the connection.
-	 */
-	public String[] connect(String host) throws IllegalStateException,
-			IOException, FTPIllegalReplyException, FTPException {
-		int def;
-		if (security == SECURITY_FTPS) {
-			def = 990;
-		} else {
-			def = 21;
-		}
-		return connect(host, def);
-	}
-
-	/**
-	 * This method connects the client to the remote FTP host.
-	 * 
-	 * @param host
-	 *            The host name or address of the remote server.
-	 * @param port
-	 *            The port listened by the remote server.
-	 * @return The server welcome message, one line per array element.
-	 * @throws IllegalStateException
-	 *             If the client is already connected to a remote host.
-	 * @throws IOException
-	 *             If an I/O occurs.
-	 * @throws FTPIllegalReplyException
-	 *             If the server replies in an illegal way.
-	 * @throws FTPException
-	 *             If the server refuses the connection.
-	 */
-	public String[] connect(String host, int port)
-			throws IllegalStateException, IOException,
-			FTPIllegalReplyException, FTPException {
-		synchronized (lock) {
-			// Is this client already connected to any host?
-			if (connected) {
-				throw new IllegalStateException("Client already connected to "
-						+ host + " on port " + port);
-			}
-			// Ok, it's connection time. Let's try!
-			Socket connection = null;
-			try {
-				// Open the connection.
-				connection = connector.connectForCommunicationChannel(host, port);
-				if (security == SECURITY_FTPS) {
-					connection = ssl(connection, host, port);
-				}
-				// Open the communication channel.
-				communication = new FTPCommunicationChannel(connection, pickCharset());
-				for (Iterator i = communicationListeners.iterator(); i.hasNext();) {
-					communication.addCommunicationListener((FTPCommunicationListener) i.next());
-				}
-				// Welcome message.
-				FTPReply wm = communication.readFTPReply();
-				// Does this reply mean "ok"?
-				if (!wm.isSuccessCode()) {
-					// Mmmmm... it seems no!
-					throw new FTPException(wm);
-				}
-				// Flag this object as connected to the remote host.
-				this.connected = true;
-				this.authenticated = false;
-				this.parser = null;
-				this.host = host;
-				this.port = port;
-				this.username = null;
-				this.password = null;
-				this.utf8Supported = false;
-				this.restSupported = false;
-				this.mlsdSupported = false;
-				this.modezSupported = false;
-				this.dataChannelEncrypted = false;
-				// Returns the welcome message.
-				return wm.getMessages();
-			} catch (IOException e) {
-				// D'oh!
-				throw e;
-			} finally {
-				// If connection has failed...
-				if (!connected) {
-					if (connection != null) {
-						// Close the connection, 'cause it should be open.
-						try {
-							connection.close();
-						} catch (Throwable t) {
-							;
-						}
-					}
-				}
-			}
-		}
-	}
-
-	/**
-	 * This method disconnects from the remote server, optionally performing the
-	 * QUIT procedure.
-	 * 
-	 * @param sendQuitCommand
-	 *            If true the QUIT procedure with the server will be performed,
-	 *            otherwise the connection is abruptly closed by the client
-	 *            without sending any advice to the server.
-	 * @throws IllegalStateException
-	 *             If the client is not connected to a remote host.
-	 * @throws IOException
-	 *             If an I/O occurs (can be thrown only if sendQuitCommand is
-	 *             true).
-	 * @throws FTPIllegalReplyException
-	 *             If the server replies in an illegal way (can be thrown only
-	 *             if sendQuitCommand is true).
-	 * @throws FTPException
-	 *             If the server refuses the QUIT command (can be thrown only if
-	 *             sendQuitCommand is true).
-	 */
-	public void disconnect(boolean sendQuitCommand)
-			throws IllegalStateException, IOException,
-			FTPIllegalReplyException, FTPException {
-		synchronized (lock) {
-			// Is this client connected?
-			if (!connected) {
-				throw new IllegalStateException("Client not connected");
-			}
-			// Stops the auto noop timer (if started).
-			if (authenticated) {
-				stopAutoNoopTimer();
-			}
-			// Send QUIT?
-			if (sendQuitCommand) {
-				// Call the QUIT command.
-				communication.sendFTPCommand("QUIT");
-				FTPReply r = communication.readFTPReply();
-				if (!r.isSuccessCode()) {
-					throw new FTPException(r);
-				}
-			}
-			// Close the communication.
-			communication.close();
-			communication = null;
-			// Reset the connection flag.
-			connected = false;
-		}
-	}
-
-	/**
-	 * This method causes the communication channel to be abruptly closed. Use
-	 * it carefully, since this one is not thread-safe. It is given as an
-	 * "emergency brake" to close the control connection when it is blocked. A
-	 * thread-safe solution for the same purpose is a call to disconnect(false).
-	 * 
-	 * @see FTPClient#disconnect(boolean)
-	 */
-	public void abruptlyCloseCommunication() {
-		// Close the communication.
-		communication.close();
-		communication = null;
-		// Reset the connection flag.
-		connected = false;
-		// Stops the auto noop timer.
-		stopAutoNoopTimer();
-	}
-
-	/**
-	 * This method authenticates the user against the server.
-	 * 
-	 * @param username
-	 *            The username.
-	 * @param password
-	 *            The password (if none set it to null).
-	 * @throws IllegalStateException
-	 *             If the client is not connected. Call the connect() method
-	 *             before!
-	 * @throws IOException
-	 *             If an I/O error occurs.
-	 * @throws FTPIllegalReplyException
-	 *             If the server replies in an illegal way.
-	 * @throws FTPException
-	 *             If login fails.
-	 */
-	public void login(String username, String password)
-			throws IllegalStateException, IOException,
-			FTPIllegalReplyException, FTPException {
-		login(username, password, null);
-	}
-
-	/**
-	 * This method authenticates the user against the server.
-	 * 
-	 * @param username
-	 *            The username.
-	 * @param password
-	 *            The password (if none set it to null).
-	 * @param account
-	 *            The account (if none set it to null). Be careful: some servers
-	 *            don't implement this feature.
-	 * @throws IllegalStateException
-	 *             If the client is not connected. Call the connect() method
-	 *             before!
-	 * @throws IOException
-	 *             If an I/O error occurs.
-	 * @throws FTPIllegalReplyException
-	 *             If the server replies in an illegal way.
-	 * @throws FTPException
-	 *             If login fails.
-	 */
-	public void login(String username, String password, String account)
-			throws IllegalStateException, IOException,
-			FTPIllegalReplyException, FTPException {
-		synchronized (lock) {
-			// Is this client connected?
-			if (!connected) {
-				throw new IllegalStateException("Client not connected");
-			}
-			// AUTH TLS command if security is FTPES
-			if (security == SECURITY_FTPES) {
-				communication.sendFTPCommand("AUTH TLS");
-				FTPReply r = communication.readFTPReply();
-				if (r.isSuccessCode()) {
-					communication.ssl(sslSocketFactory);
-				} else {
-					communication.sendFTPCommand("AUTH SSL");
-					r = communication.readFTPReply();
-					if (r.isSuccessCode()) {
-						communication.ssl(sslSocketFactory);
-					} else {
-						throw new FTPException(r.getCode(), "SECURITY_FTPES cannot be applied: " +
-								"the server refused both AUTH TLS and AUTH SSL commands");
-					}
-				}
-			}
-			// Reset the authentication flag.
-			authenticated = false;
-			// Usefull flags.
-			boolean passwordRequired;
-			boolean accountRequired;
-			// Send the user and read the reply.
-			communication.sendFTPCommand("USER " + username);
-			FTPReply r = communication.readFTPReply();
-			switch (r.getCode()) {
-			case 230:
-				// Password and account aren't required.
-				passwordRequired = false;
-				accountRequired = false;
-				break;
-			case 331:
-				// Password is required.
-				passwordRequired = true;
-				// Account... maybe! More information later...
-				accountRequired = false;
-				break;
-			case 332:
-				// Password is not required, but account is required.
-				passwordRequired = false;
-				accountRequired = true;
-			default:
-				// User validation failed.
-				throw new FTPException(r);
-			}
-			// Password.
-			if (passwordRequired) {
-				if (password == null) {
-					throw new FTPException(331);
-				}
-				// Send the password.
-				communication.sendFTPCommand("PASS " + password);
-				r = communication.readFTPReply();
-				switch (r.getCode()) {
-				case 230:
-					// Account is not required.
-					accountRequired = false;
-					break;
-				case 332:
-					// Account is required.
-					accountRequired = true;
-					break;
-				default:
-					// Authentication failed.
-					throw new FTPException(r);
-				}
-			}
-			// Account.
-			if (accountRequired) {
-				if (account == null) {
-					throw new FTPException(332);
-				}
-				// Send the account.
-				communication.sendFTPCommand("ACCT " + account);
-				r = communication.readFTPReply();
-				switch (r.getCode()) {
-				case 230:
-					// Well done!
-					break;
-				default:
-					// Something goes wrong.
-					throw new FTPException(r);
-				}
-			}
-			// Well, if this point is reached the client could consider itself
-			// as authenticated.
-			this.authenticated = true;
-			this.username = username;
-			this.password = password;
-		}
-		// Post-login operations.
-		postLoginOperations();
-		// Starts the auto noop timer.
-		startAutoNoopTimer();
-	}
-
-	/**
-	 * Performs some post-login operations, such trying to detect server support
-	 * for utf8.
-	 * 
-	 * @throws IllegalStateException
-	 *             If the client is not connected. Call the connect() method
-	 *             before!
-	 * @throws IOException
-	 *             If an I/O error occurs.
-	 * @throws FTPIllegalReplyException
-	 *             If the server replies in an illegal way.
-	 * @throws FTPException
-	 *             If login fails.
-	 */
-	private void postLoginOperations() throws IllegalStateException,
-			IOException, FTPIllegalReplyException, FTPException {
-		synchronized (lock) {
-			utf8Supported = false;
-			restSupported = false;
-			mlsdSupported = false;
-			modezSupported = false;
-			dataChannelEncrypted = false;
-			communication.sendFTPCommand("FEAT");
-			FTPReply r = communication.readFTPReply();
-			if (r.getCode() == 211) {
-				String[] lines = r.getMessages();
-				for (int i = 1; i < lines.length - 1; i++) {
-					String feat = lines[i].trim().toUpperCase();
-					// REST STREAM supported?
-					if ("REST STREAM".equalsIgnoreCase(feat)) {
-						restSupported = true;
-						continue;
-					}
-					// UTF8 supported?
-					if ("UTF8".equalsIgnoreCase(feat)) {
-						utf8Supported = true;
-						communication.changeCharset("UTF-8");
-						continue;
-					}
-					// MLSD supported?
-					if ("MLSD".equalsIgnoreCase(feat)) {
-						mlsdSupported = true;
-						continue;
-					}
-					// MODE Z supported?
-					if ("MODE Z".equalsIgnoreCase(feat) || feat.startsWith("MODE Z ")) {
-						modezSupported = true;
-						continue;
-					}
-				}
-			}
-			// Turn UTF 8 on (if supported).
-			if (utf8Supported) {
-				communication.sendFTPCommand("OPTS UTF8 ON");
-				communication.readFTPReply();
-			}
-			// Data channel security.
-			if (security == SECURITY_FTPS || security == SECURITY_FTPES) {
-				communication.sendFTPCommand("PBSZ 0");
-				communication.readFTPReply();
-				communication.sendFTPCommand("PROT P");
-				FTPReply reply = communication.readFTPReply();
-				if (reply.isSuccessCode()) {
-					dataChannelEncrypted = true;
-				}
-			}
-		}
-	}
-
-	/**
-	 * This method performs a logout operation for the current user, leaving the
-	 * connection open, thus it can be used to start a new user session. Be
-	 * careful with this: some FTP servers don't implement this feature, even
-	 * though it is a standard FTP one.
-	 * 
-	 * @throws IllegalStateException
-	 *             If the client is not connected or not authenticated.
-	 * @throws IOException
-	 *             If an I/O error occurs.
-	 * @throws FTPIllegalReplyException
-	 *             If the server replies in an illegal way.
-	 * @throws FTPException
-	 *             If the operation fails.
-	 */
-	public void logout() throws IllegalStateException, IOException,
-			FTPIllegalReplyException, FTPException {
-		synchronized (lock) {
-			// Is this client connected?
-			if (!connected) {
-				throw new IllegalStateException("Client not connected");
-			}
-			// Is this client authenticated?
-			if (!authenticated) {
-				throw new IllegalStateException("Client not authenticated");
-			}
-			// Send the REIN command.
-			communication.sendFTPCommand("REIN");
-			FTPReply r = communication.readFTPReply();
-			if (!r.isSuccessCode()) {
-				throw new FTPException(r);
-			} else {
-				// Stops the auto noop timer.
-				stopAutoNoopTimer();
-				// Ok. Not authenticated, now.
-				authenticated = false;
-				username = null;
-				password = null;
-			}
-		}
-	}
-
-	/**
-	 * This method performs a "noop" operation with the server.
-	 * 
-	 * @throws IllegalStateException
-	 *             If the client is not connected or not authenticated.
-	 * @throws IOException
-	 *             If an I/O error occurs.
-	 * @throws FTPIllegalReplyException
-	 *             If the server replies in an illegal way.
-	 * @throws FTPException
-	 *             If login fails.
-	 */
-	public void noop() throws IllegalStateException, IOException,
-			FTPIllegalReplyException, FTPException {
-		synchronized (lock) {
-			// Is this client connected?
-			if (!connected) {
-				throw new IllegalStateException("Client not connected");
-			}
-			// Is this client authenticated?
-			if (!authenticated) {
-				throw new IllegalStateException("Client not authenticated");
-			}
-			// Send the noop.
-			communication.sendFTPCommand("NOOP");
-			FTPReply r = communication.readFTPReply();
-			if (!r.isSuccessCode()) {
-				throw new FTPException(r);
-			}
-			// Resets auto noop timer.
-			touchAutoNoopTimer();
-		}
-	}
-
-	/**
-	 * This method sends a custom command to the server. Don't use this method
-	 * to send standard commands already supported by the client: this should
-	 * cause unexpected results.
-	 * 
-	 * @param command
-	 *            The command line.
-	 * @return The reply supplied by the server, parsed and served in an object
-	 *         way mode.
-	 * @throws IllegalStateException
-	 *             If this client is not connected.
-	 * @throws IOException
-	 *             If a I/O error occurs.
-	 * @throws FTPIllegalReplyException
-	 *             If the server replies in an illegal way.
-	 */
-	public FTPReply sendCustomCommand(String command)
-			throws IllegalStateException, IOException, FTPIllegalReplyException {
-		synchronized (lock) {
-			// Is this client connected?
-			if (!connected) {
-				throw new IllegalStateException("Client not connected");
-			}
-			// Sends the command.
-			communication.sendFTPCommand(command);
-			// Resets auto noop timer.
-			touchAutoNoopTimer();
-			// Returns the reply.
-			return communication.readFTPReply();
-		}
-	}
-
-	/**
-	 * This method sends a SITE specific command to the server.
-	 * 
-	 * @param command
-	 *            The site command.
-	 * @return The reply supplied by the server, parsed and served in an object
-	 *         way mode.
-	 * @throws IllegalStateException
-	 *             If this client is not connected.
-	 * @throws IOException
-	 *             If a I/O error occurs.
-	 * @throws FTPIllegalReplyException
-	 *             If the server replies in an illegal way.
-	 */
-	public FTPReply sendSiteCommand(String command)
-			throws IllegalStateException, IOException, FTPIllegalReplyException {
-		synchronized (lock) {
-			// Is this client connected?
-			if (!connected) {
-				throw new IllegalStateException("Client not connected");
-			}
-			// Sends the command.
-			communication.sendFTPCommand("SITE " + command);
-			// Resets auto noop timer.
-			touchAutoNoopTimer();
-			// Returns the reply.
-			return communication.readFTPReply();
-		}
-	}
-
-	/**
-	 * Call this method to switch the user current account. Be careful with
-	 * this: some FTP servers don't implement this feature, even though it is a
-	 * standard FTP one.
-	 * 
-	 * @param account
-	 *            The account.
-	 * @throws IllegalStateException
-	 *             If the client is not connected or not authenticated.
-	 * @throws IOException
-	 *             If an I/O error occurs.
-	 * @throws FTPIllegalReplyException
-	 *             If the server replies in an illegal way.
-	 * @throws FTPException
-	 *             If login fails.
-	 */
-	public void changeAccount(String account) throws IllegalStateException,
-			IOException, FTPIllegalReplyException, FTPException {
-		synchronized (lock) {
-			// Is this client connected?
-			if (!connected) {
-				throw new IllegalStateException("Client not connected");
-			}
-			// Is this client authenticated?
-			if (!authenticated) {
-				throw new IllegalStateException("Client not authenticated");
-			}
-			// Send the ACCT command.
-			communication.sendFTPCommand("ACCT " + account);
-			// Gets the reply.
-			FTPReply r = communication.readFTPReply();
-			// Resets auto noop timer.
-			touchAutoNoopTimer();
-			// Evaluates the response.
-			if (!r.isSuccessCode()) {
-				throw new FTPException(r);
-			}
-		}
-	}
-
-	/**
-	 * This method asks and returns the current working directory.
-	 * 
-	 * @return path The path to the current working directory.
-	 * @throws IllegalStateException
-	 *             If the client is not connected or not authenticated.
-	 * @throws IOException
-	 *             If an I/O error occurs.
-	 * @throws FTPIllegalReplyException
-	 *             If the server replies in an illegal way.
-	 * @throws FTPException
-	 *             If the operation fails.
-	 */
-	public String currentDirectory() throws IllegalStateException, IOException,
-			FTPIllegalReplyException, FTPException {
-		synchronized (lock) {
-			// Is this client connected?
-			if (!connected) {
-				throw new IllegalStateException("Client not connected");
-			}
-			// Is this client authenticated?
-			if (!authenticated) {
-				throw new IllegalStateException("Client not authenticated");
-			}
-			// Send the PWD command.
-			communication.sendFTPCommand("PWD");
-			FTPReply r = communication.readFTPReply();
-			touchAutoNoopTimer();
-			if (!r.isSuccessCode()) {
-				throw new FTPException(r);
-			}
-			// Parse the response.
-			String[] messages = r.getMessages();
-			if (messages.length != 1) {
-				throw new FTPIllegalReplyException();
-			}
-			Matcher m = PWD_PATTERN.matcher(messages[0]);
-			if (m.find()) {
-				return messages[0].substring(m.start() + 1, m.end() - 1);
-			} else {
-				throw new FTPIllegalReplyException();
-			}
-		}
-	}
-
-	/**
-	 * This method changes the current working directory.
-	 * 
-	 * @param path
-	 *            The path to the new working directory.
-	 * @throws IllegalStateException
-	 *             If the client is not connected or not authenticated.
-	 * @throws IOException
-	 *             If an I/O error occurs.
-	 * @throws FTPIllegalReplyException
-	 *             If the server replies in an illegal way.
-	 * @throws FTPException
-	 *             If the operation fails.
-	 */
-	public void changeDirectory(String path) throws IllegalStateException,
-			IOException, FTPIllegalReplyException, FTPException {
-		synchronized (lock) {
-			// Is this client connected?
-			if (!connected) {
-				throw new IllegalStateException("Client not connected");
-			}
-			// Is this client authenticated?
-			if (!authenticated) {
-				throw new IllegalStateException("Client not authenticated");
-			}
-			// Send the CWD command.
-			communication.sendFTPCommand("CWD " + path);
-			FTPReply r = communication.readFTPReply();
-			touchAutoNoopTimer();
-			if (!r.isSuccessCode()) {
-				throw new FTPException(r);
-			}
-		}
-	}
-
-	/**
-	 * This method changes the current working directory to the parent one.
-	 * 
-	 * @throws IllegalStateException
-	 *             If the client is not connected or not authenticated.
-	 * @throws IOException
-	 *             If an I/O error occurs.
-	 * @throws FTPIllegalReplyException
-	 *             If the server replies in an illegal way.
-	 * @throws FTPException
-	 *             If the operation fails.
-	 */
-	public void changeDirectoryUp() throws IllegalStateException, IOException,
-			FTPIllegalReplyException, FTPException {
-		synchronized (lock) {
-			// Is this client connected?
-			if (!connected) {
-				throw new IllegalStateException("Client not connected");
-			}
-			// Is this client authenticated?
-			if (!authenticated) {
-				throw new IllegalStateException("Client not authenticated");
-			}
-			// Sends the CWD command.
-			communication.sendFTPCommand("CDUP");
-			FTPReply r = communication.readFTPReply();
-			touchAutoNoopTimer();
-			if (!r.isSuccessCode()) {
-				throw new FTPException(r);
-			}
-		}
-	}
-
-	/**
-	 * This method asks and returns the last modification date of a file or
-	 * directory.
-	 * 
-	 * @param path
-	 *            The path to the file or the directory.
-	 * @return The file/directory last modification date.
-	 * @throws IllegalStateException
-	 *             If the client is not connected or not authenticated.
-	 * @throws IOException
-	 *             If an I/O error occurs.
-	 * @throws FTPIllegalReplyException
-	 *             If the server replies in an illegal way.
-	 * @throws FTPException
-	 *             If the operation fails.
-	 */
-	public Date modifiedDate(String path) throws IllegalStateException,
-			IOException, FTPIllegalReplyException, FTPException {
-		synchronized (lock) {
-			// Is this client connected?
-			if (!connected) {
-				throw new IllegalStateException("Client not connected");
-			}
-			// Is this client authenticated?
-			if (!authenticated) {
-				throw new IllegalStateException("Client not authenticated");
-			}
-			// Sends the MDTM command.
-			communication.sendFTPCommand("MDTM " + path);
-			FTPReply r = communication.readFTPReply();
-			touchAutoNoopTimer();
-			if (!r.isSuccessCode()) {
-				throw new FTPException(r);
-			}
-			String[] messages = r.getMessages();
-			if (messages.length != 1) {
-				throw new FTPIllegalReplyException();
-			} else {
-				try {
-					return MDTM_DATE_FORMAT.parse(messages[0]);
-				} catch (ParseException e) {
-					throw new FTPIllegalReplyException();
-				}
-			}
-		}
-	}
-
-	/**
-	 * This method asks and returns a file size in bytes.
-	 * 
-	 * @param path
-	 *            The path to the file.
-	 * @return The file size in bytes.
-	 * @throws IllegalStateException
-	 *             If the client is not connected or not authenticated.
-	 * @throws IOException
-	 *             If an I/O error occurs.
-	 * @throws FTPIllegalReplyException
-	 *             If the server replies in an illegal way.
-	 * @throws FTPException
-	 *             If the operation fails.
-	 */
-	public long fileSize(String path) throws IllegalStateException,
-			IOException, FTPIllegalReplyException, FTPException {
-		synchronized (lock) {
-			// Is this client connected?
-			if (!connected) {
-				throw new IllegalStateException("Client not connected");
-			}
-			// Is this client authenticated?
-			if (!authenticated) {
-				throw new IllegalStateException("Client not authenticated");
-			}
-			// Sends the SIZE command.
-			communication.sendFTPCommand("SIZE " + path);
-			FTPReply r = communication.readFTPReply();
-			touchAutoNoopTimer();
-			if (!r.isSuccessCode()) {
-				throw new FTPException(r);
-			}
-			String[] messages = r.getMessages();
-			if (messages.length != 1) {
-				throw new FTPIllegalReplyException();
-			} else {
-				try {
-					return Long.parseLong(messages[0]);
-				} catch (Throwable t) {
-					throw new FTPIllegalReplyException();
-				}
-			}
-		}
-	}
-
-	/**
-	 * This method renames a remote file or directory. It can also be used to
-	 * move a file or a directory.
-	 * 
-	 * In example:
-	 * 
-	 * <pre>
-	 * client.rename(&quot;oldname&quot;, &quot;newname&quot;); // This one renames
-	 * </pre>
-	 * 
-	 * <pre>
-	 * client.rename(&quot;the/old/path/oldname&quot;, &quot;/a/new/path/newname&quot;); // This one moves
-	 * </pre>
-	 * 
-	 * @param oldPath
-	 *            The current path of the file (or directory).
-	 * @param newPath
-	 *            The new path for the file (or directory).
-	 * @throws IllegalStateException
-	 *             If the client is not connected or not authenticated.
-	 * @throws IOException
-	 *             If an I/O error occurs.
-	 * @throws FTPIllegalReplyException
-	 *             If the server replies in an illegal way.
-	 * @throws FTPException
-	 *             If the operation fails.
-	 */
-	public void rename(String oldPath, String newPath)
-			throws IllegalStateException, IOException,
-			FTPIllegalReplyException, FTPException {
-		synchronized (lock) {
-			// Is this client connected?
-			if (!connected) {
-				throw new IllegalStateException("Client not connected");
-			}
-			// Is this client authenticated?
-			if (!authenticated) {
-				throw new IllegalStateException("Client not authenticated");
-			}
-			// Sends the RNFR command.
-			communication.sendFTPCommand("RNFR " + oldPath);
-			FTPReply r = communication.readFTPReply();
-			touchAutoNoopTimer();
-			if (r.getCode() != 350) {
-				throw new FTPException(r);
-			}
-			// Sends the RNFR command.
-			communication.sendFTPCommand("RNTO " + newPath);
-			r = communication.readFTPReply();
-			touchAutoNoopTimer();
-			if (!r.isSuccessCode()) {
-				throw new FTPException(r);
-			}
-		}
-	}
-
-	/**
-	 * This method deletes a remote file.
-	 * 
-	 * @param path
-	 *            The path to the file.
-	 * @throws IllegalStateException
-	 *             If the client is not connected or not authenticated.
-	 * @throws IOException
-	 *             If an I/O error occurs.
-	 * @throws FTPIllegalReplyException
-	 *             If the server replies in an illegal way.
-	 * @throws FTPException
-	 *             If the operation fails.
-	 */
-	public void deleteFile(String path) throws IllegalStateException,
-			IOException, FTPIllegalReplyException, FTPException {
-		synchronized (lock) {
-			// Is this client connected?
-			if (!connected) {
-				throw new IllegalStateException("Client not connected");
-			}
-			// Is this client authenticated?
-			if (!authenticated) {
-				throw new IllegalStateException("Client not authenticated");
-			}
-			// Sends the DELE command.
-			communication.sendFTPCommand("DELE " + path);
-			FTPReply r = communication.readFTPReply();
-			touchAutoNoopTimer();
-			if (!r.isSuccessCode()) {
-				throw new FTPException(r);
-			}
-		}
-	}
-
-	/**
-	 * This method deletes a remote directory.
-	 * 
-	 * @param path
-	 *            The path to the directory.
-	 * @throws IllegalStateException
-	 *             If the client is not connected or not authenticated.
-	 * @throws IOException
-	 *             If an I/O error occurs.
-	 * @throws FTPIllegalReplyException
-	 *             If the server replies in an illegal way.
-	 * @throws FTPException
-	 *             If the operation fails.
-	 */
-	public void deleteDirectory(String path) throws IllegalStateException,
-			IOException, FTPIllegalReplyException, FTPException {
-		synchronized (lock) {
-			// Is this client connected?
-			if (!connected) {
-				throw new IllegalStateException("Client not connected");
-			}
-			// Is this client authenticated?
-			if (!authenticated) {
-				throw new IllegalStateException("Client not authenticated");
-			}
-			// Sends the RMD command.
-			communication.sendFTPCommand("RMD " + path);
-			FTPReply r = communication.readFTPReply();
-			touchAutoNoopTimer();
-			if (!r.isSuccessCode()) {
-				throw new FTPException(r);
-			}
-		}
-	}
-
-	/**
-	 * This method creates a new remote directory in the current working one.
-	 * 
-	 * @param directoryName
-	 *            The name of the new directory.
-	 * @throws IllegalStateException
-	 *             If the client is not connected or not authenticated.
-	 * @throws IOException
-	 *             If an I/O error occurs.
-	 * @throws FTPIllegalReplyException
-	 *             If the server replies in an illegal way.
-	 * @throws FTPException
-	 *             If the operation fails.
-	 */
-	public void createDirectory(String directoryName)
-			throws IllegalStateException, IOException,
-			FTPIllegalReplyException, FTPException {
-		synchronized (lock) {
-			// Is this client connected?
-			if (!connected) {
-				throw new IllegalStateException("Client not connected");
-			}
-			// Is this client authenticated?
-			if (!authenticated) {
-				throw new IllegalStateException("Client not authenticated");
-			}
-			// Sends the MKD command.
-			communication.sendFTPCommand("MKD " + directoryName);
-			FTPReply r = communication.readFTPReply();
-			touchAutoNoopTimer();
-			if (!r.isSuccessCode()) {
-				throw new FTPException(r);
-			}
-		}
-	}
-
-	/**
-	 * This method calls the HELP command on the remote server, returning a list
-	 * of lines with the help contents.
-	 * 
-	 * @return The help contents, splitted by line.
-	 * @throws IllegalStateException
-	 *             If the client is not connected or not authenticated.
-	 * @throws IOException
-	 *             If an I/O error occurs.
-	 * @throws FTPIllegalReplyException
-	 *             If the server replies in an illegal way.
-	 * @throws FTPException
-	 *             If the operation fails.
-	 */
-	public String[] help() throws IllegalStateException, IOException,
-			FTPIllegalReplyException, FTPException {
-		synchronized (lock) {
-			// Is this client connected?
-			if (!connected) {
-				throw new IllegalStateException("Client not connected");
-			}
-			// Is this client authenticated?
-			if (!authenticated) {
-				throw new IllegalStateException("Client not authenticated");
-			}
-			// Sends the HELP command.
-			communication.sendFTPCommand("HELP");
-			FTPReply r = communication.readFTPReply();
-			touchAutoNoopTimer();
-			if (!r.isSuccessCode()) {
-				throw new FTPException(r);
-			}
-			return r.getMessages();
-		}
-	}
-
-	/**
-	 * This method returns the remote server status, as the result of a FTP STAT
-	 * command.
-	 * 
-	 * @return The remote server status, splitted by line.
-	 * @throws IllegalStateException
-	 *             If the client is not connected or not authenticated.
-	 * @throws IOException
-	 *             If an I/O error occurs.
-	 * @throws FTPIllegalReplyException
-	 *             If the server replies in an illegal way.
-	 * @throws FTPException
-	 *             If the operation fails.
-	 */
-	public String[] serverStatus() throws IllegalStateException, IOException,
-			FTPIllegalReplyException, FTPException {
-		synchronized (lock) {
-			// Is this client connected?
-			if (!connected) {
-				throw new IllegalStateException("Client not connected");
-			}
-			// Is this client authenticated?
-			if (!authenticated) {
-				throw new IllegalStateException("Client not authenticated");
-			}
-			// Sends the STAT command.
-			communication.sendFTPCommand("STAT");
-			FTPReply r = communication.readFTPReply();
-			touchAutoNoopTimer();
-			if (!r.isSuccessCode()) {
-				throw new FTPException(r);
-			}
-			return r.getMessages();
-		}
-	}
-
-	/**
-	 * This method lists the entries of the current working directory parsing
-	 * the reply to a FTP LIST command.
-	 * 
-	 * The response to the LIST command is parsed through the FTPListParser
-	 * objects registered on the client. The distribution of ftp4j contains some
-	 * standard parsers already registered on every FTPClient object created. If
-	 * they don't work in your case (a FTPListParseException is thrown), you can
-	 * build your own parser implementing the FTPListParser interface and add it
-	 * to the client by calling its addListParser() method.
-	 * 
-	 * Calling this method blocks the current thread until the operation is
-	 * completed. The operation could be interrupted by another thread calling
-	 * abortCurrentDataTransfer(). The list() method will break with a
-	 * FTPAbortedException.
-	 * 
-	 * @param fileSpec
-	 *            A file filter string. Depending on the server implementation,
-	 *            wildcard characters could be accepted.
-	 * @return The list of the files (and directories) in the current working
-	 *         directory.
-	 * @throws IllegalStateException
-	 *             If the client is not connected or not authenticated.
-	 * @throws IOException
-	 *             If an I/O error occurs.
-	 * @throws FTPIllegalReplyException
-	 *             If the server replies in an illegal way.
-	 * @throws FTPException
-	 *             If the operation fails.
-	 * @throws FTPDataTransferException
-	 *             If a I/O occurs in the data transfer connection. If you
-	 *             receive this exception the transfer failed, but the main
-	 *             connection with the remote FTP server is in theory still
-	 *             working.
-	 * @throws FTPAbortedException
-	 *             If operation is aborted by another thread.
-	 * @throws FTPListParseException
-	 *             If none of the registered parsers can handle the response
-	 *             sent by the server.
-	 * @see FTPListParser
-	 * @see FTPClient#addListParser(FTPListParser)
-	 * @see FTPClient#getListParsers()
-	 * @see FTPClient#abortCurrentDataTransfer(boolean)
-	 * @see FTPClient#listNames()
-	 * @since 1.2
-	 */
-	public FTPFile[] list(String fileSpec) throws IllegalStateException,
-			IOException, FTPIllegalReplyException, FTPException,
-			FTPDataTransferException, FTPAbortedException,
-			FTPListParseException {
-		synchronized (lock) {
-			// Is this client connected?
-			if (!connected) {
-				throw new IllegalStateException("Client not connected");
-			}
-			// Is this client authenticated?
-			if (!authenticated) {
-				throw new IllegalStateException("Client not authenticated");
-			}
-			// ASCII, please!
-			communication.sendFTPCommand("TYPE A");
-			FTPReply r = communication.readFTPReply();
-			touchAutoNoopTimer();
-			if (!r.isSuccessCode()) {
-				throw new FTPException(r);
-			}
-			// Prepares the connection for the data transfer.
-			FTPDataTransferConnectionProvider provider = openDataTransferChannel();
-			// MLSD or LIST command?
-			boolean mlsdCommand;
-			if (mlsdPolicy == MLSD_IF_SUPPORTED) {
-				mlsdCommand = mlsdSupported;
-			} else if (mlsdPolicy == MLSD_ALWAYS) {
-				mlsdCommand = true;
-			} else {
-				mlsdCommand = false;
-			}
-			String command = mlsdCommand ? "MLSD" : "LIST";
-			// Adds the file/directory selector.
-			if (fileSpec != null && fileSpec.length() > 0) {
-				command += " " + fileSpec;
-			}
-			// Sends the command.
-			communication.sendFTPCommand(command);
-			Socket dtConnection;
-			try {
-				try {
-					dtConnection = provider.openDataTransferConnection();
-				} finally {
-					r = communication.readFTPReply();
-					touchAutoNoopTimer();
-					if (r.getCode() != 150 && r.getCode() != 125) {
-						throw new FTPException(r);
-					}
-				}
-			} finally {
-				provider.dispose();
-			}
-			// Change the operation status.
-			synchronized (abortLock) {
-				ongoingDataTransfer = true;
-				aborted = false;
-			}
-			// Fetch the list from the data transfer connection.
-			ArrayList lines = new ArrayList();
-			NVTASCIIReader dataReader = null;
-			try {
-				// Opens the data transfer connection.
-				dataTransferInputStream = dtConnection.getInputStream();
-				// MODE Z enabled?
-				if (modezEnabled) {
-					dataTransferInputStream = new InflaterInputStream(dataTransferInputStream);
-				}
-				// Let's do it!
-				dataReader = new NVTASCIIReader(dataTransferInputStream, mlsdCommand ? "UTF-8" : pickCharset());
-				String line;
-				while ((line = dataReader.readLine()) != null) {
-					if (line.length() > 0) {
-						lines.add(line);
-					}
-				}
-			} catch (IOException e) {
-				synchronized (abortLock) {
-					if (aborted) {
-						throw new FTPAbortedException();
-					} else {
-						throw new FTPDataTransferException(
-								"I/O error in data transfer", e);
-					}
-				}
-			} finally {
-				if (dataReader != null) {
-					try {
-						dataReader.close();
-					} catch (Throwable t) {
-						;
-					}
-				}
-				try {
-					dtConnection.close();
-				} catch (Throwable t) {
-					;
-				}
-				// Consume the result reply of the transfer.
-				communication.readFTPReply();
-				// Set to null the instance-level input stream.
-				dataTransferInputStream = null;
-				// Change the operation status.
-				synchronized (abortLock) {
-					ongoingDataTransfer = false;
-					aborted = false;
-				}
-			}
-			// Build an array of lines.
-			int size = lines.size();
-			String[] list = new String[size];
-			for (int i = 0; i < size; i++) {
-				list[i] = (String) lines.get(i);
-			}
-			// Parse the list.
-			FTPFile[] ret = null;
-			if (mlsdCommand) {
-				// Forces the MLSDListParser.
-				MLSDListParser parser = new MLSDListParser();
-				ret = parser.parse(list);
-			} else {
-				// Searches for the appropriate parser.
-				if (parser == null) {
-					// Try to parse the list with every parser available.
-					for (Iterator i = listParsers.iterator(); i.hasNext();) {
-						FTPListParser aux = (FTPListParser) i.next();
-						try {
-							// Let's try!
-							ret = aux.parse(list);
-							// This parser smells good!
-							parser = aux;
-							// Leave the loop.
-							break;
-						} catch (FTPListParseException e) {
-							// Let's try the next one.
-							continue;
-						}
-					}
-				} else {
-					ret = parser.parse(list);
-				}
-			}
-			if (ret == null) {
-				// None of the parsers can handle the list response.
-				throw new FTPListParseException();
-			} else {
-				// Return the parsed list.
-				return ret;
-			}
-		}
-	}
-
-	/**
-	 * This method lists the entries of the current working directory parsing
-	 * the reply to a FTP LIST command.
-	 * 
-	 * The response to the LIST command is parsed through the FTPListParser
-	 * objects registered on the client. The distribution of ftp4j contains some
-	 * standard parsers already registered on every FTPClient object created. If
-	 * they don't work in your case (a FTPListParseException is thrown), you can
-	 * build your own parser implementing the FTPListParser interface and add it
-	 * to the client by calling its addListParser() method.
-	 * 
-	 * Calling this method blocks the current thread until the operation is
-	 * completed. The operation could be interrupted by another thread calling
-	 * abortCurrentDataTransfer(). The list() method will break with a
-	 * FTPAbortedException.
-	 * 
-	 * @return The list of the files (and directories) in the current working
-	 *         directory.
-	 * @throws IllegalStateException
-	 *             If the client is not connected or not authenticated.
-	 * @throws IOException
-	 *             If an I/O error occurs.
-	 * @throws FTPIllegalReplyException
-	 *             If the server replies in an illegal way.
-	 * @throws FTPException
-	 *             If the operation fails.
-	 * @throws FTPDataTransferException
-	 *             If a I/O occurs in the data transfer connection. If you
-	 *             receive this exception the transfer failed, but the main
-	 *             connection with the remote FTP server is in theory still
-	 *             working.
-	 * @throws FTPAbortedException
-	 *             If operation is aborted by another thread.
-	 * @throws FTPListParseException
-	 *             If none of the registered parsers can handle the response
-	 *             sent by the server.
-	 * @see FTPListParser
-	 * @see FTPClient#addListParser(FTPListParser)
-	 * @see FTPClient#getListParsers()
-	 * @see FTPClient#abortCurrentDataTransfer(boolean)
-	 * @see FTPClient#listNames()
-	 */
-	public FTPFile[] list() throws IllegalStateException, IOException, FTPIllegalReplyException, FTPException,
-			FTPDataTransferException, FTPAbortedException, FTPListParseException {
-		return list(null);
-	}
-
-	/**
-	 * This method lists the entries of the current working directory with a FTP
-	 * NLST command.
-	 * 
-	 * The response consists in an array of string, each one reporting the name
-	 * of a file or a directory placed in the current working directory. For a
-	 * more detailed directory listing procedure look at the list() method.
-	 * 
-	 * Calling this method blocks the current thread until the operation is
-	 * completed. The operation could be interrupted by another thread calling
-	 * abortCurrentDataTransfer(). The listNames() method will break with a
-	 * FTPAbortedException.
-	 * 
-	 * @return The list of the files (and directories) in the current working
-	 *         directory.
-	 * @throws IllegalStateException
-	 *             If the client is not connected or not authenticated.
-	 * @throws IOException
-	 *             If an I/O error occurs.
-	 * @throws FTPIllegalReplyException
-	 *             If the server replies in an illegal way.
-	 * @throws FTPException
-	 *             If the operation fails.
-	 * @throws FTPDataTransferException
-	 *             If a I/O occurs in the data transfer connection. If you
-	 *             receive this exception the transfer failed, but the main
-	 *             connection with the remote FTP server is in theory still
-	 *             working.
-	 * @throws FTPAbortedException
-	 *             If operation is aborted by another thread.
-	 * @throws FTPListParseException
-	 *             If none of the registered parsers can handle the response
-	 *             sent by the server.
-	 * @see FTPClient#abortCurrentDataTransfer(boolean)
-	 * @see FTPClient#list()
-	 */
-	public String[] listNames() throws IllegalStateException, IOException, FTPIllegalReplyException, FTPException,
-			FTPDataTransferException, FTPAbortedException, FTPListParseException {
-		synchronized (lock) {
-			// Is this client connected?
-			if (!connected) {
-				throw new IllegalStateException("Client not connected");
-			}
-			// Is this client authenticated?
-			if (!authenticated) {
-				throw new IllegalStateException("Client not authenticated");
-			}
-			// ASCII, please!
-			communication.sendFTPCommand("TYPE A");
-			FTPReply r = communication.readFTPReply();
-			touchAutoNoopTimer();
-			if (!r.isSuccessCode()) {
-				throw new FTPException(r);
-			}
-			// Prepares the connection for the data transfer.
-			FTPDataTransferConnectionProvider provider = openDataTransferChannel();
-			// Send the NLST command.
-			communication.sendFTPCommand("NLST");
-			Socket dtConnection;
-			try {
-				try {
-					dtConnection = provider.openDataTransferConnection();
-				} finally {
-					r = communication.readFTPReply();
-					if (r.getCode() != 150 && r.getCode() != 125) {
-						throw new FTPException(r);
-					}
-				}
-			} finally {
-				provider.dispose();
-			}
-			// Change the operation status.
-			synchronized (abortLock) {
-				ongoingDataTransfer = true;
-				aborted = false;
-			}
-			// Fetch the list from the data transfer connection.
-			ArrayList lines = new ArrayList();
-			NVTASCIIReader dataReader = null;
-			try {
-				// Opens the data transfer connection.
-				dataTransferInputStream = dtConnection.getInputStream();
-				// MODE Z enabled?
-				if (modezEnabled) {
-					dataTransferInputStream = new InflaterInputStream(dataTransferInputStream);
-				}
-				// Let's do it!
-				dataReader = new NVTASCIIReader(dataTransferInputStream,
-						pickCharset());
-				String line;
-				while ((line = dataReader.readLine()) != null) {
-					if (line.length() > 0) {
-						lines.add(line);
-					}
-				}
-			} catch (IOException e) {
-				synchronized (abortLock) {
-					if (aborted) {
-						throw new FTPAbortedException();
-					} else {
-						throw new FTPDataTransferException(
-								"I/O error in data transfer", e);
-					}
-				}
-			} finally {
-				if (dataReader != null) {
-					try {
-						dataReader.close();
-					} catch (Throwable t) {
-						;
-					}
-				}
-				try {
-					dtConnection.close();
-				} catch (Throwable t) {
-					;
-				}
-				// Consume the result reply of the transfer.
-				communication.readFTPReply();
-				// Set to null the instance-level input stream.
-				dataTransferInputStream = null;
-				// Change the operation status.
-				synchronized (abortLock) {
-					ongoingDataTransfer = false;
-					aborted = false;
-				}
-			}
-			// Build an array.
-			int size = lines.size();
-			String[] list = new String[size];
-			for (int i = 0; i < size; i++) {
-				list[i] = (String) lines.get(i);
-			}
-			return list;
-		}
-	}
-
-	/**
-	 * This method uploads a file to the remote server.
-	 * 
-	 * Calling this method blocks the current thread until the operation is
-	 * completed. The operation could be interrupted by another thread calling
-	 * abortCurrentDataTransfer(). The method will break with a
-	 * FTPAbortedException.
-	 * 
-	 * @param file
-	 *            The file to upload.
-	 * @throws IllegalStateException
-	 *             If the client is not connected or not authenticated.
-	 * @throws FileNotFoundException
-	 *             If the supplied file cannot be found.
-	 * @throws IOException
-	 *             If an I/O error occurs.
-	 * @throws FTPIllegalReplyException
-	 *             If the server replies in an illegal way.
-	 * @throws FTPException
-	 *             If the operation fails.
-	 * @throws FTPDataTransferException
-	 *             If a I/O occurs in the data transfer connection. If you
-	 *             receive this exception the transfer failed, but the main
-	 *             connection with the remote FTP server is in theory still
-	 *             working.
-	 * @throws FTPAbortedException
-	 *             If operation is aborted by another thread.
-	 * @see FTPClient#abortCurrentDataTransfer(boolean)
-	 */
-	public void upload(File file) throws IllegalStateException,
-			FileNotFoundException, IOException, FTPIllegalReplyException,
-			FTPException, FTPDataTransferException, FTPAbortedException {
-		upload(file, 0, null);
-	}
-
-	/**
-	 * This method uploads a file to the remote server.
-	 * 
-	 * Calling this method blocks the current thread until the operation is
-	 * completed. The operation could be interrupted by another thread calling
-	 * abortCurrentDataTransfer(). The method will break with a
-	 * FTPAbortedException.
-	 * 
-	 * @param file
-	 *            The file to upload.
-	 * @param listener
-	 *            The listener for the operation. Could be null.
-	 * @throws IllegalStateException
-	 *             If the client is not connected or not authenticated.
-	 * @throws FileNotFoundException
-	 *             If the supplied file cannot be found.
-	 * @throws IOException
-	 *             If an I/O error occurs.
-	 * @throws FTPIllegalReplyException
-	 *             If the server replies in an illegal way.
-	 * @throws FTPException
-	 *             If the operation fails.
-	 * @throws FTPDataTransferException
-	 *             If a I/O occurs in the data transfer connection. If you
-	 *             receive this exception the transfer failed, but the main
-	 *             connection with the remote FTP server is in theory still
-	 *             working.
-	 * @throws FTPAbortedException
-	 *             If operation is aborted by another thread.
-	 * @see FTPClient#abortCurrentDataTransfer(boolean)
-	 */
-	public void upload(File file, FTPDataTransferListener listener)
-			throws IllegalStateException, FileNotFoundException, IOException,
-			FTPIllegalReplyException, FTPException, FTPDataTransferException,
-			FTPAbortedException {
-		upload(file, 0, listener);
-	}
-
-	/**
-	 * This method uploads a file to the remote server.
-	 * 
-	 * Calling this method blocks the current thread until the operation is
-	 * completed. The operation could be interrupted by another thread calling
-	 * abortCurrentDataTransfer(). The method will break with a
-	 * FTPAbortedException.
-	 * 
-	 * @param file
-	 *            The file to upload.
-	 * @param restartAt
-	 *            The restart point (number of bytes already uploaded). Use
-	 *            {@link FTPClient#isResumeSupported()} to check if the server
-	 *            supports resuming of broken data transfers.
-	 * @throws IllegalStateException
-	 *             If the client is not connected or not authenticated.
-	 * @throws FileNotFoundException
-	 *             If the supplied file cannot be found.
-	 * @throws IOException
-	 *             If an I/O error occurs.
-	 * @throws FTPIllegalReplyException
-	 *             If the server replies in an illegal way.
-	 * @throws FTPException
-	 *             If the operation fails.
-	 * @throws FTPDataTransferException
-	 *             If a I/O occurs in the data transfer connection. If you
-	 *             receive this exception the transfer failed, but the main
-	 *             connection with the remote FTP server is in theory still
-	 *             working.
-	 * @throws FTPAbortedException
-	 *             If operation is aborted by another thread.
-	 * @see FTPClient#abortCurrentDataTransfer(boolean)
-	 */
-	public void upload(File file, long restartAt) throws IllegalStateException,
-			FileNotFoundException, IOException, FTPIllegalReplyException,
-			FTPException, FTPDataTransferException, FTPAbortedException {
-		upload(file, restartAt, null);
-	}
-
-	/**
-	 * This method uploads a file to the remote server.
-	 * 
-	 * Calling this method blocks the current thread until the operation is
-	 * completed. The operation could be interrupted by another thread calling
-	 * abortCurrentDataTransfer(). The method will break with a
-	 * FTPAbortedException.
-	 * 
-	 * @param file
-	 *            The file to upload.
-	 * @param restartAt
-	 *            The restart point (number of bytes already uploaded). Use
-	 *            {@link FTPClient#isResumeSupported()} to check if the server
-	 *            supports resuming of broken data transfers.
-	 * @param listener
-	 *            The listener for the operation. Could be null.
-	 * @throws IllegalStateException
-	 *             If the client is not connected or not authenticated.
-	 * @throws FileNotFoundException
-	 *             If the supplied file cannot be found.
-	 * @throws IOException
-	 *             If an I/O error occurs.
-	 * @throws FTPIllegalReplyException
-	 *             If the server replies in an illegal way.
-	 * @throws FTPException
-	 *             If the operation fails.
-	 * @throws FTPDataTransferException
-	 *             If a I/O occurs in the data transfer connection. If you
-	 *             receive this exception the transfer failed, but the main
-	 *             connection with the remote FTP server is in theory still
-	 *             working.
-	 * @throws FTPAbortedException
-	 *             If operation is aborted by another thread.
-	 * @see FTPClient#abortCurrentDataTransfer(boolean)
-	 */
-	public void upload(File file, long restartAt,
-			FTPDataTransferListener listener) throws IllegalStateException,
-			FileNotFoundException, IOException, FTPIllegalReplyException,
-			FTPException, FTPDataTransferException, FTPAbortedException {
-		if (!file.exists()) {
-			throw new FileNotFoundException(file.getAbsolutePath());
-		}
-		InputStream inputStream = null;
-		try {
-			inputStream = new FileInputStream(file);
-		} catch (IOException e) {
-			throw new FTPDataTransferException(e);
-		}
-		try {
-			upload(file.getName(), inputStream, restartAt, restartAt, listener);
-		} catch (IllegalStateException e) {
-			throw e;
-		} catch (IOException e) {
-			throw e;
-		} catch (FTPIllegalReplyException e) {
-			throw e;
-		} catch (FTPException e) {
-			throw e;
-		} catch (FTPDataTransferException e) {
-			throw e;
-		} catch (FTPAbortedException e) {
-			throw e;
-		} finally {
-			if (inputStream != null) {
-				try {
-					inputStream.close();
-				} catch (Throwable t) {
-					;
-				}
-			}
-		}
-	}
-
-	/**
-	 * This method uploads a content to the remote server.
-	 * 
-	 * Calling this method blocks the current thread until the operation is
-	 * completed. The operation could be interrupted by another thread calling
-	 * abortCurrentDataTransfer(). The method will break with a
-	 * FTPAbortedException.
-	 * 
-	 * @param fileName
-	 *            The name of the remote file.
-	 * @param inputStream
-	 *            The source of data.
-	 * @param restartAt
-	 *            The restart point (number of bytes already uploaded). Use
-	 *            {@link FTPClient#isResumeSupported()} to check if the server
-	 *            supports resuming of broken data transfers.
-	 * @param streamOffset
-	 *            The offset to skip in the stream.
-	 * @param listener
-	 *            The listener for the operation. Could be null.
-	 * @throws IllegalStateException
-	 *             If the client is not connected or not authenticated.
-	 * @throws IOException
-	 *             If an I/O error occurs.
-	 * @throws FTPIllegalReplyException
-	 *             If the server replies in an illegal way.
-	 * @throws FTPException
-	 *             If the operation fails.
-	 * @throws FTPDataTransferException
-	 *             If a I/O occurs in the data transfer connection. If you
-	 *             receive this exception the transfer failed, but the main
-	 *             connection with the remote FTP server is in theory still
-	 *             working.
-	 * @throws FTPAbortedException
-	 *             If operation is aborted by another thread.
-	 * @see FTPClient#abortCurrentDataTransfer(boolean)
-	 */
-	public void upload(String fileName, InputStream inputStream,
-			long restartAt, long streamOffset, FTPDataTransferListener listener)
-			throws IllegalStateException, IOException,
-			FTPIllegalReplyException, FTPException, FTPDataTransferException,
-			FTPAbortedException {
-		synchronized (lock) {
-			// Is this client connected?
-			if (!connected) {
-				throw new IllegalStateException("Client not connected");
-			}
-			// Is this client authenticated?
-			if (!authenticated) {
-				throw new IllegalStateException("Client not authenticated");
-			}
-			// Select the type of contents.
-			int tp = type;
-			if (tp == TYPE_AUTO) {
-				tp = detectType(fileName);
-			}
-			if (tp == TYPE_TEXTUAL) {
-				communication.sendFTPCommand("TYPE A");
-			} else if (tp == TYPE_BINARY) {
-				communication.sendFTPCommand("TYPE I");
-			}
-			FTPReply r = communication.readFTPReply();
-			touchAutoNoopTimer();
-			if (!r.isSuccessCode()) {
-				throw new FTPException(r);
-			}
-			// Prepares the connection for the data transfer.
-			FTPDataTransferConnectionProvider provider = openDataTransferChannel();
-			// REST command (if supported and/or requested).
-			if (restSupported || restartAt > 0) {
-				boolean done = false;
-				try {
-					communication.sendFTPCommand("REST " + restartAt);
-					r = communication.readFTPReply();
-					touchAutoNoopTimer();
-					if (r.getCode() != 350 && (r.getCode() != 502 || restartAt > 0)) {
-						throw new FTPException(r);
-					}
-					done = true;
-				} finally {
-					if (!done) {
-						provider.dispose();
-					}
-				}
-			}
-			// Send the STOR command.
-			communication.sendFTPCommand("STOR " + fileName);
-			Socket dtConnection;
-			try {
-				try {
-					dtConnection = provider.openDataTransferConnection();
-				} finally {
-					r = communication.readFTPReply();
-					touchAutoNoopTimer();
-					if (r.getCode() != 150 && r.getCode() != 125) {
-						throw new FTPException(r);
-					}
-				}
-			} finally {
-				provider.dispose();
-			}
-			// Change the operation status.
-			synchronized (abortLock) {
-				ongoingDataTransfer = true;
-				aborted = false;
-			}
-			// Upload the stream.
-			long done = 0;
-			try {
-				// Skips.
-				inputStream.skip(streamOffset);
-				// Opens the data transfer connection.
-				dataTransferOutputStream = dtConnection.getOutputStream();
-				// MODE Z enabled?
-				if (modezEnabled) {
-					dataTransferOutputStream = new DeflaterOutputStream(dataTransferOutputStream);
-				}
-				// Listeners.
-				if (listener != null) {
-					listener.started();
-				}
-				// Let's do it!
-				if (tp == TYPE_TEXTUAL) {
-					Reader reader = new InputStreamReader(inputStream);
-					Writer writer = new OutputStreamWriter(
-							dataTransferOutputStream, pickCharset());
-					char[] buffer = new char[SEND_AND_RECEIVE_BUFFER_SIZE];
-					int l;
-					while ((l = reader.read(buffer)) != -1) {
-						writer.write(buffer, 0, l);
-						writer.flush();
-						done += l;
-						if (listener != null) {
-							listener.transferred(l);
-						}
-					}
-				} else if (tp == TYPE_BINARY) {
-					byte[] buffer = new byte[SEND_AND_RECEIVE_BUFFER_SIZE];
-					int l;
-					while ((l = inputStream.read(buffer)) != -1) {
-						dataTransferOutputStream.write(buffer, 0, l);
-						dataTransferOutputStream.flush();
-						done += l;
-						if (listener != null) {
-							listener.transferred(l);
-						}
-					}
-				}
-			} catch (IOException e) {
-				synchronized (abortLock) {
-					if (aborted) {
-						if (listener != null) {
-							listener.aborted();
-						}
-						throw new FTPAbortedException();
-					} else {
-						if (listener != null) {
-							listener.failed();
-						}
-						throw new FTPDataTransferException(
-								"I/O error in data transfer", e);
-					}
-				}
-			} finally {
-				// Closing stream and data connection.
-				if (dataTransferOutputStream != null) {
-					try {
-						dataTransferOutputStream.close();
-					} catch (Throwable t) {
-						;
-					}
-				}
-				try {
-					dtConnection.close();
-				} catch (Throwable t) {
-					;
-				}
-				// Set to null the instance-level input stream.
-				dataTransferOutputStream = null;
-				// Consume the result reply of the transfer.
-				communication.readFTPReply();
-				// Change the operation status.
-				synchronized (abortLock) {
-					ongoingDataTransfer = false;
-					aborted = false;
-				}
-			}
-			if (listener != null) {
-				listener.completed();
-			}
-		}
-	}
-
-	/**
-	 * This method appends the contents of a local file to an existing file on
-	 * the remote server.
-	 * 
-	 * Calling this method blocks the current thread until the operation is
-	 * completed. The operation could be interrupted by another thread calling
-	 * abortCurrentDataTransfer(). The method will break with a
-	 * FTPAbortedException.
-	 * 
-	 * @param file
-	 *            The local file whose contents will be appended to the remote
-	 *            file.
-	 * @throws IllegalStateException
-	 *             If the client is not connected or not authenticated.
-	 * @throws FileNotFoundException
-	 *             If the supplied file cannot be found.
-	 * @throws IOException
-	 *             If an I/O error occurs.
-	 * @throws FTPIllegalReplyException
-	 *             If the server replies in an illegal way.
-	 * @throws FTPException
-	 *             If the operation fails.
-	 * @throws FTPDataTransferException
-	 *             If a I/O occurs in the data transfer connection. If you
-	 *             receive this exception the transfer failed, but the main
-	 *             connection with the remote FTP server is in theory still
-	 *             working.
-	 * @throws FTPAbortedException
-	 *             If operation is aborted by another thread.
-	 * @see FTPClient#abortCurrentDataTransfer(boolean)
-	 * @since 1.6
-	 */
-	public void append(File file) throws IllegalStateException,
-			FileNotFoundException, IOException, FTPIllegalReplyException,
-			FTPException, FTPDataTransferException, FTPAbortedException {
-		append(file, null);
-	}
-
-	/**
-	 * This method uploads a file to the remote server.
-	 * 
-	 * Calling this method blocks the current thread until the operation is
-	 * completed. The operation could be interrupted by another thread calling
-	 * abortCurrentDataTransfer(). The method will break with a
-	 * FTPAbortedException.
-	 * 
-	 * @param file
-	 *            The local file whose contents will be appended to the remote
-	 *            file.
-	 * @param listener
-	 *            The listener for the operation. Could be null.
-	 * @throws IllegalStateException
-	 *             If the client is not connected or not authenticated.
-	 * @throws FileNotFoundException
-	 *             If the supplied file cannot be found.
-	 * @throws IOException
-	 *             If an I/O error occurs.
-	 * @throws FTPIllegalReplyException
-	 *             If the server replies in an illegal way.
-	 * @throws FTPException
-	 *             If the operation fails.
-	 * @throws FTPDataTransferException
-	 *             If a I/O occurs in the data transfer connection. If you
-	 *             receive this exception the transfer failed, but the main
-	 *             connection with the remote FTP server is in theory still
-	 *             working.
-	 * @throws FTPAbortedException
-	 *             If operation is aborted by another thread.
-	 * @see FTPClient#abortCurrentDataTransfer(boolean)
-	 * @since 1.6
-	 */
-	public void append(File file, FTPDataTransferListener listener)
-			throws IllegalStateException, FileNotFoundException, IOException,
-			FTPIllegalReplyException, FTPException, FTPDataTransferException,
-			FTPAbortedException {
-		if (!file.exists()) {
-			throw new FileNotFoundException(file.getAbsolutePath());
-		}
-		InputStream inputStream = null;
-		try {
-			inputStream = new FileInputStream(file);
-		} catch (IOException e) {
-			throw new FTPDataTransferException(e);
-		}
-		try {
-			append(file.getName(), inputStream, 0, listener);
-		} catch (IllegalStateException e) {
-			throw e;
-		} catch (IOException e) {
-			throw e;
-		} catch (FTPIllegalReplyException e) {
-			throw e;
-		} catch (FTPException e) {
-			throw e;
-		} catch (FTPDataTransferException e) {
-			throw e;
-		} catch (FTPAbortedException e) {
-			throw e;
-		} finally {
-			if (inputStream != null) {
-				try {
-					inputStream.close();
-				} catch (Throwable t) {
-					;
-				}
-			}
-		}
-	}
-
-	/**
-	 * This method appends data to an existing file on the remote server.
-	 * 
-	 * Calling this method blocks the current thread until the operation is
-	 * completed. The operation could be interrupted by another thread calling
-	 * abortCurrentDataTransfer(). The method will break with a
-	 * FTPAbortedException.
-	 * 
-	 * @param fileName
-	 *            The name of the remote file.
-	 * @param inputStream
-	 *            The source of data.
-	 * @param streamOffset
-	 *            The offset to skip in the stream.
-	 * @param listener
-	 *            The listener for the operation. Could be null.
-	 * @throws IllegalStateException
-	 *             If the client is not connected or not authenticated.
-	 * @throws IOException
-	 *             If an I/O error occurs.
-	 * @throws FTPIllegalReplyException
-	 *             If the server replies in an illegal way.
-	 * @throws FTPException
-	 *             If the operation fails.
-	 * @throws FTPDataTransferException
-	 *             If a I/O occurs in the data transfer connection. If you
-	 *             receive this exception the transfer failed, but the main
-	 *             connection with the remote FTP server is in theory still
-	 *             working.
-	 * @throws FTPAbortedException
-	 *             If operation is aborted by another thread.
-	 * @see FTPClient#abortCurrentDataTransfer(boolean)
-	 * @since 1.6
-	 */
-	public void append(String fileName, InputStream inputStream,
-			long streamOffset, FTPDataTransferListener listener)
-			throws IllegalStateException, IOException,
-			FTPIllegalReplyException, FTPException, FTPDataTransferException,
-			FTPAbortedException {
-		synchronized (lock) {
-			// Is this client connected?
-			if (!connected) {
-				throw new IllegalStateException("Client not connected");
-			}
-			// Is this client authenticated?
-			if (!authenticated) {
-				throw new IllegalStateException("Client not authenticated");
-			}
-			// Select the type of contents.
-			int tp = type;
-			if (tp == TYPE_AUTO) {
-				tp = detectType(fileName);
-			}
-			if (tp == TYPE_TEXTUAL) {
-				communication.sendFTPCommand("TYPE A");
-			} else if (tp == TYPE_BINARY) {
-				communication.sendFTPCommand("TYPE I");
-			}
-			FTPReply r = communication.readFTPReply();
-			touchAutoNoopTimer();
-			if (!r.isSuccessCode()) {
-				throw new FTPException(r);
-			}
-			// Prepares the connection for the data transfer.
-			FTPDataTransferConnectionProvider provider = openDataTransferChannel();
-			// Send the STOR command.
-			communication.sendFTPCommand("APPE " + fileName);
-			Socket dtConnection;
-			try {
-				try {
-					dtConnection = provider.openDataTransferConnection();
-				} finally {
-					r = communication.readFTPReply();
-					touchAutoNoopTimer();
-					if (r.getCode() != 150 && r.getCode() != 125) {
-						throw new FTPException(r);
-					}
-				}
-			} finally {
-				provider.dispose();
-			}
-			// Change the operation status.
-			synchronized (abortLock) {
-				ongoingDataTransfer = true;
-				aborted = false;
-			}
-			// Upload the stream.
-			long done = 0;
-			try {
-				// Skips.
-				inputStream.skip(streamOffset);
-				// Opens the data transfer connection.
-				dataTransferOutputStream = dtConnection.getOutputStream();
-				// MODE Z enabled?
-				if (modezEnabled) {
-					dataTransferOutputStream = new DeflaterOutputStream(dataTransferOutputStream);
-				}
-				// Listeners.
-				if (listener != null) {
-					listener.started();
-				}
-				// Let's do it!
-				if (tp == TYPE_TEXTUAL) {
-					Reader reader = new InputStreamReader(inputStream);
-					Writer writer = new OutputStreamWriter(
-							dataTransferOutputStream, pickCharset());
-					char[] buffer = new char[SEND_AND_RECEIVE_BUFFER_SIZE];
-					int l;
-					while ((l = reader.read(buffer)) != -1) {
-						writer.write(buffer, 0, l);
-						writer.flush();
-						done += l;
-						if (listener != null) {
-							listener.transferred(l);
-						}
-					}
-				} else if (tp == TYPE_BINARY) {
-					byte[] buffer = new byte[SEND_AND_RECEIVE_BUFFER_SIZE];
-					int l;
-					while ((l = inputStream.read(buffer)) != -1) {
-						dataTransferOutputStream.write(buffer, 0, l);
-						dataTransferOutputStream.flush();
-						done += l;
-						if (listener != null) {
-							listener.transferred(l);
-						}
-					}
-				}
-			} catch (IOException e) {
-				synchronized (abortLock) {
-					if (aborted) {
-						if (listener != null) {
-							listener.aborted();
-						}
-						throw new FTPAbortedException();
-					} else {
-						if (listener != null) {
-							listener.failed();
-						}
-						throw new FTPDataTransferException(
-								"I/O error in data transfer", e);
-					}
-				}
-			} finally {
-				// Closing stream and data connection.
-				if (dataTransferOutputStream != null) {
-					try {
-						dataTransferOutputStream.close();
-					} catch (Throwable t) {
-						;
-					}
-				}
-				try {
-					dtConnection.close();
-				} catch (Throwable t) {
-					;
-				}
-				// Set to null the instance-level input stream.
-				dataTransferOutputStream = null;
-				// Consume the result reply of the transfer.
-				communication.readFTPReply();
-				// Change the operation status.
-				synchronized (abortLock) {
-					ongoingDataTransfer = false;
-					aborted = false;
-				}
-			}
-			if (listener != null) {
-				listener.completed();
-			}
-		}
-	}
-
-	/**
-	 * This method downloads a remote file from the server to a local file.
-	 * 
-	 * Calling this method blocks the current thread until the operation is
-	 * completed. The operation could be interrupted by another thread calling
-	 * abortCurrentDataTransfer(). The method will break with a
-	 * FTPAbortedException.
-	 * 
-	 * @param remoteFileName
-	 *            The name of the file to download.
-	 * @param localFile
-	 *            The local file.
-	 * @throws IllegalStateException
-	 *             If the client is not connected or not authenticated.
-	 * @throws FileNotFoundException
-	 *             If the supplied file cannot be found.
-	 * @throws IOException
-	 *             If an I/O error occurs.
-	 * @throws FTPIllegalReplyException
-	 *             If the server replies in an illegal way.
-	 * @throws FTPException
-	 *             If the operation fails.
-	 * @throws FTPDataTransferException
-	 *             If a I/O occurs in the data transfer connection. If you
-	 *             receive this exception the transfer failed, but the main
-	 *             connection with the remote FTP server is in theory still
-	 *             working.
-	 * @throws FTPAbortedException
-	 *             If operation is aborted by another thread.
-	 * @see FTPClient#abortCurrentDataTransfer(boolean)
-	 */
-	public void download(String remoteFileName, File localFile)
-			throws IllegalStateException, FileNotFoundException, IOException,
-			FTPIllegalReplyException, FTPException, FTPDataTransferException,
-			FTPAbortedException {
-		download(remoteFileName, localFile, 0, null);
-	}
-
-	/**
-	 * This method downloads a remote file from the server to a local file.
-	 * 
-	 * Calling this method blocks the current thread until the operation is
-	 * completed. The operation could be interrupted by another thread calling
-	 * abortCurrentDataTransfer(). The method will break with a
-	 * FTPAbortedException.
-	 * 
-	 * @param remoteFileName
-	 *            The name of the file to download.
-	 * @param localFile
-	 *            The local file.
-	 * @param listener
-	 *            The listener for the operation. Could be null.
-	 * @throws IllegalStateException
-	 *             If the client is not connected or not authenticated.
-	 * @throws FileNotFoundException
-	 *             If the supplied file cannot be found.
-	 * @throws IOException
-	 *             If an I/O error occurs.
-	 * @throws FTPIllegalReplyException
-	 *             If the server replies in an illegal way.
-	 * @throws FTPException
-	 *             If the operation fails.
-	 * @throws FTPDataTransferException
-	 *             If a I/O occurs in the data transfer connection. If you
-	 *             receive this exception the transfer failed, but the main
-	 *             connection with the remote FTP server is in theory still
-	 *             working.
-	 * @throws FTPAbortedException
-	 *             If operation is aborted by another thread.
-	 * @see FTPClient#abortCurrentDataTransfer(boolean)
-	 */
-	public void download(String remoteFileName, File localFile,
-			FTPDataTransferListener listener) throws IllegalStateException,
-			FileNotFoundException, IOException, FTPIllegalReplyException,
-			FTPException, FTPDataTransferException, FTPAbortedException {
-		download(remoteFileName, localFile, 0, listener);
-	}
-
-	/**
-	 * This method resumes a download operation from the remote server to a
-	 * local file.
-	 * 
-	 * Calling this method blocks the current thread until the operation is
-	 * completed. The operation could be interrupted by another thread calling
-	 * abortCurrentDataTransfer(). The method will break with a
-	 * FTPAbortedException.
-	 * 
-	 * @param remoteFileName
-	 *            The name of the file to download.
-	 * @param localFile
-	 *            The local file.
-	 * @param restartAt
-	 *            The restart point (number of bytes already downloaded). Use
-	 *            {@link FTPClient#isResumeSupported()} to check if the server
-	 *            supports resuming of broken data transfers.
-	 * @throws IllegalStateException
-	 *             If the client is not connected or not authenticated.
-	 * @throws FileNotFoundException
-	 *             If the supplied file cannot be found.
-	 * @throws IOException
-	 *             If an I/O error occurs.
-	 * @throws FTPIllegalReplyException
-	 *             If the server replies in an illegal way.
-	 * @throws FTPException
-	 *             If the operation fails.
-	 * @throws FTPDataTransferException
-	 *             If a I/O occurs in the data transfer connection. If you
-	 *             receive this exception the transfer failed, but the main
-	 *             connection with the remote FTP server is in theory still
-	 *             working.
-	 * @throws FTPAbortedException
-	 *             If operation is aborted by another thread.
-	 * @see FTPClient#abortCurrentDataTransfer(boolean)
-	 */
-	public void download(String remoteFileName, File localFile, long restartAt)
-			throws IllegalStateException, FileNotFoundException, IOException,
-			FTPIllegalReplyException, FTPException, FTPDataTransferException,
-			FTPAbortedException {
-		download(remoteFileName, localFile, restartAt, null);
-	}
-
-	/**
-	 * This method resumes a download operation from the remote server to a
-	 * local file.
-	 * 
-	 * Calling this method blocks the current thread until the operation is
-	 * completed. The operation could be interrupted by another thread calling
-	 * abortCurrentDataTransfer(). The method will break with a
-	 * FTPAbortedException.
-	 * 
-	 * @param remoteFileName
-	 *            The name of the file to download.
-	 * @param localFile
-	 *            The local file.
-	 * @param restartAt
-	 *            The restart point (number of bytes already downloaded). Use
-	 *            {@link FTPClient#isResumeSupported()} to check if the server
-	 *            supports resuming of broken data transfers.
-	 * @param listener
-	 *            The listener for the operation. Could be null.
-	 * @throws IllegalStateException
-	 *             If the client is not connected or not authenticated.
-	 * @throws FileNotFoundException
-	 *             If the supplied file cannot be found.
-	 * @throws IOException
-	 *             If an I/O error occurs.
-	 * @throws FTPIllegalReplyException
-	 *             If the server replies in an illegal way.
-	 * @throws FTPException
-	 *             If the operation fails.
-	 * @throws FTPDataTransferException
-	 *             If a I/O occurs in the data transfer connection. If you
-	 *             receive this exception the transfer failed, but the main
-	 *             connection with the remote FTP server is in theory still
-	 *             working.
-	 * @throws FTPAbortedException
-	 *             If operation is aborted by another thread.
-	 * @see FTPClient#abortCurrentDataTransfer(boolean)
-	 */
-	public void download(String remoteFileName, File localFile, long restartAt,
-			FTPDataTransferListener listener) throws IllegalStateException,
-			FileNotFoundException, IOException, FTPIllegalReplyException,
-			FTPException, FTPDataTransferException, FTPAbortedException {
-		OutputStream outputStream = null;
-		try {
-			outputStream = new FileOutputStream(localFile, restartAt > 0);
-		} catch (IOException e) {
-			throw new FTPDataTransferException(e);
-		}
-		try {
-			download(remoteFileName, outputStream, restartAt, listener);
-		} catch (IllegalStateException e) {
-			throw e;
-		} catch (IOException e) {
-			throw e;
-		} catch (FTPIllegalReplyException e) {
-			throw e;
-		} catch (FTPException e) {
-			throw e;
-		} catch (FTPDataTransferException e) {
-			throw e;
-		} catch (FTPAbortedException e) {
-			throw e;
-		} finally {
-			if (outputStream != null) {
-				try {
-					outputStream.close();
-				} catch (Throwable t) {
-					;
-				}
-			}
-		}
-	}
-
-	/**
-	 * This method resumes a download operation from the remote server.
-	 * 
-	 * Calling this method blocks the current thread until the operation is
-	 * completed. The operation could be interrupted by another thread calling
-	 * abortCurrentDataTransfer(). The method will break with a
-	 * FTPAbortedException.
-	 * 
-	 * @param fileName
-	 *            The name of the remote file.
-	 * @param outputStream
-	 *            The destination stream of data read during the download.
-	 * @param restartAt
-	 *            The restart point (number of bytes already downloaded). Use
-	 *            {@link FTPClient#isResumeSupported()} to check if the server
-	 *            supports resuming of broken data transfers.
-	 * @param listener
-	 *            The listener for the operation. Could be null.
-	 * @throws IllegalStateException
-	 *             If the client is not connected or not authenticated.
-	 * @throws IOException
-	 *             If an I/O error occurs.
-	 * @throws FTPIllegalReplyException
-	 *             If the server replies in an illegal way.
-	 * @throws FTPException
-	 *             If the operation fails.
-	 * @throws FTPDataTransferException
-	 *             If a I/O occurs in the data transfer connection. If you
-	 *             receive this exception the transfer failed, but the main
-	 *             connection with the remote FTP server is in theory still
-	 *             working.
-	 * @throws FTPAbortedException
-	 *             If operation is aborted by another thread.
-	 * @see FTPClient#abortCurrentDataTransfer(boolean)
-	 */
-	public void download(String fileName, OutputStream outputStream,
-			long restartAt, FTPDataTransferListener listener)
-			throws IllegalStateException, IOException,
-			FTPIllegalReplyException, FTPException, FTPDataTransferException,
-			FTPAbortedException {
-		synchronized (lock) {
-			// Is this client connected?
-			if (!connected) {
-				throw new IllegalStateException("Client not connected");
-			}
-			// Is this client authenticated?
-			if (!authenticated) {
-				throw new IllegalStateException("Client not authenticated");
-			}
-			// Select the type of contents.
-			int tp = type;
-			if (tp == TYPE_AUTO) {
-				tp = detectType(fileName);
-			}
-			if (tp == TYPE_TEXTUAL) {
-				communication.sendFTPCommand("TYPE A");
-			} else if (tp == TYPE_BINARY) {
-				communication.sendFTPCommand("TYPE I");
-			}
-			FTPReply r = communication.readFTPReply();
-			touchAutoNoopTimer();
-			if (!r.isSuccessCode()) {
-				throw new FTPException(r);
-			}
-			// Prepares the connection for the data transfer.
-			FTPDataTransferConnectionProvider provider = openDataTransferChannel();
-			// REST command (if supported and/or requested).
-			if (restSupported || restartAt > 0) {
-				boolean done = false;
-				try {
-					communication.sendFTPCommand("REST " + restartAt);
-					r = communication.readFTPReply();
-					touchAutoNoopTimer();
-					if (r.getCode() != 350 && (r.getCode() != 502 || restartAt > 0)) {
-						throw new FTPException(r);
-					}
-					done = true;
-				} finally {
-					if (!done) {
-						provider.dispose();
-					}
-				}
-			}
-			// Send the RETR command.
-			communication.sendFTPCommand("RETR " + fileName);
-			Socket dtConnection;
-			try {
-				try {
-					dtConnection = provider.openDataTransferConnection();
-				} finally {
-					r = communication.readFTPReply();
-					touchAutoNoopTimer();
-					if (r.getCode() != 150 && r.getCode() != 125) {
-						throw new FTPException(r);
-					}
-				}
-			} finally {
-				provider.dispose();
-			}
-			// Change the operation status.
-			synchronized (abortLock) {
-				ongoingDataTransfer = true;
-				aborted = false;
-			}
-			// Download the stream.
-			try {
-				// Opens the data transfer connection.
-				dataTransferInputStream = dtConnection.getInputStream();
-				// MODE Z enabled?
-				if (modezEnabled) {
-					dataTransferInputStream = new InflaterInputStream(dataTransferInputStream);
-				}
-				// Listeners.
-				if (listener != null) {
-					listener.started();
-				}
-				// Let's do it!
-				if (tp == TYPE_TEXTUAL) {
-					Reader reader = new InputStreamReader(
-							dataTransferInputStream, pickCharset());
-					Writer writer = new OutputStreamWriter(outputStream);
-					char[] buffer = new char[SEND_AND_RECEIVE_BUFFER_SIZE];
-					int l;
-					while ((l = reader.read(buffer, 0, buffer.length)) != -1) {
-						writer.write(buffer, 0, l);
-						writer.flush();
-						if (listener != null) {
-							listener.transferred(l);
-						}
-					}
-				} else if (tp == TYPE_BINARY) {
-					byte[] buffer = new byte[SEND_AND_RECEIVE_BUFFER_SIZE];
-					int l;
-					while ((l = dataTransferInputStream.read(buffer, 0,
-							buffer.length)) != -1) {
-						outputStream.write(buffer, 0, l);
-						if (listener != null) {
-							listener.transferred(l);
-						}
-					}
-				}
-			} catch (IOException e) {
-				synchronized (abortLock) {
-					if (aborted) {
-						if (listener != null) {
-							listener.aborted();
-						}
-						throw new FTPAbortedException();
-					} else {
-						if (listener != null) {
-							listener.failed();
-						}
-						throw new FTPDataTransferException(
-								"I/O error in data transfer", e);
-					}
-				}
-			} finally {
-				// Closing stream and data connection.
-				if (dataTransferInputStream != null) {
-					try {
-						dataTransferInputStream.close();
-					} catch (Throwable t) {
-						;
-					}
-				}
-				try {
-					dtConnection.close();
-				} catch (Throwable t) {
-					;
-				}
-				// Set to null the instance-level input stream.
-				dataTransferInputStream = null;
-				// Consume the result reply of the transfer.
-				communication.readFTPReply();
-				// Change the operation status.
-				synchronized (abortLock) {
-					ongoingDataTransfer = false;
-					aborted = false;
-				}
-			}
-			if (listener != null) {
-				listener.completed();
-			}
-		}
-	}
-
-	/**
-	 * This method detects the type for a file transfer.
-	 */
-	private int detectType(String fileName) throws IOException,
-			FTPIllegalReplyException, FTPException {
-		int start = fileName.lastIndexOf('.') + 1;
-		int stop = fileName.length();
-		if (start > 0 && start < stop - 1) {
-			String ext = fileName.substring(start, stop);
-			ext = ext.toLowerCase();
-			if (textualExtensionRecognizer.isTextualExt(ext)) {
-				return TYPE_TEXTUAL;
-			} else {
-				return TYPE_BINARY;
-			}
-		} else {
-			return TYPE_BINARY;
-		}
-	}
-
-	/**
-	 * This method opens a data transfer channel.
-	 */
-	private FTPDataTransferConnectionProvider openDataTransferChannel()
-			throws IOException, FTPIllegalReplyException, FTPException,
-			FTPDataTransferException {
-		// MODE Z?
-		if (modezSupported && compressionEnabled) {
-			if (!modezEnabled) {
-				// Sends the MODE Z command.
-				communication.sendFTPCommand("MODE Z");
-				FTPReply r = communication.readFTPReply();
-				touchAutoNoopTimer();
-				if (r.isSuccessCode()) {
-					modezEnabled = true;
-				}
-			}
-		} else {
-			if (modezEnabled) {
-				// Sends the MODE S command.
-				communication.sendFTPCommand("MODE S");
-				FTPReply r = communication.readFTPReply();
-				touchAutoNoopTimer();
-				if (r.isSuccessCode()) {
-					modezEnabled = false;
-				}
-			}
-		}
-		// Active or passive?
-		if (passive) {
-			return openPassiveDataTransferChannel();
-		} else {
-			return openActiveDataTransferChannel();
-		}
-	}
-
-	/**
-	 * This method opens a data transfer channel in active mode.
-	 */
-	private FTPDataTransferConnectionProvider openActiveDataTransferChannel()
-			throws IOException, FTPIllegalReplyException, FTPException,
-			FTPDataTransferException {
-		// Create a FTPDataTransferServer object.
-		FTPDataTransferServer server = new FTPDataTransferServer() {
-			public Socket openDataTransferConnection()
-					throws FTPDataTransferException {
-				Socket socket = super.openDataTransferConnection();
-				if (dataChannelEncrypted) {
-					try {
-						socket = ssl(socket, socket.getInetAddress()
-								.getHostName(), socket.getPort());
-					} catch (IOException e) {
-						try {
-							socket.close();
-						} catch (Throwable t) {
-						}
-						throw new FTPDataTransferException(e);
-					}
-				}
-				return socket;
-			}
-		};
-		int port = server.getPort();
-		int p1 = port >>> 8;
-		int p2 = port & 0xff;
-		int[] addr = pickLocalAddress();
-		// Send the port command.
-		communication.sendFTPCommand("PORT " + addr[0] + "," + addr[1] + "," + addr[2] + "," +
-				addr[3] + "," + p1 + "," + p2);
-		FTPReply r = communication.readFTPReply();
-		touchAutoNoopTimer();
-		if (!r.isSuccessCode()) {
-			// Disposes.
-			server.dispose();
-			// Closes the already open connection (if any).
-			try {
-				Socket aux = server.openDataTransferConnection();
-				aux.close();
-			} catch (Throwable t) {
-				;
-			}
-			// Throws the exception.
-			throw new FTPException(r);
-		}
-		return server;
-	}
-
-	/**
-	 * This method opens a data transfer channel in passive mode.
-	 */
-	private FTPDataTransferConnectionProvider openPassiveDataTransferChannel()
-			throws IOException, FTPIllegalReplyException, FTPException,
-			FTPDataTransferException {
-		// Send the PASV command.
-		communication.sendFTPCommand("PASV");
-		// Read the reply.
-		FTPReply r = communication.readFTPReply();
-		touchAutoNoopTimer();
-		if (!r.isSuccessCode()) {
-			throw new FTPException(r);
-		}
-		// Use a regexp to extract the remote address and port.
-		String addressAndPort = null;
-		String[] messages = r.getMessages();
-		for (int i = 0; i < messages.length; i++) {
-			Matcher m = PASV_PATTERN.matcher(messages[i]);
-			if (m.find()) {
-				int start = m.start();
-				int end = m.end();
-				addressAndPort = messages[i].substring(start, end);
-				break;
-			}
-		}
-		if (addressAndPort == null) {
-			// The remote server has not sent the coordinates for the
-			// data transfer connection.
-			throw new FTPIllegalReplyException();
-		}
-		// Parse the string extracted from the reply.
-		StringTokenizer st = new StringTokenizer(addressAndPort, ",");
-		int b1 = Integer.parseInt(st.nextToken());
-		int b2 = Integer.parseInt(st.nextToken());
-		int b3 = Integer.parseInt(st.nextToken());
-		int b4 = Integer.parseInt(st.nextToken());
-		int p1 = Integer.parseInt(st.nextToken());
-		int p2 = Integer.parseInt(st.nextToken());
-		final InetAddress remoteAddress;
-		// Ignore address?
-		String useSuggestedAddress = System.getProperty(FTPKeys.PASSIVE_DT_USE_SUGGESTED_ADDRESS);
-		if ("true".equalsIgnoreCase(useSuggestedAddress) || "yes".equalsIgnoreCase(useSuggestedAddress)
-				|| "1".equals(useSuggestedAddress)) {
-			remoteAddress = InetAddress.getByAddress(new byte[] { (byte) b1, (byte) b2, (byte) b3, (byte) b4 });
-		} else {
-			remoteAddress = InetAddress.getByName(host);
-		}
-		final int remotePort = (p1 << 8) | p2;
-		FTPDataTransferConnectionProvider provider = new FTPDataTransferConnectionProvider() {
-
-			public Socket openDataTransferConnection()
-					throws FTPDataTransferException {
-				// Establish the connection.
-				Socket dtConnection;
-				String remoteHost = remoteAddress.getHostAddress();
-				try {
-					dtConnection = connector.connectForDataTransferChannel(remoteHost, remotePort);
-					if (dataChannelEncrypted) {
-						dtConnection = ssl(dtConnection, remoteHost, remotePort);
-					}
-				} catch (IOException e) {
-					throw new FTPDataTransferException("Cannot connect to the remote server", e);
-				}
-				return dtConnection;
-			}
-
-			public void dispose() {
-				// nothing to do
-			}
-
-		};
-		return provider;
-	}
-
-	/**
-	 * If there's any ongoing data transfer operation, this method aborts it.
-	 * 
-	 * @param sendAborCommand
-	 *            If true the client will negotiate the abort procedure with the
-	 *            server, through the standard FTP ABOR command. Otherwise the
-	 *            open data transfer connection will be closed without any
-	 *            advise has sent to the server.
-	 * @throws IOException
-	 *             If the ABOR command cannot be sent due to any I/O error. This
-	 *             could happen only if force is false.
-	 * @throws FTPIllegalReplyException
-	 *             If the server reply to the ABOR command is illegal. This
-	 *             could happen only if force is false.
-	 */
-	public void abortCurrentDataTransfer(boolean sendAborCommand)
-			throws IOException, FTPIllegalReplyException {
-		synchronized (abortLock) {
-			if (ongoingDataTransfer && !aborted) {
-				if (sendAborCommand) {
-					communication.sendFTPCommand("ABOR");
-					communication.readFTPReply();
-					touchAutoNoopTimer();
-				}
-				if (dataTransferInputStream != null) {
-					try {
-						dataTransferInputStream.close();
-					} catch (Throwable t) {
-						;
-					}
-				}
-				if (dataTransferOutputStream != null) {
-					try {
-						dataTransferOutputStream.close();
-					} catch (Throwable t) {
-						;
-					}
-				}
-				aborted = true;
-			}
-		}
-	}
-
-	/**
-	 * Returns the name of the charset that should be used in textual
-	 * transmissions.
-	 * 
-	 * @return The name of the charset that should be used in textual
-	 *         transmissions.
-	 */
-	private String pickCharset() {
-		if (charset != null) {
-			return charset;
-		} else if (utf8Supported) {
-			return "UTF-8";
-		} else {
-			return System.getProperty("file.encoding");
-		}
-	}
-
-	/**
-	 * Picks the local address for an active data transfer operation.
-	 * 
-	 * @return The local address as a 4 integer values array.
-	 * @throws IOException
-	 *             If an unexpected I/O error occurs while trying to resolve the
-	 *             local address.
-	 */
-	private int[] pickLocalAddress() throws IOException {
-		// Forced address?
-		int[] ret = pickForcedLocalAddress();
-		// Auto-detect?
-		if (ret == null) {
-			ret = pickAutoDetectedLocalAddress();
-		}
-		// Returns.
-		return ret;
-	}
-
-	/**
-	 * If a local address for active data transfers has been supplied through
-	 * the {@link FTPKeys#ACTIVE_DT_HOST_ADDRESS}, it returns it as a 4 elements
-	 * integer array; otherwise it returns null.
-	 * 
-	 * @return The forced local address, or null.
-	 */
-	private int[] pickForcedLocalAddress() {
-		int[] ret = null;
-		String aux = System.getProperty(FTPKeys.ACTIVE_DT_HOST_ADDRESS);
-		if (aux != null) {
-			boolean valid = false;
-			StringTokenizer st = new StringTokenizer(aux, ".");
-			if (st.countTokens() == 4) {
-				valid = true;
-				int[] arr = new int[4];
-				for (int i = 0; i < 4; i++) {
-					String tk = st.nextToken();
-					try {
-						arr[i] = Integer.parseInt(tk);
-					} catch (NumberFormatException e) {
-						arr[i] = -1;
-					}
-					if (arr[i] < 0 || arr[i] > 255) {
-						valid = false;
-						break;
-					}
-				}
-				if (valid) {
-					ret = arr;
-				}
-			}
-			if (!valid) {
-				// warning to the developer
-				System.err.println("WARNING: invalid value \"" + aux
-						+ "\" for the " + FTPKeys.ACTIVE_DT_HOST_ADDRESS
-						+ " system property. The value should "
-						+ "be in the x.x.x.x form.");
-			}
-		}
-		return ret;
-	}
-
-	/**
-	 * Auto-detects the local network address, and returns it in the form of a 4
-	 * elements integer array.
-	 * 
-	 * @return The detected local address.
-	 * @throws IOException
-	 *             If an unexpected I/O error occurs while trying to resolve the
-	 *             local address.
-	 */
-	private int[] pickAutoDetectedLocalAddress() throws IOException {
-		InetAddress addressObj = InetAddress.getLocalHost();
-		byte[] addr = addressObj.getAddress();
-		int b1 = addr[0] & 0xff;
-		int b2 = addr[1] & 0xff;
-		int b3 = addr[2] & 0xff;
-		int b4 = addr[3] & 0xff;
-		int[] ret = { b1, b2, b3, b4 };
-		return ret;
-	}
-
-	public String toString() {
-		synchronized (lock) {
-			StringBuffer buffer = new StringBuffer();
-			buffer.append(getClass().getName());
-			buffer.append(" [connected=");
-			buffer.append(connected);
-			if (connected) {
-				buffer.append(", host=");
-				buffer.append(host);
-				buffer.append(", port=");
-				buffer.append(port);
-			}
-			buffer.append(", connector=");
-			buffer.append(connector);
-			buffer.append(", security=");
-			switch (security) {
-			case SECURITY_FTP:
-				buffer.append("SECURITY_FTP");
-				break;
-			case SECURITY_FTPS:
-				buffer.append("SECURITY_FTPS");
-				break;
-			case SECURITY_FTPES:
-				buffer.append("SECURITY_FTPES");
-				break;
-			}
-			buffer.append(", authenticated=");
-			buffer.append(authenticated);
-			if (authenticated) {
-				buffer.append(", username=");
-				buffer.append(username);
-				buffer.append(", password=");
-				StringBuffer buffer2 = new StringBuffer();
-				for (int i = 0; i < password.length(); i++) {
-					buffer2.append('*');
-				}
-				buffer.append(buffer2);
-				buffer.append(", restSupported=");
-				buffer.append(restSupported);
-				buffer.append(", utf8supported=");
-				buffer.append(utf8Supported);
-				buffer.append(", mlsdSupported=");
-				buffer.append(mlsdSupported);
-				buffer.append(", mode=modezSupported");
-				buffer.append(modezSupported);
-				buffer.append(", mode=modezEnabled");
-				buffer.append(modezEnabled);
-			}
-			buffer.append(", transfer mode=");
-			buffer.append(passive ? "passive" : "active");
-			buffer.append(", transfer type=");
-			switch (type) {
-			case TYPE_AUTO:
-				buffer.append("TYPE_AUTO");
-				break;
-			case TYPE_BINARY:
-				buffer.append("TYPE_BINARY");
-				break;
-			case TYPE_TEXTUAL:
-				buffer.append("TYPE_TEXTUAL");
-				break;
-			}
-			buffer.append(", textualExtensionRecognizer=");
-			buffer.append(textualExtensionRecognizer);
-			FTPListParser[] listParsers = getListParsers();
-			if (listParsers.length > 0) {
-				buffer.append(", listParsers=");
-				for (int i = 0; i < listParsers.length; i++) {
-					if (i > 0) {
-						buffer.append(", ");
-					}
-					buffer.append(listParsers[i]);
-				}
-			}
-			FTPCommunicationListener[] communicationListeners = getCommunicationListeners();
-			if (communicationListeners.length > 0) {
-				buffer.append(", communicationListeners=");
-				for (int i = 0; i < communicationListeners.length; i++) {
-					if (i > 0) {
-						buffer.append(", ");
-					}
-					buffer.append(communicationListeners[i]);
-				}
-			}
-			buffer.append(", autoNoopTimeout=");
-			buffer.append(autoNoopTimeout);
-			buffer.append("]");
-			return buffer.toString();
-		}
-	}
-
-	/**
-	 * Starts the auto-noop timer thread.
-	 */
-	private void startAutoNoopTimer() {
-		if (autoNoopTimeout > 0) {
-			autoNoopTimer = new AutoNoopTimer();
-			autoNoopTimer.start();
-		}
-	}
-
-	/**
-	 * Stops the auto-noop timer thread.
-	 * 
-	 * @since 1.5
-	 */
-	private void stopAutoNoopTimer() {
-		if (autoNoopTimer != null) {
-			autoNoopTimer.interrupt();
-			autoNoopTimer = null;
-		}
-	}
-
-	/**
-	 * Resets the auto noop timer.
-	 */
-	private void touchAutoNoopTimer() {
-		if (autoNoopTimer != null) {
-			nextAutoNoopTime = System.currentTimeMillis() + autoNoopTimeout;
-		}
-	}
-
-	/**
-	 * The auto noop timer thread.
-	 */
-	private class AutoNoopTimer extends Thread {
-
-		public void run() {
-			synchronized (lock) {
-				if (nextAutoNoopTime <= 0 && autoNoopTimeout > 0) {
-					nextAutoNoopTime = System.currentTimeMillis() + autoNoopTimeout;
-				}
-				while (!Thread.interrupted() && autoNoopTimeout > 0) {
-					// Sleep till the next NOOP.
-					long delay = nextAutoNoopTime - System.currentTimeMillis();
-					if (delay > 0) {
-						try {
-							lock.wait(delay);
-						} catch (InterruptedException e) {
-							break;
-						}
-					}
-					// Is it really time to NOOP?
-					if (System.currentTimeMillis() >= nextAutoNoopTime) {
-						// Yes!
-						try {
-							noop();
-						} catch (Throwable t) {
-							; // ignore...
-						}
-					}
-				}
-			}
-		}
-
-	}
-
-}
+/*
+ * ftp4j - A pure Java FTP client library
+ * 
+ * Copyright (C) 2008-2010 Carlo Pelliccia (www.sauronsoftware.it)
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License version
+ * 2.1, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License 2.1 for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License version 2.1 along with this program.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+package it.sauronsoftware.ftp4j;
+
+import it.sauronsoftware.ftp4j.connectors.DirectConnector;
+import it.sauronsoftware.ftp4j.extrecognizers.DefaultTextualExtensionRecognizer;
+import it.sauronsoftware.ftp4j.extrecognizers.ParametricTextualExtensionRecognizer;
+import it.sauronsoftware.ftp4j.listparsers.DOSListParser;
+import it.sauronsoftware.ftp4j.listparsers.EPLFListParser;
+import it.sauronsoftware.ftp4j.listparsers.MLSDListParser;
+import it.sauronsoftware.ftp4j.listparsers.NetWareListParser;
+import it.sauronsoftware.ftp4j.listparsers.UnixListParser;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.RandomAccessFile;
+import java.io.Reader;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.SocketException;
+import java.net.UnknownHostException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SocketChannel;
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.StringTokenizer;
+import java.util.concurrent.ForkJoinPool;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLSession;
+import javax.net.ssl.SSLSocket;
+import javax.net.ssl.SSLSocketFactory;
+
+/**
+ * This class implements a FTP client.
+ * 
+ * You can use an instance of this class to connect to a remote FTP site and do
+ * FTP operations like directory listing, file upload and download, resume a
+ * broken upload/download and so on.
+ * 
+ * The common flow is: create the object, connect to a remote FTP site with the
+ * connect() method, authenticate with login(), do anything you need with the
+ * contents of the remote site, quit the site with disconnect().
+ * 
+ * A FTPClient object can handle a connection per time. Once you have used and
+ * disconnected a FTPClient object you can use it again to connect another FTP
+ * server.
+ * 
+ * @author Carlo Pelliccia
+ * @version 1.5
+ */
+public class FTPClient {
+
+	/**
+	 * The constant for the FTP security level.
+	 * 
+	 * @since 1.4
+	 */
+	public static final int SECURITY_FTP = 0;
+
+	/**
+	 * The constant for the FTPS (FTP over implicit TLS/SSL) security level.
+	 * 
+	 * @since 1.4
+	 */
+	public static final int SECURITY_FTPS = 1;
+
+	/**
+	 * The constant for the FTPES (FTP over explicit TLS/SSL) security level.
+	 * 
+	 * @since 1.4
+	 */
+	public static final int SECURITY_FTPES = 2;
+
+	/**
+	 * The constant for the AUTO file transfer type. It lets the client pick
+	 * between textual and binary types, depending on the extension of the file
+	 * exchanged through a textual extension recognizer.
+	 */
+	public static final int TYPE_AUTO = 0;
+
+	/**
+	 * The constant for the TEXTUAL file transfer type. It means that the data
+	 * sent or received is treated as textual information. This implies charset
+	 * conversion during the transfer.
+	 */
+	public static final int TYPE_TEXTUAL = 1;
+
+	/**
+	 * The constant for the BINARY file transfer type. It means that the data
+	 * sent or received is treated as a binary stream. The data is taken "as
+	 * is", without any charset conversion.
+	 */
+	public static final int TYPE_BINARY = 2;
+
+	/**
+	 * The constant for the MLSD policy that causes the client to use the MLSD
+	 * command instead of LIST, but only if the MLSD command is explicitly
+	 * supported by the server (the support is tested with the FEAT command).
+	 * 
+	 * @since 1.5
+	 */
+	public static final int MLSD_IF_SUPPORTED = 0;
+
+	/**
+	 * The constant for the MLSD policy that causes the client to use always the
+	 * MLSD command instead of LIST, also if the MLSD command is not explicitly
+	 * supported by the server (the support is tested with the FEAT command).
+	 * 
+	 * @since 1.5
+	 */
+	public static final int MLSD_ALWAYS = 1;
+
+	/**
+	 * The constant for the MLSD policy that causes the client to use always the
+	 * LIST command, also if the MLSD command is explicitly supported by the
+	 * server (the support is tested with the FEAT command).
+	 * 
+	 * @since 1.5
+	 */
+	public static final int MLSD_NEVER = 2;
+
+	/**
+	 * The default size of the buffer used when sending or receiving data.
+	 * 
+	 * @since 1.6
+	 */
+	private static final int SEND_AND_RECEIVE_BUFFER_SIZE = 64 * 1024;
+
+	/**
+	 * The minimum size of a segment in a segmented download.
+	 * 
+	 * @since 1.7
+	 */
+	private static final long MIN_DOWNLOAD_SEGMENT_SIZE = 1024 * 1024;
+
+	/**
+	 * The min number of lines parsed by a single task when a list is parsed
+	 * in parallel.
+	 * 
+	 * @since 1.7
+	 */
+	private static final int MIN_LIST_PARSE_CHUNK = 1024;
+
+	/**
+	 * The number of lines of a list used to classify it, when a list parser
+	 * has to be detected.
+	 * 
+	 * @since 1.7
+	 */
+	private static final int LIST_DETECTION_SAMPLE = 8;
+
+	/**
+	 * The max time (in millis) a passive data transfer channel prepared by a
+	 * previous transfer is kept, before the server could close it.
+	 * 
+	 * @since 1.7
+	 */
+	private static final long PREPARED_CHANNEL_TIMEOUT = 10000;
+
+	/**
+	 * The RegExp Pattern object used to parse the reply to a PASV command.
+	 */
+	private static final Pattern PASV_PATTERN = Pattern
+			.compile("\\d{1,3},\\d{1,3},\\d{1,3},\\d{1,3},\\d{1,3},\\d{1,3}");
+
+	/**
+	 * The RegExp Pattern object used to parse the reply to a PWD command.
+	 */
+	private static final Pattern PWD_PATTERN = Pattern.compile("\"/.*\"");
+
+	/**
+	 * The connector used to connect the remote host.
+	 */
+	private FTPConnector connector = new DirectConnector();
+
+	/**
+	 * The SSL socket factory used to negotiate SSL connections.
+	 */
+	private SSLSocketFactory sslSocketFactory = (SSLSocketFactory) SSLSocketFactory
+			.getDefault();
+
+	/**
+	 * The SSL context used by the SSLEngine based transport, or null to use
+	 * the SSL socket factory.
+	 */
+	private SSLContext sslContext = null;
+
+	/**
+	 * Whether the data transfer channels should resume the SSL session of the
+	 * communication channel.
+	 */
+	private boolean sslSessionReuseEnabled = true;
+
+	/**
+	 * How many SSL handshakes have been done on data transfer channels.
+	 */
+	private long sslHandshakeCount = 0;
+
+	/**
+	 * How many of the SSL handshakes on data transfer channels resumed a
+	 * previous session.
+	 */
+	private long resumedSSLHandshakeCount = 0;
+
+	/**
+	 * Lock object used for synchronization on the SSL handshake counters.
+	 */
+	private Object sslCountersLock = new Object();
+
+	/**
+	 * The FTPCommunicationListener objects registered on the client.
+	 */
+	private ArrayList communicationListeners = new ArrayList();
+
+	/**
+	 * The FTPListParser objects registered on the client.
+	 */
+	private ArrayList listParsers = new ArrayList();
+
+	/**
+	 * The textual extension recognizer used by the client.
+	 */
+	private FTPTextualExtensionRecognizer textualExtensionRecognizer = DefaultTextualExtensionRecognizer.getInstance();
+
+	/**
+	 * The FTPListParser used successfully during previous connection-scope list
+	 * operations.
+	 */
+	private FTPListParser parser = null;
+
+	/**
+	 * The reply to the SYST command, asked when a list parser has to be
+	 * detected for the connected server. Null if not asked yet.
+	 */
+	private String systemType = null;
+
+	/**
+	 * If the client is connected, it reports the remote host name or address.
+	 */
+	private String host = null;
+
+	/**
+	 * If the client is connected, it reports the remote port number.
+	 */
+	private int port = 0;
+
+	/**
+	 * The security level. The value should be one of SECURITY_FTP,
+	 * SECURITY_FTPS and SECURITY_FTPES constants. Default value is
+	 * SECURITY_FTP.
+	 */
+	private int security = SECURITY_FTP;
+
+	/**
+	 * If the client is authenticated, it reports the authentication username.
+	 */
+	private String username;
+
+	/**
+	 * If the client is authenticated, it reports the authentication password.
+	 */
+	private String password;
+
+	/**
+	 * The flag reporting the connection status.
+	 */
+	private boolean connected = false;
+
+	/**
+	 * The flag reporting the authentication status.
+	 */
+	private boolean authenticated = false;
+
+	/**
+	 * The flag for the passive FTP data transfer mode. Default value is true,
+	 * cause it's usually the preferred FTP operating mode.
+	 */
+	private boolean passive = true;
+
+	/**
+	 * Whether the extended data transfer commands (EPSV and EPRT) are tried
+	 * before the classic ones (PASV and PORT).
+	 */
+	private boolean extendedDataChannelEnabled = true;
+
+	/**
+	 * Whether the client should send an EPSV ALL command before its first
+	 * passive data transfer.
+	 */
+	private boolean epsvAllEnabled = false;
+
+	/**
+	 * A flag used to mark whether the connected server refused the EPSV
+	 * command. In this case the client falls back to PASV.
+	 */
+	private boolean epsvRefused = false;
+
+	/**
+	 * A flag used to mark whether the connected server refused the EPRT
+	 * command. In this case the client falls back to PORT.
+	 */
+	private boolean eprtRefused = false;
+
+	/**
+	 * A flag used to mark whether the EPSV ALL command has already been sent
+	 * in the current session.
+	 */
+	private boolean epsvAllSent = false;
+
+	/**
+	 * A flag used to mark whether the connected server accepted the EPSV ALL
+	 * command. In this case only EPSV can be used to open data transfer
+	 * channels.
+	 */
+	private boolean epsvAll = false;
+
+	/**
+	 * The address of the remote host, resolved when the client connects and
+	 * reused by the passive data transfers of the session.
+	 */
+	private InetAddress remoteHostAddress = null;
+
+	/**
+	 * The system time (in millis) of the moment when the address of the
+	 * remote host has been resolved.
+	 */
+	private long remoteHostAddressTime;
+
+	/**
+	 * A flag used to mark the address of the remote host as to be resolved
+	 * again, since a data transfer connection to it has failed.
+	 */
+	private boolean remoteHostAddressExpired = false;
+
+	/**
+	 * The time (in millis) after which the address of the remote host is
+	 * resolved again. If 0, the address is kept for the whole session.
+	 */
+	private long hostAddressCacheTimeout = 0;
+
+	/**
+	 * The type of the data transfer contents (auto, textual, binary). The value
+	 * should be one of {@link FTPClient#TYPE_AUTO},
+	 * {@link FTPClient#TYPE_TEXTUAL} and {@link FTPClient#TYPE_BINARY}
+	 * constants. Default value is TYPE_AUTO.
+	 */
+	private int type = TYPE_AUTO;
+
+	/**
+	 * The MLSD command policy. The value should be one of
+	 * {@link FTPClient#MLSD_IF_SUPPORTED}, {@link FTPClient#MLSD_ALWAYS} and
+	 * {@link FTPClient#MLSD_NEVER} constants. Default value is
+	 * MLSD_IF_SUPPORTED.
+	 */
+	private int mlsdPolicy = MLSD_IF_SUPPORTED;
+
+	/**
+	 * If this value is greater than 0, the auto-noop feature is enabled. If
+	 * positive, the field is used as a timeout value (expressed in
+	 * milliseconds). If autoNoopDelay milliseconds has passed without any
+	 * communication between the client and the server, a NOOP command is
+	 * automaticaly sent to the server by the client.
+	 */
+	private long autoNoopTimeout = 0;
+
+	/**
+	 * The auto noop timer thread.
+	 */
+	private AutoNoopTimer autoNoopTimer;
+
+	/**
+	 * The system time (in millis) of the moment when the next auto noop command
+	 * should be issued.
+	 */
+	private long nextAutoNoopTime;
+
+	/**
+	 * A flag used to mark whether the connected server supports the resume of
+	 * broken transfers.
+	 */
+	private boolean restSupported = false;
+
+	/**
+	 * The name of the charset used to establish textual communications. If not
+	 * null the client will use always the given charset. If null the client
+	 * tries to auto-detect the server charset. If this attempt fails the client
+	 * will use the machine current charset.
+	 */
+	private String charset = null;
+
+	/**
+	 * This flag enables and disables the use of compression (ZLIB) during data
+	 * transfers. Compression is enabled when both this flag is true and the
+	 * server supports compressed transfers.
+	 */
+	private boolean compressionEnabled = false;
+
+	/**
+	 * A flag used to mark whether the connected server supports UTF-8 pathnames
+	 * encoding.
+	 */
+	private boolean utf8Supported = false;
+
+	/**
+	 * A flag used to mark whether the connected server supports the MLSD
+	 * command (RFC 3659).
+	 */
+	private boolean mlsdSupported = false;
+
+	/**
+	 * A flag used to mark whether the connected server supports the MODE Z
+	 * command.
+	 */
+	private boolean modezSupported = false;
+
+	/**
+	 * A flag used to mark whether MODE Z is enabled.
+	 */
+	private boolean modezEnabled = false;
+
+	/**
+	 * This flag indicates whether the data channel is encrypted.
+	 */
+	private boolean dataChannelEncrypted = false;
+
+	/**
+	 * This flag reports if there's any ongoing abortable data transfer
+	 * operation. Its value should be accessed only under the eye of the
+	 * abortLock synchronization object.
+	 */
+	private boolean ongoingDataTransfer = false;
+
+	/**
+	 * The InputStream used for data transfer operations.
+	 */
+	private InputStream dataTransferInputStream = null;
+
+	/**
+	 * The OutputStream used for data transfer operations.
+	 */
+	private OutputStream dataTransferOutputStream = null;
+
+	/**
+	 * This flag turns to true when any data transfer stream is closed due to an
+	 * abort suggestion.
+	 */
+	private boolean aborted = false;
+
+	/**
+	 * The ongoing segmented download, if any. Its value should be accessed
+	 * only under the eye of the abortLock synchronization object.
+	 */
+	private SegmentedDownload ongoingSegmentedDownload = null;
+
+	/**
+	 * The default max number of commands sent ahead of their replies by a
+	 * pipeline.
+	 */
+	private int pipelineWindow = 16;
+
+	/**
+	 * Whether every passive data transfer prepares the data transfer channel
+	 * of the next one.
+	 */
+	private boolean dataTransferPipeliningEnabled = false;
+
+	/**
+	 * The passive data transfer channel prepared by the last data transfer,
+	 * or null.
+	 */
+	private PassiveDataTransferChannel preparedDataTransferChannel = null;
+
+	/**
+	 * The last TYPE command accepted by the server in the current session, or
+	 * null if the current type is unknown.
+	 */
+	private String currentTypeCommand = null;
+
+	/**
+	 * The fork-join pool parsing the large lists, or null if the lists are
+	 * always parsed by the calling thread.
+	 */
+	private ForkJoinPool listParsingPool = null;
+
+	/**
+	 * The min number of lines of a list parsed on the listParsingPool.
+	 */
+	private int parallelListThreshold = 10000;
+
+	/**
+	 * The cache of the listings and of the file metadata, if any.
+	 */
+	private FTPListingCache listingCache = null;
+
+	/**
+	 * The current working directory, as last reported by the server, or null
+	 * if unknown. It is tracked only to build the listing cache keys.
+	 */
+	private String workingDirectory = null;
+
+	/**
+	 * The bandwidth limiter charged with the transfers of this client, if
+	 * any.
+	 */
+	private FTPBandwidthLimiter bandwidthLimiter = null;
+
+	/**
+	 * The bandwidth limiter of the single transfers of this client.
+	 */
+	private FTPBandwidthLimiter transferLimiter = new FTPBandwidthLimiter(0);
+
+	/**
+	 * The size of the buffer used when sending or receiving data.
+	 */
+	private int bufferSize = SEND_AND_RECEIVE_BUFFER_SIZE;
+
+	/**
+	 * The pool of the buffers used when sending or receiving data. If null,
+	 * a new buffer is allocated for every transfer.
+	 */
+	private FTPBufferPool bufferPool = FTPBufferPool.getDefault();
+
+	/**
+	 * The monitor servicing the control connection while idle, if any.
+	 */
+	private FTPIdleChannelMonitor idleChannelMonitor = null;
+
+	/**
+	 * Lock object used for synchronization.
+	 */
+	private Object lock = new Object();
+
+	/**
+	 * Lock object used for synchronization in abort operations.
+	 */
+	private Object abortLock = new Object();
+
+	/**
+	 * The communication channel established with the server.
+	 */
+	private FTPCommunicationChannel communication = null;
+
+	/**
+	 * Builds and initializes the client.
+	 */
+	public FTPClient() {
+		// The built-in parsers.
+		addListParser(new UnixListParser());
+		addListParser(new DOSListParser());
+		addListParser(new EPLFListParser());
+		addListParser(new NetWareListParser());
+		addListParser(new MLSDListParser());
+	}
+
+	/**
+	 * This method returns the connector used to connect the remote host.
+	 * 
+	 * @return The connector used to connect the remote host.
+	 */
+	public FTPConnector getConnector() {
+		synchronized (lock) {
+			return connector;
+		}
+	}
+
+	/**
+	 * This method sets the connector used to connect the remote host.
+	 * 
+	 * Default one is a
+	 * it.sauronsoftware.ftp4j.connectors.direct.DirectConnector instance.
+	 * 
+	 * @param connector
+	 *            The connector used to connect the remote host.
+	 * @see DirectConnector
+	 */
+	public void setConnector(FTPConnector connector) {
+		synchronized (lock) {
+			this.connector = connector;
+		}
+	}
+
+	/**
+	 * Sets the SSL socket factory used to negotiate SSL connections.
+	 * 
+	 * @param sslSocketFactory
+	 *            The SSL socket factory used to negotiate SSL connections.
+	 * 
+	 * @since 1.4
+	 */
+	public void setSSLSocketFactory(SSLSocketFactory sslSocketFactory) {
+		synchronized (lock) {
+			this.sslSocketFactory = sslSocketFactory;
+		}
+	}
+
+	/**
+	 * Returns the SSL socket factory used to negotiate SSL connections.
+	 * 
+	 * @return The SSL socket factory used to negotiate SSL connections.
+	 * 
+	 * @since 1.4
+	 */
+	public SSLSocketFactory getSSLSocketFactory() {
+		synchronized (lock) {
+			return sslSocketFactory;
+		}
+	}
+
+	/**
+	 * <p>
+	 * Sets the SSL context used to negotiate SSL connections with the
+	 * SSLEngine based transport. When a context is set, it takes the place
+	 * of the SSL socket factory for both the communication channel and the
+	 * data transfer channels.
+	 * </p>
+	 * 
+	 * <p>
+	 * The SSLEngine based transport encrypts the connections on their socket
+	 * channels, with direct buffers taken from the buffer pool of the client.
+	 * An encrypted communication channel can be serviced by the idle channel
+	 * monitor like a plain one, and binary transfers from and to files move
+	 * the data through direct buffers only. Connections not backed by a
+	 * socket channel, as the ones opened by proxy connectors, are encrypted
+	 * with the socket factory of the context.
+	 * </p>
+	 * 
+	 * @param sslContext
+	 *            The SSL context, or null to go back to the SSL socket
+	 *            factory.
+	 * @see #setSSLSocketFactory(SSLSocketFactory)
+	 * @see #setBufferPool(FTPBufferPool)
+	 * @see #setIdleChannelMonitor(FTPIdleChannelMonitor)
+	 * @since 1.7
+	 */
+	public void setSSLContext(SSLContext sslContext) {
+		synchronized (lock) {
+			this.sslContext = sslContext;
+		}
+	}
+
+	/**
+	 * Returns the SSL context used by the SSLEngine based transport.
+	 * 
+	 * @return The SSL context, or null if the SSL socket factory is used.
+	 * @since 1.7
+	 */
+	public SSLContext getSSLContext() {
+		synchronized (lock) {
+			return sslContext;
+		}
+	}
+
+	/**
+	 * Sets the security level for the connection. This method should be called
+	 * before starting a connection with a server. The security level must be
+	 * expressed using one of the SECURITY_FTP, SECURITY_FTPS and SECURITY_FTPES
+	 * costants.
+	 * 
+	 * SECURITY_FTP, which is the default value, applies the basic FTP security
+	 * level.
+	 * 
+	 * SECURITY_FTPS applies the FTPS security level, which is FTP over implicit
+	 * TLS/SSL.
+	 * 
+	 * SECURITY_FTPES applies the FTPES security level, which is FTP over
+	 * explicit TLS/SSL.
+	 * 
+	 * @param security
+	 *            The security level.
+	 * @throws IllegalStateException
+	 *             If the client is already connected to a server.
+	 * @throws IllegalArgumentException
+	 *             If the supplied security level is not valid.
+	 * @since 1.4
+	 */
+	public void setSecurity(int security) throws IllegalStateException,
+			IllegalArgumentException {
+		if (security != SECURITY_FTP && security != SECURITY_FTPS && security != SECURITY_FTPES) {
+			throw new IllegalArgumentException("Invalid security");
+		}
+		synchronized (lock) {
+			if (connected) {
+				throw new IllegalStateException(
+						"The security level of the connection can't be "
+								+ "changed while the client is connected");
+			}
+			this.security = security;
+		}
+	}
+
+	/**
+	 * Returns the security level used by the client in the connection.
+	 * 
+	 * @return The security level, which could be one of the SECURITY_FTP,
+	 *         SECURITY_FTPS and SECURITY_FTPES costants.
+	 * 
+	 * @since 1.4
+	 */
+	public int getSecurity() {
+		return security;
+	}
+
+	/**
+	 * <p>
+	 * Enables or disables the reuse of the SSL session of the communication
+	 * channel in the data transfer channels. The option is enabled by
+	 * default.
+	 * </p>
+	 * 
+	 * <p>
+	 * When enabled, every encrypted data transfer channel is negotiated as a
+	 * connection to the same peer of the communication channel, so the SSL
+	 * client session cache resumes the control session (or the one of a
+	 * previous data transfer) with an abbreviated handshake instead of a full
+	 * one. Many servers require this resumption, and it saves a round trip
+	 * and the key exchange on every list or transfer. When disabled, the data
+	 * transfer channels are negotiated with the address they connect to.
+	 * </p>
+	 * 
+	 * @param sslSessionReuseEnabled
+	 *            true to enable the session reuse, false to disable it.
+	 * @see #getSSLHandshakeCount()
+	 * @see #getResumedSSLHandshakeCount()
+	 * @since 1.7
+	 */
+	public void setSSLSessionReuseEnabled(boolean sslSessionReuseEnabled) {
+		synchronized (lock) {
+			this.sslSessionReuseEnabled = sslSessionReuseEnabled;
+		}
+	}
+
+	/**
+	 * Checks whether the data transfer channels reuse the SSL session of the
+	 * communication channel.
+	 * 
+	 * @return true if the session reuse is enabled, false otherwise.
+	 * @since 1.7
+	 */
+	public boolean isSSLSessionReuseEnabled() {
+		synchronized (lock) {
+			return sslSessionReuseEnabled;
+		}
+	}
+
+	/**
+	 * Returns how many SSL handshakes have been done on the data transfer
+	 * channels opened by the client, both full and resumed ones.
+	 * 
+	 * @return The SSL handshake count.
+	 * @since 1.7
+	 */
+	public long getSSLHandshakeCount() {
+		synchronized (sslCountersLock) {
+			return sslHandshakeCount;
+		}
+	}
+
+	/**
+	 * Returns how many of the SSL handshakes done on the data transfer
+	 * channels resumed a previous session. The difference with
+	 * {@link #getSSLHandshakeCount()} is the number of full handshakes.
+	 * 
+	 * @return The resumed SSL handshake count.
+	 * @since 1.7
+	 */
+	public long getResumedSSLHandshakeCount() {
+		synchronized (sslCountersLock) {
+			return resumedSSLHandshakeCount;
+		}
+	}
+
+	/**
+	 * Applies SSL encryption to an already open socket.
+	 * 
+	 * @param socket
+	 *            The already established socket.
+	 * @param host
+	 *            The logical destination host.
+	 * @param port
+	 *            The logical destination port.
+	 * @return The SSL socket.
+	 * @throws IOException
+	 *             If the SSL negotiation fails.
+	 */
+	private Socket ssl(Socket socket, String host, int port) throws IOException {
+		if (sslContext != null) {
+			if (socket.getChannel() != null) {
+				SSLEngine engine = sslContext.createSSLEngine(host, port);
+				engine.setUseClientMode(true);
+				return FTPSSLEngineSocket.open(socket, engine, bufferPool);
+			}
+			return sslContext.getSocketFactory().createSocket(socket, host,
+					port, true);
+		}
+		return sslSocketFactory.createSocket(socket, host, port, true);
+	}
+
+	/**
+	 * Applies SSL encryption to the communication channel.
+	 * 
+	 * @throws IOException
+	 *             If the SSL negotiation fails.
+	 */
+	private void sslCommunication() throws IOException {
+		if (sslContext != null) {
+			communication.ssl(sslContext, bufferPool, host, port);
+		} else {
+			communication.ssl(sslSocketFactory, host, port);
+		}
+	}
+
+	/**
+	 * Applies SSL encryption to a data transfer connection. If the session
+	 * reuse is enabled and the communication channel is encrypted, the
+	 * connection is negotiated as one to the peer of the communication
+	 * channel, so that its session can be resumed. The handshake is done
+	 * immediately and counted.
+	 * 
+	 * @param socket
+	 *            The data transfer connection.
+	 * @param host
+	 *            The logical host of the data transfer connection.
+	 * @param port
+	 *            The port of the data transfer connection.
+	 * @return The SSL socket.
+	 * @throws IOException
+	 *             If the SSL negotiation fails.
+	 */
+	private Socket dataTransferSSL(Socket socket, String host, int port)
+			throws IOException {
+		if (sslSessionReuseEnabled) {
+			SSLSession session = communication.getSSLSession();
+			if (session != null && session.getPeerHost() != null
+					&& session.getPeerPort() > 0) {
+				host = session.getPeerHost();
+				port = session.getPeerPort();
+				if (sslContext == null || socket.getChannel() == null) {
+					// A SSLSocket looks the cache up with the port of the
+					// socket, an engine with the given one.
+					socket = new FTPPortAliasSocket(socket, port);
+				}
+			}
+		}
+		long start = System.currentTimeMillis();
+		socket = ssl(socket, host, port);
+		SSLSession session = null;
+		if (socket instanceof SSLSocket) {
+			SSLSocket sslSocket = (SSLSocket) socket;
+			try {
+				sslSocket.startHandshake();
+			} catch (IOException e) {
+				try {
+					sslSocket.close();
+				} catch (Throwable t) {
+					;
+				}
+				throw e;
+			}
+			session = sslSocket.getSession();
+		} else if (socket instanceof FTPSSLEngineSocket) {
+			session = ((FTPSSLEngineSocket) socket).getSession();
+		}
+		if (session != null) {
+			// A resumed session was created by a previous handshake.
+			boolean resumed = session.getCreationTime() < start;
+			synchronized (sslCountersLock) {
+				sslHandshakeCount++;
+				if (resumed) {
+					resumedSSLHandshakeCount++;
+				}
+			}
+		}
+		return socket;
+	}
+
+	/**
+	 * This method enables/disables the use of the passive mode. Disabling it
+	 * drops the passive data channel prepared in advance, if any.
+	 * 
+	 * @param passive
+	 *            If true the passive mode is enabled.
+	 */
+	public void setPassive(boolean passive) {
+		synchronized (lock) {
+			this.passive = passive;
+			if (!passive) {
+				disposePreparedDataTransferChannel();
+			}
+		}
+	}
+
+	/**
+	 * This method enables/disables the use of the extended data transfer
+	 * commands, EPSV and EPRT (RFC 2428).
+	 * 
+	 * When enabled, the client asks for a passive data transfer channel with
+	 * EPSV and offers an active one with EPRT. If the server refuses them, the
+	 * client falls back to PASV and PORT, and it remembers the refusal until
+	 * the end of the session, so the extra round trip is paid only once. The
+	 * extended commands are required to transfer data with a server connected
+	 * through IPv6. Default value is true.
+	 * 
+	 * @param extendedDataChannelEnabled
+	 *            If true the extended data transfer commands are used.
+	 * @since 1.7
+	 */
+	public void setExtendedDataChannelEnabled(boolean extendedDataChannelEnabled) {
+		synchronized (lock) {
+			this.extendedDataChannelEnabled = extendedDataChannelEnabled;
+		}
+	}
+
+	/**
+	 * This method enables/disables the EPSV ALL command.
+	 * 
+	 * When enabled, the client sends EPSV ALL before its first passive data
+	 * transfer, telling the server (and any NAT device in the middle) that
+	 * only EPSV will be used in the session. Once the server has accepted it,
+	 * active data transfers and PASV can no longer be used until the client
+	 * reconnects. The command is sent only if the extended data transfer
+	 * commands are enabled. Default value is false.
+	 * 
+	 * @param epsvAllEnabled
+	 *            If true the EPSV ALL command is sent.
+	 * @see #setExtendedDataChannelEnabled(boolean)
+	 * @since 1.7
+	 */
+	public void setEPSVAllEnabled(boolean epsvAllEnabled) {
+		synchronized (lock) {
+			this.epsvAllEnabled = epsvAllEnabled;
+		}
+	}
+
+	/**
+	 * This method sets how long the address of the remote host is cached.
+	 * 
+	 * The address is resolved once, when the client connects, and then it is
+	 * reused by every passive data transfer of the session, so a slow
+	 * resolver doesn't delay any list or file transfer. When the client is
+	 * connected directly, the cached address is the one the communication
+	 * channel is connected to, so the data transfers never reach another
+	 * host of a round-robin name. The address is resolved again after the
+	 * given timeout, and after a data transfer connection to it has failed.
+	 * If the new resolution fails, the old address is kept. Default value is
+	 * 0, which means that the address is resolved again only after a failure.
+	 * 
+	 * @param hostAddressCacheTimeout
+	 *            The timeout in millis, 0 to disable it.
+	 * @since 1.7
+	 */
+	public void setHostAddressCacheTimeout(long hostAddressCacheTimeout) {
+		if (hostAddressCacheTimeout < 0) {
+			throw new IllegalArgumentException("Invalid timeout");
+		}
+		synchronized (lock) {
+			this.hostAddressCacheTimeout = hostAddressCacheTimeout;
+		}
+	}
+
+	/**
+	 * This methods sets how to treat the contents during a file transfer.
+	 * 
+	 * The type supplied should be one of TYPE_AUTO, TYPE_TEXTUAL or TYPE_BINARY
+	 * constants. Default value is TYPE_AUTO.
+	 * 
+	 * {@link FTPClient#TYPE_TEXTUAL} means that the data sent or received is
+	 * treated as textual information. This implies charset conversion during
+	 * the transfer.
+	 * 
+	 * {@link FTPClient#TYPE_BINARY} means that the data sent or received is
+	 * treated as a binary stream. The data is taken "as is", without any
+	 * charset conversion.
+	 * 
+	 * {@link FTPClient#TYPE_AUTO} lets the client pick between textual and
+	 * binary types, depending on the extension of the file exchanged, using a
+	 * FTPTextualExtensionRecognizer instance, which could be set through the
+	 * setTextualExtensionRecognizer method. The default recognizer is an
+	 * instance of {@link DefaultTextualExtensionRecognizer}.
+	 * 
+	 * @param type
+	 *            The type.
+	 * @throws IllegalArgumentException
+	 *             If the supplied type is not valid.
+	 * @see FTPClient#setTextualExtensionRecognizer(FTPTextualExtensionRecognizer)
+	 * @see DefaultTextualExtensionRecognizer
+	 */
+	public void setType(int type) throws IllegalArgumentException {
+		if (type != TYPE_AUTO && type != TYPE_BINARY && type != TYPE_TEXTUAL) {
+			throw new IllegalArgumentException("Invalid type");
+		}
+		synchronized (lock) {
+			this.type = type;
+		}
+	}
+
+	/**
+	 * This method returns the value suggesting how the client encode and decode
+	 * the contents during a data transfer.
+	 * 
+	 * @return The type as a numeric value. The value could be compared to the
+	 *         constants {@link FTPClient#TYPE_AUTO},
+	 *         {@link FTPClient#TYPE_BINARY} and {@link FTPClient#TYPE_TEXTUAL}.
+	 */
+	public int getType() {
+		synchronized (lock) {
+			return type;
+		}
+	}
+
+	/**
+	 * This method lets the user control how the client chooses whether to use
+	 * or not the MLSD command (RFC 3659) instead of the base LIST command.
+	 * 
+	 * The type supplied should be one of MLSD_IF_SUPPORTED, MLSD_ALWAYS or
+	 * MLSD_NEVER constants. Default value is MLSD_IF_SUPPORTED.
+	 * 
+	 * {@link FTPClient#MLSD_IF_SUPPORTED} means that the client should use the
+	 * MLSD command only if it is explicitly supported by the server.
+	 * 
+	 * {@link FTPClient#MLSD_ALWAYS} means that the client should use always the
+	 * MLSD command, also if the MLSD command is not explicitly supported by the
+	 * server
+	 * 
+	 * {@link FTPClient#MLSD_NEVER} means that the client should use always only
+	 * the LIST command, also if the MLSD command is explicitly supported by the
+	 * server.
+	 * 
+	 * The support for the MLSD command is tested by the client after the
+	 * connection to the remote server, with the FEAT command.
+	 * 
+	 * @param mlsdPolicy
+	 *            The MLSD policy.
+	 * @throws IllegalArgumentException
+	 *             If the supplied MLSD policy value is not valid.
+	 * @since 1.5
+	 */
+	public void setMLSDPolicy(int mlsdPolicy) throws IllegalArgumentException {
+		if (type != MLSD_IF_SUPPORTED && type != MLSD_ALWAYS && type != MLSD_NEVER) {
+			throw new IllegalArgumentException("Invalid MLSD policy");
+		}
+		synchronized (lock) {
+			this.mlsdPolicy = mlsdPolicy;
+		}
+	}
+
+	/**
+	 * This method returns the value suggesting how the client chooses whether
+	 * to use or not the MLSD command (RFC 3659) instead of the base LIST
+	 * command.
+	 * 
+	 * @return The MLSD policy as a numeric value. The value could be compared
+	 *         to the constants {@link FTPClient#MLSD_IF_SUPPORTED},
+	 *         {@link FTPClient#MLSD_ALWAYS} and {@link FTPClient#MLSD_NEVER}.
+	 * @since 1.5
+	 */
+	public int getMLSDPolicy() {
+		synchronized (lock) {
+			return mlsdPolicy;
+		}
+	}
+
+	/**
+	 * Returns the name of the charset used to establish textual communications.
+	 * If not null the client will use always the given charset. If null the
+	 * client tries to auto-detect the server charset. If this attempt fails the
+	 * client will use the machine current charset.
+	 * 
+	 * @return The name of the charset used to establish textual communications.
+	 * @since 1.1
+	 */
+	public String getCharset() {
+		synchronized (lock) {
+			return charset;
+		}
+	}
+
+	/**
+	 * Sets the name of the charset used to establish textual communications. If
+	 * not null the client will use always the given charset. If null the client
+	 * tries to auto-detect the server charset. If this attempt fails the client
+	 * will use the machine current charset.
+	 * 
+	 * @param charset
+	 *            The name of the charset used to establish textual
+	 *            communications.
+	 * @since 1.1
+	 */
+	public void setCharset(String charset) {
+		synchronized (lock) {
+			this.charset = charset;
+			if (connected) {
+				try {
+					communication.changeCharset(pickCharset());
+				} catch (IOException e) {
+					e.printStackTrace();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Checks whether the connected server explicitly supports resuming of
+	 * broken data transfers.
+	 * 
+	 * @return true if the server supports resuming, false otherwise.
+	 * @since 1.5.1
+	 */
+	public boolean isResumeSupported() {
+		synchronized (lock) {
+			return restSupported;
+		}
+	}
+
+	/**
+	 * Checks whether the connected remote FTP server supports compressed data
+	 * transfers (uploads, downloads, list operations etc.). If so, the
+	 * compression of any subsequent data transfer (upload, download, list etc.)
+	 * can be compressed, saving bandwidth. To enable compression call
+	 * {@link FTPClient#setCompressionEnabled(boolean)} .
+	 * 
+	 * The returned value is not significant if the client is not connected and
+	 * authenticated.
+	 * 
+	 * @return <em>true</em> if compression of data transfers is supported on
+	 *         the server-side, <em>false</em> otherwise.
+	 * @see FTPClient#isCompressionEnabled()
+	 * @since 1.5
+	 */
+	public boolean isCompressionSupported() {
+		return modezSupported;
+	}
+
+	/**
+	 * Enables or disables the use of compression during any subsequent data
+	 * transfer. Compression is enabled when both the supplied value and the
+	 * {@link FTPClient#isCompressionSupported()}) returned value are
+	 * <em>true</em>.
+	 * 
+	 * The default value is <em>false</em>.
+	 * 
+	 * @param compressionEnabled
+	 *            <em>true</em> to enable the use of compression during any
+	 *            subsequent file transfer, <em>false</em> to disable the
+	 *            feature.
+	 * @see FTPClient#isCompressionSupported()
+	 * @since 1.5
+	 */
+	public void setCompressionEnabled(boolean compressionEnabled) {
+		this.compressionEnabled = compressionEnabled;
+	}
+
+	/**
+	 * Checks whether the use of compression is enabled on the client-side.
+	 * 
+	 * Please note that compressed transfers are actually enabled only if both
+	 * this method and {@link FTPClient#isCompressionSupported()} return
+	 * <em>true</em>.
+	 * 
+	 * @return <em>true</em> if compression is enabled, <em>false</em>
+	 *         otherwise.
+	 * @see FTPClient#isCompressionSupported()
+	 * @since 1.5
+	 */
+	public boolean isCompressionEnabled() {
+		return compressionEnabled;
+	}
+
+	/**
+	 * This method returns the textual extension recognizer used by the client.
+	 * 
+	 * Default one is {@link DefaultTextualExtensionRecognizer}.
+	 * 
+	 * @return The textual extension recognizer used by the client.
+	 * @see DefaultTextualExtensionRecognizer
+	 */
+	public FTPTextualExtensionRecognizer getTextualExtensionRecognizer() {
+		synchronized (lock) {
+			return textualExtensionRecognizer;
+		}
+	}
+
+	/**
+	 * This method sets the textual extension recognizer used by the client.
+	 * 
+	 * The default one is {@link DefaultTextualExtensionRecognizer}.
+	 * 
+	 * You can plug your own by implementing the
+	 * {@link FTPTextualExtensionRecognizer} interface. For your convenience the
+	 * ftp4j gives you another FTPTextualExtensionRecognizer implementation,
+	 * which is {@link ParametricTextualExtensionRecognizer}.
+	 * 
+	 * @param textualExtensionRecognizer
+	 *            The textual extension recognizer used by the client.
+	 * @see DefaultTextualExtensionRecognizer
+	 * @see ParametricTextualExtensionRecognizer
+	 */
+	public void setTextualExtensionRecognizer(FTPTextualExtensionRecognizer textualExtensionRecognizer) {
+		synchronized (lock) {
+			this.textualExtensionRecognizer = textualExtensionRecognizer;
+		}
+	}
+
+	/**
+	 * This method tests if this client is authenticated.
+	 * 
+	 * @return true if this client is authenticated, false otherwise.
+	 */
+	public boolean isAuthenticated() {
+		synchronized (lock) {
+			return authenticated;
+		}
+	}
+
+	/**
+	 * This method tests if this client is connected to a remote FTP server.
+	 * 
+	 * @return true if this client is connected to a remote FTP server, false
+	 *         otherwise.
+	 */
+	public boolean isConnected() {
+		synchronized (lock) {
+			return connected;
+		}
+	}
+
+	/**
+	 * This method tests if this client works in passive FTP mode.
+	 * 
+	 * @return true if this client is configured to work in passive FTP mode.
+	 */
+	public boolean isPassive() {
+		synchronized (lock) {
+			return passive;
+		}
+	}
+
+	/**
+	 * This method tests if this client uses the extended data transfer
+	 * commands, EPSV and EPRT.
+	 * 
+	 * @return true if the extended data transfer commands are enabled.
+	 * @since 1.7
+	 */
+	public boolean isExtendedDataChannelEnabled() {
+		synchronized (lock) {
+			return extendedDataChannelEnabled;
+		}
+	}
+
+	/**
+	 * This method tests if this client sends the EPSV ALL command.
+	 * 
+	 * @return true if the EPSV ALL command is enabled.
+	 * @since 1.7
+	 */
+	public boolean isEPSVAllEnabled() {
+		synchronized (lock) {
+			return epsvAllEnabled;
+		}
+	}
+
+	/**
+	 * This method returns how long the address of the remote host is cached.
+	 * 
+	 * @return The timeout in millis, 0 if disabled.
+	 * @since 1.7
+	 */
+	public long getHostAddressCacheTimeout() {
+		synchronized (lock) {
+			return hostAddressCacheTimeout;
+		}
+	}
+
+	/**
+	 * If the client is connected, it reports the remote host name or address.
+	 * 
+	 * @return The remote host name or address.
+	 */
+	public String getHost() {
+		synchronized (lock) {
+			return host;
+		}
+	}
+
+	/**
+	 * If the client is connected, it reports the remote port number.
+	 * 
+	 * @return The remote port number.
+	 */
+	public int getPort() {
+		synchronized (lock) {
+			return port;
+		}
+	}
+
+	/**
+	 * If the client is authenticated, it reports the authentication password.
+	 * 
+	 * @return The authentication password.
+	 */
+	public String getPassword() {
+		synchronized (lock) {
+			return password;
+		}
+	}
+
+	/**
+	 * If the client is authenticated, it reports the authentication username.
+	 * 
+	 * @return The authentication username.
+	 */
+	public String getUsername() {
+		synchronized (lock) {
+			return username;
+		}
+	}
+
+	/**
+	 * Enable and disable the auto-noop feature.
+	 * 
+	 * If the supplied value is greater than 0, the auto-noop feature is
+	 * enabled, otherwise it is disabled. If positive, the field is used as a
+	 * timeout value (expressed in milliseconds). If autoNoopDelay milliseconds
+	 * has passed without any communication between the client and the server, a
+	 * NOOP command is automaticaly sent to the server by the client.
+	 * 
+	 * The default value for the auto noop delay is 0 (disabled).
+	 * 
+	 * @param autoNoopTimeout
+	 *            The duration of the auto-noop timeout, in milliseconds. If 0
+	 *            or less, the auto-noop feature is disabled.
+	 * 
+	 * @since 1.5
+	 */
+	public void setAutoNoopTimeout(long autoNoopTimeout) {
+		synchronized (lock) {
+			if (connected && authenticated) {
+				stopAutoNoopTimer();
+			}
+			long oldValue = this.autoNoopTimeout;
+			long newValue = autoNoopTimeout;
+			this.autoNoopTimeout = autoNoopTimeout;
+			if (oldValue != 0 && newValue != 0 && nextAutoNoopTime > 0) {
+				nextAutoNoopTime = nextAutoNoopTime - (oldValue - newValue);
+			}
+			if (connected && authenticated) {
+				startAutoNoopTimer();
+			}
+		}
+	}
+
+	/**
+	 * Returns the duration of the auto-noop timeout, in milliseconds. If 0 or
+	 * less, the auto-noop feature is disabled.
+	 * 
+	 * @return The duration of the auto-noop timeout, in milliseconds. If 0 or
+	 *         less, the auto-noop feature is disabled.
+	 * 
+	 * @since 1.5
+	 */
+	public long getAutoNoopTimeout() {
+		synchronized (lock) {
+			return autoNoopTimeout;
+		}
+	}
+
+	/**
+	 * Sets the default window of the pipelines built by the client, that is
+	 * the max number of commands sent ahead of their replies. Use 1 with
+	 * servers that don't tolerate pipelined commands: the operations of the
+	 * pipelines will then be executed serially.
+	 * 
+	 * The default value is 16.
+	 * 
+	 * @param pipelineWindow
+	 *            The default pipeline window.
+	 * @throws IllegalArgumentException
+	 *             If the value is less than 1.
+	 * @see FTPClient#pipeline()
+	 * @since 1.7
+	 */
+	public void setPipelineWindow(int pipelineWindow)
+			throws IllegalArgumentException {
+		if (pipelineWindow < 1) {
+			throw new IllegalArgumentException("Invalid pipeline window");
+		}
+		synchronized (lock) {
+			this.pipelineWindow = pipelineWindow;
+		}
+	}
+
+	/**
+	 * Returns the default window of the pipelines built by the client.
+	 * 
+	 * @return The default pipeline window.
+	 * @see FTPClient#pipeline()
+	 * @since 1.7
+	 */
+	public int getPipelineWindow() {
+		synchronized (lock) {
+			return pipelineWindow;
+		}
+	}
+
+	/**
+	 * This method enables/disables the pipelining of back-to-back passive data
+	 * transfers.
+	 * 
+	 * Every list or file transfer normally asks the server for a passive data
+	 * transfer channel, and then connects it, paying a couple of round trips
+	 * before any byte moves. When the pipelining is enabled, the passive
+	 * command of the next transfer is sent together with the end of the
+	 * current one, before its result reply has been received, and the data
+	 * transfer connection is started in the background. The next transfer
+	 * then sends only its TYPE (if changed), REST and transfer commands. The
+	 * TYPE and passive commands of a transfer without a prepared channel are
+	 * pipelined too. A prepared channel unused for 10 seconds is dropped.
+	 * 
+	 * This is useful with many small files. The server must keep a passive
+	 * channel open while other commands are executed, as most servers do.
+	 * Default value is false.
+	 * 
+	 * @param dataTransferPipeliningEnabled
+	 *            If true the data transfers are pipelined.
+	 * @since 1.7
+	 */
+	public void setDataTransferPipeliningEnabled(
+			boolean dataTransferPipeliningEnabled) {
+		synchronized (lock) {
+			this.dataTransferPipeliningEnabled = dataTransferPipeliningEnabled;
+			if (!dataTransferPipeliningEnabled) {
+				disposePreparedDataTransferChannel();
+			}
+		}
+	}
+
+	/**
+	 * This method tests if the back-to-back passive data transfers are
+	 * pipelined.
+	 * 
+	 * @return true if the data transfers are pipelined.
+	 * @since 1.7
+	 */
+	public boolean isDataTransferPipeliningEnabled() {
+		synchronized (lock) {
+			return dataTransferPipeliningEnabled;
+		}
+	}
+
+	/**
+	 * Sets a fork-join pool for the parsing of the large lists returned by the
+	 * {@link FTPClient#list(String)} and {@link FTPClient#list()} methods.
+	 * When a pool is set, a list with at least
+	 * {@link FTPClient#getParallelListThreshold()} lines is split in chunks
+	 * parsed in parallel on the pool, and the results are joined back in
+	 * order. The lines are parsed in parallel only by the parsers implementing
+	 * {@link FTPLineListParser}, which must then be safe for concurrent use.
+	 * All the built-in parsers are.
+	 * 
+	 * By default no pool is set, and the lists are parsed by the calling
+	 * thread. {@link ForkJoinPool#commonPool()} is a reasonable choice.
+	 * 
+	 * @param listParsingPool
+	 *            The pool, or null to parse the lists on the calling thread.
+	 * @since 1.7
+	 */
+	public void setListParsingPool(ForkJoinPool listParsingPool) {
+		synchronized (lock) {
+			this.listParsingPool = listParsingPool;
+		}
+	}
+
+	/**
+	 * Returns the fork-join pool parsing the large lists, if any.
+	 * 
+	 * @return The fork-join pool parsing the large lists, or null if the lists
+	 *         are parsed by the calling thread.
+	 * @see FTPClient#setListParsingPool(ForkJoinPool)
+	 * @since 1.7
+	 */
+	public ForkJoinPool getListParsingPool() {
+		synchronized (lock) {
+			return listParsingPool;
+		}
+	}
+
+	/**
+	 * Sets the min number of lines of a list to be parsed in parallel, when a
+	 * list parsing pool is set. Smaller lists are parsed by the calling
+	 * thread, since splitting them would cost more than it saves.
+	 * 
+	 * The default value is 10000.
+	 * 
+	 * @param parallelListThreshold
+	 *            The min number of lines of a list to be parsed in parallel.
+	 * @throws IllegalArgumentException
+	 *             If the value is less than 1.
+	 * @see FTPClient#setListParsingPool(ForkJoinPool)
+	 * @since 1.7
+	 */
+	public void setParallelListThreshold(int parallelListThreshold)
+			throws IllegalArgumentException {
+		if (parallelListThreshold < 1) {
+			throw new IllegalArgumentException("Invalid threshold");
+		}
+		synchronized (lock) {
+			this.parallelListThreshold = parallelListThreshold;
+		}
+	}
+
+	/**
+	 * Returns the min number of lines of a list to be parsed in parallel.
+	 * 
+	 * @return The min number of lines of a list to be parsed in parallel.
+	 * @see FTPClient#setListParsingPool(ForkJoinPool)
+	 * @since 1.7
+	 */
+	public int getParallelListThreshold() {
+		synchronized (lock) {
+			return parallelListThreshold;
+		}
+	}
+
+	/**
+	 * Sets a cache for the results of the {@link FTPClient#list(String)},
+	 * {@link FTPClient#list()}, {@link FTPClient#listNames()},
+	 * {@link FTPClient#fileSize(String)} and
+	 * {@link FTPClient#modifiedDate(String)} methods. The same cache can be
+	 * set on many clients. The entries of a path are invalidated when it is
+	 * changed through this client.
+	 * 
+	 * By default no cache is set, and every request is sent to the server.
+	 * 
+	 * @param listingCache
+	 *            The cache, or null to disable caching.
+	 * @see FTPListingCache
+	 * @since 1.7
+	 */
+	public void setListingCache(FTPListingCache listingCache) {
+		synchronized (lock) {
+			this.listingCache = listingCache;
+		}
+	}
+
+	/**
+	 * Returns the cache of the listings and of the file metadata, if any.
+	 * 
+	 * @return The cache, or null if caching is disabled.
+	 * @see FTPClient#setListingCache(FTPListingCache)
+	 * @since 1.7
+	 */
+	public FTPListingCache getListingCache() {
+		synchronized (lock) {
+			return listingCache;
+		}
+	}
+
+	/**
+	 * Sets a bandwidth limiter for the data transfers of this client. The
+	 * same limiter can be set on many clients, limiting the bandwidth they
+	 * use altogether. The rate of the limiter can be changed at any time,
+	 * even while a transfer is running.
+	 * 
+	 * By default no limiter is set. The transfers are charged to the global
+	 * limiter in any case.
+	 * 
+	 * @param bandwidthLimiter
+	 *            The limiter, or null to remove the limit.
+	 * @see FTPBandwidthLimiter
+	 * @see FTPBandwidthLimiter#getGlobal()
+	 * @since 1.7
+	 */
+	public void setBandwidthLimiter(FTPBandwidthLimiter bandwidthLimiter) {
+		synchronized (lock) {
+			this.bandwidthLimiter = bandwidthLimiter;
+		}
+	}
+
+	/**
+	 * Returns the bandwidth limiter for the data transfers of this client,
+	 * if any.
+	 * 
+	 * @return The limiter, or null if none is set.
+	 * @see FTPClient#setBandwidthLimiter(FTPBandwidthLimiter)
+	 * @since 1.7
+	 */
+	public FTPBandwidthLimiter getBandwidthLimiter() {
+		synchronized (lock) {
+			return bandwidthLimiter;
+		}
+	}
+
+	/**
+	 * Sets the max rate of every single data transfer of this client. A
+	 * segmented download counts as a single transfer. Unlike the other
+	 * settings, this one can be changed while a transfer is running, from
+	 * another thread, and it takes effect immediately.
+	 * 
+	 * The default value is 0 (no limit).
+	 * 
+	 * @param rate
+	 *            The rate, in bytes per second, or 0 for no limit.
+	 * @throws IllegalArgumentException
+	 *             If the rate is negative.
+	 * @see FTPBandwidthLimiter
+	 * @since 1.7
+	 */
+	public void setTransferRateLimit(long rate)
+			throws IllegalArgumentException {
+		transferLimiter.setRate(rate);
+	}
+
+	/**
+	 * Returns the max rate of every single data transfer of this client.
+	 * 
+	 * @return The rate, in bytes per second, or 0 if there is no limit.
+	 * @see FTPClient#setTransferRateLimit(long)
+	 * @since 1.7
+	 */
+	public long getTransferRateLimit() {
+		return transferLimiter.getRate();
+	}
+
+	/**
+	 * Sets the size of the buffer used by the data transfers. Larger buffers
+	 * mean fewer system calls on fast links; smaller buffers mean less memory
+	 * per transfer and more frequent progress notifications.
+	 * 
+	 * The default value is 65536 bytes.
+	 * 
+	 * @param bufferSize
+	 *            The size of the buffer, in bytes (or in chars, for textual
+	 *            transfers).
+	 * @throws IllegalArgumentException
+	 *             If the size is less than 1.
+	 * @since 1.7
+	 */
+	public void setBufferSize(int bufferSize) throws IllegalArgumentException {
+		if (bufferSize < 1) {
+			throw new IllegalArgumentException("Invalid buffer size");
+		}
+		synchronized (lock) {
+			this.bufferSize = bufferSize;
+		}
+	}
+
+	/**
+	 * Returns the size of the buffer used by the data transfers.
+	 * 
+	 * @return The size of the buffer.
+	 * @since 1.7
+	 */
+	public int getBufferSize() {
+		synchronized (lock) {
+			return bufferSize;
+		}
+	}
+
+	/**
+	 * Sets the pool the data transfers borrow their buffers from.
+	 * 
+	 * By default the pool returned by {@link FTPBufferPool#getDefault()} is
+	 * used.
+	 * 
+	 * @param bufferPool
+	 *            The pool, or null to allocate a new buffer for every
+	 *            transfer.
+	 * @see FTPBufferPool
+	 * @since 1.7
+	 */
+	public void setBufferPool(FTPBufferPool bufferPool) {
+		synchronized (lock) {
+			this.bufferPool = bufferPool;
+		}
+	}
+
+	/**
+	 * Returns the pool the data transfers borrow their buffers from.
+	 * 
+	 * @return The pool, or null if a new buffer is allocated for every
+	 *         transfer.
+	 * @since 1.7
+	 */
+	public FTPBufferPool getBufferPool() {
+		synchronized (lock) {
+			return bufferPool;
+		}
+	}
+
+	/**
+	 * Sets the monitor which services the control connection while it is
+	 * idle. When a monitor is set, the auto-noop commands are sent by the
+	 * monitor thread, instead of a thread owned by the client. The monitor is
+	 * used only for plain connections backed by a SocketChannel, as the ones
+	 * opened by the {@link DirectConnector}.
+	 * 
+	 * The setting takes effect at the next connection.
+	 * 
+	 * @param idleChannelMonitor
+	 *            The monitor, or null to service the connection with a thread
+	 *            of the client.
+	 * @see FTPIdleChannelMonitor
+	 * @since 1.7
+	 */
+	public void setIdleChannelMonitor(FTPIdleChannelMonitor idleChannelMonitor) {
+		synchronized (lock) {
+			this.idleChannelMonitor = idleChannelMonitor;
+		}
+	}
+
+	/**
+	 * Returns the monitor which services the control connection while it is
+	 * idle.
+	 * 
+	 * @return The monitor, or null if none has been set.
+	 * @since 1.7
+	 */
+	public FTPIdleChannelMonitor getIdleChannelMonitor() {
+		synchronized (lock) {
+			return idleChannelMonitor;
+		}
+	}
+
+	/**
+	 * This method adds a FTPCommunicationListener to the object.
+	 * 
+	 * @param listener
+	 *            The listener.
+	 */
+	public void addCommunicationListener(FTPCommunicationListener listener) {
+		synchronized (lock) {
+			communicationListeners.add(listener);
+			if (communication != null) {
+				communication.addCommunicationListener(listener);
+			}
+		}
+	}
+
+	/**
+	 * This method removes a FTPCommunicationListener previously added to the
+	 * object.
+	 * 
+	 * @param listener
+	 *            The listener to be removed.
+	 */
+	public void removeCommunicationListener(FTPCommunicationListener listener) {
+		synchronized (lock) {
+			communicationListeners.remove(listener);
+			if (communication != null) {
+				communication.removeCommunicationListener(listener);
+			}
+		}
+	}
+
+	/**
+	 * This method returns a list with all the {@link FTPCommunicationListener}
+	 * used by the client.
+	 * 
+	 * @return A list with all the FTPCommunicationListener used by the client.
+	 */
+	public FTPCommunicationListener[] getCommunicationListeners() {
+		synchronized (lock) {
+			int size = communicationListeners.size();
+			FTPCommunicationListener[] ret = new FTPCommunicationListener[size];
+			for (int i = 0; i < size; i++) {
+				ret[i] = (FTPCommunicationListener) communicationListeners.get(i);
+			}
+			return ret;
+		}
+	}
+
+	/**
+	 * This method adds a {@link FTPListParser} to the object.
+	 * 
+	 * @param listParser
+	 *            The list parser.
+	 */
+	public void addListParser(FTPListParser listParser) {
+		synchronized (lock) {
+			listParsers.add(listParser);
+		}
+	}
+
+	/**
+	 * This method removes a {@link FTPListParser} previously added to the
+	 * object.
+	 * 
+	 * @param listParser
+	 *            The list parser to be removed.
+	 */
+	public void removeListParser(FTPListParser listParser) {
+		synchronized (lock) {
+			listParsers.remove(listParser);
+		}
+	}
+
+	/**
+	 * This method returns a list with all the {@link FTPListParser} used by the
+	 * client.
+	 * 
+	 * @return A list with all the FTPListParsers used by the client.
+	 */
+	public FTPListParser[] getListParsers() {
+		synchronized (lock) {
+			int size = listParsers.size();
+			FTPListParser[] ret = new FTPListParser[size];
+			for (int i = 0; i < size; i++) {
+				ret[i] = (FTPListParser) listParsers.get(i);
+			}
+			return ret;
+		}
+	}
+
+	/**
+	 * This method connects the client to the remote FTP host, using the default
+	 * port value 21 (990 if security level is set to FTPS, see
+	 * {@link FTPClient#setSecurity(int)}).
+	 * 
+	 * @param host
+	 *            The hostname of the remote server.
+	 * @return The server welcome message, one line per array element.
+	 * @throws IllegalStateException
+	 *             If the client is already connected to a remote host.
+	 * @throws IOException
+	 *             If an I/O occurs.
+	 * @throws FTPIllegalReplyException
+	 *             If the server replies in an illegal way.
+	 * @throws FTPException
+	 *             If the server refuses the connection.
+	 */
+	public String[] connect(String host) throws IllegalStateException,
+			IOException, FTPIllegalReplyException, FTPException {
+		int def;
+		if (security == SECURITY_FTPS) {
+			def = 990;
+		} else {
+			def = 21;
+		}
+		return connect(host, def);
+	}
+
+	/**
+	 * This method connects the client to the remote FTP host.
+	 * 
+	 * @param host
+	 *            The host name or address of the remote server.
+	 * @param port
+	 *            The port listened by the remote server.
+	 * @return The server welcome message, one line per array element.
+	 * @throws IllegalStateException
+	 *             If the client is already connected to a remote host.
+	 * @throws IOException
+	 *             If an I/O occurs.
+	 * @throws FTPIllegalReplyException
+	 *             If the server replies in an illegal way.
+	 * @throws FTPException
+	 *             If the server refuses the connection.
+	 */
+	public String[] connect(String host, int port)
+			throws IllegalStateException, IOException,
+			FTPIllegalReplyException, FTPException {
+		synchronized (lock) {
+			// Is this client already connected to any host?
+			if (connected) {
+				throw new IllegalStateException("Client already connected to "
+						+ host + " on port " + port);
+			}
+			// Ok, it's connection time. Let's try!
+			Socket connection = null;
+			try {
+				// Open the connection.
+				connection = connector.connectForCommunicationChannel(host, port);
+				InetAddress hostAddress = resolveHostAddress(connection, host);
+				if (security == SECURITY_FTPS) {
+					connection = ssl(connection, host, port);
+				}
+				// Open the communication channel.
+				communication = new FTPCommunicationChannel(connection, pickCharset());
+				for (Iterator i = communicationListeners.iterator(); i.hasNext();) {
+					communication.addCommunicationListener((FTPCommunicationListener) i.next());
+				}
+				if (idleChannelMonitor != null) {
+					communication.setIdleChannelMonitor(idleChannelMonitor);
+				}
+				// Welcome message.
+				FTPReply wm = communication.readFTPReply();
+				// Does this reply mean "ok"?
+				if (!wm.isSuccessCode()) {
+					// Mmmmm... it seems no!
+					throw new FTPException(wm);
+				}
+				// Flag this object as connected to the remote host.
+				this.connected = true;
+				this.authenticated = false;
+				this.parser = null;
+				this.systemType = null;
+				this.workingDirectory = null;
+				this.host = host;
+				this.port = port;
+				this.username = null;
+				this.password = null;
+				this.utf8Supported = false;
+				this.restSupported = false;
+				this.mlsdSupported = false;
+				this.modezSupported = false;
+				this.dataChannelEncrypted = false;
+				this.epsvRefused = false;
+				this.eprtRefused = false;
+				this.epsvAllSent = false;
+				this.epsvAll = false;
+				this.remoteHostAddress = hostAddress;
+				this.remoteHostAddressTime = System.currentTimeMillis();
+				this.remoteHostAddressExpired = false;
+				this.preparedDataTransferChannel = null;
+				this.currentTypeCommand = null;
+				// Returns the welcome message.
+				return wm.getMessages();
+			} catch (IOException e) {
+				// D'oh!
+				throw e;
+			} finally {
+				// If connection has failed...
+				if (!connected) {
+					if (connection != null) {
+						// Close the connection, 'cause it should be open.
+						try {
+							connection.close();
+						} catch (Throwable t) {
+							;
+						}
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * This method disconnects from the remote server, optionally performing the
+	 * QUIT procedure.
+	 * 
+	 * @param sendQuitCommand
+	 *            If true the QUIT procedure with the server will be performed,
+	 *            otherwise the connection is abruptly closed by the client
+	 *            without sending any advice to the server.
+	 * @throws IllegalStateException
+	 *             If the client is not connected to a remote host.
+	 * @throws IOException
+	 *             If an I/O occurs (can be thrown only if sendQuitCommand is
+	 *             true).
+	 * @throws FTPIllegalReplyException
+	 *             If the server replies in an illegal way (can be thrown only
+	 *             if sendQuitCommand is true).
+	 * @throws FTPException
+	 *             If the server refuses the QUIT command (can be thrown only if
+	 *             sendQuitCommand is true).
+	 */
+	public void disconnect(boolean sendQuitCommand)
+			throws IllegalStateException, IOException,
+			FTPIllegalReplyException, FTPException {
+		synchronized (lock) {
+			// Is this client connected?
+			if (!connected) {
+				throw new IllegalStateException("Client not connected");
+			}
+			// Stops the auto noop timer (if started).
+			if (authenticated) {
+				stopAutoNoopTimer();
+			}
+			// Send QUIT?
+			if (sendQuitCommand) {
+				// Call the QUIT command.
+				communication.sendFTPCommand("QUIT");
+				FTPReply r = communication.readFTPReply();
+				if (!r.isSuccessCode()) {
+					throw new FTPException(r);
+				}
+			}
+			// Close the communication.
+			communication.close();
+			communication = null;
+			disposePreparedDataTransferChannel();
+			// Reset the connection flag.
+			connected = false;
+		}
+	}
+
+	/**
+	 * This method causes the communication channel to be abruptly closed. Use
+	 * it carefully, since this one is not thread-safe. It is given as an
+	 * "emergency brake" to close the control connection when it is blocked. A
+	 * thread-safe solution for the same purpose is a call to disconnect(false).
+	 * 
+	 * @see FTPClient#disconnect(boolean)
+	 */
+	public void abruptlyCloseCommunication() {
+		// Close the communication.
+		communication.close();
+		communication = null;
+		disposePreparedDataTransferChannel();
+		// Reset the connection flag.
+		connected = false;
+		// Stops the auto noop timer.
+		stopAutoNoopTimer();
+	}
+
+	/**
+	 * This method authenticates the user against the server.
+	 * 
+	 * @param username
+	 *            The username.
+	 * @param password
+	 *            The password (if none set it to null).
+	 * @throws IllegalStateException
+	 *             If the client is not connected. Call the connect() method
+	 *             before!
+	 * @throws IOException
+	 *             If an I/O error occurs.
+	 * @throws FTPIllegalReplyException
+	 *             If the server replies in an illegal way.
+	 * @throws FTPException
+	 *             If login fails.
+	 */
+	public void login(String username, String password)
+			throws IllegalStateException, IOException,
+			FTPIllegalReplyException, FTPException {
+		login(username, password, null);
+	}
+
+	/**
+	 * This method authenticates the user against the server.
+	 * 
+	 * @param username
+	 *            The username.
+	 * @param password
+	 *            The password (if none set it to null).
+	 * @param account
+	 *            The account (if none set it to null). Be careful: some servers
+	 *            don't implement this feature.
+	 * @throws IllegalStateException
+	 *             If the client is not connected. Call the connect() method
+	 *             before!
+	 * @throws IOException
+	 *             If an I/O error occurs.
+	 * @throws FTPIllegalReplyException
+	 *             If the server replies in an illegal way.
+	 * @throws FTPException
+	 *             If login fails.
+	 */
+	public void login(String username, String password, String account)
+			throws IllegalStateException, IOException,
+			FTPIllegalReplyException, FTPException {
+		synchronized (lock) {
+			// Is this client connected?
+			if (!connected) {
+				throw new IllegalStateException("Client not connected");
+			}
+			// AUTH TLS command if security is FTPES
+			if (security == SECURITY_FTPES) {
+				communication.sendFTPCommand("AUTH TLS");
+				FTPReply r = communication.readFTPReply();
+				if (r.isSuccessCode()) {
+					sslCommunication();
+				} else {
+					communication.sendFTPCommand("AUTH SSL");
+					r = communication.readFTPReply();
+					if (r.isSuccessCode()) {
+						sslCommunication();
+					} else {
+						throw new FTPException(r.getCode(), "SECURITY_FTPES cannot be applied: " +
+								"the server refused both AUTH TLS and AUTH SSL commands");
+					}
+				}
+			}
+			// Reset the authentication flag.
+			authenticated = false;
+			// Usefull flags.
+			boolean passwordRequired;
+			boolean accountRequired;
+			// Send the user and read the reply.
+			communication.sendFTPCommand("USER " + username);
+			FTPReply r = communication.readFTPReply();
+			switch (r.getCode()) {
+			case 230:
+				// Password and account aren't required.
+				passwordRequired = false;
+				accountRequired = false;
+				break;
+			case 331:
+				// Password is required.
+				passwordRequired = true;
+				// Account... maybe! More information later...
+				accountRequired = false;
+				break;
+			case 332:
+				// Password is not required, but account is required.
+				passwordRequired = false;
+				accountRequired = true;
+			default:
+				// User validation failed.
+				throw new FTPException(r);
+			}
+			// Password.
+			if (passwordRequired) {
+				if (password == null) {
+					throw new FTPException(331);
+				}
+				// Send the password.
+				communication.sendFTPCommand("PASS " + password);
+				r = communication.readFTPReply();
+				switch (r.getCode()) {
+				case 230:
+					// Account is not required.
+					accountRequired = false;
+					break;
+				case 332:
+					// Account is required.
+					accountRequired = true;
+					break;
+				default:
+					// Authentication failed.
+					throw new FTPException(r);
+				}
+			}
+			// Account.
+			if (accountRequired) {
+				if (account == null) {
+					throw new FTPException(332);
+				}
+				// Send the account.
+				communication.sendFTPCommand("ACCT " + account);
+				r = communication.readFTPReply();
+				switch (r.getCode()) {
+				case 230:
+					// Well done!
+					break;
+				default:
+					// Something goes wrong.
+					throw new FTPException(r);
+				}
+			}
+			// Well, if this point is reached the client could consider itself
+			// as authenticated.
+			this.authenticated = true;
+			this.username = username;
+			this.password = password;
+			this.workingDirectory = null;
+		}
+		// Post-login operations.
+		postLoginOperations();
+		// Starts the auto noop timer.
+		startAutoNoopTimer();
+	}
+
+	/**
+	 * Performs some post-login operations, such trying to detect server support
+	 * for utf8.
+	 * 
+	 * @throws IllegalStateException
+	 *             If the client is not connected. Call the connect() method
+	 *             before!
+	 * @throws IOException
+	 *             If an I/O error occurs.
+	 * @throws FTPIllegalReplyException
+	 *             If the server replies in an illegal way.
+	 * @throws FTPException
+	 *             If login fails.
+	 */
+	private void postLoginOperations() throws IllegalStateException,
+			IOException, FTPIllegalReplyException, FTPException {
+		synchronized (lock) {
+			utf8Supported = false;
+			restSupported = false;
+			mlsdSupported = false;
+			modezSupported = false;
+			dataChannelEncrypted = false;
+			communication.sendFTPCommand("FEAT");
+			FTPReply r = communication.readFTPReply();
+			if (r.getCode() == 211) {
+				String[] lines = r.getMessages();
+				for (int i = 1; i < lines.length - 1; i++) {
+					String feat = lines[i].trim().toUpperCase();
+					// REST STREAM supported?
+					if ("REST STREAM".equalsIgnoreCase(feat)) {
+						restSupported = true;
+						continue;
+					}
+					// UTF8 supported?
+					if ("UTF8".equalsIgnoreCase(feat)) {
+						utf8Supported = true;
+						communication.changeCharset("UTF-8");
+						continue;
+					}
+					// MLSD supported?
+					if ("MLSD".equalsIgnoreCase(feat)) {
+						mlsdSupported = true;
+						continue;
+					}
+					// MODE Z supported?
+					if ("MODE Z".equalsIgnoreCase(feat) || feat.startsWith("MODE Z ")) {
+						modezSupported = true;
+						continue;
+					}
+				}
+			}
+			// Turn UTF 8 on (if supported).
+			if (utf8Supported) {
+				communication.sendFTPCommand("OPTS UTF8 ON");
+				communication.readFTPReply();
+			}
+			// Data channel security.
+			if (security == SECURITY_FTPS || security == SECURITY_FTPES) {
+				communication.sendFTPCommand("PBSZ 0");
+				communication.readFTPReply();
+				communication.sendFTPCommand("PROT P");
+				FTPReply reply = communication.readFTPReply();
+				if (reply.isSuccessCode()) {
+					dataChannelEncrypted = true;
+				}
+			}
+		}
+	}
+
+	/**
+	 * This method performs a logout operation for the current user, leaving the
+	 * connection open, thus it can be used to start a new user session. Be
+	 * careful with this: some FTP servers don't implement this feature, even
+	 * though it is a standard FTP one.
+	 * 
+	 * @throws IllegalStateException
+	 *             If the client is not connected or not authenticated.
+	 * @throws IOException
+	 *             If an I/O error occurs.
+	 * @throws FTPIllegalReplyException
+	 *             If the server replies in an illegal way.
+	 * @throws FTPException
+	 *             If the operation fails.
+	 */
+	public void logout() throws IllegalStateException, IOException,
+			FTPIllegalReplyException, FTPException {
+		synchronized (lock) {
+			// Is this client connected?
+			if (!connected) {
+				throw new IllegalStateException("Client not connected");
+			}
+			// Is this client authenticated?
+			if (!authenticated) {
+				throw new IllegalStateException("Client not authenticated");
+			}
+			// Send the REIN command.
+			communication.sendFTPCommand("REIN");
+			FTPReply r = communication.readFTPReply();
+			// The session state is reset.
+			disposePreparedDataTransferChannel();
+			currentTypeCommand = null;
+			if (!r.isSuccessCode()) {
+				throw new FTPException(r);
+			} else {
+				// Stops the auto noop timer.
+				stopAutoNoopTimer();
+				// Ok. Not authenticated, now.
+				authenticated = false;
+				username = null;
+				password = null;
+			}
+		}
+	}
+
+	/**
+	 * This method performs a "noop" operation with the server.
+	 * 
+	 * @throws IllegalStateException
+	 *             If the client is not connected or not authenticated.
+	 * @throws IOException
+	 *             If an I/O error occurs.
+	 * @throws FTPIllegalReplyException
+	 *             If the server replies in an illegal way.
+	 * @throws FTPException
+	 *             If login fails.
+	 */
+	public void noop() throws IllegalStateException, IOException,
+			FTPIllegalReplyException, FTPException {
+		synchronized (lock) {
+			// Is this client connected?
+			if (!connected) {
+				throw new IllegalStateException("Client not connected");
+			}
+			// Is this client authenticated?
+			if (!authenticated) {
+				throw new IllegalStateException("Client not authenticated");
+			}
+			// Send the noop.
+			communication.sendFTPCommand("NOOP");
+			FTPReply r = communication.readFTPReply();
+			if (!r.isSuccessCode()) {
+				throw new FTPException(r);
+			}
+			// Resets auto noop timer.
+			touchAutoNoopTimer();
+		}
+	}
+
+	/**
+	 * This method sends a custom command to the server. Don't use this method
+	 * to send standard commands already supported by the client: this should
+	 * cause unexpected results.
+	 * 
+	 * @param command
+	 *            The command line.
+	 * @return The reply supplied by the server, parsed and served in an object
+	 *         way mode.
+	 * @throws IllegalStateException
+	 *             If this client is not connected.
+	 * @throws IOException
+	 *             If a I/O error occurs.
+	 * @throws FTPIllegalReplyException
+	 *             If the server replies in an illegal way.
+	 */
+	public FTPReply sendCustomCommand(String command)
+			throws IllegalStateException, IOException, FTPIllegalReplyException {
+		synchronized (lock) {
+			// Is this client connected?
+			if (!connected) {
+				throw new IllegalStateException("Client not connected");
+			}
+			// Sends the command. It could change the type.
+			communication.sendFTPCommand(command);
+			currentTypeCommand = null;
+			// Resets auto noop timer.
+			touchAutoNoopTimer();
+			// Returns the reply.
+			return communication.readFTPReply();
+		}
+	}
+
+	/**
+	 * This method sends a SITE specific command to the server.
+	 * 
+	 * @param command
+	 *            The site command.
+	 * @return The reply supplied by the server, parsed and served in an object
+	 *         way mode.
+	 * @throws IllegalStateException
+	 *             If this client is not connected.
+	 * @throws IOException
+	 *             If a I/O error occurs.
+	 * @throws FTPIllegalReplyException
+	 *             If the server replies in an illegal way.
+	 */
+	public FTPReply sendSiteCommand(String command)
+			throws IllegalStateException, IOException, FTPIllegalReplyException {
+		synchronized (lock) {
+			// Is this client connected?
+			if (!connected) {
+				throw new IllegalStateException("Client not connected");
+			}
+			// Sends the command.
+			communication.sendFTPCommand("SITE " + command);
+			// Resets auto noop timer.
+			touchAutoNoopTimer();
+			// Returns the reply.
+			return communication.readFTPReply();
+		}
+	}
+
+	/**
+	 * Call this method to switch the user current account. Be careful with
+	 * this: some FTP servers don't implement this feature, even though it is a
+	 * standard FTP one.
+	 * 
+	 * @param account
+	 *            The account.
+	 * @throws IllegalStateException
+	 *             If the client is not connected or not authenticated.
+	 * @throws IOException
+	 *             If an I/O error occurs.
+	 * @throws FTPIllegalReplyException
+	 *             If the server replies in an illegal way.
+	 * @throws FTPException
+	 *             If login fails.
+	 */
+	public void changeAccount(String account) throws IllegalStateException,
+			IOException, FTPIllegalReplyException, FTPException {
+		synchronized (lock) {
+			// Is this client connected?
+			if (!connected) {
+				throw new IllegalStateException("Client not connected");
+			}
+			// Is this client authenticated?
+			if (!authenticated) {
+				throw new IllegalStateException("Client not authenticated");
+			}
+			// Send the ACCT command.
+			communication.sendFTPCommand("ACCT " + account);
+			// Gets the reply.
+			FTPReply r = communication.readFTPReply();
+			// Resets auto noop timer.
+			touchAutoNoopTimer();
+			// Evaluates the response.
+			if (!r.isSuccessCode()) {
+				throw new FTPException(r);
+			}
+		}
+	}
+
+	/**
+	 * This method asks and returns the current working directory.
+	 * 
+	 * @return path The path to the current working directory.
+	 * @throws IllegalStateException
+	 *             If the client is not connected or not authenticated.
+	 * @throws IOException
+	 *             If an I/O error occurs.
+	 * @throws FTPIllegalReplyException
+	 *             If the server replies in an illegal way.
+	 * @throws FTPException
+	 *             If the operation fails.
+	 */
+	public String currentDirectory() throws IllegalStateException, IOException,
+			FTPIllegalReplyException, FTPException {
+		synchronized (lock) {
+			// Is this client connected?
+			if (!connected) {
+				throw new IllegalStateException("Client not connected");
+			}
+			// Is this client authenticated?
+			if (!authenticated) {
+				throw new IllegalStateException("Client not authenticated");
+			}
+			// Send the PWD command.
+			communication.sendFTPCommand("PWD");
+			FTPReply r = communication.readFTPReply();
+			touchAutoNoopTimer();
+			if (!r.isSuccessCode()) {
+				throw new FTPException(r);
+			}
+			// Parse the response.
+			String[] messages = r.getMessages();
+			if (messages.length != 1) {
+				throw new FTPIllegalReplyException();
+			}
+			Matcher m = PWD_PATTERN.matcher(messages[0]);
+			if (m.find()) {
+				workingDirectory = messages[0].substring(m.start() + 1,
+						m.end() - 1);
+				return workingDirectory;
+			} else {
+				throw new FTPIllegalReplyException();
+			}
+		}
+	}
+
+	/**
+	 * This method changes the current working directory.
+	 * 
+	 * @param path
+	 *            The path to the new working directory.
+	 * @throws IllegalStateException
+	 *             If the client is not connected or not authenticated.
+	 * @throws IOException
+	 *             If an I/O error occurs.
+	 * @throws FTPIllegalReplyException
+	 *             If the server replies in an illegal way.
+	 * @throws FTPException
+	 *             If the operation fails.
+	 */
+	public void changeDirectory(String path) throws IllegalStateException,
+			IOException, FTPIllegalReplyException, FTPException {
+		synchronized (lock) {
+			// Is this client connected?
+			if (!connected) {
+				throw new IllegalStateException("Client not connected");
+			}
+			// Is this client authenticated?
+			if (!authenticated) {
+				throw new IllegalStateException("Client not authenticated");
+			}
+			// Send the CWD command.
+			communication.sendFTPCommand("CWD " + path);
+			FTPReply r = communication.readFTPReply();
+			touchAutoNoopTimer();
+			workingDirectory = null;
+			if (!r.isSuccessCode()) {
+				throw new FTPException(r);
+			}
+		}
+	}
+
+	/**
+	 * This method changes the current working directory to the parent one.
+	 * 
+	 * @throws IllegalStateException
+	 *             If the client is not connected or not authenticated.
+	 * @throws IOException
+	 *             If an I/O error occurs.
+	 * @throws FTPIllegalReplyException
+	 *             If the server replies in an illegal way.
+	 * @throws FTPException
+	 *             If the operation fails.
+	 */
+	public void changeDirectoryUp() throws IllegalStateException, IOException,
+			FTPIllegalReplyException, FTPException {
+		synchronized (lock) {
+			// Is this client connected?
+			if (!connected) {
+				throw new IllegalStateException("Client not connected");
+			}
+			// Is this client authenticated?
+			if (!authenticated) {
+				throw new IllegalStateException("Client not authenticated");
+			}
+			// Sends the CWD command.
+			communication.sendFTPCommand("CDUP");
+			FTPReply r = communication.readFTPReply();
+			touchAutoNoopTimer();
+			workingDirectory = null;
+			if (!r.isSuccessCode()) {
+				throw new FTPException(r);
+			}
+		}
+	}
+
+	/**
+	 * This method asks and returns the last modification date of a file or
+	 * directory.
+	 * 
+	 * @param path
+	 *            The path to the file or the directory.
+	 * @return The file/directory last modification date.
+	 * @throws IllegalStateException
+	 *             If the client is not connected or not authenticated.
+	 * @throws IOException
+	 *             If an I/O error occurs.
+	 * @throws FTPIllegalReplyException
+	 *             If the server replies in an illegal way.
+	 * @throws FTPException
+	 *             If the operation fails.
+	 */
+	public Date modifiedDate(String path) throws IllegalStateException,
+			IOException, FTPIllegalReplyException, FTPException {
+		synchronized (lock) {
+			// Is this client connected?
+			if (!connected) {
+				throw new IllegalStateException("Client not connected");
+			}
+			// Is this client authenticated?
+			if (!authenticated) {
+				throw new IllegalStateException("Client not authenticated");
+			}
+			// Cached date?
+			String cachePath = null;
+			if (listingCache != null) {
+				cachePath = listingCachePath(path);
+				Long cached = (Long) listingCache.get(listingCacheServer(),
+						"MDTM", cachePath);
+				if (cached != null) {
+					return new Date(cached.longValue());
+				}
+			}
+			// Sends the MDTM command.
+			communication.sendFTPCommand("MDTM " + path);
+			FTPReply r = communication.readFTPReply();
+			touchAutoNoopTimer();
+			if (!r.isSuccessCode()) {
+				throw new FTPException(r);
+			}
+			Date ret = parseModifiedDateReply(r);
+			if (cachePath != null) {
+				listingCache.put(listingCacheServer(), "MDTM", cachePath,
+						false, Long.valueOf(ret.getTime()));
+			}
+			return ret;
+		}
+	}
+
+	/**
+	 * Parses the successful reply to a MDTM command.
+	 * 
+	 * @param r
+	 *            The reply.
+	 * @return The date in the reply.
+	 * @throws FTPIllegalReplyException
+	 *             If the reply doesn't contain a valid date.
+	 */
+	static Date parseModifiedDateReply(FTPReply r)
+			throws FTPIllegalReplyException {
+		String[] messages = r.getMessages();
+		if (messages.length != 1) {
+			throw new FTPIllegalReplyException();
+		} else {
+			String timestamp = messages[0];
+			try {
+				return new Date(FTPTimestampDecoder.getDefault().parseTimestamp(
+						timestamp, 0, timestamp.length()));
+			} catch (ParseException e) {
+				throw new FTPIllegalReplyException();
+			}
+		}
+	}
+
+	/**
+	 * This method asks and returns a file size in bytes.
+	 * 
+	 * @param path
+	 *            The path to the file.
+	 * @return The file size in bytes.
+	 * @throws IllegalStateException
+	 *             If the client is not connected or not authenticated.
+	 * @throws IOException
+	 *             If an I/O error occurs.
+	 * @throws FTPIllegalReplyException
+	 *             If the server replies in an illegal way.
+	 * @throws FTPException
+	 *             If the operation fails.
+	 */
+	public long fileSize(String path) throws IllegalStateException,
+			IOException, FTPIllegalReplyException, FTPException {
+		synchronized (lock) {
+			// Is this client connected?
+			if (!connected) {
+				throw new IllegalStateException("Client not connected");
+			}
+			// Is this client authenticated?
+			if (!authenticated) {
+				throw new IllegalStateException("Client not authenticated");
+			}
+			// Cached size?
+			String cachePath = null;
+			if (listingCache != null) {
+				cachePath = listingCachePath(path);
+				Long cached = (Long) listingCache.get(listingCacheServer(),
+						"SIZE", cachePath);
+				if (cached != null) {
+					return cached.longValue();
+				}
+			}
+			// Sends the SIZE command.
+			communication.sendFTPCommand("SIZE " + path);
+			FTPReply r = communication.readFTPReply();
+			touchAutoNoopTimer();
+			if (!r.isSuccessCode()) {
+				throw new FTPException(r);
+			}
+			long ret = parseSizeReply(r);
+			if (cachePath != null) {
+				listingCache.put(listingCacheServer(), "SIZE", cachePath,
+						false, Long.valueOf(ret));
+			}
+			return ret;
+		}
+	}
+
+	/**
+	 * Parses the successful reply to a SIZE command.
+	 * 
+	 * @param r
+	 *            The reply.
+	 * @return The size in the reply.
+	 * @throws FTPIllegalReplyException
+	 *             If the reply doesn't contain a valid size.
+	 */
+	static long parseSizeReply(FTPReply r) throws FTPIllegalReplyException {
+		String[] messages = r.getMessages();
+		if (messages.length != 1) {
+			throw new FTPIllegalReplyException();
+		} else {
+			try {
+				return Long.parseLong(messages[0]);
+			} catch (Throwable t) {
+				throw new FTPIllegalReplyException();
+			}
+		}
+	}
+
+	/**
+	 * Builds a pipeline, which collects a burst of SIZE, MDTM, DELE, RNFR/RNTO
+	 * and MKD operations and executes them on this client writing many
+	 * commands at once, then reading their replies in order.
+	 * 
+	 * @return A new empty pipeline, whose window is the one returned by
+	 *         {@link FTPClient#getPipelineWindow()}.
+	 * @see FTPPipeline
+	 * @since 1.7
+	 */
+	public FTPPipeline pipeline() {
+		synchronized (lock) {
+			return new FTPPipeline(this, pipelineWindow);
+		}
+	}
+
+	/**
+	 * Sends a sequence of commands, keeping at most window commands in flight,
+	 * and returns the replies in the same order of the commands.
+	 * 
+	 * @param commands
+	 *            The commands.
+	 * @param window
+	 *            The max number of commands sent ahead of their replies.
+	 * @return The replies.
+	 * @throws IllegalStateException
+	 *             If the client is not connected or not authenticated.
+	 * @throws IOException
+	 *             If an I/O error occurs.
+	 * @throws FTPIllegalReplyException
+	 *             If the server replies in an illegal way.
+	 */
+	FTPReply[] sendPipelinedCommands(String[] commands, int window)
+			throws IllegalStateException, IOException,
+			FTPIllegalReplyException {
+		synchronized (lock) {
+			// Is this client connected?
+			if (!connected) {
+				throw new IllegalStateException("Client not connected");
+			}
+			// Is this client authenticated?
+			if (!authenticated) {
+				throw new IllegalStateException("Client not authenticated");
+			}
+			int size = commands.length;
+			FTPReply[] ret = new FTPReply[size];
+			int sent = 0;
+			for (int i = 0; i < size; i++) {
+				// Refills the window when it is half empty, so the commands
+				// are written in bursts.
+				int inFlight = sent - i;
+				if (sent < size && inFlight <= window / 2) {
+					int count = Math.min(size - sent, window - inFlight);
+					String[] burst = new String[count];
+					System.arraycopy(commands, sent, burst, 0, count);
+					communication.sendFTPCommands(burst);
+					sent += count;
+				}
+				ret[i] = communication.readFTPReply();
+				touchAutoNoopTimer();
+			}
+			// Invalidates the cached entries of the changed paths.
+			if (listingCache != null) {
+				for (int i = 0; i < size; i++) {
+					String command = commands[i];
+					if (command.startsWith("DELE ")
+							|| command.startsWith("RNFR ")
+							|| command.startsWith("RNTO ")
+							|| command.startsWith("MKD ")
+							|| command.startsWith("RMD ")) {
+						invalidateListingCache(command.substring(command
+								.indexOf(' ') + 1));
+					}
+				}
+			}
+			return ret;
+		}
+	}
+
+	/**
+	 * This method renames a remote file or directory. It can also be used to
+	 * move a file or a directory.
+	 * 
+	 * In example:
+	 * 
+	 * <pre>
+	 * client.rename(&quot;oldname&quot;, &quot;newname&quot;); // This one renames
+	 * </pre>
+	 * 
+	 * <pre>
+	 * client.rename(&quot;the/old/path/oldname&quot;, &quot;/a/new/path/newname&quot;); // This one moves
+	 * </pre>
+	 * 
+	 * @param oldPath
+	 *            The current path of the file (or directory).
+	 * @param newPath
+	 *            The new path for the file (or directory).
+	 * @throws IllegalStateException
+	 *             If the client is not connected or not authenticated.
+	 * @throws IOException
+	 *             If an I/O error occurs.
+	 * @throws FTPIllegalReplyException
+	 *             If the server replies in an illegal way.
+	 * @throws FTPException
+	 *             If the operation fails.
+	 */
+	public void rename(String oldPath, String newPath)
+			throws IllegalStateException, IOException,
+			FTPIllegalReplyException, FTPException {
+		synchronized (lock) {
+			// Is this client connected?
+			if (!connected) {
+				throw new IllegalStateException("Client not connected");
+			}
+			// Is this client authenticated?
+			if (!authenticated) {
+				throw new IllegalStateException("Client not authenticated");
+			}
+			// Sends the RNFR command.
+			communication.sendFTPCommand("RNFR " + oldPath);
+			FTPReply r = communication.readFTPReply();
+			touchAutoNoopTimer();
+			if (r.getCode() != 350) {
+				throw new FTPException(r);
+			}
+			// Sends the RNFR command.
+			communication.sendFTPCommand("RNTO " + newPath);
+			r = communication.readFTPReply();
+			touchAutoNoopTimer();
+			invalidateListingCache(oldPath);
+			invalidateListingCache(newPath);
+			if (!r.isSuccessCode()) {
+				throw new FTPException(r);
+			}
+		}
+	}
+
+	/**
+	 * This method deletes a remote file.
+	 * 
+	 * @param path
+	 *            The path to the file.
+	 * @throws IllegalStateException
+	 *             If the client is not connected or not authenticated.
+	 * @throws IOException
+	 *             If an I/O error occurs.
+	 * @throws FTPIllegalReplyException
+	 *             If the server replies in an illegal way.
+	 * @throws FTPException
+	 *             If the operation fails.
+	 */
+	public void deleteFile(String path) throws IllegalStateException,
+			IOException, FTPIllegalReplyException, FTPException {
+		synchronized (lock) {
+			// Is this client connected?
+			if (!connected) {
+				throw new IllegalStateException("Client not connected");
+			}
+			// Is this client authenticated?
+			if (!authenticated) {
+				throw new IllegalStateException("Client not authenticated");
+			}
+			// Sends the DELE command.
+			communication.sendFTPCommand("DELE " + path);
+			FTPReply r = communication.readFTPReply();
+			touchAutoNoopTimer();
+			invalidateListingCache(path);
+			if (!r.isSuccessCode()) {
+				throw new FTPException(r);
+			}
+		}
+	}
+
+	/**
+	 * This method deletes a remote directory.
+	 * 
+	 * @param path
+	 *            The path to the directory.
+	 * @throws IllegalStateException
+	 *             If the client is not connected or not authenticated.
+	 * @throws IOException
+	 *             If an I/O error occurs.
+	 * @throws FTPIllegalReplyException
+	 *             If the server replies in an illegal way.
+	 * @throws FTPException
+	 *             If the operation fails.
+	 */
+	public void deleteDirectory(String path) throws IllegalStateException,
+			IOException, FTPIllegalReplyException, FTPException {
+		synchronized (lock) {
+			// Is this client connected?
+			if (!connected) {
+				throw new IllegalStateException("Client not connected");
+			}
+			// Is this client authenticated?
+			if (!authenticated) {
+				throw new IllegalStateException("Client not authenticated");
+			}
+			// Sends the RMD command.
+			communication.sendFTPCommand("RMD " + path);
+			FTPReply r = communication.readFTPReply();
+			touchAutoNoopTimer();
+			invalidateListingCache(path);
+			if (!r.isSuccessCode()) {
+				throw new FTPException(r);
+			}
+		}
+	}
+
+	/**
+	 * This method creates a new remote directory in the current working one.
+	 * 
+	 * @param directoryName
+	 *            The name of the new directory.
+	 * @throws IllegalStateException
+	 *             If the client is not connected or not authenticated.
+	 * @throws IOException
+	 *             If an I/O error occurs.
+	 * @throws FTPIllegalReplyException
+	 *             If the server replies in an illegal way.
+	 * @throws FTPException
+	 *             If the operation fails.
+	 */
+	public void createDirectory(String directoryName)
+			throws IllegalStateException, IOException,
+			FTPIllegalReplyException, FTPException {
+		synchronized (lock) {
+			// Is this client connected?
+			if (!connected) {
+				throw new IllegalStateException("Client not connected");
+			}
+			// Is this client authenticated?
+			if (!authenticated) {
+				throw new IllegalStateException("Client not authenticated");
+			}
+			// Sends the MKD command.
+			communication.sendFTPCommand("MKD " + directoryName);
+			FTPReply r = communication.readFTPReply();
+			touchAutoNoopTimer();
+			invalidateListingCache(directoryName);
+			if (!r.isSuccessCode()) {
+				throw new FTPException(r);
+			}
+		}
+	}
+
+	/**
+	 * This method calls the HELP command on the remote server, returning a list
+	 * of lines with the help contents.
+	 * 
+	 * @return The help contents, splitted by line.
+	 * @throws IllegalStateException
+	 *             If the client is not connected or not authenticated.
+	 * @throws IOException
+	 *             If an I/O error occurs.
+	 * @throws FTPIllegalReplyException
+	 *             If the server replies in an illegal way.
+	 * @throws FTPException
+	 *             If the operation fails.
+	 */
+	public String[] help() throws IllegalStateException, IOException,
+			FTPIllegalReplyException, FTPException {
+		synchronized (lock) {
+			// Is this client connected?
+			if (!connected) {
+				throw new IllegalStateException("Client not connected");
+			}
+			// Is this client authenticated?
+			if (!authenticated) {
+				throw new IllegalStateException("Client not authenticated");
+			}
+			// Sends the HELP command.
+			communication.sendFTPCommand("HELP");
+			FTPReply r = communication.readFTPReply();
+			touchAutoNoopTimer();
+			if (!r.isSuccessCode()) {
+				throw new FTPException(r);
+			}
+			return r.getMessages();
+		}
+	}
+
+	/**
+	 * This method returns the remote server status, as the result of a FTP STAT
+	 * command.
+	 * 
+	 * @return The remote server status, splitted by line.
+	 * @throws IllegalStateException
+	 *             If the client is not connected or not authenticated.
+	 * @throws IOException
+	 *             If an I/O error occurs.
+	 * @throws FTPIllegalReplyException
+	 *             If the server replies in an illegal way.
+	 * @throws FTPException
+	 *             If the operation fails.
+	 */
+	public String[] serverStatus() throws IllegalStateException, IOException,
+			FTPIllegalReplyException, FTPException {
+		synchronized (lock) {
+			// Is this client connected?
+			if (!connected) {
+				throw new IllegalStateException("Client not connected");
+			}
+			// Is this client authenticated?
+			if (!authenticated) {
+				throw new IllegalStateException("Client not authenticated");
+			}
+			// Sends the STAT command.
+			communication.sendFTPCommand("STAT");
+			FTPReply r = communication.readFTPReply();
+			touchAutoNoopTimer();
+			if (!r.isSuccessCode()) {
+				throw new FTPException(r);
+			}
+			return r.getMessages();
+		}
+	}
+
+	/**
+	 * This method lists the entries of the current working directory parsing
+	 * the reply to a FTP LIST command.
+	 * 
+	 * The response to the LIST command is parsed through the FTPListParser
+	 * objects registered on the client. The distribution of ftp4j contains some
+	 * standard parsers already registered on every FTPClient object created. If
+	 * they don't work in your case (a FTPListParseException is thrown), you can
+	 * build your own parser implementing the FTPListParser interface and add it
+	 * to the client by calling its addListParser() method.
+	 * 
+	 * Calling this method blocks the current thread until the operation is
+	 * completed. The operation could be interrupted by another thread calling
+	 * abortCurrentDataTransfer(). The list() method will break with a
+	 * FTPAbortedException.
+	 * 
+	 * @param fileSpec
+	 *            A file filter string. Depending on the server implementation,
+	 *            wildcard characters could be accepted.
+	 * @return The list of the files (and directories) in the current working
+	 *         directory.
+	 * @throws IllegalStateException
+	 *             If the client is not connected or not authenticated.
+	 * @throws IOException
+	 *             If an I/O error occurs.
+	 * @throws FTPIllegalReplyException
+	 *             If the server replies in an illegal way.
+	 * @throws FTPException
+	 *             If the operation fails.
+	 * @throws FTPDataTransferException
+	 *             If a I/O occurs in the data transfer connection. If you
+	 *             receive this exception the transfer failed, but the main
+	 *             connection with the remote FTP server is in theory still
+	 *             working.
+	 * @throws FTPAbortedException
+	 *             If operation is aborted by another thread.
+	 * @throws FTPListParseException
+	 *             If none of the registered parsers can handle the response
+	 *             sent by the server.
+	 * @see FTPListParser
+	 * @see FTPClient#addListParser(FTPListParser)
+	 * @see FTPClient#getListParsers()
+	 * @see FTPClient#abortCurrentDataTransfer(boolean)
+	 * @see FTPClient#listNames()
+	 * @since 1.2
+	 */
+	public FTPFile[] list(String fileSpec) throws IllegalStateException,
+			IOException, FTPIllegalReplyException, FTPException,
+			FTPDataTransferException, FTPAbortedException,
+			FTPListParseException {
+		synchronized (lock) {
+			// Is this client connected?
+			if (!connected) {
+				throw new IllegalStateException("Client not connected");
+			}
+			// Is this client authenticated?
+			if (!authenticated) {
+				throw new IllegalStateException("Client not authenticated");
+			}
+			// Cached list?
+			String cachePath = null;
+			if (listingCache != null) {
+				cachePath = listingCachePath(fileSpec);
+				FTPFile[] cached = (FTPFile[]) listingCache.get(
+						listingCacheServer(), "LIST", cachePath);
+				if (cached != null) {
+					return copyFiles(cached);
+				}
+			}
+			// MLSD or LIST command?
+			boolean mlsdCommand;
+			if (mlsdPolicy == MLSD_IF_SUPPORTED) {
+				mlsdCommand = mlsdSupported;
+			} else if (mlsdPolicy == MLSD_ALWAYS) {
+				mlsdCommand = true;
+			} else {
+				mlsdCommand = false;
+			}
+			// Has a parser been detected for this server in another session?
+			FTPListParser cachedParser = null;
+			if (!mlsdCommand && parser == null) {
+				cachedParser = lookupListParser();
+			}
+			// Prepares the connection for the data transfer. ASCII, please!
+			FTPDataTransferConnectionProvider provider = openDataTransferChannel(TYPE_TEXTUAL);
+			String command = mlsdCommand ? "MLSD" : "LIST";
+			// Adds the file/directory selector.
+			if (fileSpec != null && fileSpec.length() > 0) {
+				command += " " + fileSpec;
+			}
+			// Sends the command.
+			communication.sendFTPCommand(command);
+			FTPReply r;
+			Socket dtConnection;
+			try {
+				try {
+					dtConnection = provider.openDataTransferConnection();
+				} finally {
+					r = communication.readFTPReply();
+					touchAutoNoopTimer();
+					if (r.getCode() != 150 && r.getCode() != 125) {
+						throw new FTPException(r);
+					}
+				}
+			} finally {
+				provider.dispose();
+			}
+			// Change the operation status.
+			synchronized (abortLock) {
+				ongoingDataTransfer = true;
+				aborted = false;
+			}
+			// Fetch the list from the data transfer connection.
+			ArrayList lines = new ArrayList();
+			NVTASCIIReader dataReader = null;
+			try {
+				// Opens the data transfer connection.
+				dataTransferInputStream = dtConnection.getInputStream();
+				// MODE Z enabled?
+				if (modezEnabled) {
+					dataTransferInputStream = new InflaterInputStream(dataTransferInputStream);
+				}
+				// Let's do it!
+				dataReader = new NVTASCIIReader(dataTransferInputStream, mlsdCommand ? "UTF-8" : pickCharset());
+				String line;
+				while ((line = dataReader.readLine()) != null) {
+					if (line.length() > 0) {
+						lines.add(line);
+					}
+				}
+			} catch (IOException e) {
+				synchronized (abortLock) {
+					if (aborted) {
+						throw new FTPAbortedException();
+					} else {
+						throw new FTPDataTransferException(
+								"I/O error in data transfer", e);
+					}
+				}
+			} finally {
+				if (dataReader != null) {
+					try {
+						dataReader.close();
+					} catch (Throwable t) {
+						;
+					}
+				}
+				try {
+					dtConnection.close();
+				} catch (Throwable t) {
+					;
+				}
+				// Consume the result reply of the transfer.
+				completeDataTransfer();
+				// Set to null the instance-level input stream.
+				dataTransferInputStream = null;
+				// Change the operation status.
+				synchronized (abortLock) {
+					ongoingDataTransfer = false;
+					aborted = false;
+				}
+			}
+			// Build an array of lines.
+			int size = lines.size();
+			String[] list = new String[size];
+			for (int i = 0; i < size; i++) {
+				list[i] = (String) lines.get(i);
+			}
+			// Parse the list.
+			FTPFile[] ret = null;
+			if (mlsdCommand) {
+				// Forces the MLSDListParser.
+				MLSDListParser parser = new MLSDListParser();
+				ret = parseList(parser, list);
+			} else {
+				// Searches for the appropriate parser.
+				if (parser == null) {
+					if (cachedParser != null) {
+						try {
+							ret = parseList(cachedParser, list);
+							parser = cachedParser;
+						} catch (FTPListParseException e) {
+							// The server has changed?
+							FTPListParserCache.remove(listParserCacheKey());
+						}
+					}
+					if (parser == null) {
+						ret = detectListParser(list);
+					}
+				} else {
+					ret = parseList(parser, list);
+				}
+			}
+			if (ret == null) {
+				// None of the parsers can handle the list response.
+				throw new FTPListParseException();
+			} else {
+				if (cachePath != null) {
+					listingCache.put(listingCacheServer(), "LIST", cachePath,
+							true, copyFiles(ret));
+				}
+				// Return the parsed list.
+				return ret;
+			}
+		}
+	}
+
+	/**
+	 * This method lists the entries of the current working directory parsing
+	 * the reply to a FTP LIST command.
+	 * 
+	 * The response to the LIST command is parsed through the FTPListParser
+	 * objects registered on the client. The distribution of ftp4j contains some
+	 * standard parsers already registered on every FTPClient object created. If
+	 * they don't work in your case (a FTPListParseException is thrown), you can
+	 * build your own parser implementing the FTPListParser interface and add it
+	 * to the client by calling its addListParser() method.
+	 * 
+	 * Calling this method blocks the current thread until the operation is
+	 * completed. The operation could be interrupted by another thread calling
+	 * abortCurrentDataTransfer(). The list() method will break with a
+	 * FTPAbortedException.
+	 * 
+	 * @return The list of the files (and directories) in the current working
+	 *         directory.
+	 * @throws IllegalStateException
+	 *             If the client is not connected or not authenticated.
+	 * @throws IOException
+	 *             If an I/O error occurs.
+	 * @throws FTPIllegalReplyException
+	 *             If the server replies in an illegal way.
+	 * @throws FTPException
+	 *             If the operation fails.
+	 * @throws FTPDataTransferException
+	 *             If a I/O occurs in the data transfer connection. If you
+	 *             receive this exception the transfer failed, but the main
+	 *             connection with the remote FTP server is in theory still
+	 *             working.
+	 * @throws FTPAbortedException
+	 *             If operation is aborted by another thread.
+	 * @throws FTPListParseException
+	 *             If none of the registered parsers can handle the response
+	 *             sent by the server.
+	 * @see FTPListParser
+	 * @see FTPClient#addListParser(FTPListParser)
+	 * @see FTPClient#getListParsers()
+	 * @see FTPClient#abortCurrentDataTransfer(boolean)
+	 * @see FTPClient#listNames()
+	 */
+	public FTPFile[] list() throws IllegalStateException, IOException, FTPIllegalReplyException, FTPException,
+			FTPDataTransferException, FTPAbortedException, FTPListParseException {
+		return list(null);
+	}
+
+	/**
+	 * This method lists the entries of the current working directory parsing
+	 * the reply to a FTP LIST command, and passes them to the given visitor as
+	 * soon as they are received.
+	 * 
+	 * Unlike {@link FTPClient#list(String)}, this method never holds the whole
+	 * listing in memory: every line is parsed when it arrives and the
+	 * resulting entry is handed to the visitor, so very large directories can
+	 * be processed in constant memory. The visitor can stop the listing at any
+	 * time returning false; the data transfer connection is then closed
+	 * without reading the remaining entries.
+	 * 
+	 * The lines are parsed through the FTPListParser objects registered on the
+	 * client. Parsers implementing {@link FTPLineListParser} receive one line
+	 * at a time; the others receive every line in a single-element array. If
+	 * no parser has been selected yet in the current connection, the parser is
+	 * chosen on the first line of the response. If a line cannot be parsed, a
+	 * FTPListParseException is thrown, but the entries that precede it have
+	 * already been visited.
+	 * 
+	 * Calling this method blocks the current thread until the operation is
+	 * completed. The operation could be interrupted by another thread calling
+	 * abortCurrentDataTransfer(). The list() method will break with a
+	 * FTPAbortedException.
+	 * 
+	 * @param fileSpec
+	 *            A file filter string. Depending on the server implementation,
+	 *            wildcard characters could be accepted. Could be null.
+	 * @param visitor
+	 *            The visitor receiving the entries.
+	 * @throws IllegalStateException
+	 *             If the client is not connected or not authenticated.
+	 * @throws IOException
+	 *             If an I/O error occurs.
+	 * @throws FTPIllegalReplyException
+	 *             If the server replies in an illegal way.
+	 * @throws FTPException
+	 *             If the operation fails.
+	 * @throws FTPDataTransferException
+	 *             If a I/O occurs in the data transfer connection. If you
+	 *             receive this exception the transfer failed, but the main
+	 *             connection with the remote FTP server is in theory still
+	 *             working.
+	 * @throws FTPAbortedException
+	 *             If operation is aborted by another thread.
+	 * @throws FTPListParseException
+	 *             If none of the registered parsers can handle the response
+	 *             sent by the server.
+	 * @see FTPFileVisitor
+	 * @see FTPLineListParser
+	 * @see FTPClient#addListParser(FTPListParser)
+	 * @see FTPClient#abortCurrentDataTransfer(boolean)
+	 * @since 1.7
+	 */
+	public void list(String fileSpec, FTPFileVisitor visitor)
+			throws IllegalStateException, IOException,
+			FTPIllegalReplyException, FTPException, FTPDataTransferException,
+			FTPAbortedException, FTPListParseException {
+		synchronized (lock) {
+			// Is this client connected?
+			if (!connected) {
+				throw new IllegalStateException("Client not connected");
+			}
+			// Is this client authenticated?
+			if (!authenticated) {
+				throw new IllegalStateException("Client not authenticated");
+			}
+			// MLSD or LIST command?
+			boolean mlsdCommand;
+			if (mlsdPolicy == MLSD_IF_SUPPORTED) {
+				mlsdCommand = mlsdSupported;
+			} else if (mlsdPolicy == MLSD_ALWAYS) {
+				mlsdCommand = true;
+			} else {
+				mlsdCommand = false;
+			}
+			// Has a parser been detected for this server in another session?
+			FTPListParser cachedParser = null;
+			if (!mlsdCommand && parser == null) {
+				cachedParser = lookupListParser();
+			}
+			// Prepares the connection for the data transfer. ASCII, please!
+			FTPDataTransferConnectionProvider provider = openDataTransferChannel(TYPE_TEXTUAL);
+			String command = mlsdCommand ? "MLSD" : "LIST";
+			// Adds the file/directory selector.
+			if (fileSpec != null && fileSpec.length() > 0) {
+				command += " " + fileSpec;
+			}
+			// Sends the command.
+			communication.sendFTPCommand(command);
+			FTPReply r;
+			Socket dtConnection;
+			try {
+				try {
+					dtConnection = provider.openDataTransferConnection();
+				} finally {
+					r = communication.readFTPReply();
+					touchAutoNoopTimer();
+					if (r.getCode() != 150 && r.getCode() != 125) {
+						throw new FTPException(r);
+					}
+				}
+			} finally {
+				provider.dispose();
+			}
+			// Change the operation status.
+			synchronized (abortLock) {
+				ongoingDataTransfer = true;
+				aborted = false;
+			}
+			// Parse the lines while they arrive.
+			NVTASCIIReader dataReader = null;
+			try {
+				// Opens the data transfer connection.
+				dataTransferInputStream = dtConnection.getInputStream();
+				// MODE Z enabled?
+				if (modezEnabled) {
+					dataTransferInputStream = new InflaterInputStream(dataTransferInputStream);
+				}
+				// Let's do it!
+				dataReader = new NVTASCIIReader(dataTransferInputStream, mlsdCommand ? "UTF-8" : pickCharset());
+				FTPListParser lineParser;
+				if (mlsdCommand) {
+					// Forces the MLSDListParser.
+					lineParser = new MLSDListParser();
+				} else {
+					lineParser = parser;
+				}
+				boolean stop = false;
+				String line;
+				while (!stop && (line = dataReader.readLine()) != null) {
+					if (line.length() == 0) {
+						continue;
+					}
+					FTPFile[] files = null;
+					if (lineParser == null) {
+						if (cachedParser != null) {
+							try {
+								files = parseListLine(cachedParser, line);
+								lineParser = cachedParser;
+							} catch (FTPListParseException e) {
+								// The server has changed?
+								FTPListParserCache.remove(listParserCacheKey());
+							}
+						}
+						if (lineParser == null) {
+							// Try to parse the line with every parser available.
+							for (Iterator i = listParsers.iterator(); i.hasNext();) {
+								FTPListParser aux = (FTPListParser) i.next();
+								try {
+									files = parseListLine(aux, line);
+									lineParser = aux;
+									break;
+								} catch (FTPListParseException e) {
+									// Let's try the next one.
+									continue;
+								}
+							}
+							if (lineParser == null) {
+								// None of the parsers can handle the line.
+								throw new FTPListParseException();
+							}
+							FTPListParserCache.put(listParserCacheKey(),
+									lineParser.getClass());
+						}
+						// This parser smells good!
+						parser = lineParser;
+					} else {
+						files = parseListLine(lineParser, line);
+					}
+					for (int i = 0; i < files.length; i++) {
+						if (!visitor.visit(files[i])) {
+							stop = true;
+							break;
+						}
+					}
+				}
+			} catch (IOException e) {
+				synchronized (abortLock) {
+					if (aborted) {
+						throw new FTPAbortedException();
+					} else {
+						throw new FTPDataTransferException(
+								"I/O error in data transfer", e);
+					}
+				}
+			} finally {
+				if (dataReader != null) {
+					try {
+						dataReader.close();
+					} catch (Throwable t) {
+						;
+					}
+				}
+				try {
+					dtConnection.close();
+				} catch (Throwable t) {
+					;
+				}
+				// Consume the result reply of the transfer.
+				completeDataTransfer();
+				// Set to null the instance-level input stream.
+				dataTransferInputStream = null;
+				// Change the operation status.
+				synchronized (abortLock) {
+					ongoingDataTransfer = false;
+					aborted = false;
+				}
+			}
+		}
+	}
+
+	/**
+	 * This method lists the entries of the current working directory with a FTP
+	 * NLST command.
+	 * 
+	 * The response consists in an array of string, each one reporting the name
+	 * of a file or a directory placed in the current working directory. For a
+	 * more detailed directory listing procedure look at the list() method.
+	 * 
+	 * Calling this method blocks the current thread until the operation is
+	 * completed. The operation could be interrupted by another thread calling
+	 * abortCurrentDataTransfer(). The listNames() method will break with a
+	 * FTPAbortedException.
+	 * 
+	 * @return The list of the files (and directories) in the current working
+	 *         directory.
+	 * @throws IllegalStateException
+	 *             If the client is not connected or not authenticated.
+	 * @throws IOException
+	 *             If an I/O error occurs.
+	 * @throws FTPIllegalReplyException
+	 *             If the server replies in an illegal way.
+	 * @throws FTPException
+	 *             If the operation fails.
+	 * @throws FTPDataTransferException
+	 *             If a I/O occurs in the data transfer connection. If you
+	 *             receive this exception the transfer failed, but the main
+	 *             connection with the remote FTP server is in theory still
+	 *             working.
+	 * @throws FTPAbortedException
+	 *             If operation is aborted by another thread.
+	 * @throws FTPListParseException
+	 *             If none of the registered parsers can handle the response
+	 *             sent by the server.
+	 * @see FTPClient#abortCurrentDataTransfer(boolean)
+	 * @see FTPClient#list()
+	 */
+	public String[] listNames() throws IllegalStateException, IOException, FTPIllegalReplyException, FTPException,
+			FTPDataTransferException, FTPAbortedException, FTPListParseException {
+		synchronized (lock) {
+			// Is this client connected?
+			if (!connected) {
+				throw new IllegalStateException("Client not connected");
+			}
+			// Is this client authenticated?
+			if (!authenticated) {
+				throw new IllegalStateException("Client not authenticated");
+			}
+			// Cached list?
+			String cachePath = null;
+			if (listingCache != null) {
+				cachePath = listingCachePath(null);
+				String[] cached = (String[]) listingCache.get(
+						listingCacheServer(), "NLST", cachePath);
+				if (cached != null) {
+					return cached.clone();
+				}
+			}
+			// Prepares the connection for the data transfer. ASCII, please!
+			FTPDataTransferConnectionProvider provider = openDataTransferChannel(TYPE_TEXTUAL);
+			// Send the NLST command.
+			communication.sendFTPCommand("NLST");
+			FTPReply r;
+			Socket dtConnection;
+			try {
+				try {
+					dtConnection = provider.openDataTransferConnection();
+				} finally {
+					r = communication.readFTPReply();
+					if (r.getCode() != 150 && r.getCode() != 125) {
+						throw new FTPException(r);
+					}
+				}
+			} finally {
+				provider.dispose();
+			}
+			// Change the operation status.
+			synchronized (abortLock) {
+				ongoingDataTransfer = true;
+				aborted = false;
+			}
+			// Fetch the list from the data transfer connection.
+			ArrayList lines = new ArrayList();
+			NVTASCIIReader dataReader = null;
+			try {
+				// Opens the data transfer connection.
+				dataTransferInputStream = dtConnection.getInputStream();
+				// MODE Z enabled?
+				if (modezEnabled) {
+					dataTransferInputStream = new InflaterInputStream(dataTransferInputStream);
+				}
+				// Let's do it!
+				dataReader = new NVTASCIIReader(dataTransferInputStream,
+						pickCharset());
+				String line;
+				while ((line = dataReader.readLine()) != null) {
+					if (line.length() > 0) {
+						lines.add(line);
+					}
+				}
+			} catch (IOException e) {
+				synchronized (abortLock) {
+					if (aborted) {
+						throw new FTPAbortedException();
+					} else {
+						throw new FTPDataTransferException(
+								"I/O error in data transfer", e);
+					}
+				}
+			} finally {
+				if (dataReader != null) {
+					try {
+						dataReader.close();
+					} catch (Throwable t) {
+						;
+					}
+				}
+				try {
+					dtConnection.close();
+				} catch (Throwable t) {
+					;
+				}
+				// Consume the result reply of the transfer.
+				completeDataTransfer();
+				// Set to null the instance-level input stream.
+				dataTransferInputStream = null;
+				// Change the operation status.
+				synchronized (abortLock) {
+					ongoingDataTransfer = false;
+					aborted = false;
+				}
+			}
+			// Build an array.
+			int size = lines.size();
+			String[] list = new String[size];
+			for (int i = 0; i < size; i++) {
+				list[i] = (String) lines.get(i);
+			}
+			if (cachePath != null) {
+				listingCache.put(listingCacheServer(), "NLST", cachePath, true,
+						list.clone());
+			}
+			return list;
+		}
+	}
+
+	/**
+	 * This method uploads a file to the remote server.
+	 * 
+	 * Calling this method blocks the current thread until the operation is
+	 * completed. The operation could be interrupted by another thread calling
+	 * abortCurrentDataTransfer(). The method will break with a
+	 * FTPAbortedException.
+	 * 
+	 * @param file
+	 *            The file to upload.
+	 * @throws IllegalStateException
+	 *             If the client is not connected or not authenticated.
+	 * @throws FileNotFoundException
+	 *             If the supplied file cannot be found.
+	 * @throws IOException
+	 *             If an I/O error occurs.
+	 * @throws FTPIllegalReplyException
+	 *             If the server replies in an illegal way.
+	 * @throws FTPException
+	 *             If the operation fails.
+	 * @throws FTPDataTransferException
+	 *             If a I/O occurs in the data transfer connection. If you
+	 *             receive this exception the transfer failed, but the main
+	 *             connection with the remote FTP server is in theory still
+	 *             working.
+	 * @throws FTPAbortedException
+	 *             If operation is aborted by another thread.
+	 * @see FTPClient#abortCurrentDataTransfer(boolean)
+	 */
+	public void upload(File file) throws IllegalStateException,
+			FileNotFoundException, IOException, FTPIllegalReplyException,
+			FTPException, FTPDataTransferException, FTPAbortedException {
+		upload(file, 0, null);
+	}
+
+	/**
+	 * This method uploads a file to the remote server.
+	 * 
+	 * Calling this method blocks the current thread until the operation is
+	 * completed. The operation could be interrupted by another thread calling
+	 * abortCurrentDataTransfer(). The method will break with a
+	 * FTPAbortedException.
+	 * 
+	 * @param file
+	 *            The file to upload.
+	 * @param listener
+	 *            The listener for the operation. Could be null.
+	 * @throws IllegalStateException
+	 *             If the client is not connected or not authenticated.
+	 * @throws FileNotFoundException
+	 *             If the supplied file cannot be found.
+	 * @throws IOException
+	 *             If an I/O error occurs.
+	 * @throws FTPIllegalReplyException
+	 *             If the server replies in an illegal way.
+	 * @throws FTPException
+	 *             If the operation fails.
+	 * @throws FTPDataTransferException
+	 *             If a I/O occurs in the data transfer connection. If you
+	 *             receive this exception the transfer failed, but the main
+	 *             connection with the remote FTP server is in theory still
+	 *             working.
+	 * @throws FTPAbortedException
+	 *             If operation is aborted by another thread.
+	 * @see FTPClient#abortCurrentDataTransfer(boolean)
+	 */
+	public void upload(File file, FTPDataTransferListener listener)
+			throws IllegalStateException, FileNotFoundException, IOException,
+			FTPIllegalReplyException, FTPException, FTPDataTransferException,
+			FTPAbortedException {
+		upload(file, 0, listener);
+	}
+
+	/**
+	 * This method uploads a file to the remote server.
+	 * 
+	 * Calling this method blocks the current thread until the operation is
+	 * completed. The operation could be interrupted by another thread calling
+	 * abortCurrentDataTransfer(). The method will break with a
+	 * FTPAbortedException.
+	 * 
+	 * @param file
+	 *            The file to upload.
+	 * @param restartAt
+	 *            The restart point (number of bytes already uploaded). Use
+	 *            {@link FTPClient#isResumeSupported()} to check if the server
+	 *            supports resuming of broken data transfers.
+	 * @throws IllegalStateException
+	 *             If the client is not connected or not authenticated.
+	 * @throws FileNotFoundException
+	 *             If the supplied file cannot be found.
+	 * @throws IOException
+	 *             If an I/O error occurs.
+	 * @throws FTPIllegalReplyException
+	 *             If the server replies in an illegal way.
+	 * @throws FTPException
+	 *             If the operation fails.
+	 * @throws FTPDataTransferException
+	 *             If a I/O occurs in the data transfer connection. If you
+	 *             receive this exception the transfer failed, but the main
+	 *             connection with the remote FTP server is in theory still
+	 *             working.
+	 * @throws FTPAbortedException
+	 *             If operation is aborted by another thread.
+	 * @see FTPClient#abortCurrentDataTransfer(boolean)
+	 */
+	public void upload(File file, long restartAt) throws IllegalStateException,
+			FileNotFoundException, IOException, FTPIllegalReplyException,
+			FTPException, FTPDataTransferException, FTPAbortedException {
+		upload(file, restartAt, null);
+	}
+
+	/**
+	 * This method uploads a file to the remote server.
+	 * 
+	 * Calling this method blocks the current thread until the operation is
+	 * completed. The operation could be interrupted by another thread calling
+	 * abortCurrentDataTransfer(). The method will break with a
+	 * FTPAbortedException.
+	 * 
+	 * @param file
+	 *            The file to upload.
+	 * @param restartAt
+	 *            The restart point (number of bytes already uploaded). Use
+	 *            {@link FTPClient#isResumeSupported()} to check if the server
+	 *            supports resuming of broken data transfers.
+	 * @param listener
+	 *            The listener for the operation. Could be null.
+	 * @throws IllegalStateException
+	 *             If the client is not connected or not authenticated.
+	 * @throws FileNotFoundException
+	 *             If the supplied file cannot be found.
+	 * @throws IOException
+	 *             If an I/O error occurs.
+	 * @throws FTPIllegalReplyException
+	 *             If the server replies in an illegal way.
+	 * @throws FTPException
+	 *             If the operation fails.
+	 * @throws FTPDataTransferException
+	 *             If a I/O occurs in the data transfer connection. If you
+	 *             receive this exception the transfer failed, but the main
+	 *             connection with the remote FTP server is in theory still
+	 *             working.
+	 * @throws FTPAbortedException
+	 *             If operation is aborted by another thread.
+	 * @see FTPClient#abortCurrentDataTransfer(boolean)
+	 */
+	public void upload(File file, long restartAt,
+			FTPDataTransferListener listener) throws IllegalStateException,
+			FileNotFoundException, IOException, FTPIllegalReplyException,
+			FTPException, FTPDataTransferException, FTPAbortedException {
+		if (!file.exists()) {
+			throw new FileNotFoundException(file.getAbsolutePath());
+		}
+		FileInputStream inputStream = null;
+		try {
+			inputStream = new FileInputStream(file);
+		} catch (IOException e) {
+			throw new FTPDataTransferException(e);
+		}
+		try {
+			upload("STOR", file.getName(), inputStream,
+					inputStream.getChannel(), restartAt, restartAt, listener);
+		} catch (IllegalStateException e) {
+			throw e;
+		} catch (IOException e) {
+			throw e;
+		} catch (FTPIllegalReplyException e) {
+			throw e;
+		} catch (FTPException e) {
+			throw e;
+		} catch (FTPDataTransferException e) {
+			throw e;
+		} catch (FTPAbortedException e) {
+			throw e;
+		} finally {
+			if (inputStream != null) {
+				try {
+					inputStream.close();
+				} catch (Throwable t) {
+					;
+				}
+			}
+		}
+	}
+
+	/**
+	 * This method uploads a content to the remote server.
+	 * 
+	 * Calling this method blocks the current thread until the operation is
+	 * completed. The operation could be interrupted by another thread calling
+	 * abortCurrentDataTransfer(). The method will break with a
+	 * FTPAbortedException.
+	 * 
+	 * @param fileName
+	 *            The name of the remote file.
+	 * @param inputStream
+	 *            The source of data.
+	 * @param restartAt
+	 *            The restart point (number of bytes already uploaded). Use
+	 *            {@link FTPClient#isResumeSupported()} to check if the server
+	 *            supports resuming of broken data transfers.
+	 * @param streamOffset
+	 *            The offset to skip in the stream.
+	 * @param listener
+	 *            The listener for the operation. Could be null.
+	 * @throws IllegalStateException
+	 *             If the client is not connected or not authenticated.
+	 * @throws IOException
+	 *             If an I/O error occurs.
+	 * @throws FTPIllegalReplyException
+	 *             If the server replies in an illegal way.
+	 * @throws FTPException
+	 *             If the operation fails.
+	 * @throws FTPDataTransferException
+	 *             If a I/O occurs in the data transfer connection. If you
+	 *             receive this exception the transfer failed, but the main
+	 *             connection with the remote FTP server is in theory still
+	 *             working.
+	 * @throws FTPAbortedException
+	 *             If operation is aborted by another thread.
+	 * @see FTPClient#abortCurrentDataTransfer(boolean)
+	 */
+	public void upload(String fileName, InputStream inputStream,
+			long restartAt, long streamOffset, FTPDataTransferListener listener)
+			throws IllegalStateException, IOException,
+			FTPIllegalReplyException, FTPException, FTPDataTransferException,
+			FTPAbortedException {
+		upload("STOR", fileName, inputStream, null, restartAt, streamOffset,
+				listener);
+	}
+
+	/**
+	 * This method appends the contents of a local file to an existing file on
+	 * the remote server.
+	 * 
+	 * Calling this method blocks the current thread until the operation is
+	 * completed. The operation could be interrupted by another thread calling
+	 * abortCurrentDataTransfer(). The method will break with a
+	 * FTPAbortedException.
+	 * 
+	 * @param file
+	 *            The local file whose contents will be appended to the remote
+	 *            file.
+	 * @throws IllegalStateException
+	 *             If the client is not connected or not authenticated.
+	 * @throws FileNotFoundException
+	 *             If the supplied file cannot be found.
+	 * @throws IOException
+	 *             If an I/O error occurs.
+	 * @throws FTPIllegalReplyException
+	 *             If the server replies in an illegal way.
+	 * @throws FTPException
+	 *             If the operation fails.
+	 * @throws FTPDataTransferException
+	 *             If a I/O occurs in the data transfer connection. If you
+	 *             receive this exception the transfer failed, but the main
+	 *             connection with the remote FTP server is in theory still
+	 *             working.
+	 * @throws FTPAbortedException
+	 *             If operation is aborted by another thread.
+	 * @see FTPClient#abortCurrentDataTransfer(boolean)
+	 * @since 1.6
+	 */
+	public void append(File file) throws IllegalStateException,
+			FileNotFoundException, IOException, FTPIllegalReplyException,
+			FTPException, FTPDataTransferException, FTPAbortedException {
+		append(file, null);
+	}
+
+	/**
+	 * This method uploads a file to the remote server.
+	 * 
+	 * Calling this method blocks the current thread until the operation is
+	 * completed. The operation could be interrupted by another thread calling
+	 * abortCurrentDataTransfer(). The method will break with a
+	 * FTPAbortedException.
+	 * 
+	 * @param file
+	 *            The local file whose contents will be appended to the remote
+	 *            file.
+	 * @param listener
+	 *            The listener for the operation. Could be null.
+	 * @throws IllegalStateException
+	 *             If the client is not connected or not authenticated.
+	 * @throws FileNotFoundException
+	 *             If the supplied file cannot be found.
+	 * @throws IOException
+	 *             If an I/O error occurs.
+	 * @throws FTPIllegalReplyException
+	 *             If the server replies in an illegal way.
+	 * @throws FTPException
+	 *             If the operation fails.
+	 * @throws FTPDataTransferException
+	 *             If a I/O occurs in the data transfer connection. If you
+	 *             receive this exception the transfer failed, but the main
+	 *             connection with the remote FTP server is in theory still
+	 *             working.
+	 * @throws FTPAbortedException
+	 *             If operation is aborted by another thread.
+	 * @see FTPClient#abortCurrentDataTransfer(boolean)
+	 * @since 1.6
+	 */
+	public void append(File file, FTPDataTransferListener listener)
+			throws IllegalStateException, FileNotFoundException, IOException,
+			FTPIllegalReplyException, FTPException, FTPDataTransferException,
+			FTPAbortedException {
+		if (!file.exists()) {
+			throw new FileNotFoundException(file.getAbsolutePath());
+		}
+		FileInputStream inputStream = null;
+		try {
+			inputStream = new FileInputStream(file);
+		} catch (IOException e) {
+			throw new FTPDataTransferException(e);
+		}
+		try {
+			upload("APPE", file.getName(), inputStream,
+					inputStream.getChannel(), 0, 0, listener);
+		} catch (IllegalStateException e) {
+			throw e;
+		} catch (IOException e) {
+			throw e;
+		} catch (FTPIllegalReplyException e) {
+			throw e;
+		} catch (FTPException e) {
+			throw e;
+		} catch (FTPDataTransferException e) {
+			throw e;
+		} catch (FTPAbortedException e) {
+			throw e;
+		} finally {
+			if (inputStream != null) {
+				try {
+					inputStream.close();
+				} catch (Throwable t) {
+					;
+				}
+			}
+		}
+	}
+
+	/**
+	 * This method appends data to an existing file on the remote server.
+	 * 
+	 * Calling this method blocks the current thread until the operation is
+	 * completed. The operation could be interrupted by another thread calling
+	 * abortCurrentDataTransfer(). The method will break with a
+	 * FTPAbortedException.
+	 * 
+	 * @param fileName
+	 *            The name of the remote file.
+	 * @param inputStream
+	 *            The source of data.
+	 * @param streamOffset
+	 *            The offset to skip in the stream.
+	 * @param listener
+	 *            The listener for the operation. Could be null.
+	 * @throws IllegalStateException
+	 *             If the client is not connected or not authenticated.
+	 * @throws IOException
+	 *             If an I/O error occurs.
+	 * @throws FTPIllegalReplyException
+	 *             If the server replies in an illegal way.
+	 * @throws FTPException
+	 *             If the operation fails.
+	 * @throws FTPDataTransferException
+	 *             If a I/O occurs in the data transfer connection. If you
+	 *             receive this exception the transfer failed, but the main
+	 *             connection with the remote FTP server is in theory still
+	 *             working.
+	 * @throws FTPAbortedException
+	 *             If operation is aborted by another thread.
+	 * @see FTPClient#abortCurrentDataTransfer(boolean)
+	 * @since 1.6
+	 */
+	public void append(String fileName, InputStream inputStream,
+			long streamOffset, FTPDataTransferListener listener)
+			throws IllegalStateException, IOException,
+			FTPIllegalReplyException, FTPException, FTPDataTransferException,
+			FTPAbortedException {
+		upload("APPE", fileName, inputStream, null, 0, streamOffset, listener);
+	}
+
+	/**
+	 * Shared implementation of the upload and append operations.
+	 * 
+	 * @param command
+	 *            The transfer command: STOR or APPE.
+	 * @param fileName
+	 *            The name of the remote file.
+	 * @param inputStream
+	 *            The source of data.
+	 * @param fileChannel
+	 *            The channel of the source file, if the source is a local
+	 *            file. Could be null. When available in binary mode over a
+	 *            plain data connection, the data is sent with
+	 *            {@link FileChannel#transferTo}.
+	 * @param restartAt
+	 *            The restart point. Ignored by APPE.
+	 * @param streamOffset
+	 *            The offset to skip in the stream.
+	 * @param listener
+	 *            The listener for the operation. Could be null.
+	 * @throws IllegalStateException
+	 *             If the client is not connected or not authenticated.
+	 * @throws IOException
+	 *             If an I/O error occurs.
+	 * @throws FTPIllegalReplyException
+	 *             If the server replies in an illegal way.
+	 * @throws FTPException
+	 *             If the operation fails.
+	 * @throws FTPDataTransferException
+	 *             If a I/O occurs in the data transfer connection.
+	 * @throws FTPAbortedException
+	 *             If operation is aborted by another thread.
+	 */
+	private void upload(String command, String fileName,
+			InputStream inputStream, FileChannel fileChannel, long restartAt,
+			long streamOffset, FTPDataTransferListener listener)
+			throws IllegalStateException, IOException,
+			FTPIllegalReplyException, FTPException, FTPDataTransferException,
+			FTPAbortedException {
+		synchronized (lock) {
+			// Is this client connected?
+			if (!connected) {
+				throw new IllegalStateException("Client not connected");
+			}
+			// Is this client authenticated?
+			if (!authenticated) {
+				throw new IllegalStateException("Client not authenticated");
+			}
+			// Select the type of contents.
+			int tp = type;
+			if (tp == TYPE_AUTO) {
+				tp = detectType(fileName);
+			}
+			// Prepares the connection for the data transfer.
+			FTPDataTransferConnectionProvider provider = openDataTransferChannel(tp);
+			// REST command (if supported and/or requested).
+			if (command.equals("STOR") && (restSupported || restartAt > 0)) {
+				boolean done = false;
+				try {
+					communication.sendFTPCommand("REST " + restartAt);
+					FTPReply r = communication.readFTPReply();
+					touchAutoNoopTimer();
+					if (r.getCode() != 350 && (r.getCode() != 502 || restartAt > 0)) {
+						throw new FTPException(r);
+					}
+					done = true;
+				} finally {
+					if (!done) {
+						provider.dispose();
+					}
+				}
+			}
+			// Send the STOR or APPE command.
+			communication.sendFTPCommand(command + " " + fileName);
+			FTPReply r;
+			Socket dtConnection;
+			try {
+				try {
+					dtConnection = provider.openDataTransferConnection();
+				} finally {
+					r = communication.readFTPReply();
+					touchAutoNoopTimer();
+					if (r.getCode() != 150 && r.getCode() != 125) {
+						throw new FTPException(r);
+					}
+				}
+			} finally {
+				provider.dispose();
+			}
+			// Change the operation status.
+			synchronized (abortLock) {
+				ongoingDataTransfer = true;
+				aborted = false;
+			}
+			// Upload the stream.
+			long done = 0;
+			byte[] bytes = null;
+			char[] chars = null;
+			ByteBuffer direct = null;
+			FTPBatchingOutputStream batch = null;
+			try {
+				// Skips.
+				inputStream.skip(streamOffset);
+				// Opens the data transfer connection.
+				dataTransferOutputStream = dtConnection.getOutputStream();
+				// Writes are coalesced and flushed at the end of the stream.
+				batch = batchDataTransferOutput(dtConnection,
+						dataTransferOutputStream);
+				dataTransferOutputStream = batch;
+				// MODE Z enabled?
+				if (modezEnabled) {
+					dataTransferOutputStream = new DeflaterOutputStream(dataTransferOutputStream);
+				}
+				// Listeners.
+				if (listener != null) {
+					listener.started();
+				}
+				// Let's do it!
+				if (tp == TYPE_TEXTUAL) {
+					Reader reader = new InputStreamReader(inputStream);
+					Writer writer = new OutputStreamWriter(
+							dataTransferOutputStream, pickCharset());
+					chars = borrowChars();
+					int l;
+					while ((l = reader.read(chars)) != -1) {
+						writer.write(chars, 0, l);
+						done += l;
+						if (listener != null) {
+							listener.transferred(l);
+						}
+						throttle(l, listener);
+					}
+					writer.flush();
+				} else if (tp == TYPE_BINARY) {
+					SocketChannel socketChannel = null;
+					FTPSSLEngineChannel sslChannel = null;
+					if (fileChannel != null && !modezEnabled) {
+						// Null if the connection is encrypted or proxied.
+						socketChannel = dtConnection.getChannel();
+						if (dtConnection instanceof FTPSSLEngineSocket) {
+							sslChannel = ((FTPSSLEngineSocket) dtConnection)
+									.getSSLChannel();
+						}
+					}
+					if (socketChannel != null) {
+						// The file is sent by the kernel, without crossing
+						// the Java heap. The channel position has already
+						// been moved by the skip.
+						long position = fileChannel.position();
+						long size = fileChannel.size();
+						while (position < size) {
+							long max = size - position;
+							if (max > bufferSize) {
+								max = bufferSize;
+							}
+							long l = fileChannel.transferTo(position, max,
+									socketChannel);
+							if (l <= 0) {
+								break;
+							}
+							position += l;
+							done += l;
+							if (listener != null) {
+								listener.transferred((int) l);
+							}
+							throttle(l, listener);
+						}
+					} else if (sslChannel != null) {
+						// The file is read in a direct buffer and encrypted
+						// from there, without crossing the Java heap.
+						direct = borrowDirect();
+						int l;
+						while ((l = fileChannel.read(direct)) != -1) {
+							direct.flip();
+							while (direct.hasRemaining()) {
+								sslChannel.write(direct);
+							}
+							direct.clear();
+							done += l;
+							if (listener != null) {
+								listener.transferred(l);
+							}
+							throttle(l, listener);
+						}
+					} else {
+						bytes = borrowBytes();
+						int l;
+						while ((l = inputStream.read(bytes)) != -1) {
+							dataTransferOutputStream.write(bytes, 0, l);
+							done += l;
+							if (listener != null) {
+								listener.transferred(l);
+							}
+							throttle(l, listener);
+						}
+					}
+				}
+				// Drains what is still batched, so that any error is
+				// reported before the transfer is declared completed.
+				if (modezEnabled) {
+					((DeflaterOutputStream) dataTransferOutputStream).finish();
+				}
+				dataTransferOutputStream.flush();
+			} catch (IOException e) {
+				synchronized (abortLock) {
+					if (aborted) {
+						if (listener != null) {
+							listener.aborted();
+						}
+						throw new FTPAbortedException();
+					} else {
+						if (listener != null) {
+							listener.failed();
+						}
+						throw new FTPDataTransferException(
+								"I/O error in data transfer", e);
+					}
+				}
+			} finally {
+				// Gives back the buffers.
+				returnBuffers(bytes, chars);
+				if (direct != null) {
+					returnDirect(direct);
+				}
+				// Closing stream and data connection.
+				if (dataTransferOutputStream != null) {
+					try {
+						dataTransferOutputStream.close();
+					} catch (Throwable t) {
+						;
+					}
+				}
+				try {
+					dtConnection.close();
+				} catch (Throwable t) {
+					;
+				}
+				// The batch is no longer written, once closed.
+				if (batch != null) {
+					returnBuffers(batch.getBuffer(), null);
+				}
+				// Set to null the instance-level input stream.
+				dataTransferOutputStream = null;
+				// Consume the result reply of the transfer. The remote file
+				// has changed, even if partially: if the reply can't be read,
+				// the path can't be resolved with the server, and the whole
+				// cache is cleared.
+				boolean completed = false;
+				try {
+					completeDataTransfer();
+					completed = true;
+				} finally {
+					if (completed) {
+						invalidateListingCache(fileName);
+					} else if (listingCache != null) {
+						listingCache.clear();
+					}
+				}
+				// Change the operation status.
+				synchronized (abortLock) {
+					ongoingDataTransfer = false;
+					aborted = false;
+				}
+			}
+			if (listener != null) {
+				listener.completed();
+			}
+		}
+	}
+
+	/**
+	 * This method downloads a remote file from the server to a local file.
+	 * 
+	 * Calling this method blocks the current thread until the operation is
+	 * completed. The operation could be interrupted by another thread calling
+	 * abortCurrentDataTransfer(). The method will break with a
+	 * FTPAbortedException.
+	 * 
+	 * @param remoteFileName
+	 *            The name of the file to download.
+	 * @param localFile
+	 *            The local file.
+	 * @throws IllegalStateException
+	 *             If the client is not connected or not authenticated.
+	 * @throws FileNotFoundException
+	 *             If the supplied file cannot be found.
+	 * @throws IOException
+	 *             If an I/O error occurs.
+	 * @throws FTPIllegalReplyException
+	 *             If the server replies in an illegal way.
+	 * @throws FTPException
+	 *             If the operation fails.
+	 * @throws FTPDataTransferException
+	 *             If a I/O occurs in the data transfer connection. If you
+	 *             receive this exception the transfer failed, but the main
+	 *             connection with the remote FTP server is in theory still
+	 *             working.
+	 * @throws FTPAbortedException
+	 *             If operation is aborted by another thread.
+	 * @see FTPClient#abortCurrentDataTransfer(boolean)
+	 */
+	public void download(String remoteFileName, File localFile)
+			throws IllegalStateException, FileNotFoundException, IOException,
+			FTPIllegalReplyException, FTPException, FTPDataTransferException,
+			FTPAbortedException {
+		download(remoteFileName, localFile, 0, null);
+	}
+
+	/**
+	 * This method downloads a remote file from the server to a local file.
+	 * 
+	 * Calling this method blocks the current thread until the operation is
+	 * completed. The operation could be interrupted by another thread calling
+	 * abortCurrentDataTransfer(). The method will break with a
+	 * FTPAbortedException.
+	 * 
+	 * @param remoteFileName
+	 *            The name of the file to download.
+	 * @param localFile
+	 *            The local file.
+	 * @param listener
+	 *            The listener for the operation. Could be null.
+	 * @throws IllegalStateException
+	 *             If the client is not connected or not authenticated.
+	 * @throws FileNotFoundException
+	 *             If the supplied file cannot be found.
+	 * @throws IOException
+	 *             If an I/O error occurs.
+	 * @throws FTPIllegalReplyException
+	 *             If the server replies in an illegal way.
+	 * @throws FTPException
+	 *             If the operation fails.
+	 * @throws FTPDataTransferException
+	 *             If a I/O occurs in the data transfer connection. If you
+	 *             receive this exception the transfer failed, but the main
+	 *             connection with the remote FTP server is in theory still
+	 *             working.
+	 * @throws FTPAbortedException
+	 *             If operation is aborted by another thread.
+	 * @see FTPClient#abortCurrentDataTransfer(boolean)
+	 */
+	public void download(String remoteFileName, File localFile,
+			FTPDataTransferListener listener) throws IllegalStateException,
+			FileNotFoundException, IOException, FTPIllegalReplyException,
+			FTPException, FTPDataTransferException, FTPAbortedException {
+		download(remoteFileName, localFile, 0, listener);
+	}
+
+	/**
+	 * This method resumes a download operation from the remote server to a
+	 * local file.
+	 * 
+	 * Calling this method blocks the current thread until the operation is
+	 * completed. The operation could be interrupted by another thread calling
+	 * abortCurrentDataTransfer(). The method will break with a
+	 * FTPAbortedException.
+	 * 
+	 * @param remoteFileName
+	 *            The name of the file to download.
+	 * @param localFile
+	 *            The local file.
+	 * @param restartAt
+	 *            The restart point (number of bytes already downloaded). Use
+	 *            {@link FTPClient#isResumeSupported()} to check if the server
+	 *            supports resuming of broken data transfers.
+	 * @throws IllegalStateException
+	 *             If the client is not connected or not authenticated.
+	 * @throws FileNotFoundException
+	 *             If the supplied file cannot be found.
+	 * @throws IOException
+	 *             If an I/O error occurs.
+	 * @throws FTPIllegalReplyException
+	 *             If the server replies in an illegal way.
+	 * @throws FTPException
+	 *             If the operation fails.
+	 * @throws FTPDataTransferException
+	 *             If a I/O occurs in the data transfer connection. If you
+	 *             receive this exception the transfer failed, but the main
+	 *             connection with the remote FTP server is in theory still
+	 *             working.
+	 * @throws FTPAbortedException
+	 *             If operation is aborted by another thread.
+	 * @see FTPClient#abortCurrentDataTransfer(boolean)
+	 */
+	public void download(String remoteFileName, File localFile, long restartAt)
+			throws IllegalStateException, FileNotFoundException, IOException,
+			FTPIllegalReplyException, FTPException, FTPDataTransferException,
+			FTPAbortedException {
+		download(remoteFileName, localFile, restartAt, null);
+	}
+
+	/**
+	 * This method resumes a download operation from the remote server to a
+	 * local file.
+	 * 
+	 * Calling this method blocks the current thread until the operation is
+	 * completed. The operation could be interrupted by another thread calling
+	 * abortCurrentDataTransfer(). The method will break with a
+	 * FTPAbortedException.
+	 * 
+	 * @param remoteFileName
+	 *            The name of the file to download.
+	 * @param localFile
+	 *            The local file.
+	 * @param restartAt
+	 *            The restart point (number of bytes already downloaded). Use
+	 *            {@link FTPClient#isResumeSupported()} to check if the server
+	 *            supports resuming of broken data transfers. A longer local
+	 *            file is cut at this point, while a shorter one makes the
+	 *            operation fail with a FTPDataTransferException.
+	 * @param listener
+	 *            The listener for the operation. Could be null.
+	 * @throws IllegalStateException
+	 *             If the client is not connected or not authenticated.
+	 * @throws FileNotFoundException
+	 *             If the supplied file cannot be found.
+	 * @throws IOException
+	 *             If an I/O error occurs.
+	 * @throws FTPIllegalReplyException
+	 *             If the server replies in an illegal way.
+	 * @throws FTPException
+	 *             If the operation fails.
+	 * @throws FTPDataTransferException
+	 *             If a I/O occurs in the data transfer connection. If you
+	 *             receive this exception the transfer failed, but the main
+	 *             connection with the remote FTP server is in theory still
+	 *             working.
+	 * @throws FTPAbortedException
+	 *             If operation is aborted by another thread.
+	 * @see FTPClient#abortCurrentDataTransfer(boolean)
+	 */
+	public void download(String remoteFileName, File localFile, long restartAt,
+			FTPDataTransferListener listener) throws IllegalStateException,
+			FileNotFoundException, IOException, FTPIllegalReplyException,
+			FTPException, FTPDataTransferException, FTPAbortedException {
+		RandomAccessFile file = null;
+		try {
+			file = new RandomAccessFile(localFile, "rw");
+			if (restartAt <= 0) {
+				file.setLength(0);
+			} else if (restartAt > file.length()) {
+				// The data would be written after a hole.
+				throw new IOException("The local file is shorter than "
+						+ restartAt + " bytes");
+			} else {
+				// Drops any stale tail.
+				file.setLength(restartAt);
+			}
+		} catch (IOException e) {
+			if (file != null) {
+				try {
+					file.close();
+				} catch (Throwable t) {
+					;
+				}
+			}
+			throw new FTPDataTransferException(e);
+		}
+		try {
+			download(remoteFileName, file.getChannel(), restartAt, listener);
+		} catch (IllegalStateException e) {
+			throw e;
+		} catch (IOException e) {
+			throw e;
+		} catch (FTPIllegalReplyException e) {
+			throw e;
+		} catch (FTPException e) {
+			throw e;
+		} catch (FTPDataTransferException e) {
+			throw e;
+		} catch (FTPAbortedException e) {
+			throw e;
+		} finally {
+			try {
+				file.close();
+			} catch (Throwable t) {
+				;
+			}
+		}
+	}
+
+	/**
+	 * This method downloads a remote file from the server to a local file,
+	 * splitting it in segments which are transferred in parallel.
+	 * 
+	 * The size of the remote file is asked to the server, then up to
+	 * <em>segments</em> - 1 additional connections are opened with the same
+	 * host, credentials and working directory of this client. Every connection
+	 * retrieves a different range of the file, by issuing a REST command
+	 * followed by a RETR command, and writes it directly at its position in
+	 * the local file. A connection stops reading as soon as its range has been
+	 * received. On high latency links this overcomes the throughput limit of a
+	 * single TCP connection.
+	 * 
+	 * The segmented mode requires a binary transfer, and a server which
+	 * declares the support for the resume of broken transfers (see
+	 * {@link FTPClient#isResumeSupported()}). If these conditions are not met,
+	 * if the file is too small, or if data transfer compression is enabled,
+	 * the method falls back to a plain
+	 * {@link FTPClient#download(String, File, FTPDataTransferListener)} call.
+	 * If some of the additional connections can't be established (i.e. the
+	 * server limits the number of connections per user) the segments are
+	 * shared by the connections available.
+	 * 
+	 * The listener, if any, receives the overall progress of the operation.
+	 * 
+	 * Calling this method blocks the current thread until the operation is
+	 * completed. The operation could be interrupted by another thread calling
+	 * abortCurrentDataTransfer(). The method will break with a
+	 * FTPAbortedException.
+	 * 
+	 * @param remoteFileName
+	 *            The name of the file to download.
+	 * @param localFile
+	 *            The local file.
+	 * @param segments
+	 *            The maximum number of segments (and so of connections) used.
+	 * @param listener
+	 *            The listener for the operation. Could be null.
+	 * @throws IllegalStateException
+	 *             If the client is not connected or not authenticated.
+	 * @throws FileNotFoundException
+	 *             If the supplied file cannot be found.
+	 * @throws IOException
+	 *             If an I/O error occurs.
+	 * @throws FTPIllegalReplyException
+	 *             If the server replies in an illegal way.
+	 * @throws FTPException
+	 *             If the operation fails.
+	 * @throws FTPDataTransferException
+	 *             If a I/O occurs in the data transfer connection. If you
+	 *             receive this exception the transfer failed, but the main
+	 *             connection with the remote FTP server is in theory still
+	 *             working.
+	 * @throws FTPAbortedException
+	 *             If operation is aborted by another thread.
+	 * @see FTPClient#abortCurrentDataTransfer(boolean)
+	 * @since 1.7
+	 */
+	public void downloadSegmented(String remoteFileName, File localFile,
+			int segments, FTPDataTransferListener listener)
+			throws IllegalStateException, FileNotFoundException, IOException,
+			FTPIllegalReplyException, FTPException, FTPDataTransferException,
+			FTPAbortedException {
+		synchronized (lock) {
+			// Is this client connected?
+			if (!connected) {
+				throw new IllegalStateException("Client not connected");
+			}
+			// Is this client authenticated?
+			if (!authenticated) {
+				throw new IllegalStateException("Client not authenticated");
+			}
+			// Can the file be segmented?
+			int tp = type;
+			if (tp == TYPE_AUTO) {
+				tp = detectType(remoteFileName);
+			}
+			boolean segmentable = segments > 1 && tp == TYPE_BINARY
+					&& restSupported
+					&& !(modezSupported && compressionEnabled);
+			long size = -1;
+			if (segmentable) {
+				size = fileSize(remoteFileName);
+				long max = size / MIN_DOWNLOAD_SEGMENT_SIZE;
+				if (max < segments) {
+					segments = (int) max;
+				}
+				segmentable = segments > 1;
+			}
+			if (!segmentable) {
+				download(remoteFileName, localFile, 0, listener);
+				return;
+			}
+			// The additional connections work in the same directory.
+			String workingDirectory = currentDirectory();
+			RandomAccessFile file;
+			try {
+				file = new RandomAccessFile(localFile, "rw");
+			} catch (IOException e) {
+				throw new FTPDataTransferException(e);
+			}
+			SegmentedDownload sd = new SegmentedDownload(remoteFileName,
+					workingDirectory, file.getChannel(), size, segments,
+					listener);
+			synchronized (abortLock) {
+				ongoingSegmentedDownload = sd;
+			}
+			try {
+				file.setLength(size);
+				sd.execute();
+			} finally {
+				synchronized (abortLock) {
+					ongoingSegmentedDownload = null;
+				}
+				try {
+					file.close();
+				} catch (Throwable t) {
+					;
+				}
+			}
+		}
+	}
+
+	/**
+	 * This method resumes a download operation from the remote server.
+	 * 
+	 * Calling this method blocks the current thread until the operation is
+	 * completed. The operation could be interrupted by another thread calling
+	 * abortCurrentDataTransfer(). The method will break with a
+	 * FTPAbortedException.
+	 * 
+	 * @param fileName
+	 *            The name of the remote file.
+	 * @param outputStream
+	 *            The destination stream of data read during the download.
+	 * @param restartAt
+	 *            The restart point (number of bytes already downloaded). Use
+	 *            {@link FTPClient#isResumeSupported()} to check if the server
+	 *            supports resuming of broken data transfers.
+	 * @param listener
+	 *            The listener for the operation. Could be null.
+	 * @throws IllegalStateException
+	 *             If the client is not connected or not authenticated.
+	 * @throws IOException
+	 *             If an I/O error occurs.
+	 * @throws FTPIllegalReplyException
+	 *             If the server replies in an illegal way.
+	 * @throws FTPException
+	 *             If the operation fails.
+	 * @throws FTPDataTransferException
+	 *             If a I/O occurs in the data transfer connection. If you
+	 *             receive this exception the transfer failed, but the main
+	 *             connection with the remote FTP server is in theory still
+	 *             working.
+	 * @throws FTPAbortedException
+	 *             If operation is aborted by another thread.
+	 * @see FTPClient#abortCurrentDataTransfer(boolean)
+	 */
+	public void download(String fileName, OutputStream outputStream,
+			long restartAt, FTPDataTransferListener listener)
+			throws IllegalStateException, IOException,
+			FTPIllegalReplyException, FTPException, FTPDataTransferException,
+			FTPAbortedException {
+		download(fileName, outputStream, null, restartAt, -1, listener);
+	}
+
+	/**
+	 * This method resumes a download operation from the remote server to a
+	 * file channel. The data received is written in the channel starting at
+	 * the restart point, without altering the channel position.
+	 * 
+	 * In binary mode, when the data transfer connection is neither encrypted
+	 * nor compressed and the connector supplies channel-backed sockets (as
+	 * the default {@link DirectConnector} does), the data is moved from the
+	 * socket to the file through {@link FileChannel#transferFrom}, so it never
+	 * lands on the Java heap. Otherwise a plain buffered copy is performed.
+	 * 
+	 * Calling this method blocks the current thread until the operation is
+	 * completed. The operation could be interrupted by another thread calling
+	 * abortCurrentDataTransfer(). The method will break with a
+	 * FTPAbortedException.
+	 * 
+	 * @param fileName
+	 *            The name of the remote file.
+	 * @param fileChannel
+	 *            The destination channel of data read during the download. It
+	 *            must be writable.
+	 * @param restartAt
+	 *            The restart point (number of bytes already downloaded). Use
+	 *            {@link FTPClient#isResumeSupported()} to check if the server
+	 *            supports resuming of broken data transfers.
+	 * @param listener
+	 *            The listener for the operation. Could be null.
+	 * @throws IllegalStateException
+	 *             If the client is not connected or not authenticated.
+	 * @throws IOException
+	 *             If an I/O error occurs.
+	 * @throws FTPIllegalReplyException
+	 *             If the server replies in an illegal way.
+	 * @throws FTPException
+	 *             If the operation fails.
+	 * @throws FTPDataTransferException
+	 *             If a I/O occurs in the data transfer connection. If you
+	 *             receive this exception the transfer failed, but the main
+	 *             connection with the remote FTP server is in theory still
+	 *             working.
+	 * @throws FTPAbortedException
+	 *             If operation is aborted by another thread.
+	 * @see FTPClient#abortCurrentDataTransfer(boolean)
+	 * @since 1.7
+	 */
+	public void download(String fileName, FileChannel fileChannel,
+			long restartAt, FTPDataTransferListener listener)
+			throws IllegalStateException, IOException,
+			FTPIllegalReplyException, FTPException, FTPDataTransferException,
+			FTPAbortedException {
+		download(fileName, null, fileChannel, restartAt, -1, listener);
+	}
+
+	/**
+	 * This method downloads a remote file, or a part of it, from the server.
+	 * The data read is written in the supplied output stream or, if the stream
+	 * is null, in the supplied file channel, starting at the restart point.
+	 * 
+	 * @param fileName
+	 *            The name of the remote file.
+	 * @param outputStream
+	 *            The destination stream of data read during the download. If
+	 *            null, the data is written in fileChannel.
+	 * @param fileChannel
+	 *            The destination channel of data read during the download,
+	 *            used only if outputStream is null. The data is written at
+	 *            the restartAt position, without altering the channel position.
+	 * @param restartAt
+	 *            The restart point (number of bytes already downloaded).
+	 * @param length
+	 *            The number of bytes to read in binary mode. As soon as they
+	 *            have been received the data transfer connection is closed. A
+	 *            negative value means "until the end of the file".
+	 * @param listener
+	 *            The listener for the operation. Could be null.
+	 */
+	private void download(String fileName, OutputStream outputStream,
+			FileChannel fileChannel, long restartAt, long length,
+			FTPDataTransferListener listener) throws IllegalStateException,
+			IOException, FTPIllegalReplyException, FTPException,
+			FTPDataTransferException, FTPAbortedException {
+		synchronized (lock) {
+			// Is this client connected?
+			if (!connected) {
+				throw new IllegalStateException("Client not connected");
+			}
+			// Is this client authenticated?
+			if (!authenticated) {
+				throw new IllegalStateException("Client not authenticated");
+			}
+			// Select the type of contents.
+			int tp = type;
+			if (tp == TYPE_AUTO) {
+				tp = detectType(fileName);
+			}
+			// Prepares the connection for the data transfer.
+			FTPDataTransferConnectionProvider provider = openDataTransferChannel(tp);
+			// REST command (if supported and/or requested).
+			if (restSupported || restartAt > 0) {
+				boolean done = false;
+				try {
+					communication.sendFTPCommand("REST " + restartAt);
+					FTPReply r = communication.readFTPReply();
+					touchAutoNoopTimer();
+					if (r.getCode() != 350 && (r.getCode() != 502 || restartAt > 0)) {
+						throw new FTPException(r);
+					}
+					done = true;
+				} finally {
+					if (!done) {
+						provider.dispose();
+					}
+				}
+			}
+			// Send the RETR command.
+			communication.sendFTPCommand("RETR " + fileName);
+			FTPReply r;
+			Socket dtConnection;
+			try {
+				try {
+					dtConnection = provider.openDataTransferConnection();
+				} finally {
+					r = communication.readFTPReply();
+					touchAutoNoopTimer();
+					if (r.getCode() != 150 && r.getCode() != 125) {
+						throw new FTPException(r);
+					}
+				}
+			} finally {
+				provider.dispose();
+			}
+			// Change the operation status.
+			synchronized (abortLock) {
+				ongoingDataTransfer = true;
+				aborted = false;
+			}
+			// Download the stream.
+			byte[] bytes = null;
+			char[] chars = null;
+			ByteBuffer direct = null;
+			try {
+				// Opens the data transfer connection.
+				dataTransferInputStream = dtConnection.getInputStream();
+				// MODE Z enabled?
+				if (modezEnabled) {
+					dataTransferInputStream = new InflaterInputStream(dataTransferInputStream);
+				}
+				// Listeners.
+				if (listener != null) {
+					listener.started();
+				}
+				// Let's do it!
+				if (tp == TYPE_TEXTUAL) {
+					if (outputStream == null) {
+						fileChannel.position(restartAt);
+						outputStream = Channels.newOutputStream(fileChannel);
+					}
+					Reader reader = new InputStreamReader(
+							dataTransferInputStream, pickCharset());
+					Writer writer = new OutputStreamWriter(outputStream);
+					chars = borrowChars();
+					int l;
+					while ((l = reader.read(chars, 0, chars.length)) != -1) {
+						writer.write(chars, 0, l);
+						if (listener != null) {
+							listener.transferred(l);
+						}
+						throttle(l, listener);
+					}
+					writer.flush();
+				} else if (tp == TYPE_BINARY) {
+					long position = restartAt;
+					long remaining = length;
+					SocketChannel socketChannel = null;
+					FTPSSLEngineChannel sslChannel = null;
+					if (outputStream == null && !modezEnabled
+							&& restartAt <= fileChannel.size()) {
+						// Null if the connection is encrypted or proxied.
+						// transferFrom() cannot write past the end of the
+						// file, so gaps are left to the buffered copy.
+						socketChannel = dtConnection.getChannel();
+					}
+					if (outputStream == null && !modezEnabled
+							&& dtConnection instanceof FTPSSLEngineSocket) {
+						sslChannel = ((FTPSSLEngineSocket) dtConnection)
+								.getSSLChannel();
+					}
+					if (socketChannel != null) {
+						// The data goes from the socket to the file without
+						// crossing the Java heap.
+						while (remaining != 0) {
+							long max = bufferSize;
+							if (remaining > 0 && remaining < max) {
+								max = remaining;
+							}
+							long l = fileChannel.transferFrom(socketChannel,
+									position, max);
+							if (l <= 0) {
+								break;
+							}
+							position += l;
+							if (remaining > 0) {
+								remaining -= l;
+							}
+							if (listener != null) {
+								listener.transferred((int) l);
+							}
+							throttle(l, listener);
+						}
+					} else if (sslChannel != null) {
+						// The data is decrypted in a direct buffer and
+						// written to the file from there, without crossing
+						// the Java heap.
+						direct = borrowDirect();
+						while (remaining != 0) {
+							direct.clear();
+							if (remaining > 0 && remaining < direct.capacity()) {
+								direct.limit((int) remaining);
+							}
+							int l = sslChannel.read(direct);
+							if (l == -1) {
+								break;
+							}
+							direct.flip();
+							while (direct.hasRemaining()) {
+								position += fileChannel.write(direct, position);
+							}
+							if (remaining > 0) {
+								remaining -= l;
+							}
+							if (listener != null) {
+								listener.transferred(l);
+							}
+							throttle(l, listener);
+						}
+					} else {
+						bytes = borrowBytes();
+						ByteBuffer wrapper = null;
+						if (outputStream == null) {
+							wrapper = ByteBuffer.wrap(bytes);
+						}
+						while (remaining != 0) {
+							int max = bytes.length;
+							if (remaining > 0 && remaining < max) {
+								max = (int) remaining;
+							}
+							int l = dataTransferInputStream.read(bytes, 0, max);
+							if (l == -1) {
+								break;
+							}
+							if (wrapper != null) {
+								wrapper.clear();
+								wrapper.limit(l);
+								while (wrapper.hasRemaining()) {
+									position += fileChannel.write(wrapper,
+											position);
+								}
+							} else {
+								outputStream.write(bytes, 0, l);
+							}
+							if (remaining > 0) {
+								remaining -= l;
+							}
+							if (listener != null) {
+								listener.transferred(l);
+							}
+							throttle(l, listener);
+						}
+					}
+					if (remaining > 0) {
+						throw new EOFException("Data transfer connection "
+								+ "closed " + remaining + " bytes before "
+								+ "the end of the requested range");
+					}
+				}
+			} catch (IOException e) {
+				synchronized (abortLock) {
+					if (aborted) {
+						if (listener != null) {
+							listener.aborted();
+						}
+						throw new FTPAbortedException();
+					} else {
+						if (listener != null) {
+							listener.failed();
+						}
+						throw new FTPDataTransferException(
+								"I/O error in data transfer", e);
+					}
+				}
+			} finally {
+				// Gives back the buffers.
+				returnBuffers(bytes, chars);
+				if (direct != null) {
+					returnDirect(direct);
+				}
+				// Closing stream and data connection.
+				if (dataTransferInputStream != null) {
+					try {
+						dataTransferInputStream.close();
+					} catch (Throwable t) {
+						;
+					}
+				}
+				try {
+					dtConnection.close();
+				} catch (Throwable t) {
+					;
+				}
+				// Set to null the instance-level input stream.
+				dataTransferInputStream = null;
+				// Consume the result reply of the transfer.
+				completeDataTransfer();
+				// Change the operation status.
+				synchronized (abortLock) {
+					ongoingDataTransfer = false;
+					aborted = false;
+				}
+			}
+			if (listener != null) {
+				listener.completed();
+			}
+		}
+	}
+
+	/**
+	 * This method detects the type for a file transfer.
+	 */
+	private int detectType(String fileName) throws IOException,
+			FTPIllegalReplyException, FTPException {
+		int start = fileName.lastIndexOf('.') + 1;
+		int stop = fileName.length();
+		if (start > 0 && start < stop - 1) {
+			String ext = fileName.substring(start, stop);
+			ext = ext.toLowerCase();
+			if (textualExtensionRecognizer.isTextualExt(ext)) {
+				return TYPE_TEXTUAL;
+			} else {
+				return TYPE_BINARY;
+			}
+		} else {
+			return TYPE_BINARY;
+		}
+	}
+
+	/**
+	 * This method opens a data transfer channel, for a transfer of the given
+	 * type. The TYPE command is sent only if the type has changed.
+	 */
+	private FTPDataTransferConnectionProvider openDataTransferChannel(int tp)
+			throws IOException, FTPIllegalReplyException, FTPException,
+			FTPDataTransferException {
+		String typeCommand = tp == TYPE_TEXTUAL ? "TYPE A" : "TYPE I";
+		if (typeCommand.equals(currentTypeCommand)) {
+			typeCommand = null;
+		}
+		// MODE Z?
+		if (modezSupported && compressionEnabled) {
+			if (!modezEnabled) {
+				// Sends the MODE Z command.
+				communication.sendFTPCommand("MODE Z");
+				FTPReply r = communication.readFTPReply();
+				touchAutoNoopTimer();
+				if (r.isSuccessCode()) {
+					modezEnabled = true;
+				}
+			}
+		} else {
+			if (modezEnabled) {
+				// Sends the MODE S command.
+				communication.sendFTPCommand("MODE S");
+				FTPReply r = communication.readFTPReply();
+				touchAutoNoopTimer();
+				if (r.isSuccessCode()) {
+					modezEnabled = false;
+				}
+			}
+		}
+		// Prepared by the previous transfer?
+		PassiveDataTransferChannel prepared = preparedDataTransferChannel;
+		preparedDataTransferChannel = null;
+		if (prepared != null) {
+			if (passive && dataTransferPipeliningEnabled
+					&& System.currentTimeMillis() - prepared.time < PREPARED_CHANNEL_TIMEOUT) {
+				boolean done = false;
+				try {
+					sendTypeCommand(typeCommand);
+					done = true;
+				} finally {
+					if (!done) {
+						prepared.release();
+					}
+				}
+				return prepared;
+			}
+			prepared.dispose();
+		}
+		// Pipelines the TYPE and passive commands?
+		String passiveCommand = passive ? pickPassiveCommand() : null;
+		if (typeCommand != null && passiveCommand != null
+				&& dataTransferPipeliningEnabled) {
+			communication.sendFTPCommands(new String[] { typeCommand,
+					passiveCommand });
+			FTPReply r = communication.readFTPReply();
+			FTPReply r2 = communication.readFTPReply();
+			touchAutoNoopTimer();
+			if (!r.isSuccessCode()) {
+				currentTypeCommand = null;
+				if (r2.isSuccessCode()) {
+					// The server is listening for a connection that won't
+					// be used.
+					try {
+						openPassiveDataTransferChannel(passiveCommand, r2)
+								.release();
+					} catch (Throwable t) {
+						;
+					}
+				}
+				throw new FTPException(r);
+			}
+			currentTypeCommand = typeCommand;
+			return openPassiveDataTransferChannel(passiveCommand, r2);
+		}
+		sendTypeCommand(typeCommand);
+		// Active or passive?
+		if (passive) {
+			return openPassiveDataTransferChannel();
+		} else {
+			return openActiveDataTransferChannel();
+		}
+	}
+
+	/**
+	 * Sends a TYPE command, and keeps track of the type accepted by the
+	 * server.
+	 * 
+	 * @param typeCommand
+	 *            The TYPE command, or null if the type hasn't changed.
+	 */
+	private void sendTypeCommand(String typeCommand) throws IOException,
+			FTPIllegalReplyException, FTPException {
+		if (typeCommand == null) {
+			return;
+		}
+		communication.sendFTPCommand(typeCommand);
+		FTPReply r = communication.readFTPReply();
+		touchAutoNoopTimer();
+		if (!r.isSuccessCode()) {
+			currentTypeCommand = null;
+			throw new FTPException(r);
+		}
+		currentTypeCommand = typeCommand;
+	}
+
+	/**
+	 * Consumes the result reply of a data transfer. If the data transfers are
+	 * pipelined, the passive command of the next transfer is sent before, and
+	 * its channel is prepared.
+	 */
+	private void completeDataTransfer() throws IOException,
+			FTPIllegalReplyException {
+		String passiveCommand = null;
+		if (passive && dataTransferPipeliningEnabled) {
+			synchronized (abortLock) {
+				if (!aborted) {
+					passiveCommand = pickPassiveCommand();
+					// The data transfer connection is closed, and an ABOR
+					// command would mix its replies with the pipelined ones.
+					ongoingDataTransfer = false;
+				}
+			}
+		}
+		if (passiveCommand == null) {
+			communication.readFTPReply();
+			return;
+		}
+		communication.sendFTPCommand(passiveCommand);
+		communication.readFTPReply();
+		FTPReply r = communication.readFTPReply();
+		touchAutoNoopTimer();
+		try {
+			PassiveDataTransferChannel channel = openPassiveDataTransferChannel(
+					passiveCommand, r);
+			channel.connectAhead();
+			preparedDataTransferChannel = channel;
+		} catch (FTPException e) {
+			// The next transfer will try again.
+			;
+		} catch (FTPIllegalReplyException e) {
+			// The next transfer will try again.
+			;
+		}
+	}
+
+	/**
+	 * Closes the passive data transfer channel prepared by the last transfer,
+	 * if any.
+	 */
+	private void disposePreparedDataTransferChannel() {
+		if (preparedDataTransferChannel != null) {
+			preparedDataTransferChannel.dispose();
+			preparedDataTransferChannel = null;
+		}
+	}
+
+	/**
+	 * This method opens a data transfer channel in active mode.
+	 */
+	private FTPDataTransferConnectionProvider openActiveDataTransferChannel()
+			throws IOException, FTPIllegalReplyException, FTPException,
+			FTPDataTransferException {
+		// Create a FTPDataTransferServer object.
+		final String remoteHost = host;
+		FTPDataTransferServer server = new FTPDataTransferServer() {
+			public Socket openDataTransferConnection()
+					throws FTPDataTransferException {
+				Socket socket = super.openDataTransferConnection();
+				if (dataChannelEncrypted) {
+					try {
+						socket = dataTransferSSL(socket, remoteHost, socket
+								.getPort());
+					} catch (IOException e) {
+						try {
+							socket.close();
+						} catch (Throwable t) {
+						}
+						throw new FTPDataTransferException(e);
+					}
+				}
+				return socket;
+			}
+		};
+		int port = server.getPort();
+		int p1 = port >>> 8;
+		int p2 = port & 0xff;
+		InetAddress localAddress = pickLocalAddress();
+		byte[] addr = localAddress.getAddress();
+		FTPReply r = null;
+		if (extendedDataChannelEnabled && !eprtRefused) {
+			// Send the EPRT command.
+			String localHost = localAddress.getHostAddress();
+			int scope = localHost.indexOf('%');
+			if (scope != -1) {
+				localHost = localHost.substring(0, scope);
+			}
+			int family = addr.length == 4 ? 1 : 2;
+			communication.sendFTPCommand("EPRT |" + family + "|" + localHost
+					+ "|" + port + "|");
+			r = communication.readFTPReply();
+			touchAutoNoopTimer();
+			if (r.getCode() >= 500 && addr.length == 4) {
+				// Not supported, fall back to PORT.
+				eprtRefused = true;
+				r = null;
+			}
+		}
+		if (r == null) {
+			if (addr.length != 4) {
+				server.dispose();
+				throw new FTPException(FTPCodes.SYNTAX_ERROR_IN_PARAMETERS,
+						"PORT can't announce the IPv6 address "
+								+ localAddress.getHostAddress());
+			}
+			// Send the port command.
+			communication.sendFTPCommand("PORT " + (addr[0] & 0xff) + ","
+					+ (addr[1] & 0xff) + "," + (addr[2] & 0xff) + ","
+					+ (addr[3] & 0xff) + "," + p1 + "," + p2);
+			r = communication.readFTPReply();
+			touchAutoNoopTimer();
+		}
+		if (!r.isSuccessCode()) {
+			// Disposes.
+			server.dispose();
+			// Closes the already open connection (if any).
+			try {
+				Socket aux = server.openDataTransferConnection();
+				aux.close();
+			} catch (Throwable t) {
+				;
+			}
+			// Throws the exception.
+			throw new FTPException(r);
+		}
+		return server;
+	}
+
+	/**
+	 * This method opens a data transfer channel in passive mode.
+	 */
+	private FTPDataTransferConnectionProvider openPassiveDataTransferChannel()
+			throws IOException, FTPIllegalReplyException, FTPException,
+			FTPDataTransferException {
+		if (extendedDataChannelEnabled && !epsvRefused && epsvAllEnabled
+				&& !epsvAllSent) {
+			epsvAllSent = true;
+			communication.sendFTPCommand("EPSV ALL");
+			FTPReply r = communication.readFTPReply();
+			touchAutoNoopTimer();
+			epsvAll = r.isSuccessCode();
+		}
+		// Send the EPSV or PASV command.
+		String command = pickPassiveCommand();
+		communication.sendFTPCommand(command);
+		FTPReply r = communication.readFTPReply();
+		touchAutoNoopTimer();
+		return openPassiveDataTransferChannel(command, r);
+	}
+
+	/**
+	 * Returns the command asking for a passive data transfer channel, or null
+	 * if the EPSV ALL command has still to be sent.
+	 * 
+	 * @return EPSV, PASV or null.
+	 */
+	private String pickPassiveCommand() {
+		if (extendedDataChannelEnabled && !epsvRefused) {
+			if (epsvAllEnabled && !epsvAllSent) {
+				return null;
+			}
+			return "EPSV";
+		}
+		return "PASV";
+	}
+
+	/**
+	 * Builds a passive data transfer channel from the reply to an EPSV or a
+	 * PASV command. If the server refuses EPSV, the client falls back to PASV.
+	 * 
+	 * @param command
+	 *            The command, EPSV or PASV.
+	 * @param r
+	 *            The reply.
+	 * @return The data transfer connection provider.
+	 */
+	private PassiveDataTransferChannel openPassiveDataTransferChannel(
+			String command, FTPReply r) throws IOException,
+			FTPIllegalReplyException, FTPException {
+		// Extended passive mode?
+		if (command.equals("EPSV")) {
+			if (r.isSuccessCode()) {
+				// The data transfer connection goes to the host of the
+				// communication channel.
+				return new PassiveDataTransferChannel(pickRemoteAddress(),
+						parseEPSVReply(r));
+			} else if (r.getCode() < 500 || epsvAll) {
+				throw new FTPException(r);
+			}
+			// Not supported, fall back to PASV.
+			epsvRefused = true;
+			communication.sendFTPCommand("PASV");
+			r = communication.readFTPReply();
+			touchAutoNoopTimer();
+		}
+		// Reply to the PASV command.
+		if (!r.isSuccessCode()) {
+			throw new FTPException(r);
+		}
+		// Use a regexp to extract the remote address and port.
+		String addressAndPort = null;
+		String[] messages = r.getMessages();
+		for (int i = 0; i < messages.length; i++) {
+			Matcher m = PASV_PATTERN.matcher(messages[i]);
+			if (m.find()) {
+				int start = m.start();
+				int end = m.end();
+				addressAndPort = messages[i].substring(start, end);
+				break;
+			}
+		}
+		if (addressAndPort == null) {
+			// The remote server has not sent the coordinates for the
+			// data transfer connection.
+			throw new FTPIllegalReplyException();
+		}
+		// Parse the string extracted from the reply.
+		StringTokenizer st = new StringTokenizer(addressAndPort, ",");
+		int b1 = Integer.parseInt(st.nextToken());
+		int b2 = Integer.parseInt(st.nextToken());
+		int b3 = Integer.parseInt(st.nextToken());
+		int b4 = Integer.parseInt(st.nextToken());
+		int p1 = Integer.parseInt(st.nextToken());
+		int p2 = Integer.parseInt(st.nextToken());
+		InetAddress remoteAddress;
+		// Ignore address?
+		String useSuggestedAddress = System.getProperty(FTPKeys.PASSIVE_DT_USE_SUGGESTED_ADDRESS);
+		if ("true".equalsIgnoreCase(useSuggestedAddress) || "yes".equalsIgnoreCase(useSuggestedAddress)
+				|| "1".equals(useSuggestedAddress)) {
+			remoteAddress = InetAddress.getByAddress(new byte[] { (byte) b1, (byte) b2, (byte) b3, (byte) b4 });
+		} else {
+			remoteAddress = pickRemoteAddress();
+		}
+		return new PassiveDataTransferChannel(remoteAddress, (p1 << 8) | p2);
+	}
+
+	/**
+	 * Extracts the port announced in the reply to an EPSV command, which is
+	 * in the form "(|||port|)", where the pipe can be any delimiter.
+	 * 
+	 * @param r
+	 *            The reply.
+	 * @return The port.
+	 * @throws FTPIllegalReplyException
+	 *             If the reply doesn't contain a valid port.
+	 */
+	private int parseEPSVReply(FTPReply r) throws FTPIllegalReplyException {
+		String[] messages = r.getMessages();
+		for (int i = 0; i < messages.length; i++) {
+			String message = messages[i];
+			int start = message.indexOf('(');
+			int end = message.indexOf(')', start + 1);
+			if (start == -1 || end - start < 6) {
+				continue;
+			}
+			char d = message.charAt(start + 1);
+			if (message.charAt(start + 2) != d
+					|| message.charAt(start + 3) != d
+					|| message.charAt(end - 1) != d) {
+				continue;
+			}
+			int port;
+			try {
+				port = Integer.parseInt(message.substring(start + 4, end - 1));
+			} catch (NumberFormatException e) {
+				continue;
+			}
+			if (port > 0 && port <= 0xffff) {
+				return port;
+			}
+		}
+		// The remote server has not sent the port for the data transfer
+		// connection.
+		throw new FTPIllegalReplyException();
+	}
+
+	/**
+	 * Returns the cached address of the remote host, resolving it again if it
+	 * is missing or expired. If the new resolution fails, the expired address
+	 * is returned.
+	 * 
+	 * @return The address of the remote host.
+	 * @throws IOException
+	 *             If the host name can't be resolved, and there isn't any
+	 *             previous address.
+	 */
+	private InetAddress pickRemoteAddress() throws IOException {
+		long now = System.currentTimeMillis();
+		if (remoteHostAddress == null || remoteHostAddressExpired
+				|| (hostAddressCacheTimeout > 0
+						&& now - remoteHostAddressTime >= hostAddressCacheTimeout)) {
+			try {
+				remoteHostAddress = InetAddress.getByName(host);
+			} catch (UnknownHostException e) {
+				if (remoteHostAddress == null) {
+					throw e;
+				}
+			}
+			remoteHostAddressTime = now;
+			remoteHostAddressExpired = false;
+		}
+		return remoteHostAddress;
+	}
+
+	/**
+	 * Resolves the address of the remote host, while connecting. A direct
+	 * connection is already connected to the right address, so no lookup is
+	 * done. Otherwise the host name is resolved, unless the client can't do
+	 * it (i.e. it is resolved by a proxy): in this case null is returned, and
+	 * the resolution is tried again by the first passive data transfer.
+	 * 
+	 * @param connection
+	 *            The connection of the communication channel.
+	 * @param host
+	 *            The remote host name.
+	 * @return The address of the remote host, or null.
+	 */
+	private InetAddress resolveHostAddress(Socket connection, String host) {
+		if (connector instanceof DirectConnector) {
+			InetAddress address = connection.getInetAddress();
+			if (address != null) {
+				return address;
+			}
+		}
+		try {
+			return InetAddress.getByName(host);
+		} catch (IOException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * If there's any ongoing data transfer operation, this method aborts it.
+	 * 
+	 * @param sendAborCommand
+	 *            If true the client will negotiate the abort procedure with the
+	 *            server, through the standard FTP ABOR command. Otherwise the
+	 *            open data transfer connection will be closed without any
+	 *            advise has sent to the server.
+	 * @throws IOException
+	 *             If the ABOR command cannot be sent due to any I/O error. This
+	 *             could happen only if force is false.
+	 * @throws FTPIllegalReplyException
+	 *             If the server reply to the ABOR command is illegal. This
+	 *             could happen only if force is false.
+	 */
+	public void abortCurrentDataTransfer(boolean sendAborCommand)
+			throws IOException, FTPIllegalReplyException {
+		SegmentedDownload sd;
+		synchronized (abortLock) {
+			sd = ongoingSegmentedDownload;
+		}
+		if (sd != null) {
+			sd.abort();
+		}
+		abortOwnDataTransfer(sendAborCommand);
+	}
+
+	/**
+	 * Aborts the ongoing data transfer of this client, if any, ignoring any
+	 * segmented download.
+	 * 
+	 * @param sendAborCommand
+	 *            If true the ABOR command is sent to the server.
+	 */
+	private void abortOwnDataTransfer(boolean sendAborCommand)
+			throws IOException, FTPIllegalReplyException {
+		synchronized (abortLock) {
+			if (ongoingDataTransfer && !aborted) {
+				if (sendAborCommand) {
+					communication.sendFTPCommand("ABOR");
+					communication.readFTPReply();
+					touchAutoNoopTimer();
+				}
+				if (dataTransferInputStream != null) {
+					try {
+						dataTransferInputStream.close();
+					} catch (Throwable t) {
+						;
+					}
+				}
+				if (dataTransferOutputStream != null) {
+					try {
+						dataTransferOutputStream.close();
+					} catch (Throwable t) {
+						;
+					}
+				}
+				aborted = true;
+			}
+		}
+	}
+
+	/**
+	 * Returns the parser detected for the connected server in another session,
+	 * if it is among the parsers of this client. The system type is asked to
+	 * the server the first time.
+	 * 
+	 * @return The parser, or null if no parser has been detected for the
+	 *         server yet.
+	 * @throws IOException
+	 *             If an I/O error occurs.
+	 * @throws FTPIllegalReplyException
+	 *             If the server replies in an illegal way.
+	 */
+	private FTPListParser lookupListParser() throws IOException,
+			FTPIllegalReplyException {
+		if (systemType == null) {
+			communication.sendFTPCommand("SYST");
+			FTPReply r = communication.readFTPReply();
+			touchAutoNoopTimer();
+			StringBuffer buffer = new StringBuffer();
+			if (r.isSuccessCode()) {
+				String[] messages = r.getMessages();
+				for (int i = 0; i < messages.length; i++) {
+					if (i > 0) {
+						buffer.append(' ');
+					}
+					buffer.append(messages[i]);
+				}
+			}
+			systemType = buffer.toString();
+		}
+		Class parserClass = FTPListParserCache.get(listParserCacheKey());
+		if (parserClass != null) {
+			for (Iterator i = listParsers.iterator(); i.hasNext();) {
+				FTPListParser aux = (FTPListParser) i.next();
+				if (aux.getClass() == parserClass) {
+					return aux;
+				}
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Returns the key of the connected server in the list parsers cache.
+	 * 
+	 * @return The key of the connected server.
+	 */
+	private String listParserCacheKey() {
+		return host + ":" + port + " " + systemType;
+	}
+
+	/**
+	 * Returns the key of the connected server and user in the listing cache.
+	 * 
+	 * @return The key of the connected server and user.
+	 */
+	private String listingCacheServer() {
+		return host + ":" + port + " " + username;
+	}
+
+	/**
+	 * Copies a list of files, so the entries kept by the listing cache are
+	 * never shared with the callers, which could change them.
+	 * 
+	 * @param files
+	 *            The files.
+	 * @return The copies.
+	 */
+	private static FTPFile[] copyFiles(FTPFile[] files) {
+		FTPFile[] ret = new FTPFile[files.length];
+		for (int i = 0; i < files.length; i++) {
+			FTPFile file = files[i];
+			FTPFile copy = new FTPFile();
+			copy.setName(file.getName());
+			copy.setLink(file.getLink());
+			copy.setType(file.getType());
+			copy.setSize(file.getSize());
+			Date modifiedDate = file.getModifiedDate();
+			if (modifiedDate != null) {
+				copy.setModifiedDate(new Date(modifiedDate.getTime()));
+			}
+			ret[i] = copy;
+		}
+		return ret;
+	}
+
+	/**
+	 * Resolves a remote path for the listing cache. The current working
+	 * directory is asked to the server if the path is relative and the
+	 * directory is not known yet.
+	 * 
+	 * @param path
+	 *            The path, absolute or relative to the current working
+	 *            directory. Could be null, meaning the current working
+	 *            directory.
+	 * @return The absolute path.
+	 * @throws IOException
+	 *             If an I/O error occurs.
+	 * @throws FTPIllegalReplyException
+	 *             If the server replies in an illegal way.
+	 * @throws FTPException
+	 *             If the server refuses to tell the current working
+	 *             directory.
+	 */
+	private String listingCachePath(String path) throws IOException,
+			FTPIllegalReplyException, FTPException {
+		if (path != null && path.startsWith("/")) {
+			return FTPListingCache.resolve("/", path);
+		}
+		if (workingDirectory == null) {
+			currentDirectory();
+		}
+		return FTPListingCache.resolve(workingDirectory, path);
+	}
+
+	/**
+	 * Invalidates the entries of a changed remote path in the listing cache,
+	 * if any. If the path can't be resolved the whole cache is cleared.
+	 * 
+	 * @param path
+	 *            The changed path, absolute or relative to the current working
+	 *            directory.
+	 */
+	private void invalidateListingCache(String path) {
+		if (listingCache != null) {
+			try {
+				listingCache.invalidate(listingCacheServer(),
+						listingCachePath(path));
+			} catch (Throwable t) {
+				listingCache.clear();
+			}
+		}
+	}
+
+	/**
+	 * Searches a parser for the lines of a LIST response among the registered
+	 * ones, and parses the lines with it. The parsers are first tried on the
+	 * first lines only, so the ones which can't handle the list fail fast.
+	 * The detected parser is remembered for the rest of the session and, if
+	 * the list is not empty, for the next sessions with the same server.
+	 * 
+	 * @param lines
+	 *            The lines.
+	 * @return The parsed entries, or null if no parser can handle the lines.
+	 */
+	private FTPFile[] detectListParser(String[] lines) {
+		int sampleSize = Math.min(lines.length, LIST_DETECTION_SAMPLE);
+		if (sampleSize > 0) {
+			String[] sample = new String[sampleSize];
+			System.arraycopy(lines, 0, sample, 0, sampleSize);
+			for (Iterator i = listParsers.iterator(); i.hasNext();) {
+				FTPListParser aux = (FTPListParser) i.next();
+				try {
+					if (aux.parse(sample) == null) {
+						continue;
+					}
+					FTPFile[] ret = parseList(aux, lines);
+					if (ret == null) {
+						continue;
+					}
+					parser = aux;
+					FTPListParserCache.put(listParserCacheKey(), aux.getClass());
+					return ret;
+				} catch (FTPListParseException e) {
+					// Let's try the next one.
+					continue;
+				}
+			}
+		}
+		// Try to parse the whole list with every parser available.
+		for (Iterator i = listParsers.iterator(); i.hasNext();) {
+			FTPListParser aux = (FTPListParser) i.next();
+			try {
+				FTPFile[] ret = parseList(aux, lines);
+				if (ret != null) {
+					parser = aux;
+					if (lines.length > 0) {
+						FTPListParserCache.put(listParserCacheKey(), aux
+								.getClass());
+					}
+					return ret;
+				}
+			} catch (FTPListParseException e) {
+				// Let's try the next one.
+				continue;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Parses the lines of a LIST or MLSD response with the given parser, in
+	 * parallel if a list parsing pool is set and the lines are enough.
+	 * 
+	 * @param parser
+	 *            The parser.
+	 * @param lines
+	 *            The lines.
+	 * @return The parsed entries.
+	 * @throws FTPListParseException
+	 *             If the parser cannot handle the lines.
+	 */
+	private FTPFile[] parseList(FTPListParser parser, String[] lines)
+			throws FTPListParseException {
+		if (listParsingPool != null && lines.length >= parallelListThreshold
+				&& parser instanceof FTPLineListParser) {
+			int chunkSize = Math.max(MIN_LIST_PARSE_CHUNK, lines.length
+					/ (listParsingPool.getParallelism() * 4));
+			return FTPListParseTask.parse(listParsingPool,
+					(FTPLineListParser) parser, lines, chunkSize);
+		} else {
+			return parser.parse(lines);
+		}
+	}
+
+	/**
+	 * Parses a single line of a LIST or MLSD response with the given parser.
+	 * 
+	 * @param parser
+	 *            The parser.
+	 * @param line
+	 *            The line.
+	 * @return The entries represented by the line. Could be empty.
+	 * @throws FTPListParseException
+	 *             If the parser cannot handle the line.
+	 */
+	private FTPFile[] parseListLine(FTPListParser parser, String line)
+			throws FTPListParseException {
+		if (parser instanceof FTPLineListParser) {
+			FTPFile file = ((FTPLineListParser) parser).parseLine(line);
+			if (file == null) {
+				return new FTPFile[0];
+			} else {
+				return new FTPFile[] { file };
+			}
+		} else {
+			FTPFile[] ret = parser.parse(new String[] { line });
+			if (ret == null) {
+				throw new FTPListParseException();
+			}
+			return ret;
+		}
+	}
+
+	/**
+	 * Returns the name of the charset that should be used in textual
+	 * transmissions.
+	 * 
+	 * @return The name of the charset that should be used in textual
+	 *         transmissions.
+	 */
+	private String pickCharset() {
+		if (charset != null) {
+			return charset;
+		} else if (utf8Supported) {
+			return "UTF-8";
+		} else {
+			return System.getProperty("file.encoding");
+		}
+	}
+
+	/**
+	 * Picks the local address for an active data transfer operation.
+	 * 
+	 * @return The local address.
+	 * @throws IOException
+	 *             If an unexpected I/O error occurs while trying to resolve the
+	 *             local address.
+	 */
+	private InetAddress pickLocalAddress() throws IOException {
+		// Forced address?
+		int[] forced = pickForcedLocalAddress();
+		if (forced != null) {
+			return InetAddress.getByAddress(new byte[] { (byte) forced[0],
+					(byte) forced[1], (byte) forced[2], (byte) forced[3] });
+		}
+		// Auto-detect.
+		return pickAutoDetectedLocalAddress();
+	}
+
+	/**
+	 * If a local address for active data transfers has been supplied through
+	 * the {@link FTPKeys#ACTIVE_DT_HOST_ADDRESS}, it returns it as a 4 elements
+	 * integer array; otherwise it returns null.
+	 * 
+	 * @return The forced local address, or null.
+	 */
+	private int[] pickForcedLocalAddress() {
+		int[] ret = null;
+		String aux = System.getProperty(FTPKeys.ACTIVE_DT_HOST_ADDRESS);
+		if (aux != null) {
+			boolean valid = false;
+			StringTokenizer st = new StringTokenizer(aux, ".");
+			if (st.countTokens() == 4) {
+				valid = true;
+				int[] arr = new int[4];
+				for (int i = 0; i < 4; i++) {
+					String tk = st.nextToken();
+					try {
+						arr[i] = Integer.parseInt(tk);
+					} catch (NumberFormatException e) {
+						arr[i] = -1;
+					}
+					if (arr[i] < 0 || arr[i] > 255) {
+						valid = false;
+						break;
+					}
+				}
+				if (valid) {
+					ret = arr;
+				}
+			}
+			if (!valid) {
+				// warning to the developer
+				System.err.println("WARNING: invalid value \"" + aux
+						+ "\" for the " + FTPKeys.ACTIVE_DT_HOST_ADDRESS
+						+ " system property. The value should "
+						+ "be in the x.x.x.x form.");
+			}
+		}
+		return ret;
+	}
+
+	/**
+	 * Auto-detects the local network address. If the communication channel
+	 * runs on IPv6, its local address is returned, since the server couldn't
+	 * reach an IPv4 one.
+	 * 
+	 * @return The detected local address.
+	 * @throws IOException
+	 *             If an unexpected I/O error occurs while trying to resolve the
+	 *             local address.
+	 */
+	private InetAddress pickAutoDetectedLocalAddress() throws IOException {
+		InetAddress addressObj = communication.getLocalAddress();
+		if (addressObj != null && addressObj.getAddress().length != 4) {
+			return addressObj;
+		}
+		return InetAddress.getLocalHost();
+	}
+
+	public String toString() {
+		synchronized (lock) {
+			StringBuffer buffer = new StringBuffer();
+			buffer.append(getClass().getName());
+			buffer.append(" [connected=");
+			buffer.append(connected);
+			if (connected) {
+				buffer.append(", host=");
+				buffer.append(host);
+				buffer.append(", port=");
+				buffer.append(port);
+			}
+			buffer.append(", connector=");
+			buffer.append(connector);
+			buffer.append(", security=");
+			switch (security) {
+			case SECURITY_FTP:
+				buffer.append("SECURITY_FTP");
+				break;
+			case SECURITY_FTPS:
+				buffer.append("SECURITY_FTPS");
+				break;
+			case SECURITY_FTPES:
+				buffer.append("SECURITY_FTPES");
+				break;
+			}
+			buffer.append(", authenticated=");
+			buffer.append(authenticated);
+			if (authenticated) {
+				buffer.append(", username=");
+				buffer.append(username);
+				buffer.append(", password=");
+				StringBuffer buffer2 = new StringBuffer();
+				for (int i = 0; i < password.length(); i++) {
+					buffer2.append('*');
+				}
+				buffer.append(buffer2);
+				buffer.append(", restSupported=");
+				buffer.append(restSupported);
+				buffer.append(", utf8supported=");
+				buffer.append(utf8Supported);
+				buffer.append(", mlsdSupported=");
+				buffer.append(mlsdSupported);
+				buffer.append(", mode=modezSupported");
+				buffer.append(modezSupported);
+				buffer.append(", mode=modezEnabled");
+				buffer.append(modezEnabled);
+			}
+			buffer.append(", transfer mode=");
+			buffer.append(passive ? "passive" : "active");
+			buffer.append(", transfer type=");
+			switch (type) {
+			case TYPE_AUTO:
+				buffer.append("TYPE_AUTO");
+				break;
+			case TYPE_BINARY:
+				buffer.append("TYPE_BINARY");
+				break;
+			case TYPE_TEXTUAL:
+				buffer.append("TYPE_TEXTUAL");
+				break;
+			}
+			buffer.append(", textualExtensionRecognizer=");
+			buffer.append(textualExtensionRecognizer);
+			FTPListParser[] listParsers = getListParsers();
+			if (listParsers.length > 0) {
+				buffer.append(", listParsers=");
+				for (int i = 0; i < listParsers.length; i++) {
+					if (i > 0) {
+						buffer.append(", ");
+					}
+					buffer.append(listParsers[i]);
+				}
+			}
+			FTPCommunicationListener[] communicationListeners = getCommunicationListeners();
+			if (communicationListeners.length > 0) {
+				buffer.append(", communicationListeners=");
+				for (int i = 0; i < communicationListeners.length; i++) {
+					if (i > 0) {
+						buffer.append(", ");
+					}
+					buffer.append(communicationListeners[i]);
+				}
+			}
+			buffer.append(", autoNoopTimeout=");
+			buffer.append(autoNoopTimeout);
+			buffer.append("]");
+			return buffer.toString();
+		}
+	}
+
+	/**
+	 * Wraps the output stream of a data transfer connection with a buffer that
+	 * coalesces small writes, so that the stream is not sent in many small
+	 * packets (or TLS records, on secured channels). The batch is as large as
+	 * the socket send buffer, within the limits of one to four transfer
+	 * buffers, and on SSL connections it is rounded to a whole number of
+	 * records.
+	 * Chunks larger than the batch are written straight through, and what is
+	 * still batched when the transfer is aborted is discarded. The batch
+	 * buffer is borrowed from the buffer pool, and it must be given back once
+	 * the stream is closed.
+	 * 
+	 * @param socket
+	 *            The data transfer connection.
+	 * @param stream
+	 *            The connection output stream.
+	 * @return The batching stream.
+	 */
+	private FTPBatchingOutputStream batchDataTransferOutput(Socket socket,
+			OutputStream stream) {
+		int size = bufferSize;
+		try {
+			int sendBufferSize = socket.getSendBufferSize();
+			if (sendBufferSize > size) {
+				size = (int) Math.min(sendBufferSize, bufferSize * 4L);
+			}
+		} catch (SocketException e) {
+			;
+		}
+		SSLSession session = null;
+		if (socket instanceof SSLSocket) {
+			session = ((SSLSocket) socket).getSession();
+		} else if (socket instanceof FTPSSLEngineSocket) {
+			session = ((FTPSSLEngineSocket) socket).getSession();
+		}
+		if (session != null) {
+			int record = session.getApplicationBufferSize();
+			if (record > 0 && size > record) {
+				size -= size % record;
+			}
+		}
+		byte[] buffer;
+		if (bufferPool != null) {
+			buffer = bufferPool.borrowBytes(size);
+		} else {
+			buffer = new byte[size];
+		}
+		return new FTPBatchingOutputStream(stream, buffer);
+	}
+
+	/**
+	 * Borrows a byte buffer for a data transfer.
+	 * 
+	 * @return A buffer of bufferSize bytes.
+	 */
+	private byte[] borrowBytes() {
+		if (bufferPool != null) {
+			return bufferPool.borrowBytes(bufferSize);
+		} else {
+			return new byte[bufferSize];
+		}
+	}
+
+	/**
+	 * Borrows a char buffer for a data transfer.
+	 * 
+	 * @return A buffer of bufferSize chars.
+	 */
+	private char[] borrowChars() {
+		if (bufferPool != null) {
+			return bufferPool.borrowChars(bufferSize);
+		} else {
+			return new char[bufferSize];
+		}
+	}
+
+	/**
+	 * Borrows a direct buffer for a data transfer.
+	 * 
+	 * @return A direct buffer of bufferSize bytes.
+	 */
+	private ByteBuffer borrowDirect() {
+		if (bufferPool != null) {
+			return bufferPool.borrowDirect(bufferSize);
+		} else {
+			return ByteBuffer.allocateDirect(bufferSize);
+		}
+	}
+
+	/**
+	 * Gives back a direct buffer of a data transfer.
+	 * 
+	 * @param direct
+	 *            The direct buffer.
+	 */
+	private void returnDirect(ByteBuffer direct) {
+		if (bufferPool != null) {
+			bufferPool.returnDirect(direct);
+		}
+	}
+
+	/**
+	 * Gives back the buffers of a data transfer.
+	 * 
+	 * @param bytes
+	 *            The byte buffer, if any.
+	 * @param chars
+	 *            The char buffer, if any.
+	 */
+	private void returnBuffers(byte[] bytes, char[] chars) {
+		if (bufferPool != null) {
+			if (bytes != null) {
+				bufferPool.returnBytes(bytes);
+			}
+			if (chars != null) {
+				bufferPool.returnChars(chars);
+			}
+		}
+	}
+
+	/**
+	 * Charges the bytes moved by a data transfer to the bandwidth limiters,
+	 * and pauses the transfer if any of them requires it. The pause is broken
+	 * if the transfer is aborted.
+	 * 
+	 * @param length
+	 *            The number of bytes moved.
+	 * @param listener
+	 *            The transfer listener, if any.
+	 * @throws IOException
+	 *             If the transfer is aborted, or if the thread is interrupted,
+	 *             while paused.
+	 */
+	private void throttle(long length, FTPDataTransferListener listener)
+			throws IOException {
+		long delay = FTPBandwidthLimiter.getGlobal().charge(length);
+		delay = Math.max(delay, transferLimiter.charge(length));
+		if (bandwidthLimiter != null) {
+			delay = Math.max(delay, bandwidthLimiter.charge(length));
+		}
+		if (delay <= 0) {
+			return;
+		}
+		if (listener != null) {
+			listener.throttled((delay + 999999) / 1000000);
+		}
+		long end = System.nanoTime() + delay;
+		while (true) {
+			long remaining = end - System.nanoTime();
+			if (remaining <= 0) {
+				break;
+			}
+			synchronized (abortLock) {
+				if (aborted) {
+					throw new IOException("Data transfer aborted");
+				}
+			}
+			try {
+				// Short naps, so an abort is noticed soon.
+				Thread.sleep(Math.min(remaining / 1000000 + 1, 100));
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new InterruptedIOException("Data transfer interrupted");
+			}
+		}
+	}
+
+	/**
+	 * Builds a new client, connected with the same host and authenticated with
+	 * the same credentials of this one, and moves it in the given working
+	 * directory.
+	 * 
+	 * @param workingDirectory
+	 *            The working directory for the new client.
+	 * @return The new client.
+	 */
+	private FTPClient openSiblingClient(String workingDirectory)
+			throws IOException, FTPIllegalReplyException, FTPException {
+		FTPClient client = new FTPClient();
+		client.connector = connector;
+		client.sslSocketFactory = sslSocketFactory;
+		client.sslContext = sslContext;
+		client.security = security;
+		client.sslSessionReuseEnabled = sslSessionReuseEnabled;
+		client.passive = passive;
+		client.extendedDataChannelEnabled = extendedDataChannelEnabled;
+		client.epsvAllEnabled = epsvAllEnabled;
+		client.hostAddressCacheTimeout = hostAddressCacheTimeout;
+		client.dataTransferPipeliningEnabled = dataTransferPipeliningEnabled;
+		client.type = type;
+		client.charset = charset;
+		client.compressionEnabled = compressionEnabled;
+		client.textualExtensionRecognizer = textualExtensionRecognizer;
+		client.bandwidthLimiter = bandwidthLimiter;
+		client.transferLimiter = transferLimiter;
+		client.bufferSize = bufferSize;
+		client.bufferPool = bufferPool;
+		client.connect(host, port);
+		boolean done = false;
+		try {
+			client.login(username, password);
+			client.changeDirectory(workingDirectory);
+			done = true;
+		} finally {
+			if (!done) {
+				try {
+					client.disconnect(false);
+				} catch (Throwable t) {
+					;
+				}
+			}
+		}
+		return client;
+	}
+
+	/**
+	 * Starts the auto-noop timer thread.
+	 */
+	private void startAutoNoopTimer() {
+		if (autoNoopTimeout > 0) {
+			if (communication.setNoopInterval(autoNoopTimeout)) {
+				// The monitor takes care of it.
+				return;
+			}
+			autoNoopTimer = new AutoNoopTimer();
+			autoNoopTimer.start();
+		}
+	}
+
+	/**
+	 * Stops the auto-noop timer thread.
+	 * 
+	 * @since 1.5
+	 */
+	private void stopAutoNoopTimer() {
+		if (communication != null) {
+			communication.setNoopInterval(0);
+		}
+		if (autoNoopTimer != null) {
+			autoNoopTimer.interrupt();
+			autoNoopTimer = null;
+		}
+	}
+
+	/**
+	 * Resets the auto noop timer.
+	 */
+	private void touchAutoNoopTimer() {
+		if (autoNoopTimer != null) {
+			nextAutoNoopTime = System.currentTimeMillis() + autoNoopTimeout;
+		}
+	}
+
+	/**
+	 * A passive data transfer channel. When it is prepared for the next
+	 * transfer, its connection can be started ahead.
+	 */
+	private class PassiveDataTransferChannel implements
+			FTPDataTransferConnectionProvider {
+
+		/**
+		 * The address of the remote host.
+		 */
+		private InetAddress remoteAddress;
+
+		/**
+		 * The port announced by the remote host.
+		 */
+		private int remotePort;
+
+		/**
+		 * The remote host name, used to negotiate SSL.
+		 */
+		private String remoteHost;
+
+		/**
+		 * The system time (in millis) of the moment when the channel has been
+		 * announced by the server.
+		 */
+		private long time;
+
+		/**
+		 * The connection started ahead, or null.
+		 */
+		private SocketChannel pending = null;
+
+		/**
+		 * Builds the channel.
+		 * 
+		 * @param remoteAddress
+		 *            The address of the remote host.
+		 * @param remotePort
+		 *            The port announced by the remote host.
+		 */
+		PassiveDataTransferChannel(InetAddress remoteAddress, int remotePort) {
+			this.remoteAddress = remoteAddress;
+			this.remotePort = remotePort;
+			this.remoteHost = host;
+			this.time = System.currentTimeMillis();
+		}
+
+		/**
+		 * Starts the connection without waiting for it. This is done only if
+		 * the client connects directly, since a proxied connection can't be
+		 * started in the background.
+		 */
+		void connectAhead() {
+			if (connector.getClass() != DirectConnector.class) {
+				return;
+			}
+			SocketChannel channel = null;
+			try {
+				channel = SocketChannel.open();
+				// The same buffers of a DirectConnector data connection.
+				channel.socket().setReceiveBufferSize(512 * 1024);
+				channel.socket().setSendBufferSize(512 * 1024);
+				channel.configureBlocking(false);
+				channel.connect(new InetSocketAddress(remoteAddress, remotePort));
+				pending = channel;
+			} catch (IOException e) {
+				if (channel != null) {
+					try {
+						channel.close();
+					} catch (Throwable t) {
+						;
+					}
+				}
+			}
+		}
+
+		public Socket openDataTransferConnection()
+				throws FTPDataTransferException {
+			// Completes the connection started ahead, if any.
+			Socket dtConnection = null;
+			SocketChannel channel = pending;
+			pending = null;
+			if (channel != null) {
+				try {
+					channel.configureBlocking(true);
+					channel.finishConnect();
+					dtConnection = channel.socket();
+				} catch (IOException e) {
+					try {
+						channel.close();
+					} catch (Throwable t) {
+						;
+					}
+				}
+			}
+			// Establish the connection.
+			if (dtConnection == null) {
+				try {
+					dtConnection = connector.connectForDataTransferChannel(remoteAddress.getHostAddress(), remotePort);
+				} catch (IOException e) {
+					if (remoteAddress == remoteHostAddress) {
+						// The host could have moved.
+						remoteHostAddressExpired = true;
+					}
+					throw new FTPDataTransferException("Cannot connect to the remote server", e);
+				}
+			}
+			if (dataChannelEncrypted) {
+				// The host name, not the address, is verified.
+				try {
+					dtConnection = dataTransferSSL(dtConnection, remoteHost, remotePort);
+				} catch (IOException e) {
+					throw new FTPDataTransferException("Cannot connect to the remote server", e);
+				}
+			}
+			return dtConnection;
+		}
+
+		public void dispose() {
+			// Closes the connection started ahead, if unused.
+			if (pending != null) {
+				try {
+					pending.close();
+				} catch (Throwable t) {
+					;
+				}
+				pending = null;
+			}
+		}
+
+		/**
+		 * Gives up a channel which won't be used: the connection is
+		 * established and closed at once, so the server can release its
+		 * listener.
+		 */
+		void release() {
+			dispose();
+			try {
+				Socket socket = connector.connectForDataTransferChannel(
+						remoteAddress.getHostAddress(), remotePort);
+				socket.close();
+			} catch (Throwable t) {
+				;
+			}
+		}
+
+	}
+
+	/**
+	 * The auto noop timer thread.
+	 */
+	private class AutoNoopTimer extends Thread {
+
+		public void run() {
+			synchronized (lock) {
+				if (nextAutoNoopTime <= 0 && autoNoopTimeout > 0) {
+					nextAutoNoopTime = System.currentTimeMillis() + autoNoopTimeout;
+				}
+				while (!Thread.interrupted() && autoNoopTimeout > 0) {
+					// Sleep till the next NOOP.
+					long delay = nextAutoNoopTime - System.currentTimeMillis();
+					if (delay > 0) {
+						try {
+							lock.wait(delay);
+						} catch (InterruptedException e) {
+							break;
+						}
+					}
+					// Is it really time to NOOP?
+					if (System.currentTimeMillis() >= nextAutoNoopTime) {
+						// Yes!
+						try {
+							noop();
+						} catch (Throwable t) {
+							; // ignore...
+						}
+					}
+				}
+			}
+		}
+
+	}
+
+	/**
+	 * A segmented download in progress. The segments are kept in a queue and
+	 * they are consumed by this client and by a set of sibling clients, each
+	 * one running in its own thread.
+	 */
+	private class SegmentedDownload {
+
+		/**
+		 * The name of the remote file.
+		 */
+		private String fileName;
+
+		/**
+		 * The working directory for the sibling clients.
+		 */
+		private String workingDirectory;
+
+		/**
+		 * The destination channel.
+		 */
+		private FileChannel channel;
+
+		/**
+		 * The segments still to be downloaded, as {offset, length} pairs.
+		 */
+		private LinkedList segments = new LinkedList();
+
+		/**
+		 * The sibling clients currently working.
+		 */
+		private ArrayList siblings = new ArrayList();
+
+		/**
+		 * The listener supplied by the user. Could be null.
+		 */
+		private FTPDataTransferListener listener;
+
+		/**
+		 * The listener given to every segment, which forwards the progress to
+		 * the user listener.
+		 */
+		private FTPDataTransferListener progressListener;
+
+		/**
+		 * The first error occurred, if any.
+		 */
+		private Throwable error = null;
+
+		/**
+		 * This flag turns to true when the download has been aborted.
+		 */
+		private boolean abortRequested = false;
+
+		public SegmentedDownload(String fileName, String workingDirectory,
+				FileChannel channel, long size, int count,
+				FTPDataTransferListener listener) {
+			this.fileName = fileName;
+			this.workingDirectory = workingDirectory;
+			this.channel = channel;
+			this.listener = listener;
+			long offset = 0;
+			for (int i = 1; i <= count; i++) {
+				long end = (size * i) / count;
+				segments.add(new long[] { offset, end - offset });
+				offset = end;
+			}
+			progressListener = new FTPDataTransferListener() {
+
+				public void started() {
+				}
+
+				public void transferred(int length) {
+					if (SegmentedDownload.this.listener != null) {
+						synchronized (this) {
+							SegmentedDownload.this.listener.transferred(length);
+						}
+					}
+				}
+
+				public void completed() {
+				}
+
+				public void aborted() {
+				}
+
+				public void failed() {
+				}
+
+				public void throttled(long delay) {
+					if (SegmentedDownload.this.listener != null) {
+						synchronized (this) {
+							SegmentedDownload.this.listener.throttled(delay);
+						}
+					}
+				}
+
+			};
+		}
+
+		/**
+		 * Executes the download, using this client and the sibling ones.
+		 */
+		public void execute() throws IOException, FTPIllegalReplyException,
+				FTPException, FTPDataTransferException, FTPAbortedException {
+			int count = segments.size();
+			if (listener != null) {
+				listener.started();
+			}
+			Thread[] threads = new Thread[count - 1];
+			for (int i = 0; i < threads.length; i++) {
+				threads[i] = new Thread() {
+					public void run() {
+						runSibling();
+					}
+				};
+				threads[i].start();
+			}
+			// This client takes the segments from the tail, while the
+			// siblings take them from the head. Only the last segment ends
+			// with the file: the following ones are bounded ranges, cut by
+			// the client when their end is reached.
+			work(FTPClient.this, true);
+			for (int i = 0; i < threads.length; i++) {
+				try {
+					threads[i].join();
+				} catch (InterruptedException e) {
+					abort();
+					i--;
+				}
+			}
+			Throwable t;
+			boolean ab;
+			synchronized (this) {
+				t = error;
+				ab = abortRequested;
+			}
+			if (t == null) {
+				if (listener != null) {
+					listener.completed();
+				}
+				return;
+			}
+			if (ab || t instanceof FTPAbortedException) {
+				if (listener != null) {
+					listener.aborted();
+				}
+				throw new FTPAbortedException();
+			}
+			if (listener != null) {
+				listener.failed();
+			}
+			if (t instanceof IOException) {
+				throw (IOException) t;
+			} else if (t instanceof FTPIllegalReplyException) {
+				throw (FTPIllegalReplyException) t;
+			} else if (t instanceof FTPException) {
+				throw (FTPException) t;
+			} else if (t instanceof FTPDataTransferException) {
+				throw (FTPDataTransferException) t;
+			} else if (t instanceof RuntimeException) {
+				throw (RuntimeException) t;
+			} else if (t instanceof Error) {
+				throw (Error) t;
+			} else {
+				throw new FTPDataTransferException(t);
+			}
+		}
+
+		/**
+		 * Aborts the download.
+		 */
+		public void abort() {
+			synchronized (this) {
+				if (abortRequested) {
+					return;
+				}
+				abortRequested = true;
+			}
+			abortSiblings();
+		}
+
+		/**
+		 * The routine of a sibling thread.
+		 */
+		private void runSibling() {
+			FTPClient client;
+			try {
+				client = openSiblingClient(workingDirectory);
+			} catch (Throwable t) {
+				// No more connections: the other clients will do the job.
+				return;
+			}
+			boolean go;
+			synchronized (this) {
+				go = !abortRequested && error == null;
+				if (go) {
+					siblings.add(client);
+				}
+			}
+			try {
+				if (go) {
+					work(client, false);
+				}
+			} finally {
+				synchronized (this) {
+					siblings.remove(client);
+				}
+				try {
+					client.disconnect(true);
+				} catch (Throwable t) {
+					try {
+						client.disconnect(false);
+					} catch (Throwable t2) {
+						;
+					}
+				}
+			}
+		}
+
+		/**
+		 * Downloads segments with the given client, until the queue is empty.
+		 */
+		private void work(FTPClient client, boolean fromTail) {
+			while (true) {
+				long[] segment;
+				synchronized (this) {
+					if (abortRequested || error != null || segments.size() == 0) {
+						return;
+					}
+					if (fromTail) {
+						segment = (long[]) segments.removeLast();
+					} else {
+						segment = (long[]) segments.removeFirst();
+					}
+				}
+				try {
+					client.download(fileName, null, channel, segment[0],
+							segment[1], progressListener);
+				} catch (Throwable t) {
+					boolean first;
+					synchronized (this) {
+						first = error == null;
+						if (first) {
+							error = t;
+						}
+					}
+					if (first) {
+						// Stops the other clients.
+						if (client != FTPClient.this) {
+							try {
+								abortOwnDataTransfer(false);
+							} catch (Throwable t2) {
+								;
+							}
+						}
+						abortSiblings();
+					}
+					return;
+				}
+			}
+		}
+
+		/**
+		 * Aborts the transfers of every sibling client.
+		 */
+		private void abortSiblings() {
+			Object[] aux;
+			synchronized (this) {
+				aux = siblings.toArray();
+			}
+			for (int i = 0; i < aux.length; i++) {
+				try {
+					((FTPClient) aux[i]).abortCurrentDataTransfer(false);
+				} catch (Throwable t) {
+					;
+				}
+			}
+		}
+
+	}
+
+}
@@ -1,275 +1,787 @@
-/*
- * ftp4j - A pure Java FTP client library
- * 
- * Copyright (C) 2008-2010 Carlo Pelliccia (www.sauronsoftware.it)
- * 
- * This program is free software: you can redistribute it and/or modify
- * it under the terms of the GNU Lesser General Public License version
- * 2.1, as published by the Free Software Foundation.
- *
- * This program is distributed in the hope that it will be useful,
- * but WITHOUT ANY WARRANTY; without even the implied warranty of
- * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
- * GNU Lesser General Public License 2.1 for more details.
- *
- * You should have received a copy of the GNU Lesser General Public
- * License version 2.1 along with this program.
- * If not, see <http://www.gnu.org/licenses/>.
- */
-package it.sauronsoftware.ftp4j;
-
-import java.io.IOException;
-import java.io.InputStream;
-import java.io.OutputStream;
-import java.net.Socket;
-import java.util.ArrayList;
-import java.util.Iterator;
-
-import javax.net.ssl.SSLSocketFactory;
-
-/**
- * This class is used to represent a communication channel with a FTP server.
- * 
- * @author Carlo Pelliccia
- * @version 1.1
- */
-public class FTPCommunicationChannel {
-
-	/**
-	 * The FTPCommunicationListener objects registered on the channel.
-	 */
-	private ArrayList communicationListeners = new ArrayList();
-
-	/**
-	 * The connection.
-	 */
-	private Socket connection = null;
-
-	/**
-	 * The name of the charset that has to be used to encode and decode the
-	 * communication.
-	 */
-	private String charsetName = null;
-
-	/**
-	 * The stream-reader channel established with the remote server.
-	 */
-	private NVTASCIIReader reader = null;
-
-	/**
-	 * The stream-writer channel established with the remote server.
-	 */
-	private NVTASCIIWriter writer = null;
-
-	/**
-	 * It builds a FTP communication channel.
-	 * 
-	 * @param connection
-	 *            The underlying connection.
-	 * @param charsetName
-	 *            The name of the charset that has to be used to encode and
-	 *            decode the communication.
-	 * @throws IOException
-	 *             If a I/O error occurs.
-	 */
-	public FTPCommunicationChannel(Socket connection, String charsetName)
-			throws IOException {
-		this.connection = connection;
-		this.charsetName = charsetName;
-		InputStream inStream = connection.getInputStream();
-		OutputStream outStream = connection.getOutputStream();
-		// Wrap the streams into reader and writer objects.
-		reader = new NVTASCIIReader(inStream, charsetName);
-		writer = new NVTASCIIWriter(outStream, charsetName);
-	}
-
-	/**
-	 * This method adds a FTPCommunicationListener to the object.
-	 * 
-	 * @param listener
-	 *            The listener.
-	 */
-	public void addCommunicationListener(FTPCommunicationListener listener) {
-		communicationListeners.add(listener);
-	}
-
-	/**
-	 * This method removes a FTPCommunicationListener previously added to the
-	 * object.
-	 * 
-	 * @param listener
-	 *            The listener to be removed.
-	 */
-	public void removeCommunicationListener(FTPCommunicationListener listener) {
-		communicationListeners.remove(listener);
-	}
-
-	/**
-	 * Closes the channel.
-	 */
-	public void close() {
-		try {
-			connection.close();
-		} catch (Exception e) {
-			;
-		}
-	}
-
-	/**
-	 * This method returns a list with all the FTPCommunicationListener used by
-	 * the client.
-	 * 
-	 * @return A list with all the FTPCommunicationListener used by the client.
-	 */
-	public FTPCommunicationListener[] getCommunicationListeners() {
-		int size = communicationListeners.size();
-		FTPCommunicationListener[] ret = new FTPCommunicationListener[size];
-		for (int i = 0; i < size; i++) {
-			ret[i] = (FTPCommunicationListener) communicationListeners.get(i);
-		}
-		return ret;
-	}
-
-	/**
-	 * This method reads a line from the remote server.
-	 * 
-	 * @return The string read.
-	 * @throws IOException
-	 *             If an I/O error occurs during the operation.
-	 */
-	private String read() throws IOException {
-		// Read the line from the server.
-		String line = reader.readLine();
-		if (line == null) {
-			throw new IOException("FTPConnection closed");
-		}
-		// Call received() method on every communication listener
-		// registered.
-		for (Iterator iter = communicationListeners.iterator(); iter.hasNext();) {
-			FTPCommunicationListener l = (FTPCommunicationListener) iter.next();
-			l.received(line);
-		}
-		// Return the line read.
-		return line;
-	}
-
-	/**
-	 * This method sends a command line to the server.
-	 * 
-	 * @param command
-	 *            The command to be sent.
-	 * @throws IOException
-	 *             If an I/O error occurs.
-	 */
-	public void sendFTPCommand(String command) throws IOException {
-		writer.writeLine(command);
-		for (Iterator iter = communicationListeners.iterator(); iter.hasNext();) {
-			FTPCommunicationListener l = (FTPCommunicationListener) iter.next();
-			l.sent(command);
-		}
-	}
-
-	/**
-	 * This method reads and parses a FTP reply statement from the server.
-	 * 
-	 * @return The reply from the server.
-	 * @throws IOException
-	 *             If an I/O error occurs.
-	 * @throws FTPIllegalReplyException
-	 *             If the server doesn't reply in a FTP-compliant way.
-	 */
-	public FTPReply readFTPReply() throws IOException, FTPIllegalReplyException {
-		int code = 0;
-		ArrayList messages = new ArrayList();
-		do {
-			String statement;
-			do {
-				statement = read();
-			} while (statement.trim().length() == 0);
-			if (statement.startsWith("\n")) {
-				statement = statement.substring(1);
-			}
-			int l = statement.length();
-			if (code == 0 && l < 3) {
-				throw new FTPIllegalReplyException();
-			}
-			int aux;
-			try {
-				aux = Integer.parseInt(statement.substring(0, 3));
-			} catch (Exception e) {
-				if (code == 0) {
-					throw new FTPIllegalReplyException();
-				} else {
-					aux = 0;
-				}
-			}
-			if (code != 0 && aux != 0 && aux != code) {
-				throw new FTPIllegalReplyException();
-			}
-			if (code == 0) {
-				code = aux;
-			}
-			if (aux > 0) {
-				if (l > 3) {
-					char s = statement.charAt(3);
-					String message = statement.substring(4, l);
-					messages.add(message);
-					if (s == ' ') {
-						break;
-					} else if (s == '-') {
-						continue;
-					} else {
-						throw new FTPIllegalReplyException();
-					}
-				} else if (l == 3) {
-					break;
-				} else {
-					messages.add(statement);
-				}
-			} else {
-				messages.add(statement);
-			}
-		} while (true);
-		int size = messages.size();
-		String[] m = new String[size];
-		for (int i = 0; i < size; i++) {
-			m[i] = (String) messages.get(i);
-		}
-		return new FTPReply(code, m);
-	}
-
-	/**
-	 * Changes the current charset.
-	 * 
-	 * @param charsetName
-	 *            The new charset.
-	 * @throws IOException
-	 *             If I/O error occurs.
-	 * @since 1.1
-	 */
-	public void changeCharset(String charsetName) throws IOException {
-		this.charsetName = charsetName;
-		reader.changeCharset(charsetName);
-		writer.changeCharset(charsetName);
-	}
-
-	/**
-	 * Applies SSL encryption to the communication channel.
-	 * 
-	 * @param sslSocketFactory
-	 *            The SSLSocketFactory used to produce the SSL connection.
-	 * @throws IOException
-	 *             If a I/O error occurs.
-	 * @since 1.4
-	 */
-	public void ssl(SSLSocketFactory sslSocketFactory) throws IOException {
-		String host = connection.getInetAddress().getHostName();
-		int port = connection.getPort();
-		connection = sslSocketFactory.createSocket(connection, host, port, true);
-		InputStream inStream = connection.getInputStream();
-		OutputStream outStream = connection.getOutputStream();
-		reader = new NVTASCIIReader(inStream, charsetName);
-		writer = new NVTASCIIWriter(outStream, charsetName);
-	}
-
-}
+/*
+ * ftp4j - A pure Java FTP client library
+ * 
+ * Copyright (C) 2008-2010 Carlo Pelliccia (www.sauronsoftware.it)
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License version
+ * 2.1, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License 2.1 for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License version 2.1 along with this program.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+package it.sauronsoftware.ftp4j;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.channels.ByteChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedList;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLSession;
+import javax.net.ssl.SSLSocket;
+import javax.net.ssl.SSLSocketFactory;
+
+/**
+ * This class is used to represent a communication channel with a FTP server.
+ * 
+ * Replies are decoded from a byte buffer by a {@link FTPReplyDecoder}. If the
+ * underlying connection is backed by a {@link SocketChannel} (i.e. it is not
+ * encrypted), the channel can be attached to a {@link FTPIdleChannelMonitor}:
+ * while it is idle, it is then serviced by the monitor thread in non-blocking
+ * mode, and it goes back to blocking mode as soon as it is used again.
+ * 
+ * @author Carlo Pelliccia
+ * @version 1.2
+ */
+public class FTPCommunicationChannel {
+
+	/**
+	 * The size of the buffer for the incoming bytes.
+	 */
+	private static final int READ_BUFFER_SIZE = 4096;
+
+	/**
+	 * The FTPCommunicationListener objects registered on the channel.
+	 */
+	private ArrayList communicationListeners = new ArrayList();
+
+	/**
+	 * The connection.
+	 */
+	private Socket connection = null;
+
+	/**
+	 * The name of the charset that has to be used to encode and decode the
+	 * communication.
+	 */
+	private String charsetName = null;
+
+	/**
+	 * The input stream of the connection.
+	 */
+	private InputStream inStream = null;
+
+	/**
+	 * The bytes received and not yet decoded (in read mode).
+	 */
+	private ByteBuffer inBuffer = ByteBuffer.allocate(READ_BUFFER_SIZE);
+
+	/**
+	 * The reply decoder.
+	 */
+	private FTPReplyDecoder decoder;
+
+	/**
+	 * The stream-writer channel established with the remote server.
+	 */
+	private NVTASCIIWriter writer = null;
+
+	/**
+	 * The channel of the connection, or null if the connection has no channel
+	 * (i.e. it is proxied, or encrypted by a SSLSocket).
+	 */
+	private SocketChannel socketChannel = null;
+
+	/**
+	 * The channel used to read and write while the channel is parked: the
+	 * socket channel itself, or the SSLEngine channel encrypting it.
+	 */
+	private ByteChannel idleChannel = null;
+
+	/**
+	 * The monitor servicing the channel while idle, if any.
+	 */
+	private FTPIdleChannelMonitor monitor = null;
+
+	/**
+	 * The selection key of the channel, while parked in the monitor.
+	 */
+	private SelectionKey idleKey = null;
+
+	/**
+	 * This flag is true while the channel is in non-blocking mode and
+	 * registered with the monitor.
+	 */
+	private boolean parked = false;
+
+	/**
+	 * The number of threads currently using the channel.
+	 */
+	private int calls = 0;
+
+	/**
+	 * The number of commands sent and not yet completed by a final reply.
+	 */
+	private int outstanding = 0;
+
+	/**
+	 * The number of NOOP commands sent by the monitor and not yet replied.
+	 */
+	private int noopPending = 0;
+
+	/**
+	 * The time of the last activity on the channel.
+	 */
+	private long lastActivity = System.currentTimeMillis();
+
+	/**
+	 * The idle time (in millis) after which the monitor sends a NOOP command.
+	 * A value less or equal than 0 means never.
+	 */
+	private long noopInterval = 0;
+
+	/**
+	 * The replies received by the monitor while the channel was parked.
+	 */
+	private LinkedList pendingReplies = new LinkedList();
+
+	/**
+	 * This flag turns to true when the monitor detects the end of the stream.
+	 */
+	private boolean eof = false;
+
+	/**
+	 * Lock object used for synchronization of the channel state.
+	 */
+	private Object stateLock = new Object();
+
+	/**
+	 * It builds a FTP communication channel.
+	 * 
+	 * @param connection
+	 *            The underlying connection.
+	 * @param charsetName
+	 *            The name of the charset that has to be used to encode and
+	 *            decode the communication.
+	 * @throws IOException
+	 *             If a I/O error occurs.
+	 */
+	public FTPCommunicationChannel(Socket connection, String charsetName)
+			throws IOException {
+		this.connection = connection;
+		this.charsetName = charsetName;
+		attachChannels();
+		inStream = connection.getInputStream();
+		OutputStream outStream = connection.getOutputStream();
+		// Builds the decoder and the writer.
+		inBuffer.flip();
+		decoder = new FTPReplyDecoder(charsetName, communicationListeners);
+		writer = new NVTASCIIWriter(outStream, charsetName);
+	}
+
+	/**
+	 * This method adds a FTPCommunicationListener to the object.
+	 * 
+	 * @param listener
+	 *            The listener.
+	 */
+	public void addCommunicationListener(FTPCommunicationListener listener) {
+		communicationListeners.add(listener);
+	}
+
+	/**
+	 * This method removes a FTPCommunicationListener previously added to the
+	 * object.
+	 * 
+	 * @param listener
+	 *            The listener to be removed.
+	 */
+	public void removeCommunicationListener(FTPCommunicationListener listener) {
+		communicationListeners.remove(listener);
+	}
+
+	/**
+	 * Closes the channel.
+	 */
+	public void close() {
+		FTPIdleChannelMonitor m;
+		synchronized (stateLock) {
+			m = monitor;
+			monitor = null;
+		}
+		if (m != null) {
+			m.remove(this);
+		}
+		try {
+			connection.close();
+		} catch (Exception e) {
+			;
+		}
+	}
+
+	/**
+	 * This method returns a list with all the FTPCommunicationListener used by
+	 * the client.
+	 * 
+	 * @return A list with all the FTPCommunicationListener used by the client.
+	 */
+	public FTPCommunicationListener[] getCommunicationListeners() {
+		int size = communicationListeners.size();
+		FTPCommunicationListener[] ret = new FTPCommunicationListener[size];
+		for (int i = 0; i < size; i++) {
+			ret[i] = (FTPCommunicationListener) communicationListeners.get(i);
+		}
+		return ret;
+	}
+
+	/**
+	 * This method sends a command line to the server.
+	 * 
+	 * @param command
+	 *            The command to be sent.
+	 * @throws IOException
+	 *             If an I/O error occurs.
+	 */
+	public void sendFTPCommand(String command) throws IOException {
+		checkout();
+		try {
+			writer.writeLine(command);
+			sent(1);
+		} finally {
+			checkin();
+		}
+		for (Iterator iter = communicationListeners.iterator(); iter.hasNext();) {
+			FTPCommunicationListener l = (FTPCommunicationListener) iter.next();
+			l.sent(command);
+		}
+	}
+
+	/**
+	 * This method sends more command lines to the server, with a single write
+	 * operation on the underlying connection.
+	 * 
+	 * @param commands
+	 *            The commands to be sent.
+	 * @throws IOException
+	 *             If an I/O error occurs.
+	 * @since 1.7
+	 */
+	public void sendFTPCommands(String[] commands) throws IOException {
+		checkout();
+		try {
+			for (int i = 0; i < commands.length; i++) {
+				writer.writeLine(commands[i], false);
+			}
+			writer.flush();
+			sent(commands.length);
+		} finally {
+			checkin();
+		}
+		for (int i = 0; i < commands.length; i++) {
+			for (Iterator iter = communicationListeners.iterator(); iter.hasNext();) {
+				FTPCommunicationListener l = (FTPCommunicationListener) iter.next();
+				l.sent(commands[i]);
+			}
+		}
+	}
+
+	/**
+	 * This method reads and parses a FTP reply statement from the server.
+	 * 
+	 * @return The reply from the server.
+	 * @throws IOException
+	 *             If an I/O error occurs.
+	 * @throws FTPIllegalReplyException
+	 *             If the server doesn't reply in a FTP-compliant way.
+	 */
+	public FTPReply readFTPReply() throws IOException, FTPIllegalReplyException {
+		checkout();
+		try {
+			while (true) {
+				FTPReply reply = nextReply();
+				if (received(reply)) {
+					return reply;
+				}
+			}
+		} finally {
+			checkin();
+		}
+	}
+
+	/**
+	 * Returns the next reply, taking it from the replies received by the
+	 * monitor or reading it from the connection.
+	 * 
+	 * @return The reply.
+	 */
+	private FTPReply nextReply() throws IOException, FTPIllegalReplyException {
+		boolean end;
+		synchronized (stateLock) {
+			if (pendingReplies.size() > 0) {
+				return (FTPReply) pendingReplies.removeFirst();
+			}
+			end = eof;
+		}
+		while (true) {
+			FTPReply reply = decoder.decode(inBuffer);
+			if (reply != null) {
+				return reply;
+			}
+			int l = -1;
+			inBuffer.compact();
+			try {
+				if (!end) {
+					l = inStream.read(inBuffer.array(), inBuffer.arrayOffset()
+							+ inBuffer.position(), inBuffer.remaining());
+				}
+				if (l > 0) {
+					inBuffer.position(inBuffer.position() + l);
+				}
+			} finally {
+				inBuffer.flip();
+			}
+			if (l == -1) {
+				reply = decoder.finish();
+				if (reply != null) {
+					return reply;
+				}
+				throw new IOException("FTPConnection closed");
+			}
+		}
+	}
+
+	/**
+	 * Changes the current charset.
+	 * 
+	 * @param charsetName
+	 *            The new charset.
+	 * @throws IOException
+	 *             If I/O error occurs.
+	 * @since 1.1
+	 */
+	public void changeCharset(String charsetName) throws IOException {
+		checkout();
+		try {
+			this.charsetName = charsetName;
+			decoder.changeCharset(charsetName);
+			writer.changeCharset(charsetName);
+		} finally {
+			checkin();
+		}
+	}
+
+	/**
+	 * Finds the channels of the current connection.
+	 */
+	private void attachChannels() {
+		synchronized (stateLock) {
+			if (connection instanceof FTPSSLEngineSocket) {
+				FTPSSLEngineChannel channel = ((FTPSSLEngineSocket) connection)
+						.getSSLChannel();
+				socketChannel = channel.getSocketChannel();
+				idleChannel = channel;
+			} else {
+				socketChannel = connection.getChannel();
+				idleChannel = socketChannel;
+			}
+		}
+	}
+
+	/**
+	 * Applies SSL encryption to the communication channel.
+	 * 
+	 * @param sslSocketFactory
+	 *            The SSLSocketFactory used to produce the SSL connection.
+	 * @throws IOException
+	 *             If a I/O error occurs.
+	 * @since 1.4
+	 */
+	public void ssl(SSLSocketFactory sslSocketFactory) throws IOException {
+		ssl(sslSocketFactory, connection.getInetAddress().getHostName(),
+				connection.getPort());
+	}
+
+	/**
+	 * Applies SSL encryption to the communication channel, negotiating it as a
+	 * connection to the given host. The host name is used for the server name
+	 * indication and the host name verification, so it must be the one the
+	 * user connected to, not the one of the socket (which could be a proxy, or
+	 * could require a reverse lookup).
+	 * 
+	 * @param sslSocketFactory
+	 *            The SSLSocketFactory used to produce the SSL connection.
+	 * @param host
+	 *            The logical destination host.
+	 * @param port
+	 *            The logical destination port.
+	 * @throws IOException
+	 *             If a I/O error occurs.
+	 * @since 1.7
+	 */
+	void ssl(SSLSocketFactory sslSocketFactory, String host, int port)
+			throws IOException {
+		checkout();
+		try {
+			connection = sslSocketFactory.createSocket(connection, host, port, true);
+			inStream = connection.getInputStream();
+			OutputStream outStream = connection.getOutputStream();
+			// Plain bytes received before the handshake can't be trusted.
+			inBuffer.clear();
+			inBuffer.flip();
+			decoder.reset();
+			writer = new NVTASCIIWriter(outStream, charsetName);
+			synchronized (stateLock) {
+				// An encrypted connection can't be serviced by the monitor.
+				socketChannel = null;
+				idleChannel = null;
+			}
+		} finally {
+			checkin();
+		}
+	}
+
+	/**
+	 * Applies SSL encryption to the communication channel, with the SSLEngine
+	 * based transport. Unlike {@link #ssl(SSLSocketFactory)}, the encrypted
+	 * channel can still be serviced by the idle channel monitor. If the
+	 * connection is not backed by a SocketChannel, a SSLSocket is layered on
+	 * it.
+	 * 
+	 * @param sslContext
+	 *            The SSL context.
+	 * @param pool
+	 *            The pool of the SSL buffers, or null to allocate them.
+	 * @param host
+	 *            The logical destination host.
+	 * @param port
+	 *            The logical destination port.
+	 * @throws IOException
+	 *             If a I/O error occurs.
+	 * @since 1.7
+	 */
+	void ssl(SSLContext sslContext, FTPBufferPool pool, String host, int port)
+			throws IOException {
+		if (connection.getChannel() == null) {
+			ssl(sslContext.getSocketFactory(), host, port);
+			return;
+		}
+		checkout();
+		try {
+			SSLEngine engine = sslContext.createSSLEngine(host, port);
+			engine.setUseClientMode(true);
+			connection = FTPSSLEngineSocket.open(connection, engine, pool);
+			inStream = connection.getInputStream();
+			OutputStream outStream = connection.getOutputStream();
+			// Plain bytes received before the handshake can't be trusted.
+			inBuffer.clear();
+			inBuffer.flip();
+			decoder.reset();
+			writer = new NVTASCIIWriter(outStream, charsetName);
+			attachChannels();
+		} finally {
+			checkin();
+		}
+	}
+
+	/**
+	 * Returns the SSL session of the channel.
+	 * 
+	 * @return The SSL session, or null if the channel is not encrypted.
+	 * @since 1.7
+	 */
+	SSLSession getSSLSession() {
+		Socket socket = connection;
+		if (socket instanceof SSLSocket) {
+			return ((SSLSocket) socket).getSession();
+		} else if (socket instanceof FTPSSLEngineSocket) {
+			return ((FTPSSLEngineSocket) socket).getSession();
+		}
+		return null;
+	}
+
+	/**
+	 * Returns the local address of the connection.
+	 * 
+	 * @return The local address of the connection.
+	 * @since 1.7
+	 */
+	InetAddress getLocalAddress() {
+		return connection.getLocalAddress();
+	}
+
+	/**
+	 * Attaches the channel to a monitor, which will service it while idle.
+	 * The channel is ignored by the monitor if its connection isn't backed by
+	 * a SocketChannel, or if it is encrypted by a SSLSocket.
+	 * 
+	 * @param monitor
+	 *            The monitor.
+	 * @throws IOException
+	 *             If the monitor can't be started.
+	 * @since 1.7
+	 */
+	void setIdleChannelMonitor(FTPIdleChannelMonitor monitor)
+			throws IOException {
+		synchronized (stateLock) {
+			if (socketChannel == null || this.monitor != null) {
+				return;
+			}
+			this.monitor = monitor;
+		}
+		monitor.add(this);
+	}
+
+	/**
+	 * Sets the idle time after which the monitor sends a NOOP command.
+	 * 
+	 * @param noopInterval
+	 *            The idle time, in millis. A value less or equal than 0 means
+	 *            never.
+	 * @return true if the channel is attached to a monitor which will take
+	 *         care of the NOOP commands, false otherwise.
+	 * @since 1.7
+	 */
+	boolean setNoopInterval(long noopInterval) {
+		synchronized (stateLock) {
+			this.noopInterval = noopInterval;
+			return monitor != null && socketChannel != null;
+		}
+	}
+
+	/**
+	 * Called before any use of the connection. If the channel is parked, it
+	 * waits for the monitor to give it back in blocking mode.
+	 */
+	private void checkout() throws IOException {
+		FTPIdleChannelMonitor m;
+		synchronized (stateLock) {
+			calls++;
+			if (!parked) {
+				return;
+			}
+			m = monitor;
+		}
+		if (m != null) {
+			m.requestUnpark(this);
+		}
+		synchronized (stateLock) {
+			while (parked) {
+				try {
+					stateLock.wait();
+				} catch (InterruptedException e) {
+					calls--;
+					throw new InterruptedIOException();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Called after any use of the connection.
+	 */
+	private void checkin() {
+		synchronized (stateLock) {
+			calls--;
+			lastActivity = System.currentTimeMillis();
+		}
+	}
+
+	/**
+	 * Updates the state after some commands have been sent.
+	 */
+	private void sent(int count) {
+		synchronized (stateLock) {
+			outstanding += count;
+			lastActivity = System.currentTimeMillis();
+		}
+	}
+
+	/**
+	 * Updates the state after a reply has been received.
+	 * 
+	 * @return false if the reply belongs to a NOOP sent by the monitor and it
+	 *         has to be dropped, true otherwise. A 421 reply is never dropped:
+	 *         the server is closing the connection, and the client has to
+	 *         know, even if the reply takes the place of the NOOP one.
+	 */
+	private boolean received(FTPReply reply) {
+		synchronized (stateLock) {
+			lastActivity = System.currentTimeMillis();
+			if (reply.getCode() >= 200) {
+				// Final reply.
+				if (outstanding > 0) {
+					outstanding--;
+				}
+				if (noopPending > 0) {
+					noopPending--;
+					return reply.getCode() == FTPCodes.SERVICE_NOT_AVAILABLE;
+				}
+			}
+			return true;
+		}
+	}
+
+	/**
+	 * Called by the monitor thread: switches the channel in non-blocking mode
+	 * and registers it with the selector, if it has been idle long enough.
+	 * 
+	 * @param selector
+	 *            The monitor selector.
+	 * @param now
+	 *            The current time.
+	 * @param parkDelay
+	 *            The idle time required to park the channel.
+	 */
+	void park(Selector selector, long now, long parkDelay) {
+		synchronized (stateLock) {
+			if (parked || eof || socketChannel == null || calls > 0
+					|| outstanding > 0 || now - lastActivity < parkDelay) {
+				return;
+			}
+			try {
+				socketChannel.configureBlocking(false);
+				idleKey = socketChannel.register(selector,
+						SelectionKey.OP_READ, this);
+				parked = true;
+			} catch (IOException e) {
+				// Broken connection: it will be detected when used.
+				eof = true;
+			}
+		}
+	}
+
+	/**
+	 * Called by the monitor thread: cancels the registration of a parked
+	 * channel. The unpark is completed by
+	 * {@link FTPCommunicationChannel#completeUnpark()}, after the selector has
+	 * flushed the cancelled key.
+	 */
+	void cancelIdleKey() {
+		synchronized (stateLock) {
+			if (idleKey != null) {
+				idleKey.cancel();
+				idleKey = null;
+			}
+		}
+	}
+
+	/**
+	 * Called by the monitor thread: brings a parked channel back in blocking
+	 * mode, and wakes up the threads waiting for it.
+	 */
+	void completeUnpark() {
+		synchronized (stateLock) {
+			if (parked) {
+				try {
+					socketChannel.configureBlocking(true);
+				} catch (Throwable t) {
+					// Broken connection: it will be detected when used.
+					eof = true;
+				}
+				parked = false;
+				stateLock.notifyAll();
+			}
+		}
+	}
+
+	/**
+	 * Called by the monitor thread when the parked channel is readable: reads
+	 * the available bytes and decodes the replies.
+	 */
+	void idleRead() {
+		synchronized (stateLock) {
+			if (!parked) {
+				return;
+			}
+			try {
+				int l;
+				FTPReply reply;
+				do {
+					// An encrypted channel may hold more decrypted bytes than
+					// a read returns, so the reads go on until nothing is left.
+					inBuffer.compact();
+					try {
+						l = idleChannel.read(inBuffer);
+					} finally {
+						inBuffer.flip();
+					}
+					while ((reply = decoder.decode(inBuffer)) != null) {
+						if (received(reply)) {
+							// Unsolicited reply (i.e. 421).
+							pendingReplies.add(reply);
+						}
+					}
+				} while (l > 0);
+				if (l == -1) {
+					reply = decoder.finish();
+					if (reply != null && received(reply)) {
+						pendingReplies.add(reply);
+					}
+					eof = true;
+				}
+			} catch (Throwable t) {
+				eof = true;
+			}
+			if (eof && idleKey != null) {
+				// Stops selecting a dead channel.
+				idleKey.cancel();
+				idleKey = null;
+			}
+		}
+	}
+
+	/**
+	 * Called by the monitor thread: sends a NOOP command on the parked
+	 * channel, if it has been idle long enough.
+	 * 
+	 * @param now
+	 *            The current time.
+	 */
+	void idleNoop(long now) {
+		synchronized (stateLock) {
+			if (!parked || eof || noopInterval <= 0 || outstanding > 0
+					|| now - lastActivity < noopInterval) {
+				return;
+			}
+			try {
+				ByteBuffer command = ByteBuffer.wrap("NOOP\r\n".getBytes("US-ASCII"));
+				idleChannel.write(command);
+				if (command.hasRemaining()) {
+					// The send buffer is full: the connection is stuck.
+					throw new IOException();
+				}
+				outstanding++;
+				noopPending++;
+				lastActivity = now;
+			} catch (IOException e) {
+				eof = true;
+				cancelIdleKey();
+				return;
+			}
+		}
+		for (Iterator iter = communicationListeners.iterator(); iter.hasNext();) {
+			FTPCommunicationListener l = (FTPCommunicationListener) iter.next();
+			l.sent("NOOP");
+		}
+	}
+
+	/**
+	 * Checks whether the channel is parked.
+	 * 
+	 * @return true if the channel is parked.
+	 */
+	boolean isParked() {
+		synchronized (stateLock) {
+			return parked;
+		}
+	}
+
+}
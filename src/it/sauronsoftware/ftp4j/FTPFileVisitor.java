@@ -0,0 +1,46 @@
+/*
+ * ftp4j - A pure Java FTP client library
+ * 
+ * Copyright (C) 2008-2010 Carlo Pelliccia (www.sauronsoftware.it)
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License version
+ * 2.1, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License 2.1 for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License version 2.1 along with this program.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+package it.sauronsoftware.ftp4j;
+
+/**
+ * This interface describes the methods requested by an object that can
+ * receive, one at a time, the entries of a directory listing. You can supply
+ * an object implementing this interface to the streaming list() method of the
+ * client, so the entries are processed while they arrive, without holding the
+ * whole listing in memory.
+ * 
+ * @author Carlo Pelliccia
+ * @see FTPClient#list(String, FTPFileVisitor)
+ * @since 1.7
+ */
+public interface FTPFileVisitor {
+
+	/**
+	 * Called once for every entry of the listing, in the order the server
+	 * sends them.
+	 * 
+	 * @param file
+	 *            The entry.
+	 * @return true to continue with the next entry, false to stop the
+	 *         listing. When the listing is stopped the data transfer
+	 *         connection is closed without reading the remaining entries.
+	 */
+	public boolean visit(FTPFile file);
+
+}
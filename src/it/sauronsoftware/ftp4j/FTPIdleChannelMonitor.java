@@ -0,0 +1,355 @@
+/*
+ * ftp4j - A pure Java FTP client library
+ * 
+ * Copyright (C) 2008-2010 Carlo Pelliccia (www.sauronsoftware.it)
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License version
+ * 2.1, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License 2.1 for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License version 2.1 along with this program.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+package it.sauronsoftware.ftp4j;
+
+import java.io.IOException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedList;
+
+/**
+ * This class services many idle control connections with a single thread and
+ * a {@link Selector}.
+ * 
+ * Every connected client normally needs a thread of its own to send the
+ * auto-noop commands (see {@link FTPClient#setAutoNoopTimeout(long)}), and an
+ * idle connection closed by the server goes unnoticed until it is used again.
+ * Clients attached to a monitor instead give their control connection to the
+ * monitor thread as soon as it stays idle for a while: the connection is
+ * switched to non-blocking mode and registered with the selector, so the
+ * monitor can send the auto-noop commands, consume their replies and collect
+ * any unsolicited reply (i.e. the 421 sent by a server closing an idle
+ * session). When the client uses the connection again, it gets it back in
+ * blocking mode, with the replies received meanwhile.
+ * 
+ * Only plain connections backed by a SocketChannel can be attached, as the
+ * ones opened by the {@link it.sauronsoftware.ftp4j.connectors.DirectConnector}.
+ * Encrypted connections and connections opened through a proxy are ignored,
+ * and their clients keep their own auto-noop thread.
+ * 
+ * An unexpected error while servicing a connection (i.e. thrown by a
+ * {@link FTPCommunicationListener}) is given to the uncaught exception
+ * handler of the monitor thread, and the monitor goes on with the other
+ * connections. If the selector itself fails, the error is reported the same
+ * way and the monitor is closed.
+ * 
+ * A monitor is typically shared by all the clients of an application, or by
+ * all the clients of a pool:
+ * 
+ * <pre>
+ * FTPIdleChannelMonitor monitor = new FTPIdleChannelMonitor();
+ * FTPClient client = new FTPClient();
+ * client.setIdleChannelMonitor(monitor);
+ * client.setAutoNoopTimeout(30000);
+ * </pre>
+ * 
+ * @author Carlo Pelliccia
+ * @see FTPClient#setIdleChannelMonitor(FTPIdleChannelMonitor)
+ * @since 1.7
+ */
+public class FTPIdleChannelMonitor {
+
+	/**
+	 * The max time (in millis) the monitor thread sleeps between two checks of
+	 * the attached channels.
+	 */
+	private static final long TICK = 1000;
+
+	/**
+	 * The idle time (in millis) after which a channel is parked.
+	 */
+	private long parkDelay = 1000;
+
+	/**
+	 * The attached channels.
+	 */
+	private ArrayList channels = new ArrayList();
+
+	/**
+	 * The channels waiting to be unparked.
+	 */
+	private LinkedList unparkRequests = new LinkedList();
+
+	/**
+	 * The selector, opened with the first attached channel.
+	 */
+	private Selector selector = null;
+
+	/**
+	 * The monitor thread, started with the first attached channel.
+	 */
+	private Thread thread = null;
+
+	/**
+	 * This flag turns to true when the monitor has been closed.
+	 */
+	private boolean closed = false;
+
+	/**
+	 * Lock object used for synchronization.
+	 */
+	private Object lock = new Object();
+
+	/**
+	 * Returns the idle time after which a control connection is given to the
+	 * monitor thread.
+	 * 
+	 * @return The idle time, in millis.
+	 */
+	public long getParkDelay() {
+		synchronized (lock) {
+			return parkDelay;
+		}
+	}
+
+	/**
+	 * Sets the idle time after which a control connection is given to the
+	 * monitor thread. Default is 1000.
+	 * 
+	 * @param parkDelay
+	 *            The idle time, in millis.
+	 */
+	public void setParkDelay(long parkDelay) {
+		synchronized (lock) {
+			this.parkDelay = parkDelay;
+		}
+	}
+
+	/**
+	 * Returns the number of control connections attached to the monitor.
+	 * 
+	 * @return The number of control connections attached to the monitor.
+	 */
+	public int getChannelCount() {
+		synchronized (lock) {
+			return channels.size();
+		}
+	}
+
+	/**
+	 * Returns the number of control connections currently serviced by the
+	 * monitor thread.
+	 * 
+	 * @return The number of control connections currently serviced by the
+	 *         monitor thread.
+	 */
+	public int getParkedCount() {
+		Object[] aux;
+		synchronized (lock) {
+			aux = channels.toArray();
+		}
+		int count = 0;
+		for (int i = 0; i < aux.length; i++) {
+			if (((FTPCommunicationChannel) aux[i]).isParked()) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Closes the monitor. Every attached control connection goes back to
+	 * blocking mode, and the monitor thread stops. The clients keep working,
+	 * but their connections are no longer serviced while idle.
+	 */
+	public void close() {
+		Thread t;
+		synchronized (lock) {
+			if (closed) {
+				return;
+			}
+			closed = true;
+			t = thread;
+			if (selector != null) {
+				selector.wakeup();
+			}
+		}
+		if (t != null && t != Thread.currentThread()) {
+			boolean interrupted = false;
+			while (t.isAlive()) {
+				try {
+					t.join();
+				} catch (InterruptedException e) {
+					interrupted = true;
+				}
+			}
+			if (interrupted) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+	/**
+	 * Attaches a channel.
+	 * 
+	 * @param channel
+	 *            The channel.
+	 * @throws IOException
+	 *             If the selector can't be opened.
+	 */
+	void add(FTPCommunicationChannel channel) throws IOException {
+		synchronized (lock) {
+			if (closed) {
+				return;
+			}
+			if (selector == null) {
+				selector = Selector.open();
+				thread = new Thread() {
+					public void run() {
+						monitor();
+					}
+				};
+				thread.setName("ftp4j-idle-monitor");
+				thread.setDaemon(true);
+				thread.start();
+			}
+			channels.add(channel);
+		}
+	}
+
+	/**
+	 * Detaches a channel.
+	 * 
+	 * @param channel
+	 *            The channel.
+	 */
+	void remove(FTPCommunicationChannel channel) {
+		synchronized (lock) {
+			channels.remove(channel);
+		}
+	}
+
+	/**
+	 * Asks the monitor thread to give a parked channel back in blocking mode.
+	 * 
+	 * @param channel
+	 *            The channel.
+	 */
+	void requestUnpark(FTPCommunicationChannel channel) {
+		synchronized (lock) {
+			if (thread == null) {
+				// The selector has been closed, so the channel is no longer
+				// registered.
+				channel.completeUnpark();
+			} else {
+				unparkRequests.add(channel);
+				selector.wakeup();
+			}
+		}
+	}
+
+	/**
+	 * The body of the monitor thread.
+	 */
+	private void monitor() {
+		try {
+			while (true) {
+				Object[] unparks;
+				Object[] aux;
+				long delay;
+				synchronized (lock) {
+					if (closed) {
+						break;
+					}
+					unparks = unparkRequests.toArray();
+					unparkRequests.clear();
+					aux = channels.toArray();
+					delay = parkDelay;
+				}
+				// Gives back the requested channels. The selector has to flush
+				// the cancelled keys before the channels can block again.
+				if (unparks.length > 0) {
+					for (int i = 0; i < unparks.length; i++) {
+						((FTPCommunicationChannel) unparks[i]).cancelIdleKey();
+					}
+					selector.selectNow();
+					for (int i = 0; i < unparks.length; i++) {
+						((FTPCommunicationChannel) unparks[i]).completeUnpark();
+					}
+				}
+				// Parks the idle channels and keeps them alive.
+				long now = System.currentTimeMillis();
+				for (int i = 0; i < aux.length; i++) {
+					FTPCommunicationChannel channel = (FTPCommunicationChannel) aux[i];
+					try {
+						channel.park(selector, now, delay);
+						channel.idleNoop(now);
+					} catch (Throwable t) {
+						report(t);
+					}
+				}
+				// Waits for incoming data.
+				selector.select(TICK);
+				for (Iterator i = selector.selectedKeys().iterator(); i.hasNext();) {
+					SelectionKey key = (SelectionKey) i.next();
+					i.remove();
+					try {
+						if (key.isValid() && key.isReadable()) {
+							((FTPCommunicationChannel) key.attachment()).idleRead();
+						}
+					} catch (Throwable t) {
+						report(t);
+					}
+				}
+			}
+		} catch (Throwable t) {
+			// The selector is broken.
+			report(t);
+		} finally {
+			// Gives back every channel. Closing the selector cancels all the
+			// registrations.
+			synchronized (lock) {
+				closed = true;
+				try {
+					selector.close();
+				} catch (Throwable t) {
+					;
+				}
+				for (Iterator i = channels.iterator(); i.hasNext();) {
+					((FTPCommunicationChannel) i.next()).completeUnpark();
+				}
+				for (Iterator i = unparkRequests.iterator(); i.hasNext();) {
+					((FTPCommunicationChannel) i.next()).completeUnpark();
+				}
+				channels.clear();
+				unparkRequests.clear();
+				thread = null;
+			}
+		}
+	}
+
+	/**
+	 * Gives an unexpected error to the uncaught exception handler of the
+	 * monitor thread, without stopping it.
+	 * 
+	 * @param t
+	 *            The error.
+	 */
+	private void report(Throwable t) {
+		Thread current = Thread.currentThread();
+		try {
+			current.getUncaughtExceptionHandler().uncaughtException(current, t);
+		} catch (Throwable t2) {
+			;
+		}
+	}
+
+}
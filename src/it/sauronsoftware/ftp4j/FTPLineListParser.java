@@ -0,0 +1,50 @@
+/*
+ * ftp4j - A pure Java FTP client library
+ * 
+ * Copyright (C) 2008-2010 Carlo Pelliccia (www.sauronsoftware.it)
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License version
+ * 2.1, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License 2.1 for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License version 2.1 along with this program.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+package it.sauronsoftware.ftp4j;
+
+/**
+ * Implement this interface to build a LIST parser that can also work one line
+ * at a time. The streaming list() method of the client feeds the lines to the
+ * parser as soon as they are received from the server, so a listing can be
+ * parsed in constant memory. Parsers implementing only {@link FTPListParser}
+ * are still supported by the streaming method, but they receive the lines one
+ * by one in single-element arrays.
+ * 
+ * All the built-in parsers implement this interface.
+ * 
+ * @author Carlo Pelliccia
+ * @see FTPClient#list(String, FTPFileVisitor)
+ * @since 1.7
+ */
+public interface FTPLineListParser extends FTPListParser {
+
+	/**
+	 * Parses a single line of a LIST command response.
+	 * 
+	 * @param line
+	 *            The line to parse.
+	 * @return The FTPFile object represented by the line, or null if the line
+	 *         carries no entry and has to be ignored (a summary line, a
+	 *         reference to the current directory and so on).
+	 * @throws FTPListParseException
+	 *             If this parser cannot parse the given line.
+	 */
+	public FTPFile parseLine(String line) throws FTPListParseException;
+
+}
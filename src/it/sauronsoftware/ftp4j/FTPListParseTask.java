@@ -0,0 +1,136 @@
+/*
+ * ftp4j - A pure Java FTP client library
+ * 
+ * Copyright (C) 2008-2010 Carlo Pelliccia (www.sauronsoftware.it)
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License version
+ * 2.1, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License 2.1 for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License version 2.1 along with this program.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+package it.sauronsoftware.ftp4j;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * A fork-join task parsing a range of the lines of a LIST or MLSD response
+ * with a {@link FTPLineListParser}. Ranges larger than the chunk size are
+ * split in halves and parsed in parallel, and the results are joined back in
+ * the lines order.
+ * 
+ * @author Carlo Pelliccia
+ * @since 1.7
+ */
+class FTPListParseTask extends RecursiveTask<FTPFile[]> {
+
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * Parses the given lines on a fork-join pool.
+	 * 
+	 * @param pool
+	 *            The pool.
+	 * @param parser
+	 *            The parser. It must be safe for concurrent use.
+	 * @param lines
+	 *            The lines.
+	 * @param chunkSize
+	 *            The max number of lines parsed by a single task.
+	 * @return The parsed entries, in the lines order, skipping the lines
+	 *         without an entry.
+	 * @throws FTPListParseException
+	 *             If the parser cannot handle any of the lines.
+	 */
+	public static FTPFile[] parse(ForkJoinPool pool, FTPLineListParser parser,
+			String[] lines, int chunkSize) throws FTPListParseException {
+		try {
+			return pool.invoke(new FTPListParseTask(parser, lines, 0,
+					lines.length, chunkSize));
+		} catch (ParseFailure e) {
+			throw new FTPListParseException();
+		} catch (RuntimeException e) {
+			// The pool can rethrow a copy of the exception of another thread.
+			if (e.getCause() instanceof ParseFailure) {
+				throw new FTPListParseException();
+			}
+			throw e;
+		}
+	}
+
+	/**
+	 * Carries a FTPListParseException out of the compute() method.
+	 */
+	private static class ParseFailure extends RuntimeException {
+
+		private static final long serialVersionUID = 1L;
+
+	}
+
+	private final FTPLineListParser parser;
+
+	private final String[] lines;
+
+	private final int from;
+
+	private final int to;
+
+	private final int chunkSize;
+
+	private FTPListParseTask(FTPLineListParser parser, String[] lines,
+			int from, int to, int chunkSize) {
+		this.parser = parser;
+		this.lines = lines;
+		this.from = from;
+		this.to = to;
+		this.chunkSize = chunkSize;
+	}
+
+	protected FTPFile[] compute() {
+		if (to - from <= chunkSize) {
+			return parseRange();
+		}
+		int middle = (from + to) >>> 1;
+		FTPListParseTask left = new FTPListParseTask(parser, lines, from,
+				middle, chunkSize);
+		FTPListParseTask right = new FTPListParseTask(parser, lines, middle,
+				to, chunkSize);
+		left.fork();
+		FTPFile[] b = right.compute();
+		FTPFile[] a = left.join();
+		FTPFile[] ret = new FTPFile[a.length + b.length];
+		System.arraycopy(a, 0, ret, 0, a.length);
+		System.arraycopy(b, 0, ret, a.length, b.length);
+		return ret;
+	}
+
+	private FTPFile[] parseRange() {
+		FTPFile[] files = new FTPFile[to - from];
+		int count = 0;
+		try {
+			for (int i = from; i < to; i++) {
+				FTPFile file = parser.parseLine(lines[i]);
+				if (file != null) {
+					files[count++] = file;
+				}
+			}
+		} catch (FTPListParseException e) {
+			throw new ParseFailure();
+		}
+		if (count == files.length) {
+			return files;
+		}
+		FTPFile[] ret = new FTPFile[count];
+		System.arraycopy(files, 0, ret, 0, count);
+		return ret;
+	}
+
+}
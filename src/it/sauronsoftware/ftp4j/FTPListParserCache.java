@@ -0,0 +1,95 @@
+/*
+ * ftp4j - A pure Java FTP client library
+ * 
+ * Copyright (C) 2008-2010 Carlo Pelliccia (www.sauronsoftware.it)
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License version
+ * 2.1, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License 2.1 for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License version 2.1 along with this program.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+package it.sauronsoftware.ftp4j;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A process-wide cache of the list parsers detected for the servers. The
+ * cache is keyed by server address and system type (the reply to the SYST
+ * command), and remembers the class of the parser that handled the server
+ * listings, so a new session with the same server can skip the detection.
+ * 
+ * The least recently used entries are evicted when the cache is full.
+ * 
+ * @author Carlo Pelliccia
+ * @since 1.7
+ */
+class FTPListParserCache {
+
+	/**
+	 * The max number of cached servers.
+	 */
+	private static final int MAX_ENTRIES = 256;
+
+	/**
+	 * The cached parser classes.
+	 */
+	private static final Map<String, Class<?>> parsers = new LinkedHashMap<String, Class<?>>(
+			16, 0.75f, true) {
+
+		private static final long serialVersionUID = 1L;
+
+		protected boolean removeEldestEntry(Map.Entry<String, Class<?>> eldest) {
+			return size() > MAX_ENTRIES;
+		}
+
+	};
+
+	/**
+	 * Returns the class of the parser detected for a server.
+	 * 
+	 * @param key
+	 *            The server key.
+	 * @return The parser class, or null if the server is not cached.
+	 */
+	public static Class<?> get(String key) {
+		synchronized (parsers) {
+			return parsers.get(key);
+		}
+	}
+
+	/**
+	 * Remembers the class of the parser detected for a server.
+	 * 
+	 * @param key
+	 *            The server key.
+	 * @param parserClass
+	 *            The parser class.
+	 */
+	public static void put(String key, Class<?> parserClass) {
+		synchronized (parsers) {
+			parsers.put(key, parserClass);
+		}
+	}
+
+	/**
+	 * Forgets the parser detected for a server.
+	 * 
+	 * @param key
+	 *            The server key.
+	 */
+	public static void remove(String key) {
+		synchronized (parsers) {
+			parsers.remove(key);
+		}
+	}
+
+}
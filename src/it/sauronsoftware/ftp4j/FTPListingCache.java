@@ -0,0 +1,428 @@
+/*
+ * ftp4j - A pure Java FTP client library
+ * 
+ * Copyright (C) 2008-2010 Carlo Pelliccia (www.sauronsoftware.it)
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License version
+ * 2.1, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License 2.1 for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License version 2.1 along with this program.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+package it.sauronsoftware.ftp4j;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A cache of the listings and of the file metadata returned by a server.
+ * Once set on a client with {@link FTPClient#setListingCache(FTPListingCache)},
+ * the results of the {@link FTPClient#list(String)}, {@link FTPClient#list()},
+ * {@link FTPClient#listNames()}, {@link FTPClient#fileSize(String)} and
+ * {@link FTPClient#modifiedDate(String)} methods are remembered, and the
+ * same request repeated before the entry expires is answered without asking
+ * the server again.
+ * 
+ * The entries are keyed by server, user and absolute remote path, so a cache
+ * can be shared by many clients. Every entry expires after the time to live
+ * given to the constructor. When the cache is full the least recently used
+ * entry is evicted.
+ * 
+ * The entries of a path are invalidated when it is changed through a client
+ * using the cache, with the upload(), append(), deleteFile(),
+ * deleteDirectory(), rename() and createDirectory() methods, or with a
+ * pipeline. The listings of its parent directory and of its sub-directories
+ * are invalidated too. Changes made by other programs are not seen until the
+ * entries expire.
+ * 
+ * The hit, miss and eviction counters help tuning the size and the time to
+ * live of the cache.
+ * 
+ * @author Carlo Pelliccia
+ * @since 1.7
+ * @see FTPClient#setListingCache(FTPListingCache)
+ */
+public class FTPListingCache {
+
+	/**
+	 * The max number of entries.
+	 */
+	private int maxEntries;
+
+	/**
+	 * The time to live of an entry, in milliseconds.
+	 */
+	private long timeToLive;
+
+	/**
+	 * The entries, in access order.
+	 */
+	private LinkedHashMap<String, CacheEntry> entries;
+
+	/**
+	 * The number of requests answered by the cache.
+	 */
+	private long hitCount = 0;
+
+	/**
+	 * The number of requests not answered by the cache.
+	 */
+	private long missCount = 0;
+
+	/**
+	 * The number of entries evicted because the cache was full.
+	 */
+	private long evictionCount = 0;
+
+	/**
+	 * Builds the cache.
+	 * 
+	 * @param maxEntries
+	 *            The max number of entries.
+	 * @param timeToLive
+	 *            The time to live of an entry, in milliseconds.
+	 * @throws IllegalArgumentException
+	 *             If a value is less than 1.
+	 */
+	public FTPListingCache(int maxEntries, long timeToLive)
+			throws IllegalArgumentException {
+		if (maxEntries < 1) {
+			throw new IllegalArgumentException("Invalid max entries");
+		}
+		if (timeToLive < 1) {
+			throw new IllegalArgumentException("Invalid time to live");
+		}
+		this.maxEntries = maxEntries;
+		this.timeToLive = timeToLive;
+		this.entries = new LinkedHashMap<String, CacheEntry>(16, 0.75f,
+				true) {
+
+			private static final long serialVersionUID = 1L;
+
+			protected boolean removeEldestEntry(
+					Map.Entry<String, CacheEntry> eldest) {
+				if (size() > FTPListingCache.this.maxEntries) {
+					evictionCount++;
+					return true;
+				} else {
+					return false;
+				}
+			}
+
+		};
+	}
+
+	/**
+	 * Returns the max number of entries.
+	 * 
+	 * @return The max number of entries.
+	 */
+	public int getMaxEntries() {
+		return maxEntries;
+	}
+
+	/**
+	 * Returns the time to live of an entry.
+	 * 
+	 * @return The time to live of an entry, in milliseconds.
+	 */
+	public long getTimeToLive() {
+		return timeToLive;
+	}
+
+	/**
+	 * Returns the number of entries in the cache. Expired entries not yet
+	 * removed are counted too.
+	 * 
+	 * @return The number of entries in the cache.
+	 */
+	public int size() {
+		synchronized (entries) {
+			return entries.size();
+		}
+	}
+
+	/**
+	 * Returns the number of requests answered by the cache.
+	 * 
+	 * @return The number of requests answered by the cache.
+	 */
+	public long getHitCount() {
+		synchronized (entries) {
+			return hitCount;
+		}
+	}
+
+	/**
+	 * Returns the number of requests not answered by the cache, because their
+	 * entries were missing, expired or invalidated.
+	 * 
+	 * @return The number of requests not answered by the cache.
+	 */
+	public long getMissCount() {
+		synchronized (entries) {
+			return missCount;
+		}
+	}
+
+	/**
+	 * Returns the number of entries evicted because the cache was full. A
+	 * high value suggests a bigger cache.
+	 * 
+	 * @return The number of entries evicted because the cache was full.
+	 */
+	public long getEvictionCount() {
+		synchronized (entries) {
+			return evictionCount;
+		}
+	}
+
+	/**
+	 * Removes all the entries. The counters are not reset.
+	 */
+	public void clear() {
+		synchronized (entries) {
+			entries.clear();
+		}
+	}
+
+	/**
+	 * Resets the hit, miss and eviction counters.
+	 */
+	public void resetCounters() {
+		synchronized (entries) {
+			hitCount = 0;
+			missCount = 0;
+			evictionCount = 0;
+		}
+	}
+
+	/**
+	 * Returns a cached value.
+	 * 
+	 * @param server
+	 *            The server key.
+	 * @param command
+	 *            The command whose result is cached.
+	 * @param path
+	 *            The absolute path of the command target.
+	 * @return The value, or null if it's not cached or expired.
+	 */
+	Object get(String server, String command, String path) {
+		String key = server + " " + command + " " + path;
+		synchronized (entries) {
+			CacheEntry entry = entries.get(key);
+			if (entry != null
+					&& entry.expires - System.currentTimeMillis() <= 0) {
+				entries.remove(key);
+				entry = null;
+			}
+			if (entry == null) {
+				missCount++;
+				return null;
+			} else {
+				hitCount++;
+				return entry.value;
+			}
+		}
+	}
+
+	/**
+	 * Caches a value.
+	 * 
+	 * @param server
+	 *            The server key.
+	 * @param command
+	 *            The command whose result is cached.
+	 * @param path
+	 *            The absolute path of the command target.
+	 * @param listing
+	 *            True if the value is a listing.
+	 * @param value
+	 *            The value.
+	 */
+	void put(String server, String command, String path, boolean listing,
+			Object value) {
+		CacheEntry entry = new CacheEntry();
+		entry.server = server;
+		entry.path = path;
+		entry.listing = listing;
+		entry.value = value;
+		entry.expires = System.currentTimeMillis() + timeToLive;
+		synchronized (entries) {
+			entries.put(server + " " + command + " " + path, entry);
+		}
+	}
+
+	/**
+	 * Invalidates the entries affected by a change of a remote path: the
+	 * entries of the path itself and of everything under it, and the
+	 * listings of its parent directory.
+	 * 
+	 * @param server
+	 *            The server key.
+	 * @param path
+	 *            The absolute changed path.
+	 */
+	void invalidate(String server, String path) {
+		String parent = parent(path);
+		synchronized (entries) {
+			for (Iterator<Map.Entry<String, CacheEntry>> i = entries.entrySet()
+					.iterator(); i.hasNext();) {
+				CacheEntry entry = i.next().getValue();
+				if (!entry.server.equals(server)) {
+					continue;
+				}
+				boolean affected = entry.path.equals(path)
+						|| isUnder(entry.path, path);
+				if (!affected && entry.listing) {
+					affected = entry.path.equals(parent)
+							|| parent.equals(parent(entry.path));
+				}
+				if (affected) {
+					i.remove();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Resolves a remote path against a directory, removing the "." and ".."
+	 * segments.
+	 * 
+	 * @param directory
+	 *            The absolute directory.
+	 * @param path
+	 *            The path, absolute or relative to the directory. Could be
+	 *            null, meaning the directory itself.
+	 * @return The absolute path.
+	 */
+	static String resolve(String directory, String path) {
+		String aux;
+		if (path == null || path.length() == 0) {
+			aux = directory;
+		} else if (path.charAt(0) == '/') {
+			aux = path;
+		} else {
+			aux = directory + "/" + path;
+		}
+		ArrayList<String> segments = new ArrayList<String>();
+		int start = 0;
+		int length = aux.length();
+		while (start <= length) {
+			int end = aux.indexOf('/', start);
+			if (end == -1) {
+				end = length;
+			}
+			String segment = aux.substring(start, end);
+			if (segment.equals("..")) {
+				if (segments.size() > 0) {
+					segments.remove(segments.size() - 1);
+				}
+			} else if (segment.length() > 0 && !segment.equals(".")) {
+				segments.add(segment);
+			}
+			start = end + 1;
+		}
+		StringBuffer buffer = new StringBuffer();
+		for (int i = 0; i < segments.size(); i++) {
+			buffer.append('/');
+			buffer.append(segments.get(i));
+		}
+		return buffer.length() > 0 ? buffer.toString() : "/";
+	}
+
+	/**
+	 * Returns the parent of an absolute path resolved with
+	 * {@link FTPListingCache#resolve(String, String)}.
+	 * 
+	 * @param path
+	 *            The path.
+	 * @return The parent path ("/" is the parent of itself).
+	 */
+	static String parent(String path) {
+		int index = path.lastIndexOf('/');
+		return index > 0 ? path.substring(0, index) : "/";
+	}
+
+	/**
+	 * Checks if a path is under a directory.
+	 * 
+	 * @param path
+	 *            The absolute path.
+	 * @param directory
+	 *            The absolute directory.
+	 * @return true if the path is under the directory.
+	 */
+	private static boolean isUnder(String path, String directory) {
+		if (directory.equals("/")) {
+			return !path.equals("/");
+		}
+		return path.length() > directory.length()
+				&& path.charAt(directory.length()) == '/'
+				&& path.startsWith(directory);
+	}
+
+	public String toString() {
+		StringBuffer buffer = new StringBuffer();
+		synchronized (entries) {
+			buffer.append(getClass().getName());
+			buffer.append(" [maxEntries=");
+			buffer.append(maxEntries);
+			buffer.append(", timeToLive=");
+			buffer.append(timeToLive);
+			buffer.append(", size=");
+			buffer.append(entries.size());
+			buffer.append(", hitCount=");
+			buffer.append(hitCount);
+			buffer.append(", missCount=");
+			buffer.append(missCount);
+			buffer.append(", evictionCount=");
+			buffer.append(evictionCount);
+			buffer.append("]");
+		}
+		return buffer.toString();
+	}
+
+	/**
+	 * A cache entry.
+	 */
+	private static class CacheEntry {
+
+		/**
+		 * The server key.
+		 */
+		private String server;
+
+		/**
+		 * The absolute path of the command target.
+		 */
+		private String path;
+
+		/**
+		 * True if the value is a listing.
+		 */
+		private boolean listing;
+
+		/**
+		 * The cached value.
+		 */
+		private Object value;
+
+		/**
+		 * The expiration time.
+		 */
+		private long expires;
+
+	}
+
+}
@@ -0,0 +1,252 @@
+/*
+ * ftp4j - A pure Java FTP client library
+ * 
+ * Copyright (C) 2008-2010 Carlo Pelliccia (www.sauronsoftware.it)
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License version
+ * 2.1, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License 2.1 for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License version 2.1 along with this program.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+package it.sauronsoftware.ftp4j;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Date;
+
+/**
+ * This class collects a burst of metadata operations, and executes them
+ * pipelining their commands on the communication channel.
+ * 
+ * A plain call like {@link FTPClient#fileSize(String)} sends a command and
+ * then waits for its reply, so checking N files costs N round trips. A
+ * pipeline writes many commands at once and then reads their replies in
+ * order, paying roughly a single round trip for every window of commands.
+ * 
+ * <pre>
+ * FTPPipeline pipeline = client.pipeline();
+ * for (int i = 0; i &lt; names.length; i++) {
+ * 	pipeline.fileSize(names[i]);
+ * }
+ * FTPPipelineResult[] results = pipeline.execute();
+ * </pre>
+ * 
+ * The number of commands sent ahead of their replies is bounded by the
+ * pipeline window, which defaults to {@link FTPClient#getPipelineWindow()}.
+ * Some servers don't tolerate pipelined commands: for them use a window of 1,
+ * which executes the operations serially.
+ * 
+ * A failed operation doesn't stop the pipeline: every operation gets its own
+ * {@link FTPPipelineResult}.
+ * 
+ * @author Carlo Pelliccia
+ * @see FTPClient#pipeline()
+ * @since 1.7
+ */
+public class FTPPipeline {
+
+	/**
+	 * The client executing the pipeline.
+	 */
+	private FTPClient client;
+
+	/**
+	 * The queued operations, as {command, path, newPath} arrays.
+	 */
+	private ArrayList operations = new ArrayList();
+
+	/**
+	 * The max number of commands sent ahead of their replies.
+	 */
+	private int window;
+
+	/**
+	 * Builds the pipeline.
+	 * 
+	 * @param client
+	 *            The client executing the pipeline.
+	 * @param window
+	 *            The max number of commands sent ahead of their replies.
+	 */
+	FTPPipeline(FTPClient client, int window) {
+		this.client = client;
+		this.window = window;
+	}
+
+	/**
+	 * Returns the max number of commands sent ahead of their replies.
+	 * 
+	 * @return The max number of commands sent ahead of their replies.
+	 */
+	public int getWindow() {
+		return window;
+	}
+
+	/**
+	 * Sets the max number of commands sent ahead of their replies. A value of
+	 * 1 disables the pipelining: every command is sent after the reply to the
+	 * previous one.
+	 * 
+	 * @param window
+	 *            The max number of commands sent ahead of their replies.
+	 * @return This pipeline.
+	 * @throws IllegalArgumentException
+	 *             If the value is less than 1.
+	 */
+	public FTPPipeline setWindow(int window) throws IllegalArgumentException {
+		if (window < 1) {
+			throw new IllegalArgumentException("Invalid window");
+		}
+		this.window = window;
+		return this;
+	}
+
+	/**
+	 * Queues a SIZE command. The size will be available through
+	 * {@link FTPPipelineResult#getSize()}.
+	 * 
+	 * @param path
+	 *            The path to the file.
+	 * @return This pipeline.
+	 */
+	public FTPPipeline fileSize(String path) {
+		operations.add(new String[] { "SIZE", path, null });
+		return this;
+	}
+
+	/**
+	 * Queues a MDTM command. The date will be available through
+	 * {@link FTPPipelineResult#getModifiedDate()}.
+	 * 
+	 * @param path
+	 *            The path to the file or the directory.
+	 * @return This pipeline.
+	 */
+	public FTPPipeline modifiedDate(String path) {
+		operations.add(new String[] { "MDTM", path, null });
+		return this;
+	}
+
+	/**
+	 * Queues a DELE command.
+	 * 
+	 * @param path
+	 *            The path to the file.
+	 * @return This pipeline.
+	 */
+	public FTPPipeline deleteFile(String path) {
+		operations.add(new String[] { "DELE", path, null });
+		return this;
+	}
+
+	/**
+	 * Queues a RNFR and RNTO command pair. The RNTO command is pipelined too,
+	 * so it reaches the server even if RNFR fails: in this case the server
+	 * rejects it, and the result of the operation reports the RNFR reply.
+	 * 
+	 * @param oldPath
+	 *            The current path of the file (or directory).
+	 * @param newPath
+	 *            The new path for the file (or directory).
+	 * @return This pipeline.
+	 */
+	public FTPPipeline rename(String oldPath, String newPath) {
+		operations.add(new String[] { "RNFR", oldPath, newPath });
+		return this;
+	}
+
+	/**
+	 * Queues a MKD command.
+	 * 
+	 * @param directoryName
+	 *            The name of the new directory.
+	 * @return This pipeline.
+	 */
+	public FTPPipeline createDirectory(String directoryName) {
+		operations.add(new String[] { "MKD", directoryName, null });
+		return this;
+	}
+
+	/**
+	 * Returns the number of queued operations.
+	 * 
+	 * @return The number of queued operations.
+	 */
+	public int size() {
+		return operations.size();
+	}
+
+	/**
+	 * Executes the queued operations, in the order they have been queued, and
+	 * empties the queue.
+	 * 
+	 * @return The results of the operations, in the same order.
+	 * @throws IllegalStateException
+	 *             If the client is not connected or not authenticated.
+	 * @throws IOException
+	 *             If an I/O error occurs.
+	 * @throws FTPIllegalReplyException
+	 *             If the server replies in an illegal way.
+	 */
+	public FTPPipelineResult[] execute() throws IllegalStateException,
+			IOException, FTPIllegalReplyException {
+		int size = operations.size();
+		ArrayList commands = new ArrayList();
+		for (int i = 0; i < size; i++) {
+			String[] op = (String[]) operations.get(i);
+			commands.add(op[0] + " " + op[1]);
+			if (op[2] != null) {
+				commands.add("RNTO " + op[2]);
+			}
+		}
+		String[] c = new String[commands.size()];
+		for (int i = 0; i < c.length; i++) {
+			c[i] = (String) commands.get(i);
+		}
+		FTPReply[] replies = client.sendPipelinedCommands(c, window);
+		FTPPipelineResult[] ret = new FTPPipelineResult[size];
+		int k = 0;
+		for (int i = 0; i < size; i++) {
+			String[] op = (String[]) operations.get(i);
+			String command = op[0];
+			FTPReply r = replies[k++];
+			boolean successful = r.isSuccessCode();
+			long fileSize = -1;
+			Date modifiedDate = null;
+			if (command.equals("RNFR")) {
+				FTPReply r2 = replies[k++];
+				if (r.getCode() == 350) {
+					r = r2;
+					successful = r2.isSuccessCode();
+				} else {
+					successful = false;
+				}
+			} else if (successful && command.equals("SIZE")) {
+				try {
+					fileSize = FTPClient.parseSizeReply(r);
+				} catch (FTPIllegalReplyException e) {
+					successful = false;
+				}
+			} else if (successful && command.equals("MDTM")) {
+				try {
+					modifiedDate = FTPClient.parseModifiedDateReply(r);
+				} catch (FTPIllegalReplyException e) {
+					successful = false;
+				}
+			}
+			ret[i] = new FTPPipelineResult(command, op[1], r, successful,
+					fileSize, modifiedDate);
+		}
+		operations.clear();
+		return ret;
+	}
+
+}
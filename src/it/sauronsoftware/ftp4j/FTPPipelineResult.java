@@ -0,0 +1,160 @@
+/*
+ * ftp4j - A pure Java FTP client library
+ * 
+ * Copyright (C) 2008-2010 Carlo Pelliccia (www.sauronsoftware.it)
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License version
+ * 2.1, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License 2.1 for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License version 2.1 along with this program.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+package it.sauronsoftware.ftp4j;
+
+import java.util.Date;
+
+/**
+ * This class represents the result of an operation executed in a
+ * {@link FTPPipeline}.
+ * 
+ * @author Carlo Pelliccia
+ * @see FTPPipeline#execute()
+ * @since 1.7
+ */
+public class FTPPipelineResult {
+
+	/**
+	 * The command of the operation.
+	 */
+	private String command;
+
+	/**
+	 * The path the operation has been applied to.
+	 */
+	private String path;
+
+	/**
+	 * The reply to the operation.
+	 */
+	private FTPReply reply;
+
+	/**
+	 * Has the operation been successful?
+	 */
+	private boolean successful;
+
+	/**
+	 * The size returned by a SIZE operation, -1 otherwise.
+	 */
+	private long size;
+
+	/**
+	 * The date returned by a MDTM operation, null otherwise.
+	 */
+	private Date modifiedDate;
+
+	/**
+	 * Builds the result.
+	 */
+	FTPPipelineResult(String command, String path, FTPReply reply,
+			boolean successful, long size, Date modifiedDate) {
+		this.command = command;
+		this.path = path;
+		this.reply = reply;
+		this.successful = successful;
+		this.size = size;
+		this.modifiedDate = modifiedDate;
+	}
+
+	/**
+	 * Returns the command of the operation: SIZE, MDTM, DELE, RNFR (for a
+	 * rename) or MKD.
+	 * 
+	 * @return The command of the operation.
+	 */
+	public String getCommand() {
+		return command;
+	}
+
+	/**
+	 * Returns the path the operation has been applied to. For a rename, it is
+	 * the old path.
+	 * 
+	 * @return The path the operation has been applied to.
+	 */
+	public String getPath() {
+		return path;
+	}
+
+	/**
+	 * Returns the reply to the operation. For a rename, it is the RNTO reply
+	 * if RNFR succeeded, the RNFR reply otherwise.
+	 * 
+	 * @return The reply to the operation.
+	 */
+	public FTPReply getReply() {
+		return reply;
+	}
+
+	/**
+	 * Checks whether the operation has been successful.
+	 * 
+	 * @return true if the operation has been successful.
+	 */
+	public boolean isSuccessful() {
+		return successful;
+	}
+
+	/**
+	 * Returns the file size returned by a successful SIZE operation.
+	 * 
+	 * @return The file size in bytes, or -1 if not available.
+	 */
+	public long getSize() {
+		return size;
+	}
+
+	/**
+	 * Returns the date returned by a successful MDTM operation.
+	 * 
+	 * @return The last modification date, or null if not available.
+	 */
+	public Date getModifiedDate() {
+		return modifiedDate;
+	}
+
+	/**
+	 * Throws a {@link FTPException} if the operation failed.
+	 * 
+	 * @throws FTPException
+	 *             If the operation failed.
+	 */
+	public void check() throws FTPException {
+		if (!successful) {
+			throw new FTPException(reply);
+		}
+	}
+
+	public String toString() {
+		StringBuffer buffer = new StringBuffer();
+		buffer.append(getClass().getName());
+		buffer.append(" [command=");
+		buffer.append(command);
+		buffer.append(", path=");
+		buffer.append(path);
+		buffer.append(", successful=");
+		buffer.append(successful);
+		buffer.append(", reply=");
+		buffer.append(reply);
+		buffer.append("]");
+		return buffer.toString();
+	}
+
+}
@@ -0,0 +1,64 @@
+/*
+ * ftp4j - A pure Java FTP client library
+ * 
+ * Copyright (C) 2008-2010 Carlo Pelliccia (www.sauronsoftware.it)
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License version
+ * 2.1, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License 2.1 for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License version 2.1 along with this program.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+package it.sauronsoftware.ftp4j;
+
+import java.net.Socket;
+
+/**
+ * <p>
+ * A connected socket seen through another remote port.
+ * </p>
+ * 
+ * <p>
+ * SSL client session caches are keyed with the remote host and port of the
+ * connection. A data transfer connection reaches the server on a port other
+ * than the one of the communication channel, so a session established on the
+ * latter would never be offered for resumption. Layering the SSL socket over
+ * this wrapper, which reports the port of the communication channel, makes the
+ * cache lookup hit. Every other call is delegated to the wrapped socket.
+ * </p>
+ * 
+ * @author Carlo Pelliccia
+ * @since 1.7
+ */
+class FTPPortAliasSocket extends FTPSocketWrapper {
+
+	/**
+	 * The reported remote port.
+	 */
+	private int port;
+
+	/**
+	 * Builds the wrapper.
+	 * 
+	 * @param socket
+	 *            The connected socket.
+	 * @param port
+	 *            The remote port to report.
+	 */
+	public FTPPortAliasSocket(Socket socket, int port) {
+		super(socket);
+		this.port = port;
+	}
+
+	public int getPort() {
+		return port;
+	}
+
+}
@@ -0,0 +1,315 @@
+/*
+ * ftp4j - A pure Java FTP client library
+ * 
+ * Copyright (C) 2008-2010 Carlo Pelliccia (www.sauronsoftware.it)
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License version
+ * 2.1, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License 2.1 for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License version 2.1 along with this program.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+package it.sauronsoftware.ftp4j;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Iterator;
+
+/**
+ * This class decodes FTP replies from the raw bytes received on a control
+ * connection.
+ * 
+ * The decoder is a small state machine working directly on the bytes of a
+ * heap {@link ByteBuffer}: lines are framed scanning the buffer array, the
+ * NVT-ASCII conventions are applied on the fly and the reply code is computed
+ * from the first three bytes, so no intermediate string is built for it. Only
+ * the message of every line is decoded with the charset.
+ * 
+ * The decoder keeps its state between calls, so a reply can be split across
+ * any number of buffers. This allows its use both with blocking streams and
+ * with non-blocking channels.
+ * 
+ * The charset has to be ASCII-compatible, as every charset used on FTP control
+ * connections is.
+ * 
+ * @author Carlo Pelliccia
+ * @since 1.7
+ */
+class FTPReplyDecoder {
+
+	/**
+	 * The system line separator, used to replace the NVT literal new lines.
+	 */
+	private static final byte[] SYSTEM_LINE_SEPARATOR = System.getProperty(
+			"line.separator").getBytes();
+
+	/**
+	 * The name of the charset used to decode the messages.
+	 */
+	private String charsetName;
+
+	/**
+	 * The FTPCommunicationListener objects notified with every line.
+	 */
+	private ArrayList communicationListeners;
+
+	/**
+	 * The bytes of the current line.
+	 */
+	private byte[] line = new byte[128];
+
+	/**
+	 * The number of bytes in the current line.
+	 */
+	private int lineLength = 0;
+
+	/**
+	 * Was the last byte a carriage return?
+	 */
+	private boolean cr = false;
+
+	/**
+	 * The code of the reply being decoded, 0 before its first line.
+	 */
+	private int code = 0;
+
+	/**
+	 * The messages of the reply being decoded.
+	 */
+	private ArrayList messages = new ArrayList();
+
+	/**
+	 * Builds the decoder.
+	 * 
+	 * @param charsetName
+	 *            The name of the charset used to decode the messages.
+	 * @param communicationListeners
+	 *            The FTPCommunicationListener objects notified with every
+	 *            line. The list is not copied.
+	 */
+	public FTPReplyDecoder(String charsetName, ArrayList communicationListeners) {
+		this.charsetName = charsetName;
+		this.communicationListeners = communicationListeners;
+	}
+
+	/**
+	 * Changes the charset used to decode the messages. The bytes already
+	 * buffered and not yet decoded will be decoded with the new charset.
+	 * 
+	 * @param charsetName
+	 *            The name of the new charset.
+	 */
+	public void changeCharset(String charsetName) {
+		this.charsetName = charsetName;
+	}
+
+	/**
+	 * Discards any partially decoded reply.
+	 */
+	public void reset() {
+		lineLength = 0;
+		cr = false;
+		code = 0;
+		messages.clear();
+	}
+
+	/**
+	 * Decodes bytes from the given heap buffer, until a reply is complete or
+	 * the buffer is exhausted. The buffer position is moved after the last
+	 * consumed byte.
+	 * 
+	 * @param buffer
+	 *            The buffer, in read mode. It must be backed by an array.
+	 * @return The decoded reply, or null if more bytes are needed.
+	 * @throws IOException
+	 *             If the charset is not supported.
+	 * @throws FTPIllegalReplyException
+	 *             If the server doesn't reply in a FTP-compliant way. The
+	 *             malformed reply is discarded.
+	 */
+	public FTPReply decode(ByteBuffer buffer) throws IOException,
+			FTPIllegalReplyException {
+		byte[] a = buffer.array();
+		int offset = buffer.arrayOffset();
+		int p = offset + buffer.position();
+		int end = offset + buffer.limit();
+		try {
+			while (p < end) {
+				byte b = a[p];
+				if (b == '\n') {
+					// End of line.
+					p++;
+					cr = false;
+					FTPReply reply = endLine();
+					if (reply != null) {
+						return reply;
+					}
+				} else if (b == '\r') {
+					p++;
+					cr = true;
+				} else if (b == 0) {
+					p++;
+					if (cr) {
+						// Literal new line.
+						append(SYSTEM_LINE_SEPARATOR, 0,
+								SYSTEM_LINE_SEPARATOR.length);
+					}
+					cr = false;
+				} else {
+					// Copies the whole run of plain bytes.
+					int q = p + 1;
+					while (q < end) {
+						b = a[q];
+						if (b == '\n' || b == '\r' || b == 0) {
+							break;
+						}
+						q++;
+					}
+					append(a, p, q - p);
+					p = q;
+					cr = false;
+				}
+			}
+			return null;
+		} finally {
+			buffer.position(p - offset);
+		}
+	}
+
+	/**
+	 * Completes the decoding when the end of the stream has been reached,
+	 * handling a last line without terminator.
+	 * 
+	 * @return The decoded reply, or null if there isn't a complete one.
+	 * @throws IOException
+	 *             If the charset is not supported.
+	 * @throws FTPIllegalReplyException
+	 *             If the server doesn't reply in a FTP-compliant way.
+	 */
+	public FTPReply finish() throws IOException, FTPIllegalReplyException {
+		if (lineLength > 0) {
+			return endLine();
+		} else {
+			return null;
+		}
+	}
+
+	/**
+	 * Appends some bytes to the current line.
+	 */
+	private void append(byte[] b, int off, int len) {
+		int required = lineLength + len;
+		if (required > line.length) {
+			int size = line.length * 2;
+			if (size < required) {
+				size = required;
+			}
+			byte[] aux = new byte[size];
+			System.arraycopy(line, 0, aux, 0, lineLength);
+			line = aux;
+		}
+		System.arraycopy(b, off, line, lineLength, len);
+		lineLength = required;
+	}
+
+	/**
+	 * Processes the current line, which has just been terminated.
+	 * 
+	 * @return The reply, if the line completes it, null otherwise.
+	 */
+	private FTPReply endLine() throws IOException, FTPIllegalReplyException {
+		int l = lineLength;
+		lineLength = 0;
+		// Notifies the listeners.
+		String statement = null;
+		if (communicationListeners.size() > 0) {
+			statement = new String(line, 0, l, charsetName);
+			for (Iterator i = communicationListeners.iterator(); i.hasNext();) {
+				FTPCommunicationListener listener = (FTPCommunicationListener) i.next();
+				listener.received(statement);
+			}
+		}
+		// Skips blank lines.
+		boolean blank = true;
+		for (int i = 0; i < l; i++) {
+			if ((line[i] & 0xff) > ' ') {
+				blank = false;
+				break;
+			}
+		}
+		if (blank) {
+			return null;
+		}
+		// The reply code.
+		int aux = 0;
+		if (l >= 3) {
+			int d0 = line[0] - '0';
+			int d1 = line[1] - '0';
+			int d2 = line[2] - '0';
+			if (d0 >= 0 && d0 <= 9 && d1 >= 0 && d1 <= 9 && d2 >= 0 && d2 <= 9) {
+				aux = d0 * 100 + d1 * 10 + d2;
+			}
+		}
+		if (code == 0 && aux == 0) {
+			reset();
+			throw new FTPIllegalReplyException();
+		}
+		if (code != 0 && aux != 0 && aux != code) {
+			reset();
+			throw new FTPIllegalReplyException();
+		}
+		if (code == 0) {
+			code = aux;
+		}
+		if (aux > 0) {
+			if (l > 3) {
+				byte s = line[3];
+				if (statement != null) {
+					messages.add(statement.substring(4));
+				} else {
+					messages.add(new String(line, 4, l - 4, charsetName));
+				}
+				if (s == ' ') {
+					return complete();
+				} else if (s == '-') {
+					return null;
+				} else {
+					reset();
+					throw new FTPIllegalReplyException();
+				}
+			} else {
+				return complete();
+			}
+		} else {
+			if (statement == null) {
+				statement = new String(line, 0, l, charsetName);
+			}
+			messages.add(statement);
+			return null;
+		}
+	}
+
+	/**
+	 * Builds the decoded reply and resets the state of the decoder.
+	 */
+	private FTPReply complete() {
+		int size = messages.size();
+		String[] m = new String[size];
+		for (int i = 0; i < size; i++) {
+			m[i] = (String) messages.get(i);
+		}
+		FTPReply reply = new FTPReply(code, m);
+		code = 0;
+		messages.clear();
+		return reply;
+	}
+
+}
@@ -0,0 +1,496 @@
+/*
+ * ftp4j - A pure Java FTP client library
+ * 
+ * Copyright (C) 2008-2010 Carlo Pelliccia (www.sauronsoftware.it)
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License version
+ * 2.1, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License 2.1 for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License version 2.1 along with this program.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+package it.sauronsoftware.ftp4j;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ByteChannel;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.locks.ReentrantLock;
+
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLEngineResult;
+import javax.net.ssl.SSLException;
+import javax.net.ssl.SSLSession;
+
+/**
+ * <p>
+ * An SSL/TLS connection driven by a {@link SSLEngine} over a
+ * {@link SocketChannel}.
+ * </p>
+ * 
+ * <p>
+ * Unlike a layered SSLSocket, the connection keeps working when the socket
+ * channel is switched in non-blocking mode: in that case a read returns 0
+ * when no whole record is available, so an idle communication channel can be
+ * serviced by a {@link FTPIdleChannelMonitor} even if it is encrypted. The
+ * network and application buffers are direct buffers borrowed from a
+ * {@link FTPBufferPool}, and they are given back when the connection is
+ * closed.
+ * </p>
+ * 
+ * <p>
+ * Reads and writes can run concurrently in different threads. A write in
+ * non-blocking mode must be small enough to fit the socket send buffer, or
+ * it fails. Renegotiations started by the server are not supported.
+ * </p>
+ * 
+ * @author Carlo Pelliccia
+ * @since 1.7
+ */
+class FTPSSLEngineChannel implements ByteChannel {
+
+	/**
+	 * Value returned by unwrap() when no record can be read without blocking.
+	 */
+	private static final int WOULD_BLOCK = -2;
+
+	/**
+	 * An empty buffer, used to wrap handshake and closure messages.
+	 */
+	private static final ByteBuffer EMPTY = ByteBuffer.allocate(0);
+
+	/**
+	 * The underlying channel.
+	 */
+	private SocketChannel channel;
+
+	/**
+	 * The engine.
+	 */
+	private SSLEngine engine;
+
+	/**
+	 * The pool of the buffers, or null to allocate them.
+	 */
+	private FTPBufferPool pool;
+
+	/**
+	 * The bytes received and not yet unwrapped (in read mode).
+	 */
+	private ByteBuffer netIn;
+
+	/**
+	 * The bytes unwrapped and not yet read (in read mode).
+	 */
+	private ByteBuffer appIn;
+
+	/**
+	 * The bytes wrapped and not yet sent (in read mode).
+	 */
+	private ByteBuffer netOut;
+
+	/**
+	 * Lock held while reading and unwrapping.
+	 */
+	private ReentrantLock readLock = new ReentrantLock();
+
+	/**
+	 * Lock held while wrapping and writing.
+	 */
+	private ReentrantLock writeLock = new ReentrantLock();
+
+	/**
+	 * Is the channel open?
+	 */
+	private volatile boolean open = true;
+
+	/**
+	 * Builds the channel. The handshake has to be done with
+	 * {@link FTPSSLEngineChannel#handshake()} before any other operation.
+	 * 
+	 * @param channel
+	 *            The underlying channel, connected and in blocking mode.
+	 * @param engine
+	 *            The engine, already configured.
+	 * @param pool
+	 *            The pool of the buffers, or null to allocate them.
+	 */
+	public FTPSSLEngineChannel(SocketChannel channel, SSLEngine engine,
+			FTPBufferPool pool) {
+		this.channel = channel;
+		this.engine = engine;
+		this.pool = pool;
+		SSLSession session = engine.getSession();
+		netIn = borrow(session.getPacketBufferSize());
+		netOut = borrow(session.getPacketBufferSize());
+		appIn = borrow(session.getApplicationBufferSize());
+		netIn.flip();
+		netOut.flip();
+		appIn.flip();
+	}
+
+	/**
+	 * Returns the SSL session of the connection.
+	 * 
+	 * @return The SSL session.
+	 */
+	public SSLSession getSession() {
+		return engine.getSession();
+	}
+
+	/**
+	 * Returns the underlying channel.
+	 * 
+	 * @return The underlying channel.
+	 */
+	public SocketChannel getSocketChannel() {
+		return channel;
+	}
+
+	/**
+	 * Negotiates the connection. The underlying channel must be in blocking
+	 * mode.
+	 * 
+	 * @throws IOException
+	 *             If the negotiation fails.
+	 */
+	public void handshake() throws IOException {
+		engine.beginHandshake();
+		while (true) {
+			SSLEngineResult.HandshakeStatus status = engine
+					.getHandshakeStatus();
+			if (status == SSLEngineResult.HandshakeStatus.NEED_WRAP) {
+				writeLock.lock();
+				try {
+					checkOpen();
+					wrap(EMPTY);
+				} finally {
+					writeLock.unlock();
+				}
+			} else if (status == SSLEngineResult.HandshakeStatus.NEED_UNWRAP) {
+				readLock.lock();
+				try {
+					checkOpen();
+					if (unwrap() == -1) {
+						throw new EOFException(
+								"Connection closed during the SSL handshake");
+					}
+				} finally {
+					readLock.unlock();
+				}
+			} else if (status == SSLEngineResult.HandshakeStatus.NEED_TASK) {
+				runTasks();
+			} else {
+				return;
+			}
+		}
+	}
+
+	public boolean isOpen() {
+		return open;
+	}
+
+	public int read(ByteBuffer dst) throws IOException {
+		readLock.lock();
+		try {
+			checkOpen();
+			if (!dst.hasRemaining()) {
+				return 0;
+			}
+			while (!appIn.hasRemaining()) {
+				int l = unwrap();
+				if (l == -1) {
+					return -1;
+				} else if (l == WOULD_BLOCK) {
+					return 0;
+				}
+			}
+			int l = Math.min(appIn.remaining(), dst.remaining());
+			if (l == appIn.remaining()) {
+				dst.put(appIn);
+			} else {
+				int limit = appIn.limit();
+				appIn.limit(appIn.position() + l);
+				dst.put(appIn);
+				appIn.limit(limit);
+			}
+			return l;
+		} finally {
+			readLock.unlock();
+		}
+	}
+
+	public int write(ByteBuffer src) throws IOException {
+		writeLock.lock();
+		try {
+			checkOpen();
+			return wrap(src);
+		} finally {
+			writeLock.unlock();
+		}
+	}
+
+	/**
+	 * Closes the connection, sending the closure alert if no write is in
+	 * progress. A read or a write blocked in another thread fails.
+	 */
+	public void close() throws IOException {
+		if (!open) {
+			return;
+		}
+		open = false;
+		engine.closeOutbound();
+		if (writeLock.tryLock()) {
+			try {
+				wrap(EMPTY);
+				if (readLock.tryLock()) {
+					try {
+						drain();
+					} finally {
+						readLock.unlock();
+					}
+				}
+			} catch (Throwable t) {
+				;
+			} finally {
+				writeLock.unlock();
+			}
+		}
+		try {
+			channel.close();
+		} finally {
+			// Blocked threads have left, and nobody else will get in.
+			readLock.lock();
+			writeLock.lock();
+			try {
+				if (netIn != null) {
+					release(netIn);
+					release(netOut);
+					release(appIn);
+					netIn = null;
+					netOut = null;
+					appIn = null;
+				}
+			} finally {
+				writeLock.unlock();
+				readLock.unlock();
+			}
+		}
+	}
+
+	/**
+	 * Discards the bytes received and never read, without blocking. A socket
+	 * closed with unread bytes is reset, and the server may lose the end of
+	 * the data sent by the client. This happens on uploads, since TLS 1.3
+	 * servers send their session tickets after the handshake.
+	 */
+	private void drain() throws IOException {
+		channel.configureBlocking(false);
+		netIn.clear();
+		try {
+			while (channel.read(netIn) > 0) {
+				netIn.clear();
+			}
+		} finally {
+			netIn.clear();
+			netIn.flip();
+		}
+	}
+
+	/**
+	 * Reads and unwraps a record, reading the network only if no whole record
+	 * is buffered. Handshake messages received after the initial handshake
+	 * are served here.
+	 * 
+	 * @return The number of application bytes unwrapped (possibly 0), -1 at
+	 *         the end of the stream, or WOULD_BLOCK if the channel is in
+	 *         non-blocking mode and no whole record is available.
+	 */
+	private int unwrap() throws IOException {
+		while (true) {
+			if (netIn.hasRemaining()) {
+				SSLEngineResult result;
+				appIn.compact();
+				try {
+					result = engine.unwrap(netIn, appIn);
+				} finally {
+					appIn.flip();
+				}
+				SSLEngineResult.Status status = result.getStatus();
+				if (status == SSLEngineResult.Status.CLOSED) {
+					return -1;
+				} else if (status == SSLEngineResult.Status.BUFFER_OVERFLOW) {
+					appIn = enlarge(appIn, engine.getSession()
+							.getApplicationBufferSize());
+					continue;
+				} else if (status == SSLEngineResult.Status.OK) {
+					serviceHandshake(result.getHandshakeStatus());
+					return result.bytesProduced();
+				}
+				// BUFFER_UNDERFLOW: a partial record, more bytes are needed.
+				if (netIn.remaining() == netIn.capacity()) {
+					netIn = enlarge(netIn, engine.getSession()
+							.getPacketBufferSize());
+				}
+			}
+			int l;
+			netIn.compact();
+			try {
+				l = channel.read(netIn);
+			} finally {
+				netIn.flip();
+			}
+			if (l == -1) {
+				// Many servers close the data channels without the closure
+				// alert: the end of the stream is accepted anyway.
+				return -1;
+			} else if (l == 0) {
+				return WOULD_BLOCK;
+			}
+		}
+	}
+
+	/**
+	 * Runs the tasks and sends the messages required by the engine after an
+	 * unwrap, until it needs more data from the server. This serves both the
+	 * initial handshake and the later ones, as the key updates of TLS 1.3.
+	 */
+	private void serviceHandshake(SSLEngineResult.HandshakeStatus status)
+			throws IOException {
+		while (true) {
+			if (status == SSLEngineResult.HandshakeStatus.NEED_TASK) {
+				runTasks();
+			} else if (status == SSLEngineResult.HandshakeStatus.NEED_WRAP) {
+				writeLock.lock();
+				try {
+					wrap(EMPTY);
+				} finally {
+					writeLock.unlock();
+				}
+			} else {
+				return;
+			}
+			status = engine.getHandshakeStatus();
+		}
+	}
+
+	/**
+	 * Wraps and sends the given bytes.
+	 * 
+	 * @return The number of bytes consumed.
+	 */
+	private int wrap(ByteBuffer src) throws IOException {
+		int consumed = 0;
+		while (true) {
+			SSLEngineResult result;
+			netOut.compact();
+			try {
+				result = engine.wrap(src, netOut);
+			} finally {
+				netOut.flip();
+			}
+			consumed += result.bytesConsumed();
+			SSLEngineResult.Status status = result.getStatus();
+			if (status == SSLEngineResult.Status.BUFFER_OVERFLOW) {
+				flush();
+				if (netOut.capacity() < engine.getSession()
+						.getPacketBufferSize()) {
+					netOut = enlarge(netOut, engine.getSession()
+							.getPacketBufferSize());
+				}
+				continue;
+			}
+			flush();
+			if (status == SSLEngineResult.Status.CLOSED) {
+				if (src.hasRemaining()) {
+					throw new SSLException("SSL connection closed");
+				}
+				return consumed;
+			}
+			SSLEngineResult.HandshakeStatus hs = result.getHandshakeStatus();
+			if (hs == SSLEngineResult.HandshakeStatus.NEED_TASK) {
+				runTasks();
+			} else if (hs == SSLEngineResult.HandshakeStatus.NEED_UNWRAP
+					&& src.hasRemaining() && engine.getSession().isValid()) {
+				throw new SSLException("SSL renegotiation not supported");
+			}
+			if (!src.hasRemaining() || result.bytesConsumed() == 0
+					&& result.bytesProduced() == 0) {
+				return consumed;
+			}
+		}
+	}
+
+	/**
+	 * Sends the wrapped bytes.
+	 */
+	private void flush() throws IOException {
+		while (netOut.hasRemaining()) {
+			if (channel.write(netOut) == 0) {
+				// Non-blocking mode, and the send buffer is full.
+				throw new IOException("SSL record cannot be sent");
+			}
+		}
+	}
+
+	/**
+	 * Runs the delegated tasks of the engine in the calling thread.
+	 */
+	private void runTasks() {
+		Runnable task;
+		while ((task = engine.getDelegatedTask()) != null) {
+			task.run();
+		}
+	}
+
+	/**
+	 * Throws an exception if the channel has been closed.
+	 */
+	private void checkOpen() throws IOException {
+		if (!open) {
+			throw new ClosedChannelException();
+		}
+	}
+
+	/**
+	 * Replaces a buffer (in read mode) with a larger one, keeping its
+	 * contents.
+	 */
+	private ByteBuffer enlarge(ByteBuffer buffer, int size) {
+		ByteBuffer ret = borrow(Math.max(size, buffer.capacity() * 2));
+		ret.put(buffer);
+		ret.flip();
+		release(buffer);
+		return ret;
+	}
+
+	/**
+	 * Borrows a direct buffer.
+	 */
+	private ByteBuffer borrow(int size) {
+		if (pool != null) {
+			return pool.borrowDirect(size);
+		} else {
+			return ByteBuffer.allocateDirect(size);
+		}
+	}
+
+	/**
+	 * Gives back a direct buffer.
+	 */
+	private void release(ByteBuffer buffer) {
+		if (pool != null) {
+			pool.returnDirect(buffer);
+		}
+	}
+
+}
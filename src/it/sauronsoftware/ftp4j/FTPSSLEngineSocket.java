@@ -0,0 +1,146 @@
+/*
+ * ftp4j - A pure Java FTP client library
+ * 
+ * Copyright (C) 2008-2010 Carlo Pelliccia (www.sauronsoftware.it)
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License version
+ * 2.1, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License 2.1 for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License version 2.1 along with this program.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+package it.sauronsoftware.ftp4j;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.channels.Channels;
+
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLSession;
+
+/**
+ * A socket whose streams are encrypted by a {@link FTPSSLEngineChannel}. It
+ * lets the SSLEngine based transport be used wherever the client expects a
+ * socket, while the engine channel and the underlying socket channel remain
+ * reachable for the code able to use them directly.
+ * 
+ * @author Carlo Pelliccia
+ * @since 1.7
+ */
+class FTPSSLEngineSocket extends FTPSocketWrapper {
+
+	/**
+	 * Encrypts a connected socket, doing the handshake. The socket has to be
+	 * backed by a SocketChannel in blocking mode. If the handshake fails the
+	 * socket is closed.
+	 * 
+	 * @param socket
+	 *            The connected socket.
+	 * @param engine
+	 *            The engine, in client mode.
+	 * @param pool
+	 *            The pool of the buffers, or null to allocate them.
+	 * @return The encrypted socket.
+	 * @throws IOException
+	 *             If the handshake fails.
+	 */
+	public static FTPSSLEngineSocket open(Socket socket, SSLEngine engine,
+			FTPBufferPool pool) throws IOException {
+		FTPSSLEngineChannel channel = new FTPSSLEngineChannel(socket
+				.getChannel(), engine, pool);
+		boolean done = false;
+		try {
+			channel.handshake();
+			done = true;
+		} finally {
+			if (!done) {
+				try {
+					channel.close();
+				} catch (Throwable t) {
+					;
+				}
+			}
+		}
+		return new FTPSSLEngineSocket(socket, channel);
+	}
+
+	/**
+	 * The engine channel.
+	 */
+	private FTPSSLEngineChannel channel;
+
+	/**
+	 * The input stream.
+	 */
+	private InputStream inputStream;
+
+	/**
+	 * The output stream.
+	 */
+	private OutputStream outputStream;
+
+	/**
+	 * Builds the socket.
+	 * 
+	 * @param socket
+	 *            The underlying socket.
+	 * @param channel
+	 *            The engine channel, already negotiated.
+	 */
+	private FTPSSLEngineSocket(Socket socket, FTPSSLEngineChannel channel) {
+		super(socket);
+		this.channel = channel;
+		this.inputStream = Channels.newInputStream(channel);
+		this.outputStream = Channels.newOutputStream(channel);
+	}
+
+	/**
+	 * Returns the engine channel.
+	 * 
+	 * @return The engine channel.
+	 */
+	public FTPSSLEngineChannel getSSLChannel() {
+		return channel;
+	}
+
+	/**
+	 * Returns the SSL session.
+	 * 
+	 * @return The SSL session.
+	 */
+	public SSLSession getSession() {
+		return channel.getSession();
+	}
+
+	public InputStream getInputStream() throws IOException {
+		return inputStream;
+	}
+
+	public OutputStream getOutputStream() throws IOException {
+		return outputStream;
+	}
+
+	public void shutdownInput() throws IOException {
+		throw new UnsupportedOperationException(
+				"The method shutdownInput() is not supported in SSL");
+	}
+
+	public void shutdownOutput() throws IOException {
+		throw new UnsupportedOperationException(
+				"The method shutdownOutput() is not supported in SSL");
+	}
+
+	public void close() throws IOException {
+		channel.close();
+	}
+
+}
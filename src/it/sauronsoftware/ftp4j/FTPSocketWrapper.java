@@ -0,0 +1,177 @@
+/*
+ * ftp4j - A pure Java FTP client library
+ * 
+ * Copyright (C) 2008-2010 Carlo Pelliccia (www.sauronsoftware.it)
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License version
+ * 2.1, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License 2.1 for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License version 2.1 along with this program.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+package it.sauronsoftware.ftp4j;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.net.SocketAddress;
+import java.net.SocketException;
+
+/**
+ * A socket delegating every call to another connected socket. Subclasses
+ * override the calls they need to change.
+ * 
+ * @author Carlo Pelliccia
+ * @since 1.7
+ */
+class FTPSocketWrapper extends Socket {
+
+	/**
+	 * The wrapped socket.
+	 */
+	protected Socket socket;
+
+	/**
+	 * Builds the wrapper.
+	 * 
+	 * @param socket
+	 *            The connected socket.
+	 */
+	public FTPSocketWrapper(Socket socket) {
+		this.socket = socket;
+	}
+
+	public int getPort() {
+		return socket.getPort();
+	}
+
+	public InputStream getInputStream() throws IOException {
+		return socket.getInputStream();
+	}
+
+	public OutputStream getOutputStream() throws IOException {
+		return socket.getOutputStream();
+	}
+
+	public void close() throws IOException {
+		socket.close();
+	}
+
+	public void shutdownInput() throws IOException {
+		socket.shutdownInput();
+	}
+
+	public void shutdownOutput() throws IOException {
+		socket.shutdownOutput();
+	}
+
+	public boolean isInputShutdown() {
+		return socket.isInputShutdown();
+	}
+
+	public boolean isOutputShutdown() {
+		return socket.isOutputShutdown();
+	}
+
+	public boolean isConnected() {
+		return socket.isConnected();
+	}
+
+	public boolean isBound() {
+		return socket.isBound();
+	}
+
+	public boolean isClosed() {
+		return socket.isClosed();
+	}
+
+	public InetAddress getInetAddress() {
+		return socket.getInetAddress();
+	}
+
+	public InetAddress getLocalAddress() {
+		return socket.getLocalAddress();
+	}
+
+	public int getLocalPort() {
+		return socket.getLocalPort();
+	}
+
+	public SocketAddress getRemoteSocketAddress() {
+		return socket.getRemoteSocketAddress();
+	}
+
+	public SocketAddress getLocalSocketAddress() {
+		return socket.getLocalSocketAddress();
+	}
+
+	public void setSoTimeout(int timeout) throws SocketException {
+		socket.setSoTimeout(timeout);
+	}
+
+	public int getSoTimeout() throws SocketException {
+		return socket.getSoTimeout();
+	}
+
+	public void setTcpNoDelay(boolean on) throws SocketException {
+		socket.setTcpNoDelay(on);
+	}
+
+	public boolean getTcpNoDelay() throws SocketException {
+		return socket.getTcpNoDelay();
+	}
+
+	public void setSoLinger(boolean on, int linger) throws SocketException {
+		socket.setSoLinger(on, linger);
+	}
+
+	public int getSoLinger() throws SocketException {
+		return socket.getSoLinger();
+	}
+
+	public void setKeepAlive(boolean on) throws SocketException {
+		socket.setKeepAlive(on);
+	}
+
+	public boolean getKeepAlive() throws SocketException {
+		return socket.getKeepAlive();
+	}
+
+	public void setSendBufferSize(int size) throws SocketException {
+		socket.setSendBufferSize(size);
+	}
+
+	public int getSendBufferSize() throws SocketException {
+		return socket.getSendBufferSize();
+	}
+
+	public void setReceiveBufferSize(int size) throws SocketException {
+		socket.setReceiveBufferSize(size);
+	}
+
+	public int getReceiveBufferSize() throws SocketException {
+		return socket.getReceiveBufferSize();
+	}
+
+	public void setTrafficClass(int tc) throws SocketException {
+		socket.setTrafficClass(tc);
+	}
+
+	public int getTrafficClass() throws SocketException {
+		return socket.getTrafficClass();
+	}
+
+	public String toString() {
+		return socket.toString();
+	}
+
+}
@@ -0,0 +1,415 @@
+/*
+ * ftp4j - A pure Java FTP client library
+ * 
+ * Copyright (C) 2008-2010 Carlo Pelliccia (www.sauronsoftware.it)
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License version
+ * 2.1, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License 2.1 for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License version 2.1 along with this program.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+package it.sauronsoftware.ftp4j;
+
+import java.text.ParseException;
+import java.util.Calendar;
+import java.util.GregorianCalendar;
+import java.util.Locale;
+import java.util.TimeZone;
+
+/**
+ * This class decodes the timestamps found in the FTP listings and replies,
+ * without SimpleDateFormat and without allocating any object.
+ * 
+ * A decoder is immutable and can be shared by any number of threads. It is
+ * bound to a time zone, in which the local dates and times are interpreted,
+ * and to the current year, used to complete the dates without a year (as in
+ * the UNIX "ls -l" recent entries) and the two-digit years. The decoder for
+ * the default time zone is returned by {@link #getDefault()}, the one for
+ * UTC by {@link #getUTC()}.
+ * 
+ * The date fields out of their range roll over, as in a lenient
+ * {@link Calendar}: February 30th is March 2nd. Around a daylight saving
+ * change, a local time occurring twice is taken with the offset in force
+ * after the change, and a skipped local time with the offset in force before
+ * the change, again as in {@link GregorianCalendar}.
+ * 
+ * @author Carlo Pelliccia
+ * @since 1.7
+ */
+public class FTPTimestampDecoder {
+
+	private static final String[] MONTHS = { "jan", "feb", "mar", "apr",
+			"may", "jun", "jul", "aug", "sep", "oct", "nov", "dec" };
+
+	private static final long MINUTE = 60 * 1000L;
+
+	private static final long HOUR = 60 * MINUTE;
+
+	private static final long DAY = 24 * HOUR;
+
+	/**
+	 * The cached decoder for the default time zone.
+	 */
+	private static volatile FTPTimestampDecoder defaultDecoder;
+
+	/**
+	 * The cached decoder for UTC.
+	 */
+	private static volatile FTPTimestampDecoder utcDecoder;
+
+	/**
+	 * Returns a decoder for the default time zone and the current year. The
+	 * decoder is cached, and replaced when the year ends.
+	 * 
+	 * @return A decoder for the default time zone.
+	 */
+	public static FTPTimestampDecoder getDefault() {
+		long now = System.currentTimeMillis();
+		FTPTimestampDecoder decoder = defaultDecoder;
+		if (decoder == null || now < decoder.yearStart
+				|| now >= decoder.yearEnd) {
+			decoder = new FTPTimestampDecoder(TimeZone.getDefault(), now);
+			defaultDecoder = decoder;
+		}
+		return decoder;
+	}
+
+	/**
+	 * Returns a decoder for UTC and the current year. The decoder is cached,
+	 * and replaced when the year ends.
+	 * 
+	 * @return A decoder for UTC.
+	 */
+	public static FTPTimestampDecoder getUTC() {
+		long now = System.currentTimeMillis();
+		FTPTimestampDecoder decoder = utcDecoder;
+		if (decoder == null || now < decoder.yearStart
+				|| now >= decoder.yearEnd) {
+			decoder = new FTPTimestampDecoder(TimeZone.getTimeZone("UTC"),
+					now);
+			utcDecoder = decoder;
+		}
+		return decoder;
+	}
+
+	/**
+	 * Parses a three letters english month name, ignoring case.
+	 * 
+	 * @param text
+	 *            The text containing the month name.
+	 * @param start
+	 *            The start of the month name in the text.
+	 * @param end
+	 *            The end of the month name in the text (exclusive).
+	 * @return The month, from 0 (January) to 11 (December), or -1 if the text
+	 *         is not a month name.
+	 */
+	public static int parseMonth(String text, int start, int end) {
+		if (end - start == 3) {
+			for (int i = 0; i < MONTHS.length; i++) {
+				if (text.regionMatches(true, start, MONTHS[i], 0, 3)) {
+					return i;
+				}
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * The time zone.
+	 */
+	private final TimeZone timeZone;
+
+	/**
+	 * The current year.
+	 */
+	private final int year;
+
+	/**
+	 * The start of the current year.
+	 */
+	private final long yearStart;
+
+	/**
+	 * The start of the next year.
+	 */
+	private final long yearEnd;
+
+	/**
+	 * The start of the century of the two-digit years (80 years ago).
+	 */
+	private final long centuryStart;
+
+	/**
+	 * The year of centuryStart.
+	 */
+	private final int centuryStartYear;
+
+	/**
+	 * Builds the decoder.
+	 * 
+	 * @param timeZone
+	 *            The time zone of the local dates and times.
+	 * @param now
+	 *            The current time, giving the current year.
+	 */
+	public FTPTimestampDecoder(TimeZone timeZone, long now) {
+		if (timeZone == null) {
+			throw new IllegalArgumentException("Time zone is null");
+		}
+		this.timeZone = (TimeZone) timeZone.clone();
+		Calendar calendar = new GregorianCalendar(this.timeZone, Locale.US);
+		calendar.setTimeInMillis(now);
+		year = calendar.get(Calendar.YEAR);
+		calendar.add(Calendar.YEAR, -80);
+		centuryStart = calendar.getTimeInMillis();
+		centuryStartYear = calendar.get(Calendar.YEAR);
+		yearStart = toTime(year, 0, 1, 0, 0);
+		yearEnd = toTime(year + 1, 0, 1, 0, 0);
+	}
+
+	/**
+	 * Returns the time zone of the decoder.
+	 * 
+	 * @return The time zone of the decoder.
+	 */
+	public TimeZone getTimeZone() {
+		return (TimeZone) timeZone.clone();
+	}
+
+	/**
+	 * Returns the current year of the decoder.
+	 * 
+	 * @return The current year of the decoder.
+	 */
+	public int getCurrentYear() {
+		return year;
+	}
+
+	/**
+	 * Returns the instant of a local date and time.
+	 * 
+	 * @param year
+	 *            The year.
+	 * @param month
+	 *            The month, from 0 (January) to 11 (December).
+	 * @param day
+	 *            The day of the month, starting from 1.
+	 * @param hour
+	 *            The hour of the day, from 0 to 23.
+	 * @param minute
+	 *            The minute.
+	 * @return The instant, in milliseconds since the epoch.
+	 */
+	public long toTime(int year, int month, int day, int hour, int minute) {
+		return toTime(year, month, day, hour * HOUR + minute * MINUTE);
+	}
+
+	/**
+	 * Returns the instant of a local date and time without a year, as found
+	 * in the recent entries of the UNIX "ls -l" listings. The date is taken
+	 * in the current year, or in the year before if it is in the future.
+	 * 
+	 * @param month
+	 *            The month, from 0 (January) to 11 (December).
+	 * @param day
+	 *            The day of the month, starting from 1.
+	 * @param hour
+	 *            The hour of the day, from 0 to 23.
+	 * @param minute
+	 *            The minute.
+	 * @param now
+	 *            The current time.
+	 * @return The instant, in milliseconds since the epoch.
+	 */
+	public long toRecentTime(int month, int day, int hour, int minute,
+			long now) {
+		long time = toTime(year, month, day, hour, minute);
+		if (time <= now) {
+			return time;
+		}
+		// Same local date and time, in the year before.
+		long local = time + timeZone.getOffset(time);
+		long days = Math.floorDiv(local, DAY);
+		long millisOfDay = local - days * DAY;
+		long z = days + 719468;
+		long era = Math.floorDiv(z, 146097);
+		long doe = z - era * 146097;
+		long yoe = (doe - doe / 1460 + doe / 36524 - doe / 146096) / 365;
+		long doy = doe - (365 * yoe + yoe / 4 - yoe / 100);
+		long mp = (5 * doy + 2) / 153;
+		int d = (int) (doy - (153 * mp + 2) / 5 + 1);
+		int m = (int) (mp < 10 ? mp + 2 : mp - 10);
+		return toTime(year - 1, m, d, millisOfDay);
+	}
+
+	/**
+	 * Returns the instant of a local date and time with a two-digit year, as
+	 * found in the MSDOS-style listings. The year is taken in the century
+	 * starting 80 years ago.
+	 * 
+	 * @param year
+	 *            The two-digit year, from 0 to 99.
+	 * @param month
+	 *            The month, from 0 (January) to 11 (December).
+	 * @param day
+	 *            The day of the month, starting from 1.
+	 * @param hour
+	 *            The hour of the day, from 0 to 23.
+	 * @param minute
+	 *            The minute.
+	 * @return The instant, in milliseconds since the epoch.
+	 */
+	public long toTwoDigitYearTime(int year, int month, int day, int hour,
+			int minute) {
+		int fullYear = (centuryStartYear / 100) * 100 + year;
+		if (year < centuryStartYear % 100) {
+			fullYear += 100;
+		}
+		long time = toTime(fullYear, month, day, hour, minute);
+		if (year == centuryStartYear % 100 && time < centuryStart) {
+			time = toTime(fullYear + 100, month, day, hour, minute);
+		}
+		return time;
+	}
+
+	/**
+	 * Parses a timestamp in the yyyyMMddHHmmss[.sss] form, used by the MDTM
+	 * replies and by the MLSD facts (RFC 3659). The optional fraction of
+	 * second can have any number of digits. Any text after the timestamp is
+	 * ignored.
+	 * 
+	 * @param text
+	 *            The text containing the timestamp.
+	 * @param start
+	 *            The start of the timestamp in the text.
+	 * @param end
+	 *            The end of the text to be parsed (exclusive).
+	 * @return The instant, in milliseconds since the epoch.
+	 * @throws ParseException
+	 *             If the text doesn't start with a valid timestamp.
+	 */
+	public long parseTimestamp(String text, int start, int end)
+			throws ParseException {
+		if (end - start < 14) {
+			throw new ParseException(text, start);
+		}
+		for (int i = start; i < start + 14; i++) {
+			char c = text.charAt(i);
+			if (c < '0' || c > '9') {
+				throw new ParseException(text, i);
+			}
+		}
+		int year = digits(text, start, 4);
+		int month = digits(text, start + 4, 2);
+		int day = digits(text, start + 6, 2);
+		int hour = digits(text, start + 8, 2);
+		int minute = digits(text, start + 10, 2);
+		int second = digits(text, start + 12, 2);
+		long millis = 0;
+		int pos = start + 14;
+		if (pos < end && text.charAt(pos) == '.') {
+			long scale = 100;
+			for (pos++; pos < end; pos++) {
+				char c = text.charAt(pos);
+				if (c < '0' || c > '9') {
+					break;
+				}
+				millis += (c - '0') * scale;
+				scale /= 10;
+			}
+		}
+		return toTime(year, month - 1, day, hour * HOUR + minute * MINUTE
+				+ second * 1000L + millis);
+	}
+
+	public String toString() {
+		StringBuffer buffer = new StringBuffer();
+		buffer.append(getClass().getName());
+		buffer.append(" [timeZone=");
+		buffer.append(timeZone.getID());
+		buffer.append(", year=");
+		buffer.append(year);
+		buffer.append("]");
+		return buffer.toString();
+	}
+
+	/**
+	 * Returns the instant of a local date plus a time of day.
+	 */
+	private long toTime(int year, int month, int day, long millisOfDay) {
+		year += Math.floorDiv(month, 12);
+		month = Math.floorMod(month, 12);
+		if (year < 1600) {
+			// Julian calendar.
+			GregorianCalendar calendar = new GregorianCalendar(timeZone,
+					Locale.US);
+			calendar.clear();
+			calendar.set(year, month, day);
+			return calendar.getTimeInMillis() + millisOfDay;
+		}
+		long local = (daysFromCivil(year, month + 1, 1) + day - 1) * DAY
+				+ millisOfDay;
+		return fromLocal(local);
+	}
+
+	/**
+	 * Converts a local time to an instant. Around a time zone change, the
+	 * right offset is the lower of the two in force before and after the
+	 * change (see the class description).
+	 */
+	private long fromLocal(long local) {
+		int a = timeZone.getOffset(local - timeZone.getRawOffset());
+		int b = timeZone.getOffset(local - a);
+		int before = timeZone.getOffset(local - b - 3 * HOUR);
+		int after = timeZone.getOffset(local - b + 3 * HOUR);
+		if (a == b && before == b && after == b) {
+			// No changes around.
+			return local - b;
+		}
+		int[] candidates = { a, b, before, after };
+		int offset = Integer.MAX_VALUE;
+		for (int i = 0; i < candidates.length; i++) {
+			int o = candidates[i];
+			if (o < offset && timeZone.getOffset(local - o) == o) {
+				offset = o;
+			}
+		}
+		if (offset == Integer.MAX_VALUE) {
+			// Skipped local time.
+			offset = Math.min(a, b);
+		}
+		return local - offset;
+	}
+
+	/**
+	 * Days from 1970-01-01 to the given date of the proleptic Gregorian
+	 * calendar (Howard Hinnant's algorithm).
+	 */
+	private static long daysFromCivil(int year, int month, int day) {
+		long y = month <= 2 ? year - 1 : year;
+		long era = Math.floorDiv(y, 400);
+		long yoe = y - era * 400;
+		long doy = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day
+				- 1;
+		long doe = yoe * 365 + yoe / 4 - yoe / 100 + doy;
+		return era * 146097 + doe - 719468;
+	}
+
+	private static int digits(String text, int start, int count) {
+		int value = 0;
+		for (int i = start; i < start + count; i++) {
+			value = value * 10 + (text.charAt(i) - '0');
+		}
+		return value;
+	}
+
+}
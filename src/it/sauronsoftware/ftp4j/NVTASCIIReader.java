@@ -1,127 +1,182 @@
-/*
- * ftp4j - A pure Java FTP client library
- * 
- * Copyright (C) 2008-2010 Carlo Pelliccia (www.sauronsoftware.it)
- * 
- * This program is free software: you can redistribute it and/or modify
- * it under the terms of the GNU Lesser General Public License version
- * 2.1, as published by the Free Software Foundation.
- *
- * This program is distributed in the hope that it will be useful,
- * but WITHOUT ANY WARRANTY; without even the implied warranty of
- * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
- * GNU Lesser General Public License 2.1 for more details.
- *
- * You should have received a copy of the GNU Lesser General Public
- * License version 2.1 along with this program.
- * If not, see <http://www.gnu.org/licenses/>.
- */
-package it.sauronsoftware.ftp4j;
-
-import java.io.IOException;
-import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.io.Reader;
-
-/**
- * This is an NVT-ASCII character stream reader.
- * 
- * @author Carlo Pelliccia
- * @version 1.1
- */
-class NVTASCIIReader extends Reader {
-
-	/**
-	 * This system line separator chars sequence.
-	 */
-	private static final String SYSTEM_LINE_SEPARATOR = System
-			.getProperty("line.separator");
-
-	/**
-	 * The wrapped stream.
-	 */
-	private InputStream stream;
-
-	/**
-	 * The underlying reader.
-	 */
-	private Reader reader;
-
-	/**
-	 * Builds the reader.
-	 * 
-	 * @param stream
-	 *            The underlying stream.
-	 * @param charsetName
-	 *            The name of a supported charset.
-	 * @throws IOException
-	 *             If an I/O error occurs.
-	 */
-	public NVTASCIIReader(InputStream stream, String charsetName)
-			throws IOException {
-		this.stream = stream;
-		reader = new InputStreamReader(stream, charsetName);
-	}
-
-	public void close() throws IOException {
-		synchronized (this) {
-			reader.close();
-		}
-	}
-
-	public int read(char[] cbuf, int off, int len) throws IOException {
-		synchronized (this) {
-			return reader.read(cbuf, off, len);
-		}
-	}
-
-	/**
-	 * Changes the current charset.
-	 * 
-	 * @param charsetName
-	 *            The new charset.
-	 * @throws IOException
-	 *             If I/O error occurs.
-	 * @since 1.1
-	 */
-	public void changeCharset(String charsetName) throws IOException {
-		synchronized (this) {
-			reader = new InputStreamReader(stream, charsetName);
-		}
-	}
-
-	/**
-	 * Reads a line from the stream.
-	 * 
-	 * @return The line read, or null if the end of the stream is reached.
-	 * @throws IOException
-	 *             If an I/O error occurs.
-	 */
-	public String readLine() throws IOException {
-		StringBuffer buffer = new StringBuffer();
-		int previous = -1;
-		int current = -1;
-		do {
-			int i = reader.read();
-			if (i == -1) {
-				if (buffer.length() == 0) {
-					return null;
-				} else {
-					return buffer.toString();
-				}
-			}
-			previous = current;
-			current = i;
-			if (/* previous == '\r' && */current == '\n') {
-				// End of line.
-				return buffer.toString();
-			} else if (previous == '\r' && current == 0) {
-				// Literal new line.
-				buffer.append(SYSTEM_LINE_SEPARATOR);
-			} else if (current != 0 && current != '\r') {
-				buffer.append((char) current);
-			}
-		} while (true);
-	}
-
-}
+/*
+ * ftp4j - A pure Java FTP client library
+ * 
+ * Copyright (C) 2008-2010 Carlo Pelliccia (www.sauronsoftware.it)
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License version
+ * 2.1, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License 2.1 for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License version 2.1 along with this program.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+package it.sauronsoftware.ftp4j;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+
+/**
+ * This is an NVT-ASCII character stream reader.
+ * 
+ * @author Carlo Pelliccia
+ * @version 1.1
+ */
+class NVTASCIIReader extends Reader {
+
+	/**
+	 * This system line separator chars sequence.
+	 */
+	private static final String SYSTEM_LINE_SEPARATOR = System
+			.getProperty("line.separator");
+
+	/**
+	 * The wrapped stream.
+	 */
+	private InputStream stream;
+
+	/**
+	 * The underlying reader.
+	 */
+	private Reader reader;
+
+	/**
+	 * The characters read from the underlying reader and not yet consumed.
+	 */
+	private char[] buffer = new char[4096];
+
+	/**
+	 * The position of the next character to consume in the buffer.
+	 */
+	private int position = 0;
+
+	/**
+	 * The number of valid characters in the buffer.
+	 */
+	private int limit = 0;
+
+	/**
+	 * The characters of the line being read.
+	 */
+	private char[] line = new char[128];
+
+	/**
+	 * Builds the reader.
+	 * 
+	 * @param stream
+	 *            The underlying stream.
+	 * @param charsetName
+	 *            The name of a supported charset.
+	 * @throws IOException
+	 *             If an I/O error occurs.
+	 */
+	public NVTASCIIReader(InputStream stream, String charsetName)
+			throws IOException {
+		this.stream = stream;
+		reader = new InputStreamReader(stream, charsetName);
+	}
+
+	public void close() throws IOException {
+		synchronized (this) {
+			reader.close();
+		}
+	}
+
+	public int read(char[] cbuf, int off, int len) throws IOException {
+		synchronized (this) {
+			if (position < limit) {
+				// Buffered characters first.
+				int l = Math.min(len, limit - position);
+				System.arraycopy(buffer, position, cbuf, off, l);
+				position += l;
+				return l;
+			}
+			return reader.read(cbuf, off, len);
+		}
+	}
+
+	/**
+	 * Changes the current charset.
+	 * 
+	 * @param charsetName
+	 *            The new charset.
+	 * @throws IOException
+	 *             If I/O error occurs.
+	 * @since 1.1
+	 */
+	public void changeCharset(String charsetName) throws IOException {
+		synchronized (this) {
+			reader = new InputStreamReader(stream, charsetName);
+		}
+	}
+
+	/**
+	 * Reads a line from the stream.
+	 * 
+	 * @return The line read, or null if the end of the stream is reached.
+	 * @throws IOException
+	 *             If an I/O error occurs.
+	 */
+	public String readLine() throws IOException {
+		synchronized (this) {
+			int length = 0;
+			boolean cr = false;
+			do {
+				if (position == limit) {
+					int l = reader.read(buffer, 0, buffer.length);
+					if (l == -1) {
+						if (length == 0) {
+							return null;
+						} else {
+							return new String(line, 0, length);
+						}
+					}
+					position = 0;
+					limit = l;
+				}
+				char current = buffer[position++];
+				if (current == '\n') {
+					// End of line.
+					return new String(line, 0, length);
+				} else if (cr && current == 0) {
+					// Literal new line.
+					for (int i = 0; i < SYSTEM_LINE_SEPARATOR.length(); i++) {
+						line = append(line, length++, SYSTEM_LINE_SEPARATOR.charAt(i));
+					}
+				} else if (current != 0 && current != '\r') {
+					line = append(line, length++, current);
+				}
+				cr = current == '\r';
+			} while (true);
+		}
+	}
+
+	/**
+	 * Stores a character in a growable array.
+	 * 
+	 * @param array
+	 *            The array.
+	 * @param index
+	 *            The index.
+	 * @param c
+	 *            The character.
+	 * @return The array, or a bigger copy of it.
+	 */
+	private static char[] append(char[] array, int index, char c) {
+		if (index == array.length) {
+			char[] aux = new char[array.length * 2];
+			System.arraycopy(array, 0, aux, 0, index);
+			array = aux;
+		}
+		array[index] = c;
+		return array;
+	}
+
+}
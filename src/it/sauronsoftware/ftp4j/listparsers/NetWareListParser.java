@@ -1,136 +1,124 @@
-/*
- * ftp4j - A pure Java FTP client library
- * 
- * Copyright (C) 2008-2010 Carlo Pelliccia (www.sauronsoftware.it)
- * 
- * This program is free software: you can redistribute it and/or modify
- * it under the terms of the GNU Lesser General Public License version
- * 2.1, as published by the Free Software Foundation.
- *
- * This program is distributed in the hope that it will be useful,
- * but WITHOUT ANY WARRANTY; without even the implied warranty of
- * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
- * GNU Lesser General Public License 2.1 for more details.
- *
- * You should have received a copy of the GNU Lesser General Public
- * License version 2.1 along with this program.
- * If not, see <http://www.gnu.org/licenses/>.
- */
-package it.sauronsoftware.ftp4j.listparsers;
-
-import it.sauronsoftware.ftp4j.FTPFile;
-import it.sauronsoftware.ftp4j.FTPListParseException;
-import it.sauronsoftware.ftp4j.FTPListParser;
-
-import java.text.DateFormat;
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
-import java.util.Calendar;
-import java.util.Date;
-import java.util.Locale;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-
-/**
- * This parser can handle NetWare list responses.
- * 
- * @author Carlo Pelliccia
- */
-public class NetWareListParser implements FTPListParser {
-
-	private static final Pattern PATTERN = Pattern
-			.compile("^(d|-)\\s+\\[.{8}\\]\\s+\\S+\\s+(\\d+)\\s+"
-					+ "(?:(\\w{3})\\s+(\\d{1,2}))\\s+(?:(\\d{4})|(?:(\\d{1,2}):(\\d{1,2})))\\s+"
-					+ "([^\\\\/*?\"<>|]+)$");
-
-	private static final DateFormat DATE_FORMAT = new SimpleDateFormat(
-			"MMM dd yyyy HH:mm", Locale.US);
-
-	public FTPFile[] parse(String[] lines) throws FTPListParseException {
-		int size = lines.length;
-		// What's the date today?
-		Calendar now = Calendar.getInstance();
-		// Ok, starts parsing.
-		int currentYear = now.get(Calendar.YEAR);
-		FTPFile[] ret = new FTPFile[size];
-		for (int i = 0; i < size; i++) {
-			Matcher m = PATTERN.matcher(lines[i]);
-			if (m.matches()) {
-				String typeString = m.group(1);
-				String sizeString = m.group(2);
-				String monthString = m.group(3);
-				String dayString = m.group(4);
-				String yearString = m.group(5);
-				String hourString = m.group(6);
-				String minuteString = m.group(7);
-				String nameString = m.group(8);
-				// Parse the data.
-				ret[i] = new FTPFile();
-				if (typeString.equals("-")) {
-					ret[i].setType(FTPFile.TYPE_FILE);
-				} else if (typeString.equals("d")) {
-					ret[i].setType(FTPFile.TYPE_DIRECTORY);
-				} else {
-					throw new FTPListParseException();
-				}
-				long fileSize;
-				try {
-					fileSize = Long.parseLong(sizeString);
-				} catch (Throwable t) {
-					throw new FTPListParseException();
-				}
-				ret[i].setSize(fileSize);
-				if (dayString.length() == 1) {
-					dayString = "0" + dayString;
-				}
-				StringBuffer mdString = new StringBuffer();
-				mdString.append(monthString);
-				mdString.append(' ');
-				mdString.append(dayString);
-				mdString.append(' ');
-				boolean checkYear = false;
-				if (yearString == null) {
-					mdString.append(currentYear);
-					checkYear = true;
-				} else {
-					mdString.append(yearString);
-					checkYear = false;
-				}
-				mdString.append(' ');
-				if (hourString != null && minuteString != null) {
-					if (hourString.length() == 1) {
-						hourString = "0" + hourString;
-					}
-					if (minuteString.length() == 1) {
-						minuteString = "0" + minuteString;
-					}
-					mdString.append(hourString);
-					mdString.append(':');
-					mdString.append(minuteString);
-				} else {
-					mdString.append("00:00");
-				}
-				Date md;
-				try {
-					md = DATE_FORMAT.parse(mdString.toString());
-				} catch (ParseException e) {
-					throw new FTPListParseException();
-				}
-				if (checkYear) {
-					Calendar mc = Calendar.getInstance();
-					mc.setTime(md);
-					if (mc.after(now)) {
-						mc.set(Calendar.YEAR, currentYear - 1);
-						md = mc.getTime();
-					}
-				}
-				ret[i].setModifiedDate(md);
-				ret[i].setName(nameString);
-			} else {
-				throw new FTPListParseException();
-			}
-		}
-		return ret;
-	}
-
-}
+/*
+ * ftp4j - A pure Java FTP client library
+ * 
+ * Copyright (C) 2008-2010 Carlo Pelliccia (www.sauronsoftware.it)
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License version
+ * 2.1, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License 2.1 for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License version 2.1 along with this program.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+package it.sauronsoftware.ftp4j.listparsers;
+
+import it.sauronsoftware.ftp4j.FTPFile;
+import it.sauronsoftware.ftp4j.FTPListParseException;
+import it.sauronsoftware.ftp4j.FTPLineListParser;
+import it.sauronsoftware.ftp4j.FTPTimestampDecoder;
+
+import java.util.Date;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * This parser can handle NetWare list responses.
+ * 
+ * @author Carlo Pelliccia
+ */
+public class NetWareListParser implements FTPLineListParser {
+
+	private static final Pattern PATTERN = Pattern
+			.compile("^(d|-)\\s+\\[.{8}\\]\\s+\\S+\\s+(\\d+)\\s+"
+					+ "(?:(\\w{3})\\s+(\\d{1,2}))\\s+(?:(\\d{4})|(?:(\\d{1,2}):(\\d{1,2})))\\s+"
+					+ "([^\\\\/*?\"<>|]+)$");
+
+	public FTPFile[] parse(String[] lines) throws FTPListParseException {
+		int size = lines.length;
+		// What's the date today?
+		FTPTimestampDecoder decoder = FTPTimestampDecoder.getDefault();
+		long now = System.currentTimeMillis();
+		// Ok, starts parsing.
+		FTPFile[] ret = new FTPFile[size];
+		for (int i = 0; i < size; i++) {
+			ret[i] = parseLine(lines[i], decoder, now);
+		}
+		return ret;
+	}
+
+	public FTPFile parseLine(String line) throws FTPListParseException {
+		return parseLine(line, FTPTimestampDecoder.getDefault(), System
+				.currentTimeMillis());
+	}
+
+	/**
+	 * Parses a single line of the response.
+	 * 
+	 * @param line
+	 *            The line.
+	 * @param decoder
+	 *            The date decoder.
+	 * @param now
+	 *            The current time, used to guess the year of recent entries.
+	 * @return The parsed entry.
+	 * @throws FTPListParseException
+	 *             If the line cannot be parsed.
+	 */
+	private FTPFile parseLine(String line, FTPTimestampDecoder decoder,
+			long now) throws FTPListParseException {
+		Matcher m = PATTERN.matcher(line);
+		if (m.matches()) {
+			String typeString = m.group(1);
+			String sizeString = m.group(2);
+			String monthString = m.group(3);
+			String dayString = m.group(4);
+			String yearString = m.group(5);
+			String hourString = m.group(6);
+			String minuteString = m.group(7);
+			String nameString = m.group(8);
+			// Parse the data.
+			FTPFile ret = new FTPFile();
+			if (typeString.equals("-")) {
+				ret.setType(FTPFile.TYPE_FILE);
+			} else if (typeString.equals("d")) {
+				ret.setType(FTPFile.TYPE_DIRECTORY);
+			} else {
+				throw new FTPListParseException();
+			}
+			long fileSize;
+			try {
+				fileSize = Long.parseLong(sizeString);
+			} catch (Throwable t) {
+				throw new FTPListParseException();
+			}
+			ret.setSize(fileSize);
+			int month = FTPTimestampDecoder.parseMonth(monthString, 0,
+					monthString.length());
+			if (month == -1) {
+				throw new FTPListParseException();
+			}
+			int day = Integer.parseInt(dayString);
+			long md;
+			if (yearString != null) {
+				md = decoder.toTime(Integer.parseInt(yearString), month, day,
+						0, 0);
+			} else {
+				md = decoder.toRecentTime(month, day, Integer
+						.parseInt(hourString), Integer.parseInt(minuteString),
+						now);
+			}
+			ret.setModifiedDate(new Date(md));
+			ret.setName(nameString);
+			return ret;
+		} else {
+			throw new FTPListParseException();
+		}
+	}
+
+}
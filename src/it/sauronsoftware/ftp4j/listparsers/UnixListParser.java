@@ -1,155 +1,336 @@
-/*
- * ftp4j - A pure Java FTP client library
- * 
- * Copyright (C) 2008-2010 Carlo Pelliccia (www.sauronsoftware.it)
- * 
- * This program is free software: you can redistribute it and/or modify
- * it under the terms of the GNU Lesser General Public License version
- * 2.1, as published by the Free Software Foundation.
- *
- * This program is distributed in the hope that it will be useful,
- * but WITHOUT ANY WARRANTY; without even the implied warranty of
- * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
- * GNU Lesser General Public License 2.1 for more details.
- *
- * You should have received a copy of the GNU Lesser General Public
- * License version 2.1 along with this program.
- * If not, see <http://www.gnu.org/licenses/>.
- */
-package it.sauronsoftware.ftp4j.listparsers;
-
-import it.sauronsoftware.ftp4j.FTPFile;
-import it.sauronsoftware.ftp4j.FTPListParseException;
-import it.sauronsoftware.ftp4j.FTPListParser;
-
-import java.text.DateFormat;
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
-import java.util.Calendar;
-import java.util.Date;
-import java.util.Locale;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-
-/**
- * This parser can handle the result of a list ftp command as it is a UNIX "ls
- * -l" command response.
- * 
- * @author Carlo Pelliccia
- */
-public class UnixListParser implements FTPListParser {
-
-	private static final Pattern PATTERN = Pattern
-			.compile("^([dl\\-])[r\\-][w\\-][xSs\\-][r\\-][w\\-][xSs\\-][r\\-][w\\-][xTt\\-]\\s+"
-					+ "(?:\\d+\\s+)?\\S+\\s*\\S+\\s+(\\d+)\\s+(?:(\\w{3})\\s+(\\d{1,2}))\\s+"
-					+ "(?:(\\d{4})|(?:(\\d{1,2}):(\\d{1,2})))\\s+"
-					+ "([^\\\\*?\"<>|]+)(?: -> ([^\\\\*?\"<>|]+))?$");
-
-	private static final DateFormat DATE_FORMAT = new SimpleDateFormat(
-			"MMM dd yyyy HH:mm", Locale.US);
-
-	public FTPFile[] parse(String[] lines) throws FTPListParseException {
-		int size = lines.length;
-		if (size == 0) {
-			return new FTPFile[0];
-		}
-		// Removes the "total" line used in MAC style.
-		if (lines[0].startsWith("total")) {
-			size--;
-			String[] lines2 = new String[size];
-			for (int i = 0; i < size; i++) {
-				lines2[i] = lines[i + 1];
-			}
-			lines = lines2;
-		}
-		// What's the date today?
-		Calendar now = Calendar.getInstance();
-		// Ok, starts parsing.
-		int currentYear = now.get(Calendar.YEAR);
-		FTPFile[] ret = new FTPFile[size];
-		for (int i = 0; i < size; i++) {
-			Matcher m = PATTERN.matcher(lines[i]);
-			if (m.matches()) {
-				ret[i] = new FTPFile();
-				// Retrieve the data.
-				String typeString = m.group(1);
-				String sizeString = m.group(2);
-				String monthString = m.group(3);
-				String dayString = m.group(4);
-				String yearString = m.group(5);
-				String hourString = m.group(6);
-				String minuteString = m.group(7);
-				String nameString = m.group(8);
-				String linkedString = m.group(9);
-				// Parse the data.
-				if (typeString.equals("-")) {
-					ret[i].setType(FTPFile.TYPE_FILE);
-				} else if (typeString.equals("d")) {
-					ret[i].setType(FTPFile.TYPE_DIRECTORY);
-				} else if (typeString.equals("l")) {
-					ret[i].setType(FTPFile.TYPE_LINK);
-					ret[i].setLink(linkedString);
-				} else {
-					throw new FTPListParseException();
-				}
-				long fileSize;
-				try {
-					fileSize = Long.parseLong(sizeString);
-				} catch (Throwable t) {
-					throw new FTPListParseException();
-				}
-				ret[i].setSize(fileSize);
-				if (dayString.length() == 1) {
-					dayString = "0" + dayString;
-				}
-				StringBuffer mdString = new StringBuffer();
-				mdString.append(monthString);
-				mdString.append(' ');
-				mdString.append(dayString);
-				mdString.append(' ');
-				boolean checkYear = false;
-				if (yearString == null) {
-					mdString.append(currentYear);
-					checkYear = true;
-				} else {
-					mdString.append(yearString);
-					checkYear = false;
-				}
-				mdString.append(' ');
-				if (hourString != null && minuteString != null) {
-					if (hourString.length() == 1) {
-						hourString = "0" + hourString;
-					}
-					if (minuteString.length() == 1) {
-						minuteString = "0" + minuteString;
-					}
-					mdString.append(hourString);
-					mdString.append(':');
-					mdString.append(minuteString);
-				} else {
-					mdString.append("00:00");
-				}
-				Date md;
-				try {
-					md = DATE_FORMAT.parse(mdString.toString());
-				} catch (ParseException e) {
-					throw new FTPListParseException();
-				}
-				if (checkYear) {
-					Calendar mc = Calendar.getInstance();
-					mc.setTime(md);
-					if (mc.after(now)) {
-						mc.set(Calendar.YEAR, currentYear - 1);
-						md = mc.getTime();
-					}
-				}
-				ret[i].setModifiedDate(md);
-				ret[i].setName(nameString);
-			} else {
-				throw new FTPListParseException();
-			}
-		}
-		return ret;
-	}
-
-}
+/*
+ * ftp4j - A pure Java FTP client library
+ * 
+ * Copyright (C) 2008-2010 Carlo Pelliccia (www.sauronsoftware.it)
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License version
+ * 2.1, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License 2.1 for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License version 2.1 along with this program.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+package it.sauronsoftware.ftp4j.listparsers;
+
+import it.sauronsoftware.ftp4j.FTPFile;
+import it.sauronsoftware.ftp4j.FTPListParseException;
+import it.sauronsoftware.ftp4j.FTPLineListParser;
+import it.sauronsoftware.ftp4j.FTPTimestampDecoder;
+
+import java.util.Date;
+
+/**
+ * This parser can handle the result of a list ftp command as it is a UNIX "ls
+ * -l" command response.
+ * 
+ * The lines are scanned once, field by field, and the dates are computed
+ * arithmetically, so parsing a line allocates little more than the returned
+ * {@link FTPFile}. The accepted lines are the ones of the form:
+ * 
+ * <pre>
+ * type+permissions [links] owner [group] size month day year|hh:mm name [-&gt; link]
+ * </pre>
+ * 
+ * @author Carlo Pelliccia
+ */
+public class UnixListParser implements FTPLineListParser {
+
+	/**
+	 * The fields of the line before the name: permissions, up to three
+	 * among links, owner and group, size, month, day and year/time.
+	 */
+	private static final int MAX_FIELDS = 8;
+
+	public FTPFile[] parse(String[] lines) throws FTPListParseException {
+		int size = lines.length;
+		if (size == 0) {
+			return new FTPFile[0];
+		}
+		// Removes the "total" line used in MAC style.
+		if (lines[0].startsWith("total")) {
+			size--;
+			String[] lines2 = new String[size];
+			for (int i = 0; i < size; i++) {
+				lines2[i] = lines[i + 1];
+			}
+			lines = lines2;
+		}
+		// What's the date today?
+		FTPTimestampDecoder decoder = FTPTimestampDecoder.getDefault();
+		long now = System.currentTimeMillis();
+		int[] fields = new int[MAX_FIELDS * 2];
+		// Ok, starts parsing.
+		FTPFile[] ret = new FTPFile[size];
+		for (int i = 0; i < size; i++) {
+			ret[i] = parseLine(lines[i], fields, decoder, now);
+		}
+		return ret;
+	}
+
+	public FTPFile parseLine(String line) throws FTPListParseException {
+		// Skips the "total" line used in MAC style.
+		if (line.startsWith("total")) {
+			return null;
+		}
+		return parseLine(line, new int[MAX_FIELDS * 2], FTPTimestampDecoder
+				.getDefault(), System.currentTimeMillis());
+	}
+
+	/**
+	 * Parses a single line of the response.
+	 * 
+	 * @param line
+	 *            The line.
+	 * @param fields
+	 *            Work array, receiving the start and the end of the fields.
+	 * @param decoder
+	 *            The date decoder.
+	 * @param now
+	 *            The current time, used to guess the year of recent entries.
+	 * @return The parsed entry.
+	 * @throws FTPListParseException
+	 *             If the line cannot be parsed.
+	 */
+	private FTPFile parseLine(String line, int[] fields, FTPTimestampDecoder decoder, long now)
+			throws FTPListParseException {
+		// Type and permissions.
+		int length = line.length();
+		if (length < 11 || !isPermissions(line) || !isSpace(line.charAt(10))) {
+			throw new FTPListParseException();
+		}
+		// Splits the fields.
+		int count = 0;
+		int pos = 0;
+		while (count < MAX_FIELDS) {
+			while (pos < length && isSpace(line.charAt(pos))) {
+				pos++;
+			}
+			if (pos == length) {
+				break;
+			}
+			fields[count * 2] = pos;
+			while (pos < length && !isSpace(line.charAt(pos))) {
+				pos++;
+			}
+			fields[count * 2 + 1] = pos;
+			count++;
+		}
+		if (count < 6) {
+			throw new FTPListParseException();
+		}
+		// Where is the size? Between the permissions and the size there is
+		// at least the owner, or the owner and the group, possibly preceded
+		// by the links count. The most fields are tried first.
+		boolean links = isDigits(line, fields[2], fields[3], 1,
+				Integer.MAX_VALUE);
+		int ownerLength = fields[3] - fields[2];
+		FTPFile ret = null;
+		if (links) {
+			ret = parseTail(line, fields, count, 4, decoder, now);
+		}
+		if (ret == null) {
+			ret = parseTail(line, fields, count, 3, decoder, now);
+		}
+		if (ret == null && ownerLength > 1) {
+			ret = parseTail(line, fields, count, 2, decoder, now);
+		}
+		if (ret == null) {
+			throw new FTPListParseException();
+		}
+		return ret;
+	}
+
+	/**
+	 * Parses the line from the size field on.
+	 * 
+	 * @return The parsed entry, or null if the line doesn't match with the
+	 *         size in the given field.
+	 */
+	private FTPFile parseTail(String line, int[] fields, int count,
+			int sizeField, FTPTimestampDecoder decoder, long now) throws FTPListParseException {
+		int dayField = sizeField + 2;
+		int timeField = sizeField + 3;
+		if (count <= timeField) {
+			return null;
+		}
+		// Size, month and day.
+		int sizeStart = fields[sizeField * 2];
+		int sizeEnd = fields[sizeField * 2 + 1];
+		if (!isDigits(line, sizeStart, sizeEnd, 1, Integer.MAX_VALUE)) {
+			return null;
+		}
+		int month = parseMonth(line, fields[sizeField * 2 + 2],
+				fields[sizeField * 2 + 3]);
+		if (month == -2) {
+			return null;
+		}
+		int dayStart = fields[dayField * 2];
+		int dayEnd = fields[dayField * 2 + 1];
+		if (!isDigits(line, dayStart, dayEnd, 1, 2)) {
+			return null;
+		}
+		// Year or time.
+		int timeStart = fields[timeField * 2];
+		int timeEnd = fields[timeField * 2 + 1];
+		int year = -1;
+		int hour = 0;
+		int minute = 0;
+		if (isDigits(line, timeStart, timeEnd, 4, 4)) {
+			year = parseInt(line, timeStart, timeEnd);
+		} else {
+			int colon = line.indexOf(':', timeStart);
+			if (colon == -1 || colon >= timeEnd
+					|| !isDigits(line, timeStart, colon, 1, 2)
+					|| !isDigits(line, colon + 1, timeEnd, 1, 2)) {
+				return null;
+			}
+			hour = parseInt(line, timeStart, colon);
+			minute = parseInt(line, colon + 1, timeEnd);
+		}
+		// Name and link.
+		int nameStart = timeEnd + 1;
+		int length = line.length();
+		if (nameStart >= length) {
+			return null;
+		}
+		while (nameStart < length - 1 && isSpace(line.charAt(nameStart))) {
+			nameStart++;
+		}
+		int nameEnd = length;
+		int linkStart = -1;
+		for (int i = nameStart; i < length; i++) {
+			char c = line.charAt(i);
+			if (c == '>') {
+				if (i - 2 <= nameStart && i - 3 > timeEnd) {
+					// The name is the last blank before the arrow.
+					nameStart = i - 3;
+				}
+				if (linkStart != -1 || i - 2 <= nameStart || i + 2 >= length
+						|| line.charAt(i - 2) != ' '
+						|| line.charAt(i - 1) != '-'
+						|| line.charAt(i + 1) != ' ') {
+					return null;
+				}
+				nameEnd = i - 2;
+				linkStart = i + 2;
+			} else if (c == '\\' || c == '*' || c == '?' || c == '"'
+					|| c == '<' || c == '|') {
+				return null;
+			}
+		}
+		// The line matches: from here on, any error is fatal.
+		if (month == -1) {
+			throw new FTPListParseException();
+		}
+		FTPFile ret = new FTPFile();
+		char type = line.charAt(0);
+		if (type == '-') {
+			ret.setType(FTPFile.TYPE_FILE);
+		} else if (type == 'd') {
+			ret.setType(FTPFile.TYPE_DIRECTORY);
+		} else {
+			ret.setType(FTPFile.TYPE_LINK);
+			if (linkStart != -1) {
+				ret.setLink(line.substring(linkStart));
+			}
+		}
+		long fileSize;
+		try {
+			fileSize = Long.parseLong(line.substring(sizeStart, sizeEnd));
+		} catch (Throwable t) {
+			throw new FTPListParseException();
+		}
+		ret.setSize(fileSize);
+		int day = parseInt(line, dayStart, dayEnd);
+		long md;
+		if (year != -1) {
+			md = decoder.toTime(year, month, day, hour, minute);
+		} else {
+			md = decoder.toRecentTime(month, day, hour, minute, now);
+		}
+		ret.setModifiedDate(new Date(md));
+		ret.setName(line.substring(nameStart, nameEnd));
+		return ret;
+	}
+
+	/**
+	 * Checks the type and permissions characters at the beginning of the
+	 * line.
+	 */
+	private static boolean isPermissions(String line) {
+		char c = line.charAt(0);
+		if (c != 'd' && c != 'l' && c != '-') {
+			return false;
+		}
+		for (int i = 0; i < 3; i++) {
+			char r = line.charAt(1 + i * 3);
+			char w = line.charAt(2 + i * 3);
+			char x = line.charAt(3 + i * 3);
+			if ((r != 'r' && r != '-') || (w != 'w' && w != '-')) {
+				return false;
+			}
+			if (x != 'x' && x != '-') {
+				if (i < 2 ? (x != 'S' && x != 's') : (x != 'T' && x != 't')) {
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Parses a three letters month name.
+	 * 
+	 * @return The month (0-11), -1 if the field is a word of three characters
+	 *         that is not a month name, -2 if the field is not a word of three
+	 *         characters.
+	 */
+	private static int parseMonth(String line, int start, int end) {
+		if (end - start != 3) {
+			return -2;
+		}
+		for (int i = start; i < end; i++) {
+			char c = line.charAt(i);
+			if (!((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z')
+					|| (c >= '0' && c <= '9') || c == '_')) {
+				return -2;
+			}
+		}
+		return FTPTimestampDecoder.parseMonth(line, start, end);
+	}
+
+	private static boolean isDigits(String line, int start, int end,
+			int minLength, int maxLength) {
+		int length = end - start;
+		if (length < minLength || length > maxLength) {
+			return false;
+		}
+		for (int i = start; i < end; i++) {
+			char c = line.charAt(i);
+			if (c < '0' || c > '9') {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static int parseInt(String line, int start, int end) {
+		int value = 0;
+		for (int i = start; i < end; i++) {
+			value = value * 10 + (line.charAt(i) - '0');
+		}
+		return value;
+	}
+
+	private static boolean isSpace(char c) {
+		return c == ' ' || c == '\t' || c == '\n' || c == '\u000B'
+				|| c == '\f' || c == '\r';
+	}
+
+}
@@ -0,0 +1,45 @@
+/*
+ * ftp4j - A pure Java FTP client library
+ * 
+ * Copyright (C) 2008-2010 Carlo Pelliccia (www.sauronsoftware.it)
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License version
+ * 2.1, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License 2.1 for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License version 2.1 along with this program.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+package it.sauronsoftware.ftp4j.pool;
+
+import it.sauronsoftware.ftp4j.FTPClient;
+
+/**
+ * Implement this interface to control how a {@link FTPClientPool} builds its
+ * clients. Use it to plug a custom connector, SSL socket factory, charset,
+ * list parser or communication listener into every pooled client. The pool
+ * sets the security level, connects and authenticates the returned client by
+ * itself.
+ * 
+ * @author Carlo Pelliccia
+ * @see FTPClientPool#setClientFactory(FTPClientFactory)
+ * @since 1.7
+ */
+public interface FTPClientFactory {
+
+	/**
+	 * Builds a new, not yet connected, client.
+	 * 
+	 * @param key
+	 *            The key of the group the client will belong to.
+	 * @return The new client.
+	 */
+	public FTPClient createClient(FTPClientPoolKey key);
+
+}
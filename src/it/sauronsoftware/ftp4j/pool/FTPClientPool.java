@@ -0,0 +1,897 @@
+/*
+ * ftp4j - A pure Java FTP client library
+ * 
+ * Copyright (C) 2008-2010 Carlo Pelliccia (www.sauronsoftware.it)
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License version
+ * 2.1, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License 2.1 for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License version 2.1 along with this program.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+package it.sauronsoftware.ftp4j.pool;
+
+import it.sauronsoftware.ftp4j.FTPClient;
+import it.sauronsoftware.ftp4j.FTPException;
+import it.sauronsoftware.ftp4j.FTPIllegalReplyException;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedList;
+
+/**
+ * This class implements a pool of connected and authenticated clients.
+ * 
+ * Connecting and authenticating a client is expensive: it costs a TCP
+ * connection, the welcome message, the USER/PASS exchange, the FEAT round trip
+ * and, on secured connections, a TLS handshake. A pool keeps the clients alive
+ * after they have been used, so a subsequent request for the same server and
+ * the same credentials can be served without any handshake.
+ * 
+ * Clients are grouped by {@link FTPClientPoolKey}. The common flow is:
+ * 
+ * <pre>
+ * FTPClientPoolKey key = new FTPClientPoolKey(&quot;ftp.host.com&quot;, 21,
+ * 		FTPClient.SECURITY_FTP, &quot;user&quot;, &quot;pass&quot;);
+ * FTPClient client = pool.borrowClient(key);
+ * try {
+ * 	client.download(&quot;file.txt&quot;, new java.io.File(&quot;file.txt&quot;));
+ * } finally {
+ * 	pool.returnClient(client);
+ * }
+ * </pre>
+ * 
+ * A returned client gets back its initial working directory, transfer type,
+ * transfer mode and compression flag, so the next borrower always receives a
+ * client in the same state of a freshly authenticated one. Idle clients are
+ * validated with a NOOP command before being handed out, and they are evicted
+ * when they stay idle too long or when they reach their maximum lifetime.
+ * 
+ * Clients must never be disconnected by the borrower: call
+ * {@link FTPClientPool#invalidateClient(FTPClient)} to get rid of a client
+ * that should not be reused (i.e. after a FTPDataTransferException).
+ * 
+ * This class is thread-safe.
+ * 
+ * @author Carlo Pelliccia
+ * @since 1.7
+ */
+public class FTPClientPool {
+
+	/**
+	 * The factory used to build new clients. If null, plain FTPClient
+	 * instances are built.
+	 */
+	private FTPClientFactory clientFactory = null;
+
+	/**
+	 * The maximum number of clients (idle or borrowed) for a single key.
+	 */
+	private int maxClientsPerKey = 8;
+
+	/**
+	 * The time (in millis) after which an idle client is evicted. A value
+	 * less or equal than 0 means no idle eviction.
+	 */
+	private long maxIdleTime = 60 * 1000;
+
+	/**
+	 * The time (in millis) after which a client is evicted, regardless its
+	 * activity. A value less or equal than 0 means no lifetime limit.
+	 */
+	private long maxLifetime = 0;
+
+	/**
+	 * Idle clients are validated with a NOOP command before being handed out,
+	 * but only if they have been idle for at least this time (in millis). A
+	 * value less or equal than 0 means that the validation is performed at
+	 * every borrow.
+	 */
+	private long validationDelay = 0;
+
+	/**
+	 * The time (in millis) a borrower waits for a client when the limit for
+	 * its key has been reached. A value less or equal than 0 means no timeout.
+	 */
+	private long borrowTimeout = 0;
+
+	/**
+	 * The interval (in millis) between two runs of the background evictor. A
+	 * value less or equal than 0 disables the background evictor.
+	 */
+	private long evictionInterval = 30 * 1000;
+
+	/**
+	 * The groups of pooled clients (FTPClientPoolKey -> Group).
+	 */
+	private HashMap groups = new HashMap();
+
+	/**
+	 * The clients currently borrowed (FTPClient -> PooledClient).
+	 */
+	private HashMap borrowed = new HashMap();
+
+	/**
+	 * This flag turns to true when the pool has been closed.
+	 */
+	private boolean closed = false;
+
+	/**
+	 * The background evictor thread.
+	 */
+	private Evictor evictor = null;
+
+	/**
+	 * Lock object used for synchronization.
+	 */
+	private Object lock = new Object();
+
+	/**
+	 * Returns the factory used to build new clients.
+	 * 
+	 * @return The factory used to build new clients, or null if plain
+	 *         FTPClient instances are built.
+	 */
+	public FTPClientFactory getClientFactory() {
+		synchronized (lock) {
+			return clientFactory;
+		}
+	}
+
+	/**
+	 * Sets the factory used to build new clients. If null (which is the
+	 * default) plain FTPClient instances are built.
+	 * 
+	 * @param clientFactory
+	 *            The factory used to build new clients.
+	 */
+	public void setClientFactory(FTPClientFactory clientFactory) {
+		synchronized (lock) {
+			this.clientFactory = clientFactory;
+		}
+	}
+
+	/**
+	 * Returns the maximum number of clients (idle or borrowed) for a single
+	 * key.
+	 * 
+	 * @return The maximum number of clients for a single key.
+	 */
+	public int getMaxClientsPerKey() {
+		synchronized (lock) {
+			return maxClientsPerKey;
+		}
+	}
+
+	/**
+	 * Sets the maximum number of clients (idle or borrowed) for a single key.
+	 * When the limit is reached, borrowers wait for a client to be returned.
+	 * The default value is 8.
+	 * 
+	 * @param maxClientsPerKey
+	 *            The maximum number of clients for a single key.
+	 * @throws IllegalArgumentException
+	 *             If the supplied value is less than 1.
+	 */
+	public void setMaxClientsPerKey(int maxClientsPerKey)
+			throws IllegalArgumentException {
+		if (maxClientsPerKey < 1) {
+			throw new IllegalArgumentException("Invalid max clients per key");
+		}
+		synchronized (lock) {
+			this.maxClientsPerKey = maxClientsPerKey;
+			lock.notifyAll();
+		}
+	}
+
+	/**
+	 * Returns the time (in millis) after which an idle client is evicted.
+	 * 
+	 * @return The max idle time, in millis. A value less or equal than 0 means
+	 *         no idle eviction.
+	 */
+	public long getMaxIdleTime() {
+		synchronized (lock) {
+			return maxIdleTime;
+		}
+	}
+
+	/**
+	 * Sets the time (in millis) after which an idle client is evicted. The
+	 * default value is 60000 (one minute).
+	 * 
+	 * @param maxIdleTime
+	 *            The max idle time, in millis. A value less or equal than 0
+	 *            means no idle eviction.
+	 */
+	public void setMaxIdleTime(long maxIdleTime) {
+		synchronized (lock) {
+			this.maxIdleTime = maxIdleTime;
+		}
+	}
+
+	/**
+	 * Returns the time (in millis) after which a client is evicted, regardless
+	 * its activity.
+	 * 
+	 * @return The max lifetime, in millis. A value less or equal than 0 means
+	 *         no lifetime limit.
+	 */
+	public long getMaxLifetime() {
+		synchronized (lock) {
+			return maxLifetime;
+		}
+	}
+
+	/**
+	 * Sets the time (in millis) after which a client is evicted, regardless
+	 * its activity. A borrowed client reaching its max lifetime is
+	 * disconnected when it is returned. The default value is 0 (no limit).
+	 * 
+	 * @param maxLifetime
+	 *            The max lifetime, in millis. A value less or equal than 0
+	 *            means no lifetime limit.
+	 */
+	public void setMaxLifetime(long maxLifetime) {
+		synchronized (lock) {
+			this.maxLifetime = maxLifetime;
+		}
+	}
+
+	/**
+	 * Returns the minimum idle time (in millis) that causes an idle client to
+	 * be validated with a NOOP command before being handed out.
+	 * 
+	 * @return The validation delay, in millis. A value less or equal than 0
+	 *         means that the validation is performed at every borrow.
+	 */
+	public long getValidationDelay() {
+		synchronized (lock) {
+			return validationDelay;
+		}
+	}
+
+	/**
+	 * Sets the minimum idle time (in millis) that causes an idle client to be
+	 * validated with a NOOP command before being handed out. Clients which
+	 * have been idle for a shorter time are handed out without any round
+	 * trip. The default value is 0 (validate at every borrow).
+	 * 
+	 * @param validationDelay
+	 *            The validation delay, in millis. A value less or equal than
+	 *            0 means that the validation is performed at every borrow.
+	 */
+	public void setValidationDelay(long validationDelay) {
+		synchronized (lock) {
+			this.validationDelay = validationDelay;
+		}
+	}
+
+	/**
+	 * Returns the time (in millis) a borrower waits for a client when the
+	 * limit for its key has been reached.
+	 * 
+	 * @return The borrow timeout, in millis. A value less or equal than 0 means
+	 *         no timeout.
+	 */
+	public long getBorrowTimeout() {
+		synchronized (lock) {
+			return borrowTimeout;
+		}
+	}
+
+	/**
+	 * Sets the time (in millis) a borrower waits for a client when the limit
+	 * for its key has been reached. The default value is 0 (no timeout).
+	 * 
+	 * @param borrowTimeout
+	 *            The borrow timeout, in millis. A value less or equal than 0
+	 *            means no timeout.
+	 */
+	public void setBorrowTimeout(long borrowTimeout) {
+		synchronized (lock) {
+			this.borrowTimeout = borrowTimeout;
+		}
+	}
+
+	/**
+	 * Returns the interval (in millis) between two runs of the background
+	 * evictor.
+	 * 
+	 * @return The eviction interval, in millis. A value less or equal than 0
+	 *         means that the background evictor is disabled.
+	 */
+	public long getEvictionInterval() {
+		synchronized (lock) {
+			return evictionInterval;
+		}
+	}
+
+	/**
+	 * Sets the interval (in millis) between two runs of the background
+	 * evictor. The evictor disconnects the idle clients which are expired. The
+	 * default value is 30000 (thirty seconds). When the background evictor is
+	 * disabled, expired clients are discarded only while borrowing, or by
+	 * calling {@link FTPClientPool#evictExpiredClients()}.
+	 * 
+	 * @param evictionInterval
+	 *            The eviction interval, in millis. A value less or equal than
+	 *            0 disables the background evictor.
+	 */
+	public void setEvictionInterval(long evictionInterval) {
+		synchronized (lock) {
+			this.evictionInterval = evictionInterval;
+			if (evictionInterval <= 0) {
+				evictor = null;
+			}
+			lock.notifyAll();
+		}
+	}
+
+	/**
+	 * Returns the number of idle clients in the pool.
+	 * 
+	 * @return The number of idle clients in the pool.
+	 */
+	public int getIdleCount() {
+		synchronized (lock) {
+			int ret = 0;
+			for (Iterator i = groups.values().iterator(); i.hasNext();) {
+				Group group = (Group) i.next();
+				ret += group.idle.size();
+			}
+			return ret;
+		}
+	}
+
+	/**
+	 * Returns the number of clients currently borrowed from the pool.
+	 * 
+	 * @return The number of clients currently borrowed from the pool.
+	 */
+	public int getBorrowedCount() {
+		synchronized (lock) {
+			return borrowed.size();
+		}
+	}
+
+	/**
+	 * Borrows a connected and authenticated client from the pool. This is a
+	 * shortcut for {@link FTPClientPool#borrowClient(FTPClientPoolKey)}.
+	 * 
+	 * @param host
+	 *            The remote host name or address.
+	 * @param port
+	 *            The remote port. Use 0 to pick the default port for the
+	 *            given security level.
+	 * @param security
+	 *            The security level.
+	 * @param username
+	 *            The authentication username.
+	 * @param password
+	 *            The authentication password (if none set it to null).
+	 * @return The client.
+	 * @throws IllegalStateException
+	 *             If the pool has been closed.
+	 * @throws IOException
+	 *             If an I/O error occurs while connecting a new client, or if
+	 *             the borrow timeout expires.
+	 * @throws FTPIllegalReplyException
+	 *             If the server replies in an illegal way.
+	 * @throws FTPException
+	 *             If the server refuses the connection or the login.
+	 */
+	public FTPClient borrowClient(String host, int port, int security,
+			String username, String password) throws IllegalStateException,
+			IOException, FTPIllegalReplyException, FTPException {
+		return borrowClient(new FTPClientPoolKey(host, port, security,
+				username, password));
+	}
+
+	/**
+	 * Borrows a connected and authenticated client from the pool. An idle
+	 * client for the given key is reused, if available; otherwise a new client
+	 * is built, connected and authenticated. If the limit of clients for the
+	 * key has been reached, the method waits for a client to be returned.
+	 * 
+	 * Every borrowed client must be given back by calling
+	 * {@link FTPClientPool#returnClient(FTPClient)} or
+	 * {@link FTPClientPool#invalidateClient(FTPClient)}.
+	 * 
+	 * @param key
+	 *            The key describing the server and the credentials.
+	 * @return The client.
+	 * @throws IllegalStateException
+	 *             If the pool has been closed.
+	 * @throws IOException
+	 *             If an I/O error occurs while connecting a new client, or if
+	 *             the borrow timeout expires (in this case the exception is a
+	 *             {@link InterruptedIOException}).
+	 * @throws FTPIllegalReplyException
+	 *             If the server replies in an illegal way.
+	 * @throws FTPException
+	 *             If the server refuses the connection or the login.
+	 */
+	public FTPClient borrowClient(FTPClientPoolKey key)
+			throws IllegalStateException, IOException,
+			FTPIllegalReplyException, FTPException {
+		long deadline;
+		synchronized (lock) {
+			deadline = borrowTimeout > 0 ? System.currentTimeMillis()
+					+ borrowTimeout : 0;
+		}
+		while (true) {
+			PooledClient pc = null;
+			boolean validate = false;
+			ArrayList expired = new ArrayList();
+			try {
+				synchronized (lock) {
+					while (true) {
+						if (closed) {
+							throw new IllegalStateException("Pool closed");
+						}
+						Group group = getGroup(key);
+						long now = System.currentTimeMillis();
+						// Most recently used clients first.
+						while (pc == null && group.idle.size() > 0) {
+							PooledClient aux = (PooledClient) group.idle.removeLast();
+							if (isExpired(aux, now)) {
+								group.count--;
+								expired.add(aux);
+							} else {
+								pc = aux;
+							}
+						}
+						if (pc != null) {
+							validate = validationDelay <= 0
+									|| now - pc.lastUsed >= validationDelay;
+							borrowed.put(pc.client, pc);
+							break;
+						}
+						if (group.count < maxClientsPerKey) {
+							// Reserve a slot for a new client.
+							group.count++;
+							break;
+						}
+						// Wait for a client to be returned.
+						long delay = 0;
+						if (deadline > 0) {
+							delay = deadline - now;
+							if (delay <= 0) {
+								throw new InterruptedIOException(
+										"Timeout waiting for a client for "
+												+ key);
+							}
+						}
+						try {
+							lock.wait(delay);
+						} catch (InterruptedException e) {
+							throw new InterruptedIOException(
+									"Interrupted while waiting for a client");
+						}
+					}
+				}
+			} finally {
+				for (Iterator i = expired.iterator(); i.hasNext();) {
+					destroy((PooledClient) i.next());
+				}
+			}
+			if (pc == null) {
+				// A slot has been reserved: build a new client.
+				pc = createPooledClient(key);
+				synchronized (lock) {
+					borrowed.put(pc.client, pc);
+				}
+				return pc.client;
+			}
+			if (validate) {
+				try {
+					pc.client.noop();
+				} catch (Throwable t) {
+					// Broken client, try again.
+					release(pc);
+					destroy(pc);
+					continue;
+				}
+			}
+			return pc.client;
+		}
+	}
+
+	/**
+	 * Gives back a borrowed client to the pool. The client working directory,
+	 * transfer type, transfer mode and compression flag are restored to the
+	 * values they had just after the authentication. If the client can't be
+	 * restored, if it is no longer connected, or if it has reached its
+	 * lifetime, it is disconnected and discarded.
+	 * 
+	 * Don't use the client after having returned it.
+	 * 
+	 * @param client
+	 *            The client.
+	 * @throws IllegalArgumentException
+	 *             If the client has not been borrowed from this pool.
+	 */
+	public void returnClient(FTPClient client) throws IllegalArgumentException {
+		PooledClient pc;
+		boolean reusable;
+		synchronized (lock) {
+			pc = (PooledClient) borrowed.get(client);
+			if (pc == null) {
+				throw new IllegalArgumentException(
+						"Client not borrowed from this pool");
+			}
+			reusable = !closed
+					&& (maxLifetime <= 0 || System.currentTimeMillis()
+							- pc.createdAt < maxLifetime);
+		}
+		if (reusable) {
+			reusable = restore(pc);
+		}
+		synchronized (lock) {
+			borrowed.remove(client);
+			if (reusable && !closed) {
+				pc.lastUsed = System.currentTimeMillis();
+				pc.group.idle.addLast(pc);
+				startEvictor();
+				lock.notifyAll();
+			} else {
+				reusable = false;
+				releaseSlot(pc);
+			}
+		}
+		if (!reusable) {
+			destroy(pc);
+		}
+	}
+
+	/**
+	 * Discards a borrowed client. The client is disconnected and its slot is
+	 * freed. Use this method, instead of
+	 * {@link FTPClientPool#returnClient(FTPClient)}, if the client is known to
+	 * be in an unreliable state.
+	 * 
+	 * @param client
+	 *            The client.
+	 * @throws IllegalArgumentException
+	 *             If the client has not been borrowed from this pool.
+	 */
+	public void invalidateClient(FTPClient client)
+			throws IllegalArgumentException {
+		PooledClient pc;
+		synchronized (lock) {
+			pc = (PooledClient) borrowed.get(client);
+			if (pc == null) {
+				throw new IllegalArgumentException(
+						"Client not borrowed from this pool");
+			}
+		}
+		release(pc);
+		destroy(pc);
+	}
+
+	/**
+	 * Disconnects and discards every idle client which has been idle for too
+	 * long, or which has reached its max lifetime. This method is called
+	 * periodically by the background evictor, if enabled.
+	 */
+	public void evictExpiredClients() {
+		ArrayList expired = new ArrayList();
+		synchronized (lock) {
+			long now = System.currentTimeMillis();
+			for (Iterator i = groups.values().iterator(); i.hasNext();) {
+				Group group = (Group) i.next();
+				for (Iterator j = group.idle.iterator(); j.hasNext();) {
+					PooledClient pc = (PooledClient) j.next();
+					if (isExpired(pc, now)) {
+						j.remove();
+						group.count--;
+						expired.add(pc);
+					}
+				}
+				if (group.count == 0) {
+					i.remove();
+				}
+			}
+			if (expired.size() > 0) {
+				lock.notifyAll();
+			}
+		}
+		for (Iterator i = expired.iterator(); i.hasNext();) {
+			destroy((PooledClient) i.next());
+		}
+	}
+
+	/**
+	 * Closes the pool. Every idle client is disconnected, and every borrowed
+	 * client will be disconnected as soon as it is returned. Any subsequent
+	 * borrow attempt fails with an IllegalStateException.
+	 */
+	public void close() {
+		ArrayList idle = new ArrayList();
+		synchronized (lock) {
+			if (closed) {
+				return;
+			}
+			closed = true;
+			evictor = null;
+			for (Iterator i = groups.values().iterator(); i.hasNext();) {
+				Group group = (Group) i.next();
+				group.count -= group.idle.size();
+				idle.addAll(group.idle);
+				group.idle.clear();
+			}
+			lock.notifyAll();
+		}
+		for (Iterator i = idle.iterator(); i.hasNext();) {
+			destroy((PooledClient) i.next());
+		}
+	}
+
+	/**
+	 * Returns the group for the given key, creating it if it doesn't exist.
+	 * Call it only under the eye of the lock.
+	 */
+	private Group getGroup(FTPClientPoolKey key) {
+		Group group = (Group) groups.get(key);
+		if (group == null) {
+			group = new Group(key);
+			groups.put(key, group);
+		}
+		return group;
+	}
+
+	/**
+	 * Checks whether an idle client should be evicted. Call it only under the
+	 * eye of the lock.
+	 */
+	private boolean isExpired(PooledClient pc, long now) {
+		if (maxIdleTime > 0 && now - pc.lastUsed >= maxIdleTime) {
+			return true;
+		}
+		if (maxLifetime > 0 && now - pc.createdAt >= maxLifetime) {
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Builds, connects and authenticates a new client. The caller must have
+	 * already reserved a slot in the group: the slot is released if the
+	 * operation fails.
+	 */
+	private PooledClient createPooledClient(FTPClientPoolKey key)
+			throws IOException, FTPIllegalReplyException, FTPException {
+		FTPClient client = null;
+		PooledClient pc = null;
+		try {
+			FTPClientFactory factory;
+			Group group;
+			synchronized (lock) {
+				factory = clientFactory;
+				group = getGroup(key);
+			}
+			client = factory != null ? factory.createClient(key)
+					: new FTPClient();
+			client.setSecurity(key.getSecurity());
+			if (key.getPort() > 0) {
+				client.connect(key.getHost(), key.getPort());
+			} else {
+				client.connect(key.getHost());
+			}
+			client.login(key.getUsername(), key.getPassword());
+			String homeDirectory;
+			try {
+				homeDirectory = client.currentDirectory();
+			} catch (FTPException e) {
+				// PWD not supported: the directory won't be restored.
+				homeDirectory = null;
+			} catch (FTPIllegalReplyException e) {
+				homeDirectory = null;
+			}
+			pc = new PooledClient(group, client, homeDirectory);
+			return pc;
+		} finally {
+			if (pc == null) {
+				if (client != null && client.isConnected()) {
+					try {
+						client.disconnect(false);
+					} catch (Throwable t) {
+						;
+					}
+				}
+				synchronized (lock) {
+					releaseSlot(getGroup(key));
+				}
+			}
+		}
+	}
+
+	/**
+	 * Restores the initial state of a returned client.
+	 * 
+	 * @return true if the client can be reused, false otherwise.
+	 */
+	private boolean restore(PooledClient pc) {
+		FTPClient client = pc.client;
+		if (!client.isConnected() || !client.isAuthenticated()) {
+			return false;
+		}
+		try {
+			client.setType(pc.type);
+			client.setPassive(pc.passive);
+			client.setCompressionEnabled(pc.compressionEnabled);
+			if (pc.homeDirectory != null) {
+				client.changeDirectory(pc.homeDirectory);
+			}
+			return true;
+		} catch (Throwable t) {
+			return false;
+		}
+	}
+
+	/**
+	 * Removes a borrowed client from the pool, freeing its slot.
+	 */
+	private void release(PooledClient pc) {
+		synchronized (lock) {
+			if (borrowed.remove(pc.client) != null) {
+				releaseSlot(pc);
+			}
+		}
+	}
+
+	/**
+	 * Frees the slot of a client. Call it only under the eye of the lock.
+	 */
+	private void releaseSlot(PooledClient pc) {
+		releaseSlot(pc.group);
+	}
+
+	/**
+	 * Frees a slot in a group. Call it only under the eye of the lock.
+	 */
+	private void releaseSlot(Group group) {
+		group.count--;
+		if (group.count == 0 && groups.get(group.key) == group) {
+			groups.remove(group.key);
+		}
+		lock.notifyAll();
+	}
+
+	/**
+	 * Disconnects a client, ignoring any error.
+	 */
+	private void destroy(PooledClient pc) {
+		FTPClient client = pc.client;
+		if (client.isConnected()) {
+			try {
+				client.disconnect(true);
+			} catch (Throwable t) {
+				try {
+					client.disconnect(false);
+				} catch (Throwable t2) {
+					;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Starts the background evictor, if enabled and not already running. Call
+	 * it only under the eye of the lock.
+	 */
+	private void startEvictor() {
+		if (evictor == null && evictionInterval > 0 && !closed) {
+			evictor = new Evictor();
+			evictor.start();
+		}
+	}
+
+	/**
+	 * A group of clients sharing the same key.
+	 */
+	private static class Group {
+
+		/**
+		 * The key.
+		 */
+		private FTPClientPoolKey key;
+
+		/**
+		 * The idle clients, the most recently returned is the last one.
+		 */
+		private LinkedList idle = new LinkedList();
+
+		/**
+		 * The number of clients in the group: idle, borrowed or under
+		 * construction.
+		 */
+		private int count = 0;
+
+		public Group(FTPClientPoolKey key) {
+			this.key = key;
+		}
+
+	}
+
+	/**
+	 * A client handled by the pool, with its initial state.
+	 */
+	private static class PooledClient {
+
+		private Group group;
+
+		private FTPClient client;
+
+		private long createdAt;
+
+		private long lastUsed;
+
+		private String homeDirectory;
+
+		private int type;
+
+		private boolean passive;
+
+		private boolean compressionEnabled;
+
+		public PooledClient(Group group, FTPClient client,
+				String homeDirectory) {
+			this.group = group;
+			this.client = client;
+			this.homeDirectory = homeDirectory;
+			this.type = client.getType();
+			this.passive = client.isPassive();
+			this.compressionEnabled = client.isCompressionEnabled();
+			this.createdAt = System.currentTimeMillis();
+			this.lastUsed = createdAt;
+		}
+
+	}
+
+	/**
+	 * The background evictor thread.
+	 */
+	private class Evictor extends Thread {
+
+		public Evictor() {
+			setDaemon(true);
+		}
+
+		public void run() {
+			while (true) {
+				synchronized (lock) {
+					long next = System.currentTimeMillis() + evictionInterval;
+					while (true) {
+						if (closed || evictor != this || evictionInterval <= 0) {
+							return;
+						}
+						long delay = next - System.currentTimeMillis();
+						if (delay <= 0) {
+							break;
+						}
+						try {
+							lock.wait(delay);
+						} catch (InterruptedException e) {
+							return;
+						}
+					}
+				}
+				evictExpiredClients();
+			}
+		}
+
+	}
+
+}
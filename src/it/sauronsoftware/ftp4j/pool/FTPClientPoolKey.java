@@ -0,0 +1,201 @@
+/*
+ * ftp4j - A pure Java FTP client library
+ * 
+ * Copyright (C) 2008-2010 Carlo Pelliccia (www.sauronsoftware.it)
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License version
+ * 2.1, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License 2.1 for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License version 2.1 along with this program.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+package it.sauronsoftware.ftp4j.pool;
+
+import it.sauronsoftware.ftp4j.FTPClient;
+
+/**
+ * This class identifies a group of interchangeable pooled clients: clients
+ * connected to the same host and port, with the same security level, and
+ * authenticated with the same credentials.
+ * 
+ * Two keys are equal if they share the host (case insensitive), the port, the
+ * security level, the username and the password.
+ * 
+ * @author Carlo Pelliccia
+ * @see FTPClientPool
+ * @since 1.7
+ */
+public class FTPClientPoolKey {
+
+	/**
+	 * The remote host name or address.
+	 */
+	private String host;
+
+	/**
+	 * The remote port. A value less or equal than 0 means "the default port
+	 * for the security level".
+	 */
+	private int port;
+
+	/**
+	 * The security level, as one of the {@link FTPClient#SECURITY_FTP},
+	 * {@link FTPClient#SECURITY_FTPS} and {@link FTPClient#SECURITY_FTPES}
+	 * constants.
+	 */
+	private int security;
+
+	/**
+	 * The authentication username.
+	 */
+	private String username;
+
+	/**
+	 * The authentication password (could be null).
+	 */
+	private String password;
+
+	/**
+	 * Builds the key.
+	 * 
+	 * @param host
+	 *            The remote host name or address.
+	 * @param port
+	 *            The remote port. Use 0 to pick the default port for the
+	 *            given security level.
+	 * @param security
+	 *            The security level, as one of the
+	 *            {@link FTPClient#SECURITY_FTP},
+	 *            {@link FTPClient#SECURITY_FTPS} and
+	 *            {@link FTPClient#SECURITY_FTPES} constants.
+	 * @param username
+	 *            The authentication username.
+	 * @param password
+	 *            The authentication password (if none set it to null).
+	 * @throws IllegalArgumentException
+	 *             If host or username is null, or if the security level is
+	 *             not valid.
+	 */
+	public FTPClientPoolKey(String host, int port, int security,
+			String username, String password) throws IllegalArgumentException {
+		if (host == null) {
+			throw new IllegalArgumentException("Host is null");
+		}
+		if (username == null) {
+			throw new IllegalArgumentException("Username is null");
+		}
+		if (security != FTPClient.SECURITY_FTP
+				&& security != FTPClient.SECURITY_FTPS
+				&& security != FTPClient.SECURITY_FTPES) {
+			throw new IllegalArgumentException("Invalid security");
+		}
+		this.host = host;
+		this.port = port;
+		this.security = security;
+		this.username = username;
+		this.password = password;
+	}
+
+	/**
+	 * Returns the remote host name or address.
+	 * 
+	 * @return The remote host name or address.
+	 */
+	public String getHost() {
+		return host;
+	}
+
+	/**
+	 * Returns the remote port. A value less or equal than 0 means "the default
+	 * port for the security level".
+	 * 
+	 * @return The remote port.
+	 */
+	public int getPort() {
+		return port;
+	}
+
+	/**
+	 * Returns the security level.
+	 * 
+	 * @return The security level, as one of the
+	 *         {@link FTPClient#SECURITY_FTP}, {@link FTPClient#SECURITY_FTPS}
+	 *         and {@link FTPClient#SECURITY_FTPES} constants.
+	 */
+	public int getSecurity() {
+		return security;
+	}
+
+	/**
+	 * Returns the authentication username.
+	 * 
+	 * @return The authentication username.
+	 */
+	public String getUsername() {
+		return username;
+	}
+
+	/**
+	 * Returns the authentication password.
+	 * 
+	 * @return The authentication password, or null.
+	 */
+	public String getPassword() {
+		return password;
+	}
+
+	public boolean equals(Object obj) {
+		if (obj == this) {
+			return true;
+		}
+		if (!(obj instanceof FTPClientPoolKey)) {
+			return false;
+		}
+		FTPClientPoolKey other = (FTPClientPoolKey) obj;
+		if (port != other.port || security != other.security) {
+			return false;
+		}
+		if (!host.equalsIgnoreCase(other.host)) {
+			return false;
+		}
+		if (!username.equals(other.username)) {
+			return false;
+		}
+		if (password == null) {
+			return other.password == null;
+		} else {
+			return password.equals(other.password);
+		}
+	}
+
+	public int hashCode() {
+		int ret = host.toLowerCase().hashCode();
+		ret = 31 * ret + port;
+		ret = 31 * ret + security;
+		ret = 31 * ret + username.hashCode();
+		return ret;
+	}
+
+	public String toString() {
+		StringBuffer buffer = new StringBuffer();
+		buffer.append(getClass().getName());
+		buffer.append(" [host=");
+		buffer.append(host);
+		buffer.append(", port=");
+		buffer.append(port);
+		buffer.append(", security=");
+		buffer.append(security);
+		buffer.append(", username=");
+		buffer.append(username);
+		buffer.append("]");
+		return buffer.toString();
+	}
+
+}
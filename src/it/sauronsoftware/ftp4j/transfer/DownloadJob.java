@@ -0,0 +1,99 @@
+/*
+ * ftp4j - A pure Java FTP client library
+ * 
+ * Copyright (C) 2008-2010 Carlo Pelliccia (www.sauronsoftware.it)
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License version
+ * 2.1, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License 2.1 for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License version 2.1 along with this program.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+package it.sauronsoftware.ftp4j.transfer;
+
+import it.sauronsoftware.ftp4j.FTPAbortedException;
+import it.sauronsoftware.ftp4j.FTPClient;
+import it.sauronsoftware.ftp4j.FTPDataTransferException;
+import it.sauronsoftware.ftp4j.FTPException;
+import it.sauronsoftware.ftp4j.FTPIllegalReplyException;
+import it.sauronsoftware.ftp4j.pool.FTPClientPoolKey;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * A {@link TransferJob} downloading a remote file to a local file.
+ * 
+ * @author Carlo Pelliccia
+ * @since 1.7
+ * @see FTPClient#download(String, File)
+ */
+public class DownloadJob extends TransferJob {
+
+	/**
+	 * The path of the remote file.
+	 */
+	private String remotePath;
+
+	/**
+	 * The local file.
+	 */
+	private File localFile;
+
+	/**
+	 * Builds the job.
+	 * 
+	 * @param key
+	 *            The key of the session the job runs on.
+	 * @param remotePath
+	 *            The path of the remote file.
+	 * @param localFile
+	 *            The local file.
+	 * @throws IllegalArgumentException
+	 *             If an argument is null.
+	 */
+	public DownloadJob(FTPClientPoolKey key, String remotePath, File localFile)
+			throws IllegalArgumentException {
+		super(key);
+		if (remotePath == null) {
+			throw new IllegalArgumentException("Remote path is null");
+		}
+		if (localFile == null) {
+			throw new IllegalArgumentException("Local file is null");
+		}
+		this.remotePath = remotePath;
+		this.localFile = localFile;
+	}
+
+	/**
+	 * Returns the path of the remote file.
+	 * 
+	 * @return The path of the remote file.
+	 */
+	public String getRemotePath() {
+		return remotePath;
+	}
+
+	/**
+	 * Returns the local file.
+	 * 
+	 * @return The local file.
+	 */
+	public File getLocalFile() {
+		return localFile;
+	}
+
+	protected void execute(FTPClient client) throws IllegalStateException,
+			IOException, FTPIllegalReplyException, FTPException,
+			FTPDataTransferException, FTPAbortedException {
+		client.download(remotePath, localFile);
+	}
+
+}
@@ -0,0 +1,101 @@
+/*
+ * ftp4j - A pure Java FTP client library
+ * 
+ * Copyright (C) 2008-2010 Carlo Pelliccia (www.sauronsoftware.it)
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License version
+ * 2.1, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License 2.1 for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License version 2.1 along with this program.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+package it.sauronsoftware.ftp4j.transfer;
+
+import it.sauronsoftware.ftp4j.FTPAbortedException;
+import it.sauronsoftware.ftp4j.FTPClient;
+import it.sauronsoftware.ftp4j.FTPDataTransferException;
+import it.sauronsoftware.ftp4j.FTPException;
+import it.sauronsoftware.ftp4j.FTPFile;
+import it.sauronsoftware.ftp4j.FTPIllegalReplyException;
+import it.sauronsoftware.ftp4j.FTPListParseException;
+import it.sauronsoftware.ftp4j.pool.FTPClientPoolKey;
+
+import java.io.IOException;
+
+/**
+ * A {@link TransferJob} listing a remote directory. The entries are returned
+ * by {@link ListJob#getFiles()} once the job is completed.
+ * 
+ * @author Carlo Pelliccia
+ * @since 1.7
+ * @see FTPClient#list()
+ */
+public class ListJob extends TransferJob {
+
+	/**
+	 * The path of the remote directory.
+	 */
+	private String remoteDirectory;
+
+	/**
+	 * The entries of the directory.
+	 */
+	private FTPFile[] files = null;
+
+	/**
+	 * Builds the job.
+	 * 
+	 * @param key
+	 *            The key of the session the job runs on.
+	 * @param remoteDirectory
+	 *            The path of the remote directory.
+	 * @throws IllegalArgumentException
+	 *             If an argument is null.
+	 */
+	public ListJob(FTPClientPoolKey key, String remoteDirectory)
+			throws IllegalArgumentException {
+		super(key);
+		if (remoteDirectory == null) {
+			throw new IllegalArgumentException("Remote directory is null");
+		}
+		this.remoteDirectory = remoteDirectory;
+	}
+
+	/**
+	 * Returns the path of the remote directory.
+	 * 
+	 * @return The path of the remote directory.
+	 */
+	public String getRemoteDirectory() {
+		return remoteDirectory;
+	}
+
+	/**
+	 * Returns the entries of the directory.
+	 * 
+	 * @return The entries of the directory, or null if the job is not
+	 *         completed.
+	 */
+	public synchronized FTPFile[] getFiles() {
+		return files;
+	}
+
+	protected void execute(FTPClient client) throws IllegalStateException,
+			IOException, FTPIllegalReplyException, FTPException,
+			FTPDataTransferException, FTPAbortedException,
+			FTPListParseException {
+		client.changeDirectory(remoteDirectory);
+		FTPFile[] aux = client.list();
+		synchronized (this) {
+			files = aux;
+		}
+	}
+
+}
@@ -0,0 +1,531 @@
+/*
+ * ftp4j - A pure Java FTP client library
+ * 
+ * Copyright (C) 2008-2010 Carlo Pelliccia (www.sauronsoftware.it)
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License version
+ * 2.1, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License 2.1 for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License version 2.1 along with this program.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+package it.sauronsoftware.ftp4j.transfer;
+
+import it.sauronsoftware.ftp4j.FTPAbortedException;
+import it.sauronsoftware.ftp4j.FTPClient;
+import it.sauronsoftware.ftp4j.FTPDataTransferException;
+import it.sauronsoftware.ftp4j.FTPException;
+import it.sauronsoftware.ftp4j.FTPIllegalReplyException;
+import it.sauronsoftware.ftp4j.FTPListParseException;
+import it.sauronsoftware.ftp4j.pool.FTPClientPoolKey;
+
+import java.io.IOException;
+
+/**
+ * This abstract class describes a unit of work run by a
+ * {@link TransferManager} on a pooled client.
+ * 
+ * Every job has a tenant, a priority and an optional deadline, which must be
+ * set before the job is submitted. The manager shares the sessions fairly
+ * among the tenants; the jobs of the same tenant are run in order of
+ * priority, then of deadline, then of submission. A job not yet started when
+ * its deadline expires is not run at all.
+ * 
+ * The distribution of ftp4j contains the {@link DownloadJob},
+ * {@link UploadJob} and {@link ListJob} implementations. Other jobs can be
+ * built by extending this class and implementing its
+ * {@link TransferJob#execute(FTPClient)} method.
+ * 
+ * @author Carlo Pelliccia
+ * @since 1.7
+ * @see TransferManager#submit(TransferJob)
+ */
+public abstract class TransferJob {
+
+	/**
+	 * The state of a job not yet submitted.
+	 */
+	public static final int STATE_NEW = 0;
+
+	/**
+	 * The state of a job waiting for a session.
+	 */
+	public static final int STATE_QUEUED = 1;
+
+	/**
+	 * The state of a running job.
+	 */
+	public static final int STATE_RUNNING = 2;
+
+	/**
+	 * The state of a job successfully completed.
+	 */
+	public static final int STATE_COMPLETED = 3;
+
+	/**
+	 * The state of a failed job. The cause is returned by
+	 * {@link TransferJob#getError()}.
+	 */
+	public static final int STATE_FAILED = 4;
+
+	/**
+	 * The state of a cancelled job. A job cancelled while running ends in this
+	 * state even if its operations have been completed.
+	 */
+	public static final int STATE_CANCELLED = 5;
+
+	/**
+	 * The state of a job whose deadline expired before it could start.
+	 */
+	public static final int STATE_EXPIRED = 6;
+
+	/**
+	 * The key of the session the job runs on.
+	 */
+	private FTPClientPoolKey key;
+
+	/**
+	 * The tenant the job belongs to.
+	 */
+	private String tenant = "";
+
+	/**
+	 * The priority of the job.
+	 */
+	private int priority = 0;
+
+	/**
+	 * The deadline of the job, or 0 if none.
+	 */
+	private long deadline = 0;
+
+	/**
+	 * The identifier given by the manager.
+	 */
+	private long id = 0;
+
+	/**
+	 * The state of the job.
+	 */
+	private int state = STATE_NEW;
+
+	/**
+	 * The cause of the failure, if any.
+	 */
+	private Throwable error = null;
+
+	/**
+	 * The time the job has been submitted.
+	 */
+	private long submitTime = 0;
+
+	/**
+	 * The time the job has been started.
+	 */
+	private long startTime = 0;
+
+	/**
+	 * The time the job has been completed.
+	 */
+	private long endTime = 0;
+
+	/**
+	 * The client running the job, if any.
+	 */
+	private FTPClient client = null;
+
+	/**
+	 * This flag turns to true when the job is cancelled while running.
+	 */
+	private boolean cancelled = false;
+
+	/**
+	 * Lock object used for synchronization.
+	 */
+	private Object lock = new Object();
+
+	/**
+	 * Builds the job.
+	 * 
+	 * @param key
+	 *            The key of the session the job runs on.
+	 * @throws IllegalArgumentException
+	 *             If the key is null.
+	 */
+	protected TransferJob(FTPClientPoolKey key)
+			throws IllegalArgumentException {
+		if (key == null) {
+			throw new IllegalArgumentException("Key is null");
+		}
+		this.key = key;
+	}
+
+	/**
+	 * Runs the job.
+	 * 
+	 * @param client
+	 *            A connected and authenticated client, borrowed for the job.
+	 *            Its working directory and transfer settings are restored
+	 *            when the job ends.
+	 * @throws IllegalStateException
+	 *             If the client is not connected or not authenticated.
+	 * @throws IOException
+	 *             If an I/O error occurs.
+	 * @throws FTPIllegalReplyException
+	 *             If the server replies in an illegal way.
+	 * @throws FTPException
+	 *             If an operation fails.
+	 * @throws FTPDataTransferException
+	 *             If a I/O occurs in the data transfer connection.
+	 * @throws FTPAbortedException
+	 *             If the job is cancelled while transferring data.
+	 * @throws FTPListParseException
+	 *             If a listing cannot be parsed.
+	 */
+	protected abstract void execute(FTPClient client)
+			throws IllegalStateException, IOException,
+			FTPIllegalReplyException, FTPException, FTPDataTransferException,
+			FTPAbortedException, FTPListParseException;
+
+	/**
+	 * Returns the key of the session the job runs on.
+	 * 
+	 * @return The key of the session the job runs on.
+	 */
+	public FTPClientPoolKey getKey() {
+		return key;
+	}
+
+	/**
+	 * Returns the tenant the job belongs to.
+	 * 
+	 * @return The tenant the job belongs to.
+	 */
+	public String getTenant() {
+		synchronized (lock) {
+			return tenant;
+		}
+	}
+
+	/**
+	 * Sets the tenant the job belongs to. The sessions are shared fairly
+	 * among the tenants with queued jobs. Default is the empty string.
+	 * 
+	 * @param tenant
+	 *            The tenant.
+	 * @throws IllegalArgumentException
+	 *             If the tenant is null.
+	 * @throws IllegalStateException
+	 *             If the job has already been submitted.
+	 */
+	public void setTenant(String tenant) throws IllegalArgumentException,
+			IllegalStateException {
+		if (tenant == null) {
+			throw new IllegalArgumentException("Tenant is null");
+		}
+		synchronized (lock) {
+			checkNew();
+			this.tenant = tenant;
+		}
+	}
+
+	/**
+	 * Returns the priority of the job.
+	 * 
+	 * @return The priority of the job.
+	 */
+	public int getPriority() {
+		synchronized (lock) {
+			return priority;
+		}
+	}
+
+	/**
+	 * Sets the priority of the job. Jobs with a greater value are run first.
+	 * Default is 0.
+	 * 
+	 * @param priority
+	 *            The priority.
+	 * @throws IllegalStateException
+	 *             If the job has already been submitted.
+	 */
+	public void setPriority(int priority) throws IllegalStateException {
+		synchronized (lock) {
+			checkNew();
+			this.priority = priority;
+		}
+	}
+
+	/**
+	 * Returns the deadline of the job.
+	 * 
+	 * @return The deadline of the job, as a time in milliseconds, or 0 if
+	 *         none.
+	 */
+	public long getDeadline() {
+		synchronized (lock) {
+			return deadline;
+		}
+	}
+
+	/**
+	 * Sets the deadline of the job. Among jobs with the same priority, the
+	 * ones with the nearest deadline are run first. A job not yet started
+	 * when its deadline expires is not run, and its state turns to
+	 * {@link TransferJob#STATE_EXPIRED}. Default is 0 (no deadline).
+	 * 
+	 * @param deadline
+	 *            The deadline, as a time in milliseconds (see
+	 *            {@link System#currentTimeMillis()}), or 0 for no deadline.
+	 * @throws IllegalStateException
+	 *             If the job has already been submitted.
+	 */
+	public void setDeadline(long deadline) throws IllegalStateException {
+		synchronized (lock) {
+			checkNew();
+			this.deadline = deadline;
+		}
+	}
+
+	/**
+	 * Returns the identifier given to the job by the manager. Identifiers
+	 * grow in order of submission.
+	 * 
+	 * @return The identifier of the job, or 0 if not submitted yet.
+	 */
+	public long getId() {
+		synchronized (lock) {
+			return id;
+		}
+	}
+
+	/**
+	 * Returns the state of the job.
+	 * 
+	 * @return One of the STATE_* constants.
+	 */
+	public int getState() {
+		synchronized (lock) {
+			return state;
+		}
+	}
+
+	/**
+	 * Checks whether the job has ended, successfully or not.
+	 * 
+	 * @return true if the job has ended.
+	 */
+	public boolean isDone() {
+		synchronized (lock) {
+			return state >= STATE_COMPLETED;
+		}
+	}
+
+	/**
+	 * Returns the cause of the failure of the job.
+	 * 
+	 * @return The cause of the failure, or null if the job has not failed.
+	 */
+	public Throwable getError() {
+		synchronized (lock) {
+			return error;
+		}
+	}
+
+	/**
+	 * Returns the time the job has been submitted.
+	 * 
+	 * @return The submission time in milliseconds, or 0 if not submitted yet.
+	 */
+	public long getSubmitTime() {
+		synchronized (lock) {
+			return submitTime;
+		}
+	}
+
+	/**
+	 * Returns the time the job has been started.
+	 * 
+	 * @return The start time in milliseconds, or 0 if not started yet.
+	 */
+	public long getStartTime() {
+		synchronized (lock) {
+			return startTime;
+		}
+	}
+
+	/**
+	 * Returns the time the job has ended.
+	 * 
+	 * @return The end time in milliseconds, or 0 if not ended yet.
+	 */
+	public long getEndTime() {
+		synchronized (lock) {
+			return endTime;
+		}
+	}
+
+	/**
+	 * Waits for the job to end.
+	 * 
+	 * @throws InterruptedException
+	 *             If the calling thread is interrupted.
+	 */
+	public void waitFor() throws InterruptedException {
+		synchronized (lock) {
+			while (state < STATE_COMPLETED) {
+				lock.wait();
+			}
+		}
+	}
+
+	/**
+	 * Waits for the job to end, at most for the given time.
+	 * 
+	 * @param timeout
+	 *            The max time to wait, in milliseconds.
+	 * @return true if the job has ended, false if the time has elapsed.
+	 * @throws InterruptedException
+	 *             If the calling thread is interrupted.
+	 */
+	public boolean waitFor(long timeout) throws InterruptedException {
+		long limit = System.currentTimeMillis() + timeout;
+		synchronized (lock) {
+			while (state < STATE_COMPLETED) {
+				long delay = limit - System.currentTimeMillis();
+				if (delay <= 0) {
+					return false;
+				}
+				lock.wait(delay);
+			}
+			return true;
+		}
+	}
+
+	/**
+	 * Marks the job as queued.
+	 * 
+	 * @param id
+	 *            The identifier of the job.
+	 * @throws IllegalStateException
+	 *             If the job has already been submitted.
+	 */
+	void queued(long id) throws IllegalStateException {
+		synchronized (lock) {
+			checkNew();
+			this.id = id;
+			this.state = STATE_QUEUED;
+			this.submitTime = System.currentTimeMillis();
+		}
+	}
+
+	/**
+	 * Marks the job as running.
+	 */
+	void started() {
+		synchronized (lock) {
+			state = STATE_RUNNING;
+			startTime = System.currentTimeMillis();
+		}
+	}
+
+	/**
+	 * Marks the job as ended.
+	 * 
+	 * @param state
+	 *            The final state.
+	 * @param error
+	 *            The cause of the failure, if any.
+	 */
+	void ended(int state, Throwable error) {
+		synchronized (lock) {
+			if (cancelled
+					&& (state == STATE_COMPLETED || state == STATE_FAILED)) {
+				state = STATE_CANCELLED;
+				error = null;
+			}
+			this.state = state;
+			this.error = error;
+			this.endTime = System.currentTimeMillis();
+			this.client = null;
+			lock.notifyAll();
+		}
+	}
+
+	/**
+	 * Sets the client running the job.
+	 * 
+	 * @param client
+	 *            The client, or null when the job is over.
+	 * @return false if the job has been cancelled in the meantime, so it
+	 *         should not run.
+	 */
+	boolean running(FTPClient client) {
+		synchronized (lock) {
+			this.client = client;
+			return !cancelled;
+		}
+	}
+
+	/**
+	 * Cancels the job while it is running, aborting its ongoing data
+	 * transfer, if any.
+	 */
+	void cancel() {
+		FTPClient aux;
+		synchronized (lock) {
+			cancelled = true;
+			aux = client;
+		}
+		if (aux != null) {
+			try {
+				aux.abortCurrentDataTransfer(false);
+			} catch (Throwable t) {
+				;
+			}
+		}
+	}
+
+	/**
+	 * Throws an IllegalStateException if the job has already been submitted.
+	 * Call it only under the eye of the lock.
+	 */
+	private void checkNew() throws IllegalStateException {
+		if (state != STATE_NEW) {
+			throw new IllegalStateException("Job already submitted");
+		}
+	}
+
+	public String toString() {
+		StringBuffer buffer = new StringBuffer();
+		synchronized (lock) {
+			buffer.append(getClass().getName());
+			buffer.append(" [id=");
+			buffer.append(id);
+			buffer.append(", key=");
+			buffer.append(key);
+			buffer.append(", tenant=");
+			buffer.append(tenant);
+			buffer.append(", priority=");
+			buffer.append(priority);
+			buffer.append(", deadline=");
+			buffer.append(deadline);
+			buffer.append(", state=");
+			buffer.append(state);
+			if (error != null) {
+				buffer.append(", error=");
+				buffer.append(error);
+			}
+			buffer.append("]");
+		}
+		return buffer.toString();
+	}
+
+}
@@ -0,0 +1,599 @@
+/*
+ * ftp4j - A pure Java FTP client library
+ * 
+ * Copyright (C) 2008-2010 Carlo Pelliccia (www.sauronsoftware.it)
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License version
+ * 2.1, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License 2.1 for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License version 2.1 along with this program.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+package it.sauronsoftware.ftp4j.transfer;
+
+import it.sauronsoftware.ftp4j.FTPAbortedException;
+import it.sauronsoftware.ftp4j.FTPClient;
+import it.sauronsoftware.ftp4j.FTPException;
+import it.sauronsoftware.ftp4j.FTPListParseException;
+import it.sauronsoftware.ftp4j.pool.FTPClientPool;
+import it.sauronsoftware.ftp4j.pool.FTPClientPoolKey;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.ListIterator;
+import java.util.TreeSet;
+
+/**
+ * This class runs transfer jobs over the clients of a {@link FTPClientPool},
+ * on a fixed set of worker threads.
+ * 
+ * Jobs are queued by tenant. Whenever a worker is free, the tenants with
+ * queued jobs are served in turn, so a tenant submitting many jobs can't
+ * starve the others. Within a tenant, jobs are run in order of priority, then
+ * of deadline, then of submission. A job whose deadline expires before it
+ * starts is not run.
+ * 
+ * Many servers limit the number of connections from the same address, so the
+ * number of jobs running at the same time against the same host (regardless
+ * of the credentials) is limited too: a job for a busy host waits, without
+ * holding back the jobs for other hosts.
+ * 
+ * <pre>
+ * TransferManager manager = new TransferManager(pool, 8);
+ * manager.setMaxConnectionsPerHost(2);
+ * DownloadJob job = new DownloadJob(key, &quot;/pub/file.zip&quot;, new File(&quot;file.zip&quot;));
+ * job.setTenant(&quot;reports&quot;);
+ * job.setPriority(10);
+ * manager.submit(job);
+ * job.waitFor();
+ * if (job.getState() == TransferJob.STATE_FAILED) {
+ * 	job.getError().printStackTrace();
+ * }
+ * </pre>
+ * 
+ * The queued, running and recently finished jobs can be inspected at any
+ * time. The manager must be shut down when no longer needed.
+ * 
+ * @author Carlo Pelliccia
+ * @since 1.7
+ * @see TransferJob
+ */
+public class TransferManager {
+
+	/**
+	 * Orders the jobs of a tenant: greater priority first, then nearest
+	 * deadline, then submission order.
+	 */
+	private static final Comparator JOB_ORDER = new Comparator() {
+		public int compare(Object o1, Object o2) {
+			TransferJob j1 = (TransferJob) o1;
+			TransferJob j2 = (TransferJob) o2;
+			int p1 = j1.getPriority();
+			int p2 = j2.getPriority();
+			if (p1 != p2) {
+				return p1 > p2 ? -1 : 1;
+			}
+			long d1 = j1.getDeadline();
+			long d2 = j2.getDeadline();
+			if (d1 != d2) {
+				if (d1 == 0) {
+					return 1;
+				} else if (d2 == 0) {
+					return -1;
+				} else {
+					return d1 < d2 ? -1 : 1;
+				}
+			}
+			long i1 = j1.getId();
+			long i2 = j2.getId();
+			return i1 < i2 ? -1 : (i1 == i2 ? 0 : 1);
+		}
+	};
+
+	/**
+	 * The pool the clients are borrowed from.
+	 */
+	private FTPClientPool pool;
+
+	/**
+	 * The worker threads.
+	 */
+	private Worker[] workers;
+
+	/**
+	 * The max number of jobs running at the same time against a host.
+	 */
+	private int maxConnectionsPerHost = 2;
+
+	/**
+	 * The max number of finished jobs remembered.
+	 */
+	private int maxFinishedJobs = 1000;
+
+	/**
+	 * The queued jobs (tenant -> TreeSet of jobs).
+	 */
+	private HashMap queues = new HashMap();
+
+	/**
+	 * The tenants with queued jobs, in the order they will be served.
+	 */
+	private LinkedList tenants = new LinkedList();
+
+	/**
+	 * The number of running jobs per host (host -> int[1]).
+	 */
+	private HashMap connections = new HashMap();
+
+	/**
+	 * The running jobs.
+	 */
+	private LinkedList running = new LinkedList();
+
+	/**
+	 * The recently finished jobs, oldest first.
+	 */
+	private LinkedList finished = new LinkedList();
+
+	/**
+	 * The identifier of the last submitted job.
+	 */
+	private long lastId = 0;
+
+	/**
+	 * This flag turns to true when the manager has been shut down.
+	 */
+	private boolean shutdown = false;
+
+	/**
+	 * Lock object used for synchronization.
+	 */
+	private Object lock = new Object();
+
+	/**
+	 * Builds the manager and starts its worker threads.
+	 * 
+	 * @param pool
+	 *            The pool the clients are borrowed from.
+	 * @param threads
+	 *            The number of worker threads, that is the max number of jobs
+	 *            running at the same time.
+	 * @throws IllegalArgumentException
+	 *             If the pool is null, or if the number of threads is less than
+	 *             1.
+	 */
+	public TransferManager(FTPClientPool pool, int threads)
+			throws IllegalArgumentException {
+		if (pool == null) {
+			throw new IllegalArgumentException("Pool is null");
+		}
+		if (threads < 1) {
+			throw new IllegalArgumentException("Invalid threads");
+		}
+		this.pool = pool;
+		this.workers = new Worker[threads];
+		for (int i = 0; i < threads; i++) {
+			workers[i] = new Worker();
+			workers[i].start();
+		}
+	}
+
+	/**
+	 * Returns the max number of jobs running at the same time against a host.
+	 * 
+	 * @return The max number of jobs running at the same time against a host.
+	 */
+	public int getMaxConnectionsPerHost() {
+		synchronized (lock) {
+			return maxConnectionsPerHost;
+		}
+	}
+
+	/**
+	 * Sets the max number of jobs running at the same time against a host,
+	 * counting every port and every user. The pool limit of clients per key
+	 * should not be less than this value. Default is 2.
+	 * 
+	 * @param maxConnectionsPerHost
+	 *            The max number of jobs running at the same time against a
+	 *            host.
+	 * @throws IllegalArgumentException
+	 *             If the value is less than 1.
+	 */
+	public void setMaxConnectionsPerHost(int maxConnectionsPerHost)
+			throws IllegalArgumentException {
+		if (maxConnectionsPerHost < 1) {
+			throw new IllegalArgumentException("Invalid max connections");
+		}
+		synchronized (lock) {
+			this.maxConnectionsPerHost = maxConnectionsPerHost;
+			lock.notifyAll();
+		}
+	}
+
+	/**
+	 * Returns the max number of finished jobs remembered.
+	 * 
+	 * @return The max number of finished jobs remembered.
+	 */
+	public int getMaxFinishedJobs() {
+		synchronized (lock) {
+			return maxFinishedJobs;
+		}
+	}
+
+	/**
+	 * Sets the max number of finished jobs remembered and returned by
+	 * {@link TransferManager#getFinishedJobs()}. When the limit is reached,
+	 * the oldest are forgotten. Default is 1000.
+	 * 
+	 * @param maxFinishedJobs
+	 *            The max number of finished jobs remembered.
+	 * @throws IllegalArgumentException
+	 *             If the value is negative.
+	 */
+	public void setMaxFinishedJobs(int maxFinishedJobs)
+			throws IllegalArgumentException {
+		if (maxFinishedJobs < 0) {
+			throw new IllegalArgumentException("Invalid max finished jobs");
+		}
+		synchronized (lock) {
+			this.maxFinishedJobs = maxFinishedJobs;
+			while (finished.size() > maxFinishedJobs) {
+				finished.removeFirst();
+			}
+		}
+	}
+
+	/**
+	 * Queues a job. The tenant, the priority and the deadline of the job can't
+	 * be changed after this call.
+	 * 
+	 * @param job
+	 *            The job.
+	 * @throws IllegalArgumentException
+	 *             If the job is null.
+	 * @throws IllegalStateException
+	 *             If the job has already been submitted, or if the manager
+	 *             has been shut down.
+	 */
+	public void submit(TransferJob job) throws IllegalArgumentException,
+			IllegalStateException {
+		if (job == null) {
+			throw new IllegalArgumentException("Job is null");
+		}
+		synchronized (lock) {
+			if (shutdown) {
+				throw new IllegalStateException("Manager shut down");
+			}
+			job.queued(lastId + 1);
+			lastId++;
+			String tenant = job.getTenant();
+			TreeSet queue = (TreeSet) queues.get(tenant);
+			if (queue == null) {
+				queue = new TreeSet(JOB_ORDER);
+				queues.put(tenant, queue);
+				tenants.addLast(tenant);
+			}
+			queue.add(job);
+			lock.notifyAll();
+		}
+	}
+
+	/**
+	 * Cancels a job. A queued job is removed from the queue; a running job
+	 * has its ongoing data transfer aborted, and ends as soon as it notices.
+	 * A running job can't be stopped outside of a data transfer, but it ends
+	 * as {@link TransferJob#STATE_CANCELLED} anyway, even if its operations
+	 * manage to complete.
+	 * 
+	 * @param job
+	 *            The job.
+	 * @return true if the job has been cancelled, false if it has already
+	 *         ended or if it has not been submitted to this manager.
+	 */
+	public boolean cancel(TransferJob job) {
+		synchronized (lock) {
+			TreeSet queue = (TreeSet) queues.get(job.getTenant());
+			if (queue != null && queue.remove(job)) {
+				if (queue.isEmpty()) {
+					queues.remove(job.getTenant());
+					tenants.remove(job.getTenant());
+				}
+				finish(job, TransferJob.STATE_CANCELLED, null);
+				return true;
+			}
+			if (!running.contains(job)) {
+				return false;
+			}
+		}
+		job.cancel();
+		return true;
+	}
+
+	/**
+	 * Returns the queued jobs, tenant by tenant in the order they will be
+	 * served.
+	 * 
+	 * @return The queued jobs.
+	 */
+	public TransferJob[] getQueuedJobs() {
+		synchronized (lock) {
+			ArrayList ret = new ArrayList();
+			for (Iterator i = tenants.iterator(); i.hasNext();) {
+				ret.addAll((TreeSet) queues.get(i.next()));
+			}
+			return (TransferJob[]) ret.toArray(new TransferJob[ret.size()]);
+		}
+	}
+
+	/**
+	 * Returns the running jobs.
+	 * 
+	 * @return The running jobs.
+	 */
+	public TransferJob[] getRunningJobs() {
+		synchronized (lock) {
+			return (TransferJob[]) running.toArray(new TransferJob[running
+					.size()]);
+		}
+	}
+
+	/**
+	 * Returns the recently finished jobs, oldest first.
+	 * 
+	 * @return The recently finished jobs.
+	 * @see TransferManager#setMaxFinishedJobs(int)
+	 */
+	public TransferJob[] getFinishedJobs() {
+		synchronized (lock) {
+			return (TransferJob[]) finished.toArray(new TransferJob[finished
+					.size()]);
+		}
+	}
+
+	/**
+	 * Shuts down the manager. The queued jobs are cancelled, the running ones
+	 * are completed, then the worker threads end. Any subsequent submission
+	 * fails with an IllegalStateException. The pool is not closed.
+	 * 
+	 * @throws InterruptedException
+	 *             If the calling thread is interrupted while waiting for the
+	 *             running jobs.
+	 */
+	public void shutdown() throws InterruptedException {
+		synchronized (lock) {
+			if (!shutdown) {
+				shutdown = true;
+				for (Iterator i = tenants.iterator(); i.hasNext();) {
+					TreeSet queue = (TreeSet) queues.get(i.next());
+					for (Iterator j = queue.iterator(); j.hasNext();) {
+						finish((TransferJob) j.next(),
+								TransferJob.STATE_CANCELLED, null);
+					}
+				}
+				queues.clear();
+				tenants.clear();
+				lock.notifyAll();
+			}
+		}
+		for (int i = 0; i < workers.length; i++) {
+			if (workers[i] != Thread.currentThread()) {
+				workers[i].join();
+			}
+		}
+	}
+
+	/**
+	 * Picks the next job to run, serving the tenants in turn and skipping the
+	 * jobs whose host is busy. Expired jobs are removed on the way. Call it
+	 * only under the eye of the lock.
+	 * 
+	 * @return The job, or null if no job can run right now.
+	 */
+	private TransferJob next() {
+		long now = System.currentTimeMillis();
+		for (ListIterator i = tenants.listIterator(); i.hasNext();) {
+			String tenant = (String) i.next();
+			TreeSet queue = (TreeSet) queues.get(tenant);
+			TransferJob job = null;
+			for (Iterator j = queue.iterator(); j.hasNext();) {
+				TransferJob aux = (TransferJob) j.next();
+				long deadline = aux.getDeadline();
+				if (deadline > 0 && deadline <= now) {
+					j.remove();
+					finish(aux, TransferJob.STATE_EXPIRED, null);
+				} else if (countConnections(aux.getKey())
+						< maxConnectionsPerHost) {
+					j.remove();
+					job = aux;
+					break;
+				}
+			}
+			if (job != null) {
+				// The tenant is served again after the others.
+				i.remove();
+				if (queue.isEmpty()) {
+					queues.remove(tenant);
+				} else {
+					tenants.addLast(tenant);
+				}
+				return job;
+			} else if (queue.isEmpty()) {
+				i.remove();
+				queues.remove(tenant);
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Returns the nearest deadline of the queued jobs. Call it only under the
+	 * eye of the lock.
+	 * 
+	 * @return The nearest deadline, or 0 if no queued job has a deadline.
+	 */
+	private long nextDeadline() {
+		long ret = 0;
+		for (Iterator i = queues.values().iterator(); i.hasNext();) {
+			TreeSet queue = (TreeSet) i.next();
+			for (Iterator j = queue.iterator(); j.hasNext();) {
+				long deadline = ((TransferJob) j.next()).getDeadline();
+				if (deadline > 0 && (ret == 0 || deadline < ret)) {
+					ret = deadline;
+				}
+			}
+		}
+		return ret;
+	}
+
+	/**
+	 * Returns the number of jobs running against the host of a key. Call it
+	 * only under the eye of the lock.
+	 */
+	private int countConnections(FTPClientPoolKey key) {
+		int[] count = (int[]) connections.get(key.getHost());
+		return count != null ? count[0] : 0;
+	}
+
+	/**
+	 * Records a job running against the host of a key. Call it only under
+	 * the eye of the lock.
+	 */
+	private void addConnection(FTPClientPoolKey key) {
+		int[] count = (int[]) connections.get(key.getHost());
+		if (count == null) {
+			count = new int[1];
+			connections.put(key.getHost(), count);
+		}
+		count[0]++;
+	}
+
+	/**
+	 * Records a job no longer running against the host of a key. Call it only
+	 * under the eye of the lock.
+	 */
+	private void removeConnection(FTPClientPoolKey key) {
+		int[] count = (int[]) connections.get(key.getHost());
+		if (count != null && --count[0] == 0) {
+			connections.remove(key.getHost());
+		}
+	}
+
+	/**
+	 * Ends a job and remembers it among the finished ones. Call it only under
+	 * the eye of the lock.
+	 */
+	private void finish(TransferJob job, int state, Throwable error) {
+		job.ended(state, error);
+		if (maxFinishedJobs > 0) {
+			finished.addLast(job);
+			if (finished.size() > maxFinishedJobs) {
+				finished.removeFirst();
+			}
+		}
+	}
+
+	/**
+	 * Runs a job on a client borrowed from the pool.
+	 * 
+	 * @param job
+	 *            The job.
+	 * @return The cause of the failure, or null if the job has been
+	 *         completed.
+	 */
+	private Throwable run(TransferJob job) {
+		FTPClient client = null;
+		boolean reusable = true;
+		try {
+			client = pool.borrowClient(job.getKey());
+			if (!job.running(client)) {
+				// Cancelled in the meantime.
+				return new FTPAbortedException();
+			}
+			job.execute(client);
+			return null;
+		} catch (FTPException e) {
+			// The client is still usable.
+			return e;
+		} catch (FTPListParseException e) {
+			// The client is still usable.
+			return e;
+		} catch (Throwable t) {
+			reusable = false;
+			return t;
+		} finally {
+			job.running(null);
+			if (client != null) {
+				if (reusable) {
+					pool.returnClient(client);
+				} else {
+					pool.invalidateClient(client);
+				}
+			}
+		}
+	}
+
+	/**
+	 * A worker thread.
+	 */
+	private class Worker extends Thread {
+
+		public Worker() {
+			setDaemon(true);
+		}
+
+		public void run() {
+			while (true) {
+				TransferJob job;
+				synchronized (lock) {
+					while (true) {
+						if (shutdown && tenants.isEmpty()) {
+							return;
+						}
+						job = next();
+						if (job != null) {
+							break;
+						}
+						// Wakes up when the nearest deadline passes, so the
+						// expired job leaves the queue.
+						long timeout = 0;
+						long deadline = nextDeadline();
+						if (deadline > 0) {
+							timeout = Math.max(1, deadline
+									- System.currentTimeMillis());
+						}
+						try {
+							lock.wait(timeout);
+						} catch (InterruptedException e) {
+							return;
+						}
+					}
+					addConnection(job.getKey());
+					running.add(job);
+					job.started();
+				}
+				Throwable error = TransferManager.this.run(job);
+				synchronized (lock) {
+					removeConnection(job.getKey());
+					running.remove(job);
+					finish(job, error == null ? TransferJob.STATE_COMPLETED
+							: TransferJob.STATE_FAILED, error);
+					lock.notifyAll();
+				}
+			}
+		}
+
+	}
+
+}
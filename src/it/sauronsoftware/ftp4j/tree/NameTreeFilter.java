@@ -0,0 +1,102 @@
+/*
+ * ftp4j - A pure Java FTP client library
+ * 
+ * Copyright (C) 2008-2010 Carlo Pelliccia (www.sauronsoftware.it)
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License version
+ * 2.1, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License 2.1 for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License version 2.1 along with this program.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+package it.sauronsoftware.ftp4j.tree;
+
+import it.sauronsoftware.ftp4j.FTPFile;
+
+import java.util.regex.Pattern;
+
+/**
+ * A {@link RemoteTreeFilter} which selects the entries by name, with a regular
+ * expression. By default the expression is applied only to the entries that
+ * are not directories, so the whole tree is still walked; call
+ * {@link NameTreeFilter#setMatchDirectories(boolean)} to prune directories
+ * too.
+ * 
+ * @author Carlo Pelliccia
+ * @since 1.7
+ */
+public class NameTreeFilter implements RemoteTreeFilter {
+
+	/**
+	 * The pattern the names have to match.
+	 */
+	private Pattern pattern;
+
+	/**
+	 * Should the pattern be applied to directories too?
+	 */
+	private boolean matchDirectories = false;
+
+	/**
+	 * Builds the filter.
+	 * 
+	 * @param regex
+	 *            The regular expression the names have to match.
+	 * @throws java.util.regex.PatternSyntaxException
+	 *             If the expression is not valid.
+	 */
+	public NameTreeFilter(String regex) throws IllegalArgumentException {
+		this(Pattern.compile(regex));
+	}
+
+	/**
+	 * Builds the filter.
+	 * 
+	 * @param pattern
+	 *            The pattern the names have to match.
+	 * @throws IllegalArgumentException
+	 *             If the pattern is null.
+	 */
+	public NameTreeFilter(Pattern pattern) throws IllegalArgumentException {
+		if (pattern == null) {
+			throw new IllegalArgumentException("Pattern is null");
+		}
+		this.pattern = pattern;
+	}
+
+	/**
+	 * Checks whether the pattern is applied to directories too.
+	 * 
+	 * @return true if the pattern is applied to directories too.
+	 */
+	public boolean isMatchDirectories() {
+		return matchDirectories;
+	}
+
+	/**
+	 * Sets whether the pattern is applied to directories too. If true,
+	 * directories whose names don't match are neither visited nor walked.
+	 * Default is false.
+	 * 
+	 * @param matchDirectories
+	 *            true to apply the pattern to directories too.
+	 */
+	public void setMatchDirectories(boolean matchDirectories) {
+		this.matchDirectories = matchDirectories;
+	}
+
+	public boolean accept(String parent, FTPFile file) {
+		if (file.getType() == FTPFile.TYPE_DIRECTORY && !matchDirectories) {
+			return true;
+		}
+		return pattern.matcher(file.getName()).matches();
+	}
+
+}
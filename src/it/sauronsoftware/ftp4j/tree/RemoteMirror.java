@@ -0,0 +1,1158 @@
+/*
+ * ftp4j - A pure Java FTP client library
+ * 
+ * Copyright (C) 2008-2010 Carlo Pelliccia (www.sauronsoftware.it)
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License version
+ * 2.1, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License 2.1 for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License version 2.1 along with this program.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+package it.sauronsoftware.ftp4j.tree;
+
+import it.sauronsoftware.ftp4j.FTPAbortedException;
+import it.sauronsoftware.ftp4j.FTPClient;
+import it.sauronsoftware.ftp4j.FTPDataTransferException;
+import it.sauronsoftware.ftp4j.FTPException;
+import it.sauronsoftware.ftp4j.FTPFile;
+import it.sauronsoftware.ftp4j.FTPFileVisitor;
+import it.sauronsoftware.ftp4j.FTPIllegalReplyException;
+import it.sauronsoftware.ftp4j.FTPListParseException;
+import it.sauronsoftware.ftp4j.pool.FTPClientPool;
+import it.sauronsoftware.ftp4j.pool.FTPClientPoolKey;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+
+/**
+ * This class mirrors a remote directory tree into a local directory, or a
+ * local directory into a remote tree, transferring only the files which have
+ * changed.
+ * 
+ * The two trees are compared one directory at a time by the calling thread,
+ * over a session borrowed from a {@link FTPClientPool}. A file is transferred
+ * when it is missing on the other side, or when its size or its last
+ * modification date differs. The changed files are queued as soon as they
+ * are found, and transferred by a set of other sessions borrowed from the
+ * same pool while the comparison goes on. The queue is bounded, and only the
+ * directory being compared is held in memory, so the memory used does not
+ * grow with the size of the tree. When the queue is full, the comparison
+ * transfers the next file itself, so it never waits for sessions which may
+ * be waiting for a client of the pool.
+ * 
+ * <pre>
+ * RemoteMirror mirror = new RemoteMirror(pool, key);
+ * mirror.setSessions(4);
+ * mirror.setDeleteOrphans(true);
+ * RemoteMirrorResult result = mirror.download(&quot;/pub&quot;, new File(&quot;pub&quot;));
+ * System.out.println(result.getTransferredFiles() + &quot; files updated&quot;);
+ * </pre>
+ * 
+ * A downloaded file gets the last modification date of the remote one, so the
+ * next run finds it unchanged. The remote modification date can't be set, so
+ * an uploaded file is considered changed only if the local file is newer than
+ * the remote one, or if their sizes differ.
+ * 
+ * Partial files left by an interrupted run are resumed with the REST command
+ * instead of being transferred again. A local file is considered a partial
+ * download if it is smaller than the remote one and newer than it; a remote
+ * file is considered a partial upload if it is smaller than the local one and
+ * not older than it. The server must support the resume of broken transfers
+ * (see {@link FTPClient#isResumeSupported()}).
+ * 
+ * The files are always transferred in binary mode, whatever the type of the
+ * pooled sessions, so their sizes can be compared.
+ * 
+ * Since the dates in the LIST replies are often truncated to the minute, and
+ * the clocks of the client and of the server may differ, the dates are
+ * compared with a tolerance (see {@link RemoteMirror#setTimeTolerance(long)}).
+ * 
+ * Links are never followed, nor transferred. A local link found where a
+ * remote entry must be downloaded is replaced, and a local link missing on
+ * the server is deleted, but the entry it points to is never touched. A mirror
+ * can be reused, but it runs a single operation at a time.
+ * 
+ * @author Carlo Pelliccia
+ * @since 1.7
+ * @see RemoteTreeWalker
+ */
+public class RemoteMirror {
+
+	/**
+	 * The number of queued transfers per session, after which the comparison
+	 * waits for the transfers to catch up.
+	 */
+	private static final int QUEUE_SIZE_PER_SESSION = 16;
+
+	/**
+	 * The pool the sessions are borrowed from.
+	 */
+	private FTPClientPool pool;
+
+	/**
+	 * The key of the sessions.
+	 */
+	private FTPClientPoolKey key;
+
+	/**
+	 * The number of sessions used to transfer the files.
+	 */
+	private int sessions = 4;
+
+	/**
+	 * The filter for the entries. Could be null.
+	 */
+	private RemoteTreeFilter filter = null;
+
+	/**
+	 * Should the entries missing on the source side be deleted?
+	 */
+	private boolean deleteOrphans = false;
+
+	/**
+	 * The tolerance in the comparison of dates, in milliseconds.
+	 */
+	private long timeTolerance = 60000;
+
+	/**
+	 * The transfers still to be done.
+	 */
+	private LinkedList queue = new LinkedList();
+
+	/**
+	 * The max number of transfers in the queue.
+	 */
+	private int queueSize;
+
+	/**
+	 * This flag turns to true when the comparison of the trees is completed.
+	 */
+	private boolean compared = false;
+
+	/**
+	 * The first error occurred in the ongoing operation, if any.
+	 */
+	private Throwable error = null;
+
+	/**
+	 * This flag turns to true while an operation is running.
+	 */
+	private boolean running = false;
+
+	/**
+	 * The number of transferred files.
+	 */
+	private int transferredFiles;
+
+	/**
+	 * The number of resumed files.
+	 */
+	private int resumedFiles;
+
+	/**
+	 * The number of transferred bytes.
+	 */
+	private long transferredBytes;
+
+	/**
+	 * The number of files already up to date.
+	 */
+	private int unchangedFiles;
+
+	/**
+	 * The number of deleted orphan entries.
+	 */
+	private int deletedEntries;
+
+	/**
+	 * Lock object used for synchronization.
+	 */
+	private Object lock = new Object();
+
+	/**
+	 * Builds the mirror.
+	 * 
+	 * @param pool
+	 *            The pool the sessions are borrowed from.
+	 * @param key
+	 *            The key of the sessions.
+	 * @throws IllegalArgumentException
+	 *             If the pool or the key is null.
+	 */
+	public RemoteMirror(FTPClientPool pool, FTPClientPoolKey key)
+			throws IllegalArgumentException {
+		if (pool == null) {
+			throw new IllegalArgumentException("Pool is null");
+		}
+		if (key == null) {
+			throw new IllegalArgumentException("Key is null");
+		}
+		this.pool = pool;
+		this.key = key;
+	}
+
+	/**
+	 * Returns the number of sessions used to transfer the files.
+	 * 
+	 * @return The number of sessions used to transfer the files.
+	 */
+	public int getSessions() {
+		synchronized (lock) {
+			return sessions;
+		}
+	}
+
+	/**
+	 * Sets the number of sessions used to transfer the files, that is the
+	 * number of files transferred at the same time. One more session is used
+	 * to compare the trees, so the pool limit for the key should be at least
+	 * this value plus one. Default is 4.
+	 * 
+	 * @param sessions
+	 *            The number of sessions.
+	 * @throws IllegalArgumentException
+	 *             If the value is less than 1.
+	 */
+	public void setSessions(int sessions) throws IllegalArgumentException {
+		if (sessions < 1) {
+			throw new IllegalArgumentException("Invalid sessions");
+		}
+		synchronized (lock) {
+			this.sessions = sessions;
+		}
+	}
+
+	/**
+	 * Returns the filter for the entries.
+	 * 
+	 * @return The filter for the entries, or null if every entry is accepted.
+	 */
+	public RemoteTreeFilter getFilter() {
+		synchronized (lock) {
+			return filter;
+		}
+	}
+
+	/**
+	 * Sets the filter for the entries. Rejected entries are neither
+	 * transferred nor deleted, and rejected directories are not mirrored. In
+	 * uploads the filter receives the local entries, described by
+	 * {@link FTPFile} objects, and the remote path they are mirrored to.
+	 * 
+	 * @param filter
+	 *            The filter, or null to accept every entry.
+	 * @see NameTreeFilter
+	 */
+	public void setFilter(RemoteTreeFilter filter) {
+		synchronized (lock) {
+			this.filter = filter;
+		}
+	}
+
+	/**
+	 * Checks whether the orphan entries are deleted.
+	 * 
+	 * @return true if the orphan entries are deleted.
+	 */
+	public boolean isDeleteOrphans() {
+		synchronized (lock) {
+			return deleteOrphans;
+		}
+	}
+
+	/**
+	 * Sets whether the entries of the destination tree which are missing in
+	 * the source tree (the orphans) have to be deleted, making the
+	 * destination an exact copy of the source. Default is false.
+	 * 
+	 * @param deleteOrphans
+	 *            true to delete the orphan entries.
+	 */
+	public void setDeleteOrphans(boolean deleteOrphans) {
+		synchronized (lock) {
+			this.deleteOrphans = deleteOrphans;
+		}
+	}
+
+	/**
+	 * Returns the tolerance in the comparison of dates.
+	 * 
+	 * @return The tolerance in the comparison of dates, in milliseconds.
+	 */
+	public long getTimeTolerance() {
+		synchronized (lock) {
+			return timeTolerance;
+		}
+	}
+
+	/**
+	 * Sets the tolerance in the comparison of dates. Two dates are considered
+	 * different only if they differ by more than this value. Default is 60000
+	 * (one minute), matching the precision of the LIST replies.
+	 * 
+	 * @param timeTolerance
+	 *            The tolerance in the comparison of dates, in milliseconds.
+	 * @throws IllegalArgumentException
+	 *             If the value is negative.
+	 */
+	public void setTimeTolerance(long timeTolerance)
+			throws IllegalArgumentException {
+		if (timeTolerance < 0) {
+			throw new IllegalArgumentException("Invalid time tolerance");
+		}
+		synchronized (lock) {
+			this.timeTolerance = timeTolerance;
+		}
+	}
+
+	/**
+	 * Mirrors a remote tree into a local directory, downloading the changed
+	 * files. The local directory is created if missing.
+	 * 
+	 * Calling this method blocks the current thread until the whole tree has
+	 * been mirrored. The operation stops at the first error: the transfers
+	 * already running on the other sessions are completed, then the error is
+	 * thrown.
+	 * 
+	 * @param remoteRoot
+	 *            The absolute path of the remote directory.
+	 * @param localRoot
+	 *            The local directory.
+	 * @return The result of the operation.
+	 * @throws IllegalArgumentException
+	 *             If a root is null.
+	 * @throws IllegalStateException
+	 *             If an operation is already running, or if the pool has been
+	 *             closed.
+	 * @throws IOException
+	 *             If an I/O error occurs, locally or with the server. An
+	 *             InterruptedIOException is thrown if the calling thread is
+	 *             interrupted.
+	 * @throws FTPIllegalReplyException
+	 *             If the server replies in an illegal way.
+	 * @throws FTPException
+	 *             If a remote operation fails.
+	 * @throws FTPDataTransferException
+	 *             If a I/O occurs in a data transfer connection.
+	 * @throws FTPAbortedException
+	 *             If a transfer is aborted.
+	 * @throws FTPListParseException
+	 *             If a listing cannot be parsed.
+	 */
+	public RemoteMirrorResult download(String remoteRoot, File localRoot)
+			throws IllegalArgumentException, IllegalStateException,
+			IOException, FTPIllegalReplyException, FTPException,
+			FTPDataTransferException, FTPAbortedException,
+			FTPListParseException {
+		return mirror(false, remoteRoot, localRoot);
+	}
+
+	/**
+	 * Mirrors a local directory into a remote tree, uploading the changed
+	 * files. The remote directory must exist; its subdirectories are created
+	 * if missing.
+	 * 
+	 * Calling this method blocks the current thread until the whole tree has
+	 * been mirrored. The operation stops at the first error: the transfers
+	 * already running on the other sessions are completed, then the error is
+	 * thrown.
+	 * 
+	 * @param localRoot
+	 *            The local directory.
+	 * @param remoteRoot
+	 *            The absolute path of the remote directory.
+	 * @return The result of the operation.
+	 * @throws IllegalArgumentException
+	 *             If a root is null.
+	 * @throws IllegalStateException
+	 *             If an operation is already running, or if the pool has been
+	 *             closed.
+	 * @throws IOException
+	 *             If an I/O error occurs, locally or with the server. An
+	 *             InterruptedIOException is thrown if the calling thread is
+	 *             interrupted.
+	 * @throws FTPIllegalReplyException
+	 *             If the server replies in an illegal way.
+	 * @throws FTPException
+	 *             If a remote operation fails.
+	 * @throws FTPDataTransferException
+	 *             If a I/O occurs in a data transfer connection.
+	 * @throws FTPAbortedException
+	 *             If a transfer is aborted.
+	 * @throws FTPListParseException
+	 *             If a listing cannot be parsed.
+	 */
+	public RemoteMirrorResult upload(File localRoot, String remoteRoot)
+			throws IllegalArgumentException, IllegalStateException,
+			IOException, FTPIllegalReplyException, FTPException,
+			FTPDataTransferException, FTPAbortedException,
+			FTPListParseException {
+		return mirror(true, remoteRoot, localRoot);
+	}
+
+	/**
+	 * Runs a mirror operation.
+	 * 
+	 * @param upload
+	 *            true to upload, false to download.
+	 * @param remoteRoot
+	 *            The absolute path of the remote directory.
+	 * @param localRoot
+	 *            The local directory.
+	 * @return The result of the operation.
+	 */
+	private RemoteMirrorResult mirror(final boolean upload, String remoteRoot,
+			File localRoot) throws IllegalArgumentException,
+			IllegalStateException, IOException, FTPIllegalReplyException,
+			FTPException, FTPDataTransferException, FTPAbortedException,
+			FTPListParseException {
+		if (remoteRoot == null) {
+			throw new IllegalArgumentException("Remote root is null");
+		}
+		if (localRoot == null) {
+			throw new IllegalArgumentException("Local root is null");
+		}
+		int count;
+		synchronized (lock) {
+			if (running) {
+				throw new IllegalStateException("Mirror already running");
+			}
+			running = true;
+			queue.clear();
+			queueSize = sessions * QUEUE_SIZE_PER_SESSION;
+			compared = false;
+			error = null;
+			transferredFiles = 0;
+			resumedFiles = 0;
+			transferredBytes = 0;
+			unchangedFiles = 0;
+			deletedEntries = 0;
+			count = sessions;
+		}
+		Thread[] threads = new Thread[count];
+		for (int i = 0; i < threads.length; i++) {
+			threads[i] = new Thread() {
+				public void run() {
+					work(upload);
+				}
+			};
+			threads[i].start();
+		}
+		// The calling thread compares the trees.
+		FTPClient client = null;
+		boolean reusable = true;
+		try {
+			client = pool.borrowClient(key);
+			// It could transfer files too (see enqueue()).
+			client.setType(FTPClient.TYPE_BINARY);
+			compare(client, upload, remoteRoot, localRoot);
+		} catch (FTPException e) {
+			// The client is still usable.
+			fail(e);
+		} catch (FTPListParseException e) {
+			// The client is still usable.
+			fail(e);
+		} catch (Throwable t) {
+			reusable = false;
+			fail(t);
+		} finally {
+			if (client != null) {
+				if (reusable) {
+					pool.returnClient(client);
+				} else {
+					pool.invalidateClient(client);
+				}
+			}
+			synchronized (lock) {
+				compared = true;
+				lock.notifyAll();
+			}
+		}
+		boolean interrupted = false;
+		for (int i = 0; i < threads.length; i++) {
+			try {
+				threads[i].join();
+			} catch (InterruptedException e) {
+				fail(new InterruptedIOException("Mirror interrupted"));
+				interrupted = true;
+				i--;
+			}
+		}
+		if (interrupted) {
+			Thread.currentThread().interrupt();
+		}
+		Throwable t;
+		RemoteMirrorResult result;
+		synchronized (lock) {
+			t = error;
+			result = new RemoteMirrorResult(transferredFiles, resumedFiles,
+					transferredBytes, unchangedFiles, deletedEntries);
+			queue.clear();
+			error = null;
+			running = false;
+		}
+		if (t == null) {
+			return result;
+		} else if (t instanceof IOException) {
+			throw (IOException) t;
+		} else if (t instanceof FTPIllegalReplyException) {
+			throw (FTPIllegalReplyException) t;
+		} else if (t instanceof FTPException) {
+			throw (FTPException) t;
+		} else if (t instanceof FTPDataTransferException) {
+			throw (FTPDataTransferException) t;
+		} else if (t instanceof FTPAbortedException) {
+			throw (FTPAbortedException) t;
+		} else if (t instanceof FTPListParseException) {
+			throw (FTPListParseException) t;
+		} else if (t instanceof RuntimeException) {
+			throw (RuntimeException) t;
+		} else if (t instanceof Error) {
+			throw (Error) t;
+		} else {
+			throw new IOException(t.toString());
+		}
+	}
+
+	/**
+	 * Compares the trees, depth-first, queuing the changed files.
+	 * 
+	 * @param client
+	 *            The client.
+	 * @param upload
+	 *            true to upload, false to download.
+	 * @param remoteRoot
+	 *            The absolute path of the remote directory.
+	 * @param localRoot
+	 *            The local directory.
+	 */
+	private void compare(FTPClient client, boolean upload, String remoteRoot,
+			File localRoot) throws IllegalStateException, IOException,
+			FTPIllegalReplyException, FTPException, FTPDataTransferException,
+			FTPAbortedException, FTPListParseException {
+		if (!upload && !localRoot.isDirectory() && !localRoot.mkdirs()) {
+			throw new IOException("Cannot create directory " + localRoot);
+		}
+		LinkedList directories = new LinkedList();
+		directories.add(new Directory(remoteRoot, localRoot, false));
+		while (!directories.isEmpty()) {
+			synchronized (lock) {
+				if (error != null) {
+					return;
+				}
+			}
+			Directory directory = (Directory) directories.removeLast();
+			if (upload) {
+				compareForUpload(client, directory, directories);
+			} else {
+				compareForDownload(client, directory, directories);
+			}
+		}
+	}
+
+	/**
+	 * Compares a remote directory with its local copy, queuing the downloads
+	 * and the subdirectories.
+	 * 
+	 * @param client
+	 *            The client.
+	 * @param directory
+	 *            The directory.
+	 * @param directories
+	 *            The directories still to be compared.
+	 */
+	private void compareForDownload(FTPClient client, Directory directory,
+			LinkedList directories) throws IllegalStateException,
+			IOException, FTPIllegalReplyException, FTPException,
+			FTPDataTransferException, FTPAbortedException,
+			FTPListParseException {
+		final String path = directory.remotePath;
+		final RemoteTreeFilter filter;
+		boolean deleteOrphans;
+		long tolerance;
+		synchronized (lock) {
+			filter = this.filter;
+			deleteOrphans = this.deleteOrphans;
+			tolerance = timeTolerance;
+		}
+		final LinkedHashMap entries = listRemote(client, path, filter);
+		for (Iterator i = entries.values().iterator(); i.hasNext();) {
+			FTPFile file = (FTPFile) i.next();
+			File local = new File(directory.local, file.getName());
+			if (file.getType() == FTPFile.TYPE_DIRECTORY) {
+				if (exists(local) && !isDirectory(local)) {
+					deleteLocal(local);
+				}
+				if (!isDirectory(local) && !local.mkdir()) {
+					throw new IOException("Cannot create directory " + local);
+				}
+				directories.add(new Directory(child(path, file.getName()),
+						local, false));
+			} else if (file.getType() == FTPFile.TYPE_FILE) {
+				if (exists(local) && !isFile(local)) {
+					deleteLocal(local);
+				}
+				long size = file.getSize();
+				Date date = file.getModifiedDate();
+				boolean changed;
+				long restartAt = 0;
+				if (!exists(local)) {
+					changed = true;
+				} else {
+					long length = local.length();
+					long lastModified = local.lastModified();
+					changed = (size >= 0 && length != size)
+							|| (date != null && Math.abs(lastModified
+									- date.getTime()) > tolerance);
+					if (changed && length < size && date != null
+							&& lastModified > date.getTime() + tolerance) {
+						// Written after the last change of the remote file.
+						restartAt = length;
+					}
+				}
+				if (changed) {
+					enqueue(client, false, new Transfer(path, local, restartAt,
+							date));
+				} else {
+					synchronized (lock) {
+						unchangedFiles++;
+					}
+				}
+			}
+		}
+		if (deleteOrphans) {
+			File[] files = directory.local.listFiles();
+			if (files == null) {
+				throw new IOException("Cannot list directory "
+						+ directory.local);
+			}
+			for (int i = 0; i < files.length; i++) {
+				if (!entries.containsKey(files[i].getName())
+						&& (filter == null || filter.accept(path,
+								localEntry(files[i])))) {
+					deleteLocal(files[i]);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Compares a local directory with its remote copy, queuing the uploads
+	 * and the subdirectories.
+	 * 
+	 * @param client
+	 *            The client.
+	 * @param directory
+	 *            The directory.
+	 * @param directories
+	 *            The directories still to be compared.
+	 */
+	private void compareForUpload(FTPClient client, Directory directory,
+			LinkedList directories) throws IllegalStateException,
+			IOException, FTPIllegalReplyException, FTPException,
+			FTPDataTransferException, FTPAbortedException,
+			FTPListParseException {
+		String path = directory.remotePath;
+		RemoteTreeFilter filter;
+		boolean deleteOrphans;
+		long tolerance;
+		synchronized (lock) {
+			filter = this.filter;
+			deleteOrphans = this.deleteOrphans;
+			tolerance = timeTolerance;
+		}
+		File[] files = directory.local.listFiles();
+		if (files == null) {
+			throw new IOException("Cannot list directory " + directory.local);
+		}
+		LinkedHashMap entries;
+		if (directory.created) {
+			// Nothing to compare with.
+			entries = new LinkedHashMap();
+		} else {
+			entries = listRemote(client, path, null);
+		}
+		HashSet names = new HashSet();
+		for (int i = 0; i < files.length; i++) {
+			String name = files[i].getName();
+			names.add(name);
+			if (filter != null && !filter.accept(path, localEntry(files[i]))) {
+				continue;
+			}
+			FTPFile remote = (FTPFile) entries.get(name);
+			String remotePath = child(path, name);
+			if (isDirectory(files[i])) {
+				boolean created = false;
+				if (remote != null && remote.getType() != FTPFile.TYPE_DIRECTORY) {
+					deleteRemote(client, remotePath, remote);
+					remote = null;
+				}
+				if (remote == null) {
+					client.createDirectory(remotePath);
+					created = true;
+				}
+				directories.add(new Directory(remotePath, files[i], created));
+			} else if (isFile(files[i])) {
+				if (remote != null && remote.getType() != FTPFile.TYPE_FILE) {
+					deleteRemote(client, remotePath, remote);
+					remote = null;
+				}
+				long length = files[i].length();
+				long lastModified = files[i].lastModified();
+				boolean changed;
+				long restartAt = 0;
+				if (remote == null) {
+					changed = true;
+				} else {
+					long size = remote.getSize();
+					Date date = remote.getModifiedDate();
+					changed = (size >= 0 && length != size)
+							|| (date != null && lastModified > date.getTime()
+									+ tolerance);
+					if (changed && size >= 0 && size < length && date != null
+							&& date.getTime() + tolerance >= lastModified) {
+						// Written after the last change of the local file.
+						restartAt = size;
+					}
+				}
+				if (changed) {
+					enqueue(client, true, new Transfer(path, files[i],
+							restartAt, null));
+				} else {
+					synchronized (lock) {
+						unchangedFiles++;
+					}
+				}
+			}
+		}
+		if (deleteOrphans) {
+			for (Iterator i = entries.values().iterator(); i.hasNext();) {
+				FTPFile remote = (FTPFile) i.next();
+				if (!names.contains(remote.getName())
+						&& (filter == null || filter.accept(path, remote))) {
+					deleteRemote(client, child(path, remote.getName()),
+							remote);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Lists a remote directory.
+	 * 
+	 * @param client
+	 *            The client.
+	 * @param path
+	 *            The absolute path of the directory.
+	 * @param filter
+	 *            The filter for the entries. Could be null.
+	 * @return The accepted entries, keyed by name.
+	 */
+	private LinkedHashMap listRemote(FTPClient client, final String path,
+			final RemoteTreeFilter filter) throws IllegalStateException,
+			IOException, FTPIllegalReplyException, FTPException,
+			FTPDataTransferException, FTPAbortedException,
+			FTPListParseException {
+		final LinkedHashMap entries = new LinkedHashMap();
+		client.changeDirectory(path);
+		client.list(null, new FTPFileVisitor() {
+			public boolean visit(FTPFile file) {
+				String name = file.getName();
+				if (name.equals(".") || name.equals("..")) {
+					return true;
+				}
+				if (filter == null || filter.accept(path, file)) {
+					entries.put(name, file);
+				}
+				return true;
+			}
+		});
+		return entries;
+	}
+
+	/**
+	 * Deletes a remote entry. A directory is deleted with all its contents.
+	 * 
+	 * @param client
+	 *            The client.
+	 * @param path
+	 *            The absolute path of the entry.
+	 * @param file
+	 *            The entry.
+	 */
+	private void deleteRemote(FTPClient client, String path, FTPFile file)
+			throws IllegalStateException, IOException,
+			FTPIllegalReplyException, FTPException, FTPDataTransferException,
+			FTPAbortedException, FTPListParseException {
+		if (file.getType() == FTPFile.TYPE_DIRECTORY) {
+			deleteRemoteContents(client, path);
+			client.deleteDirectory(path);
+		} else {
+			client.deleteFile(path);
+		}
+		synchronized (lock) {
+			deletedEntries++;
+		}
+	}
+
+	/**
+	 * Deletes the contents of a remote directory.
+	 * 
+	 * @param client
+	 *            The client.
+	 * @param path
+	 *            The absolute path of the directory.
+	 */
+	private void deleteRemoteContents(FTPClient client, String path)
+			throws IllegalStateException, IOException,
+			FTPIllegalReplyException, FTPException, FTPDataTransferException,
+			FTPAbortedException, FTPListParseException {
+		LinkedHashMap entries = listRemote(client, path, null);
+		for (Iterator i = entries.values().iterator(); i.hasNext();) {
+			FTPFile file = (FTPFile) i.next();
+			String aux = child(path, file.getName());
+			if (file.getType() == FTPFile.TYPE_DIRECTORY) {
+				deleteRemoteContents(client, aux);
+				client.deleteDirectory(aux);
+			} else {
+				client.deleteFile(aux);
+			}
+		}
+	}
+
+	/**
+	 * Deletes a local entry. A directory is deleted with all its contents.
+	 * 
+	 * @param file
+	 *            The entry.
+	 * @throws IOException
+	 *             If the entry cannot be deleted.
+	 */
+	private void deleteLocal(File file) throws IOException {
+		deleteLocalContents(file);
+		if (!file.delete()) {
+			throw new IOException("Cannot delete " + file);
+		}
+		synchronized (lock) {
+			deletedEntries++;
+		}
+	}
+
+	/**
+	 * Deletes the contents of a local directory, if the entry is a directory.
+	 * Links are not followed.
+	 * 
+	 * @param file
+	 *            The entry.
+	 * @throws IOException
+	 *             If an entry cannot be deleted.
+	 */
+	private void deleteLocalContents(File file) throws IOException {
+		File[] files = isDirectory(file) ? file.listFiles() : null;
+		if (files != null) {
+			for (int i = 0; i < files.length; i++) {
+				deleteLocalContents(files[i]);
+				if (!files[i].delete()) {
+					throw new IOException("Cannot delete " + files[i]);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Queues a transfer. If the queue is full, the transfer is done at once
+	 * with the client of the comparison: waiting for the sessions could
+	 * deadlock, since they could be waiting for that very client.
+	 * 
+	 * @param client
+	 *            The client of the comparison.
+	 * @param upload
+	 *            true to upload, false to download.
+	 * @param transfer
+	 *            The transfer.
+	 */
+	private void enqueue(FTPClient client, boolean upload, Transfer transfer)
+			throws IllegalStateException, IOException,
+			FTPIllegalReplyException, FTPException, FTPDataTransferException,
+			FTPAbortedException {
+		synchronized (lock) {
+			if (error != null) {
+				return;
+			}
+			if (queue.size() < queueSize) {
+				queue.addLast(transfer);
+				lock.notifyAll();
+				return;
+			}
+		}
+		if (upload) {
+			client.changeDirectory(transfer.remoteDirectory);
+		}
+		transfer(client, upload, transfer);
+	}
+
+	/**
+	 * The body of every transfer session: borrows a client, then transfers
+	 * files until the comparison is completed and the queue is exhausted.
+	 * 
+	 * @param upload
+	 *            true to upload, false to download.
+	 */
+	private void work(boolean upload) {
+		FTPClient client = null;
+		boolean reusable = true;
+		String currentDirectory = null;
+		try {
+			while (true) {
+				Transfer transfer;
+				synchronized (lock) {
+					while (error == null && queue.isEmpty() && !compared) {
+						try {
+							lock.wait();
+						} catch (InterruptedException e) {
+							fail(new InterruptedIOException(
+									"Mirror interrupted"));
+						}
+					}
+					if (error != null || queue.isEmpty()) {
+						return;
+					}
+					transfer = (Transfer) queue.removeFirst();
+				}
+				try {
+					if (client == null) {
+						client = pool.borrowClient(key);
+						// Sizes and restart points count bytes: no textual
+						// conversion. The pool restores the type on return.
+						client.setType(FTPClient.TYPE_BINARY);
+					}
+					if (upload
+							&& !transfer.remoteDirectory.equals(currentDirectory)) {
+						currentDirectory = null;
+						client.changeDirectory(transfer.remoteDirectory);
+						currentDirectory = transfer.remoteDirectory;
+					}
+					transfer(client, upload, transfer);
+				} catch (FTPException e) {
+					// The client is still usable.
+					fail(e);
+				} catch (Throwable t) {
+					reusable = false;
+					fail(t);
+				}
+			}
+		} finally {
+			if (client != null) {
+				if (reusable) {
+					pool.returnClient(client);
+				} else {
+					pool.invalidateClient(client);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Transfers a file. An upload is done in the current directory of the
+	 * client, which must be the remote directory of the transfer.
+	 * 
+	 * @param client
+	 *            The client.
+	 * @param upload
+	 *            true to upload, false to download.
+	 * @param transfer
+	 *            The transfer.
+	 */
+	private void transfer(FTPClient client, boolean upload, Transfer transfer)
+			throws IllegalStateException, IOException,
+			FTPIllegalReplyException, FTPException, FTPDataTransferException,
+			FTPAbortedException {
+		if (upload) {
+			client.upload(transfer.local, transfer.restartAt, null);
+		} else {
+			client.download(child(transfer.remoteDirectory,
+					transfer.local.getName()), transfer.local,
+					transfer.restartAt, null);
+			if (transfer.modifiedDate != null) {
+				transfer.local.setLastModified(transfer.modifiedDate.getTime());
+			}
+		}
+		synchronized (lock) {
+			transferredFiles++;
+			if (transfer.restartAt > 0) {
+				resumedFiles++;
+			}
+			transferredBytes += transfer.local.length() - transfer.restartAt;
+		}
+	}
+
+	/**
+	 * Records the first error of the operation.
+	 * 
+	 * @param t
+	 *            The error.
+	 */
+	private void fail(Throwable t) {
+		synchronized (lock) {
+			if (error == null) {
+				error = t;
+			}
+			lock.notifyAll();
+		}
+	}
+
+	/**
+	 * Describes a local entry as a {@link FTPFile}, so it can be given to the
+	 * filter.
+	 * 
+	 * @param file
+	 *            The local entry.
+	 * @return The description of the entry.
+	 */
+	private static FTPFile localEntry(File file) {
+		FTPFile ret = new FTPFile();
+		ret.setName(file.getName());
+		if (Files.isSymbolicLink(file.toPath())) {
+			ret.setType(FTPFile.TYPE_LINK);
+		} else if (isDirectory(file)) {
+			ret.setType(FTPFile.TYPE_DIRECTORY);
+		} else {
+			ret.setType(FTPFile.TYPE_FILE);
+			ret.setSize(file.length());
+		}
+		ret.setModifiedDate(new Date(file.lastModified()));
+		return ret;
+	}
+
+	/**
+	 * Checks if a local entry exists, without following links: a broken link
+	 * exists too.
+	 * 
+	 * @param file
+	 *            The local entry.
+	 * @return true if the entry exists.
+	 */
+	private static boolean exists(File file) {
+		return Files.exists(file.toPath(), LinkOption.NOFOLLOW_LINKS);
+	}
+
+	/**
+	 * Checks if a local entry is a directory, without following links.
+	 * 
+	 * @param file
+	 *            The local entry.
+	 * @return true if the entry is a directory, and not a link.
+	 */
+	private static boolean isDirectory(File file) {
+		return Files.isDirectory(file.toPath(), LinkOption.NOFOLLOW_LINKS);
+	}
+
+	/**
+	 * Checks if a local entry is a regular file, without following links.
+	 * 
+	 * @param file
+	 *            The local entry.
+	 * @return true if the entry is a regular file, and not a link.
+	 */
+	private static boolean isFile(File file) {
+		return Files.isRegularFile(file.toPath(), LinkOption.NOFOLLOW_LINKS);
+	}
+
+	/**
+	 * Builds the path of an entry.
+	 * 
+	 * @param parent
+	 *            The path of the parent directory.
+	 * @param name
+	 *            The name of the entry.
+	 * @return The path of the entry.
+	 */
+	private static String child(String parent, String name) {
+		if (parent.endsWith("/")) {
+			return parent + name;
+		} else {
+			return parent + "/" + name;
+		}
+	}
+
+	/**
+	 * A directory waiting to be compared.
+	 */
+	private static class Directory {
+
+		/**
+		 * The absolute path of the remote directory.
+		 */
+		private String remotePath;
+
+		/**
+		 * The local directory.
+		 */
+		private File local;
+
+		/**
+		 * True if the remote directory has just been created, so it is empty.
+		 */
+		private boolean created;
+
+		public Directory(String remotePath, File local, boolean created) {
+			this.remotePath = remotePath;
+			this.local = local;
+			this.created = created;
+		}
+
+	}
+
+	/**
+	 * A file waiting to be transferred.
+	 */
+	private static class Transfer {
+
+		/**
+		 * The absolute path of the remote directory.
+		 */
+		private String remoteDirectory;
+
+		/**
+		 * The local file.
+		 */
+		private File local;
+
+		/**
+		 * The position the transfer starts from.
+		 */
+		private long restartAt;
+
+		/**
+		 * The modification date of the remote file, set on the downloaded
+		 * file. Null in uploads.
+		 */
+		private Date modifiedDate;
+
+		public Transfer(String remoteDirectory, File local, long restartAt,
+				Date modifiedDate) {
+			this.remoteDirectory = remoteDirectory;
+			this.local = local;
+			this.restartAt = restartAt;
+			this.modifiedDate = modifiedDate;
+		}
+
+	}
+
+}
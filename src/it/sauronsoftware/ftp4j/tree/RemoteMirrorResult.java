@@ -0,0 +1,144 @@
+/*
+ * ftp4j - A pure Java FTP client library
+ * 
+ * Copyright (C) 2008-2010 Carlo Pelliccia (www.sauronsoftware.it)
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License version
+ * 2.1, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License 2.1 for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License version 2.1 along with this program.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+package it.sauronsoftware.ftp4j.tree;
+
+/**
+ * This class reports what a {@link RemoteMirror} has done to bring a tree up
+ * to date.
+ * 
+ * @author Carlo Pelliccia
+ * @since 1.7
+ * @see RemoteMirror
+ */
+public class RemoteMirrorResult {
+
+	/**
+	 * The number of transferred files, resumed ones included.
+	 */
+	private int transferredFiles;
+
+	/**
+	 * The number of files resumed from a previous partial transfer.
+	 */
+	private int resumedFiles;
+
+	/**
+	 * The number of transferred bytes.
+	 */
+	private long transferredBytes;
+
+	/**
+	 * The number of files already up to date.
+	 */
+	private int unchangedFiles;
+
+	/**
+	 * The number of deleted orphan entries.
+	 */
+	private int deletedEntries;
+
+	/**
+	 * Builds the result.
+	 * 
+	 * @param transferredFiles
+	 *            The number of transferred files, resumed ones included.
+	 * @param resumedFiles
+	 *            The number of files resumed from a previous partial transfer.
+	 * @param transferredBytes
+	 *            The number of transferred bytes.
+	 * @param unchangedFiles
+	 *            The number of files already up to date.
+	 * @param deletedEntries
+	 *            The number of deleted orphan entries.
+	 */
+	RemoteMirrorResult(int transferredFiles, int resumedFiles,
+			long transferredBytes, int unchangedFiles, int deletedEntries) {
+		this.transferredFiles = transferredFiles;
+		this.resumedFiles = resumedFiles;
+		this.transferredBytes = transferredBytes;
+		this.unchangedFiles = unchangedFiles;
+		this.deletedEntries = deletedEntries;
+	}
+
+	/**
+	 * Returns the number of transferred files, resumed ones included.
+	 * 
+	 * @return The number of transferred files.
+	 */
+	public int getTransferredFiles() {
+		return transferredFiles;
+	}
+
+	/**
+	 * Returns the number of files resumed from a previous partial transfer.
+	 * 
+	 * @return The number of resumed files.
+	 */
+	public int getResumedFiles() {
+		return resumedFiles;
+	}
+
+	/**
+	 * Returns the number of transferred bytes. The bytes skipped by resuming a
+	 * partial transfer are not counted.
+	 * 
+	 * @return The number of transferred bytes.
+	 */
+	public long getTransferredBytes() {
+		return transferredBytes;
+	}
+
+	/**
+	 * Returns the number of files already up to date, which have not been
+	 * transferred.
+	 * 
+	 * @return The number of files already up to date.
+	 */
+	public int getUnchangedFiles() {
+		return unchangedFiles;
+	}
+
+	/**
+	 * Returns the number of orphan files and directories deleted. A deleted
+	 * directory is counted once, regardless of its contents.
+	 * 
+	 * @return The number of deleted orphan entries.
+	 */
+	public int getDeletedEntries() {
+		return deletedEntries;
+	}
+
+	public String toString() {
+		StringBuffer buffer = new StringBuffer();
+		buffer.append(getClass().getName());
+		buffer.append(" [transferredFiles=");
+		buffer.append(transferredFiles);
+		buffer.append(", resumedFiles=");
+		buffer.append(resumedFiles);
+		buffer.append(", transferredBytes=");
+		buffer.append(transferredBytes);
+		buffer.append(", unchangedFiles=");
+		buffer.append(unchangedFiles);
+		buffer.append(", deletedEntries=");
+		buffer.append(deletedEntries);
+		buffer.append("]");
+		return buffer.toString();
+	}
+
+}
@@ -0,0 +1,48 @@
+/*
+ * ftp4j - A pure Java FTP client library
+ * 
+ * Copyright (C) 2008-2010 Carlo Pelliccia (www.sauronsoftware.it)
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License version
+ * 2.1, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License 2.1 for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License version 2.1 along with this program.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+package it.sauronsoftware.ftp4j.tree;
+
+import it.sauronsoftware.ftp4j.FTPFile;
+
+/**
+ * Implement this interface to select the entries seen by a
+ * {@link RemoteTreeWalker}. Rejected entries are not given to the visitor and,
+ * if they are directories, their contents are not walked.
+ * 
+ * Filters are called by the walker threads concurrently, so they have to be
+ * thread-safe.
+ * 
+ * @author Carlo Pelliccia
+ * @see RemoteTreeWalker#setFilter(RemoteTreeFilter)
+ * @since 1.7
+ */
+public interface RemoteTreeFilter {
+
+	/**
+	 * Tests an entry.
+	 * 
+	 * @param parent
+	 *            The absolute path of the directory containing the entry.
+	 * @param file
+	 *            The entry.
+	 * @return true if the entry is accepted.
+	 */
+	public boolean accept(String parent, FTPFile file);
+
+}
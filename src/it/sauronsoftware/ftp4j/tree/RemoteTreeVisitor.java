@@ -0,0 +1,49 @@
+/*
+ * ftp4j - A pure Java FTP client library
+ * 
+ * Copyright (C) 2008-2010 Carlo Pelliccia (www.sauronsoftware.it)
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License version
+ * 2.1, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License 2.1 for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License version 2.1 along with this program.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+package it.sauronsoftware.ftp4j.tree;
+
+import it.sauronsoftware.ftp4j.FTPFile;
+
+/**
+ * This interface describes the methods requested by an object that can
+ * receive the entries found by a {@link RemoteTreeWalker}.
+ * 
+ * The walker never calls the visitor concurrently, even when it lists more
+ * directories at the same time, so implementations don't need to be
+ * thread-safe.
+ * 
+ * @author Carlo Pelliccia
+ * @see RemoteTreeWalker#walk(String, RemoteTreeVisitor)
+ * @since 1.7
+ */
+public interface RemoteTreeVisitor {
+
+	/**
+	 * Called once for every entry accepted by the walker filter.
+	 * 
+	 * @param parent
+	 *            The absolute path of the directory containing the entry.
+	 * @param file
+	 *            The entry.
+	 * @return If the entry is a directory, true to walk into it, false to
+	 *         skip its contents. The value is ignored for the other entries.
+	 */
+	public boolean visit(String parent, FTPFile file);
+
+}
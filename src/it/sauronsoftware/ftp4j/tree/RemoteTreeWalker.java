@@ -0,0 +1,512 @@
+/*
+ * ftp4j - A pure Java FTP client library
+ * 
+ * Copyright (C) 2008-2010 Carlo Pelliccia (www.sauronsoftware.it)
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License version
+ * 2.1, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License 2.1 for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License version 2.1 along with this program.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+package it.sauronsoftware.ftp4j.tree;
+
+import it.sauronsoftware.ftp4j.FTPAbortedException;
+import it.sauronsoftware.ftp4j.FTPClient;
+import it.sauronsoftware.ftp4j.FTPDataTransferException;
+import it.sauronsoftware.ftp4j.FTPException;
+import it.sauronsoftware.ftp4j.FTPFile;
+import it.sauronsoftware.ftp4j.FTPFileVisitor;
+import it.sauronsoftware.ftp4j.FTPIllegalReplyException;
+import it.sauronsoftware.ftp4j.FTPListParseException;
+import it.sauronsoftware.ftp4j.pool.FTPClientPool;
+import it.sauronsoftware.ftp4j.pool.FTPClientPoolKey;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.LinkedList;
+
+/**
+ * This class walks a remote directory tree, breadth-first, listing more
+ * directories at the same time over a set of sessions borrowed from a
+ * {@link FTPClientPool}.
+ * 
+ * On large trees the time spent on every directory is dominated by the round
+ * trips of the CWD and LIST commands and by the opening of the data transfer
+ * connection, rather than by the listing itself. Listing N directories in
+ * parallel on N sessions cuts the overall time by nearly the same factor.
+ * 
+ * The directories are listed with {@link FTPClient#list(String, FTPFileVisitor)}
+ * so the entries are never held in memory, apart from the directories still
+ * to be walked. The clients use MLSD when the server supports it, and LIST
+ * with the parser selected on the first listing otherwise.
+ * 
+ * <pre>
+ * RemoteTreeWalker walker = new RemoteTreeWalker(pool, key);
+ * walker.setSessions(8);
+ * walker.setMaxDepth(3);
+ * walker.setFilter(new NameTreeFilter(&quot;.*\\.zip&quot;));
+ * walker.walk(&quot;/pub&quot;, new RemoteTreeVisitor() {
+ * 	public boolean visit(String parent, FTPFile file) {
+ * 		System.out.println(parent + &quot;/&quot; + file.getName());
+ * 		return true;
+ * 	}
+ * });
+ * </pre>
+ * 
+ * Links are reported to the visitor, but they are never followed. A walker
+ * can be reused, but it runs a single walk at a time.
+ * 
+ * @author Carlo Pelliccia
+ * @since 1.7
+ */
+public class RemoteTreeWalker {
+
+	/**
+	 * The pool the sessions are borrowed from.
+	 */
+	private FTPClientPool pool;
+
+	/**
+	 * The key of the sessions.
+	 */
+	private FTPClientPoolKey key;
+
+	/**
+	 * The number of sessions used to walk the tree.
+	 */
+	private int sessions = 4;
+
+	/**
+	 * The maximum depth of the walk. A value less or equal than 0 means no
+	 * limit.
+	 */
+	private int maxDepth = 0;
+
+	/**
+	 * The filter for the entries. Could be null.
+	 */
+	private RemoteTreeFilter filter = null;
+
+	/**
+	 * The visitor of the ongoing walk.
+	 */
+	private RemoteTreeVisitor visitor;
+
+	/**
+	 * The directories still to be listed.
+	 */
+	private LinkedList queue = new LinkedList();
+
+	/**
+	 * The number of directories being listed right now.
+	 */
+	private int active = 0;
+
+	/**
+	 * The first error occurred in the ongoing walk, if any.
+	 */
+	private Throwable error = null;
+
+	/**
+	 * This flag turns to true while a walk is running.
+	 */
+	private boolean walking = false;
+
+	/**
+	 * Lock object used for synchronization.
+	 */
+	private Object lock = new Object();
+
+	/**
+	 * Lock object used to serialize the calls to the visitor.
+	 */
+	private Object visitorLock = new Object();
+
+	/**
+	 * Builds the walker.
+	 * 
+	 * @param pool
+	 *            The pool the sessions are borrowed from.
+	 * @param key
+	 *            The key of the sessions.
+	 * @throws IllegalArgumentException
+	 *             If the pool or the key is null.
+	 */
+	public RemoteTreeWalker(FTPClientPool pool, FTPClientPoolKey key)
+			throws IllegalArgumentException {
+		if (pool == null) {
+			throw new IllegalArgumentException("Pool is null");
+		}
+		if (key == null) {
+			throw new IllegalArgumentException("Key is null");
+		}
+		this.pool = pool;
+		this.key = key;
+	}
+
+	/**
+	 * Returns the number of sessions used to walk the tree.
+	 * 
+	 * @return The number of sessions used to walk the tree.
+	 */
+	public int getSessions() {
+		synchronized (lock) {
+			return sessions;
+		}
+	}
+
+	/**
+	 * Sets the number of sessions used to walk the tree, that is the number of
+	 * directories listed at the same time. The pool limit for the key should
+	 * be at least this value. Default is 4.
+	 * 
+	 * @param sessions
+	 *            The number of sessions.
+	 * @throws IllegalArgumentException
+	 *             If the value is less than 1.
+	 */
+	public void setSessions(int sessions) throws IllegalArgumentException {
+		if (sessions < 1) {
+			throw new IllegalArgumentException("Invalid sessions");
+		}
+		synchronized (lock) {
+			this.sessions = sessions;
+		}
+	}
+
+	/**
+	 * Returns the maximum depth of the walk.
+	 * 
+	 * @return The maximum depth of the walk, or a value less or equal than 0
+	 *         if there is no limit.
+	 */
+	public int getMaxDepth() {
+		synchronized (lock) {
+			return maxDepth;
+		}
+	}
+
+	/**
+	 * Sets the maximum depth of the walk. The entries of the root directory
+	 * have depth 1, the entries of its subdirectories have depth 2 and so on.
+	 * Directories at the maximum depth are visited, but not walked. A value
+	 * less or equal than 0 means no limit. Default is 0.
+	 * 
+	 * @param maxDepth
+	 *            The maximum depth of the walk.
+	 */
+	public void setMaxDepth(int maxDepth) {
+		synchronized (lock) {
+			this.maxDepth = maxDepth;
+		}
+	}
+
+	/**
+	 * Returns the filter for the entries.
+	 * 
+	 * @return The filter for the entries, or null if every entry is accepted.
+	 */
+	public RemoteTreeFilter getFilter() {
+		synchronized (lock) {
+			return filter;
+		}
+	}
+
+	/**
+	 * Sets the filter for the entries. Rejected entries are not visited, and
+	 * rejected directories are not walked.
+	 * 
+	 * @param filter
+	 *            The filter, or null to accept every entry.
+	 * @see NameTreeFilter
+	 */
+	public void setFilter(RemoteTreeFilter filter) {
+		synchronized (lock) {
+			this.filter = filter;
+		}
+	}
+
+	/**
+	 * Walks a remote tree. The entries are given to the visitor as soon as
+	 * they are listed; the root directory itself is not visited.
+	 * 
+	 * Calling this method blocks the current thread until the whole tree has
+	 * been walked. The walk stops at the first error: the directories already
+	 * being listed by the other sessions are completed, then the error is
+	 * thrown.
+	 * 
+	 * @param root
+	 *            The absolute path of the root directory.
+	 * @param visitor
+	 *            The visitor receiving the entries.
+	 * @throws IllegalStateException
+	 *             If a walk is already running, or if the pool has been
+	 *             closed.
+	 * @throws IOException
+	 *             If an I/O error occurs. An InterruptedIOException is thrown
+	 *             if the calling thread is interrupted.
+	 * @throws FTPIllegalReplyException
+	 *             If the server replies in an illegal way.
+	 * @throws FTPException
+	 *             If a directory cannot be listed.
+	 * @throws FTPDataTransferException
+	 *             If a I/O occurs in a data transfer connection.
+	 * @throws FTPAbortedException
+	 *             If a listing is aborted.
+	 * @throws FTPListParseException
+	 *             If a listing cannot be parsed.
+	 */
+	public void walk(String root, RemoteTreeVisitor visitor)
+			throws IllegalStateException, IOException,
+			FTPIllegalReplyException, FTPException, FTPDataTransferException,
+			FTPAbortedException, FTPListParseException {
+		int count;
+		synchronized (lock) {
+			if (walking) {
+				throw new IllegalStateException("Walk already running");
+			}
+			walking = true;
+			this.visitor = visitor;
+			queue.clear();
+			queue.add(new Directory(root, 0));
+			active = 0;
+			error = null;
+			count = sessions;
+		}
+		Thread[] threads = new Thread[count - 1];
+		for (int i = 0; i < threads.length; i++) {
+			threads[i] = new Thread() {
+				public void run() {
+					work();
+				}
+			};
+			threads[i].start();
+		}
+		// The calling thread is a session too.
+		work();
+		boolean interrupted = false;
+		for (int i = 0; i < threads.length; i++) {
+			try {
+				threads[i].join();
+			} catch (InterruptedException e) {
+				fail(new InterruptedIOException("Walk interrupted"));
+				interrupted = true;
+				i--;
+			}
+		}
+		if (interrupted) {
+			Thread.currentThread().interrupt();
+		}
+		Throwable t;
+		synchronized (lock) {
+			t = error;
+			queue.clear();
+			error = null;
+			this.visitor = null;
+			walking = false;
+		}
+		if (t == null) {
+			return;
+		} else if (t instanceof IOException) {
+			throw (IOException) t;
+		} else if (t instanceof FTPIllegalReplyException) {
+			throw (FTPIllegalReplyException) t;
+		} else if (t instanceof FTPException) {
+			throw (FTPException) t;
+		} else if (t instanceof FTPDataTransferException) {
+			throw (FTPDataTransferException) t;
+		} else if (t instanceof FTPAbortedException) {
+			throw (FTPAbortedException) t;
+		} else if (t instanceof FTPListParseException) {
+			throw (FTPListParseException) t;
+		} else if (t instanceof RuntimeException) {
+			throw (RuntimeException) t;
+		} else if (t instanceof Error) {
+			throw (Error) t;
+		} else {
+			throw new IOException(t.toString());
+		}
+	}
+
+	/**
+	 * The body of every session: borrows a client, then lists directories
+	 * until the queue is exhausted. The client is borrowed before taking any
+	 * directory, so a session waiting for a client of a busy pool is not
+	 * counted as active, and the sessions holding a client don't wait for it.
+	 */
+	private void work() {
+		FTPClient client = null;
+		boolean reusable = true;
+		try {
+			while (true) {
+				if (client == null) {
+					synchronized (lock) {
+						if (error != null || (queue.isEmpty() && active == 0)) {
+							return;
+						}
+					}
+					try {
+						client = pool.borrowClient(key);
+					} catch (Throwable t) {
+						fail(t);
+						return;
+					}
+				}
+				Directory directory;
+				synchronized (lock) {
+					while (error == null && queue.isEmpty() && active > 0) {
+						try {
+							lock.wait();
+						} catch (InterruptedException e) {
+							fail(new InterruptedIOException("Walk interrupted"));
+						}
+					}
+					if (error != null || queue.isEmpty()) {
+						return;
+					}
+					directory = (Directory) queue.removeFirst();
+					active++;
+				}
+				try {
+					list(client, directory);
+				} catch (FTPException e) {
+					// The client is still usable.
+					fail(e);
+				} catch (FTPListParseException e) {
+					// The client is still usable.
+					fail(e);
+				} catch (Throwable t) {
+					reusable = false;
+					fail(t);
+				} finally {
+					synchronized (lock) {
+						active--;
+						lock.notifyAll();
+					}
+				}
+			}
+		} finally {
+			if (client != null) {
+				if (reusable) {
+					pool.returnClient(client);
+				} else {
+					pool.invalidateClient(client);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Lists a directory, visiting its entries and queuing its subdirectories.
+	 * 
+	 * @param client
+	 *            The client.
+	 * @param directory
+	 *            The directory.
+	 */
+	private void list(FTPClient client, Directory directory)
+			throws IllegalStateException, IOException,
+			FTPIllegalReplyException, FTPException, FTPDataTransferException,
+			FTPAbortedException, FTPListParseException {
+		final String path = directory.path;
+		final int depth = directory.depth + 1;
+		final RemoteTreeFilter filter;
+		final boolean descend;
+		synchronized (lock) {
+			filter = this.filter;
+			descend = maxDepth <= 0 || depth < maxDepth;
+		}
+		final ArrayList subdirectories = new ArrayList();
+		client.changeDirectory(path);
+		client.list(null, new FTPFileVisitor() {
+			public boolean visit(FTPFile file) {
+				String name = file.getName();
+				if (name.equals(".") || name.equals("..")) {
+					return true;
+				}
+				if (filter != null && !filter.accept(path, file)) {
+					return true;
+				}
+				boolean walk;
+				synchronized (visitorLock) {
+					walk = visitor.visit(path, file);
+				}
+				if (walk && descend
+						&& file.getType() == FTPFile.TYPE_DIRECTORY) {
+					subdirectories.add(new Directory(child(path, name), depth));
+				}
+				synchronized (lock) {
+					// Stops listing if another session failed.
+					return error == null;
+				}
+			}
+		});
+		synchronized (lock) {
+			queue.addAll(subdirectories);
+		}
+	}
+
+	/**
+	 * Records the first error of the walk.
+	 * 
+	 * @param t
+	 *            The error.
+	 */
+	private void fail(Throwable t) {
+		synchronized (lock) {
+			if (error == null) {
+				error = t;
+			}
+			lock.notifyAll();
+		}
+	}
+
+	/**
+	 * Builds the path of an entry.
+	 * 
+	 * @param parent
+	 *            The path of the parent directory.
+	 * @param name
+	 *            The name of the entry.
+	 * @return The path of the entry.
+	 */
+	private static String child(String parent, String name) {
+		if (parent.endsWith("/")) {
+			return parent + name;
+		} else {
+			return parent + "/" + name;
+		}
+	}
+
+	/**
+	 * A directory waiting to be listed.
+	 */
+	private static class Directory {
+
+		/**
+		 * The absolute path of the directory.
+		 */
+		private String path;
+
+		/**
+		 * The depth of the directory (0 for the root).
+		 */
+		private int depth;
+
+		public Directory(String path, int depth) {
+			this.path = path;
+			this.depth = depth;
+		}
+
+	}
+
+}